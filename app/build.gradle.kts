@@ -1,5 +1,8 @@
 import java.util.Properties
 import java.io.FileInputStream
+import groovy.json.JsonSlurper
+import com.example.mypoject1.CoachIndex
+import com.example.mypoject1.CoachIndexWriter
 
 val localProps = Properties().apply {
     val localFile = rootProject.file("local.properties")
@@ -50,10 +53,71 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    androidResources {
+        // The coach index is memory-mapped straight from the APK
+        noCompress += "idx"
+    }
+}
+
+/**
+ * Compiles the running coach data (JSON arrays of records in src/main/coachData) into the binary
+ * retrieval index read by CoachIndex. The analysis and the layout are CoachIndexWriter's, from the
+ * coachindex project (compiled into buildSrc), so the app reads the index with the code that wrote
+ * it. Each record becomes one document: its fields flattened to "key: value" lines.
+ */
+abstract class CompileCoachIndexTask : DefaultTask() {
+
+    @get:InputDirectory
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val sourceDir: DirectoryProperty
+
+    @get:OutputDirectory
+    abstract val outputDir: DirectoryProperty
+
+    @TaskAction
+    fun compile() {
+        val root = sourceDir.get().asFile
+        val documents = root.walkTopDown()
+            .filter { it.isFile && it.extension == "json" }
+            .sortedBy { it.relativeTo(root).invariantSeparatorsPath }
+            .flatMap { file -> (JsonSlurper().parse(file) as List<*>).asSequence() }
+            .map { record -> documentText(record) }
+            .toList()
+        val output = outputDir.get().file(CoachIndex.ASSET).asFile
+        output.writeBytes(CoachIndexWriter.write(documents))
+        logger.info("Coach index: ${documents.size} documents, ${output.length()} bytes")
+    }
+
+    private fun documentText(record: Any?): String {
+        if (record !is Map<*, *>) return record.toString()
+        val lines = mutableListOf<String>()
+        flatten("", record, lines)
+        return lines.joinToString("\n")
+    }
+
+    private fun flatten(key: String, value: Any?, lines: MutableList<String>) {
+        when (value) {
+            null -> {}
+            is Map<*, *> -> value.forEach { (name, child) -> flatten(if (key.isEmpty()) "$name" else "$key $name", child, lines) }
+            is List<*> -> lines += "$key: ${value.filterNotNull().joinToString(", ")}"
+            else -> lines += "$key: $value"
+        }
+    }
+}
+
+val compileCoachIndex = tasks.register<CompileCoachIndexTask>("compileCoachIndex") {
+    sourceDir.set(layout.projectDirectory.dir("src/main/coachData"))
+}
+
+androidComponents {
+    onVariants { variant ->
+        variant.sources.assets?.addGeneratedSourceDirectory(compileCoachIndex, CompileCoachIndexTask::outputDir)
+    }
 }
 
 dependencies {
     // Core dependencies
+    implementation(project(":coachindex"))
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.activity)
@@ -0,0 +1,349 @@
+package com.example.mypoject1;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * AccelerometerRingBuffer
+ * <p>
+ * A fixed-capacity ring buffer for raw accelerometer samples. Each sample is stored as primitive
+ * x/y/z floats and a long timestamp in parallel arrays, so recording a sample never allocates.
+ * The ring is split into equally sized segments; whenever a segment fills up it is spilled to an
+ * append-only file on disk before the ring wraps around and overwrites it. Memory use therefore
+ * stays constant no matter how long the workout runs, while the full history remains on disk for
+ * later analysis.
+ * </p>
+ *
+ * <p>
+ * Spill file layout (big-endian), repeated once per spilled block (a full segment, or the tail
+ * written by {@link #flush()}):
+ * <ul>
+ *   <li>int: number of samples in the segment</li>
+ *   <li>per sample: long timestamp (ns), float x, float y, float z</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe; all calls must come from the thread that delivers sensor events.
+ * </p>
+ */
+public class AccelerometerRingBuffer {
+
+    // Bytes used by a single sample in the spill file: long + 3 floats
+    public static final int SAMPLE_BYTES = 8 + 4 * 3;
+
+    // Parallel primitive storage for the in-memory window
+    private final float[] xs;
+    private final float[] ys;
+    private final float[] zs;
+    private final long[] timestamps;
+
+    // Ring geometry
+    private final int capacity;
+    private final int segmentSize;
+
+    // Write position and number of valid samples currently held in memory
+    private int head = 0;
+    private int size = 0;
+    // Total samples ever recorded since the last clear()
+    private long totalSamples = 0;
+    // Samples that have been written to disk since the last clear()
+    private long spilledSamples = 0;
+    // Samples of the current (incomplete) segment that flush() already wrote to disk
+    private int segmentFlushed = 0;
+    // Segments that could not be written to disk (their samples were lost from the history)
+    private int failedSegments = 0;
+
+    // Spill target and a reusable buffer sized for exactly one segment
+    private File spillFile;
+    private final ByteBuffer spillBuffer;
+    private RandomAccessFile spillRaf;
+    private FileChannel spillChannel;
+
+    /**
+     * Creates a ring buffer that keeps {@code segmentCount * segmentSize} samples in memory and
+     * spills each completed segment to the given file.
+     *
+     * @param spillFile    File used to persist completed segments, or null to keep memory only.
+     * @param segmentSize  Number of samples per segment.
+     * @param segmentCount Number of segments kept in memory (at least 2).
+     */
+    public AccelerometerRingBuffer(File spillFile, int segmentSize, int segmentCount) {
+        if (segmentSize <= 0 || segmentCount < 2) {
+            throw new IllegalArgumentException("segmentSize must be > 0 and segmentCount >= 2");
+        }
+        this.segmentSize = segmentSize;
+        this.capacity = segmentSize * segmentCount;
+        this.xs = new float[capacity];
+        this.ys = new float[capacity];
+        this.zs = new float[capacity];
+        this.timestamps = new long[capacity];
+        this.spillFile = spillFile;
+        // Allocate the spill buffer once; it is reused for every segment
+        this.spillBuffer = ByteBuffer.allocateDirect(4 + segmentSize * SAMPLE_BYTES).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * add
+     * <p>
+     * Records a single accelerometer sample. When the write position reaches the end of a segment,
+     * that segment is spilled to disk so it can safely be overwritten on the next lap of the ring.
+     * </p>
+     *
+     * @param x           Acceleration on the x axis (m/s^2).
+     * @param y           Acceleration on the y axis (m/s^2).
+     * @param z           Acceleration on the z axis (m/s^2).
+     * @param timestampNs Sensor event timestamp in nanoseconds.
+     */
+    public void add(float x, float y, float z, long timestampNs) {
+        xs[head] = x;
+        ys[head] = y;
+        zs[head] = z;
+        timestamps[head] = timestampNs;
+        head++;
+        totalSamples++;
+        if (size < capacity) {
+            size++;
+        }
+        // A segment has just been completed: persist it before the ring can overwrite it
+        if (head % segmentSize == 0) {
+            spillSegment(head - segmentSize + segmentFlushed, segmentSize - segmentFlushed);
+            segmentFlushed = 0;
+            if (head == capacity) {
+                head = 0;
+            }
+        }
+    }
+
+    /**
+     * flush
+     * <p>
+     * Spills the partially filled current segment (if any) so the file on disk contains every
+     * sample recorded so far. Intended to be called when a workout ends.
+     * </p>
+     */
+    public void flush() {
+        int pending = head % segmentSize - segmentFlushed;
+        if (pending > 0) {
+            spillSegment(head - pending, pending);
+            // Remember what was written so the segment is not persisted twice once it completes
+            segmentFlushed += pending;
+        }
+        if (spillChannel != null) {
+            try {
+                spillChannel.force(false);
+            } catch (IOException e) {
+                failedSegments++;
+            }
+        }
+    }
+
+    /**
+     * spillSegment
+     * <p>
+     * Serializes {@code count} samples starting at {@code start} into the reusable buffer and
+     * appends them to the spill file. Failures are counted rather than thrown so a full disk never
+     * interrupts sensor delivery.
+     * </p>
+     */
+    private void spillSegment(int start, int count) {
+        if (spillFile == null || count == 0) {
+            return;
+        }
+        try {
+            ensureSpillChannel();
+            spillBuffer.clear();
+            spillBuffer.putInt(count);
+            for (int i = start; i < start + count; i++) {
+                spillBuffer.putLong(timestamps[i]);
+                spillBuffer.putFloat(xs[i]);
+                spillBuffer.putFloat(ys[i]);
+                spillBuffer.putFloat(zs[i]);
+            }
+            spillBuffer.flip();
+            while (spillBuffer.hasRemaining()) {
+                spillChannel.write(spillBuffer);
+            }
+            spilledSamples += count;
+        } catch (IOException e) {
+            failedSegments++;
+        }
+    }
+
+    /**
+     * Lazily opens the spill file in append mode.
+     */
+    private void ensureSpillChannel() throws IOException {
+        if (spillChannel == null) {
+            spillRaf = new RandomAccessFile(spillFile, "rw");
+            spillChannel = spillRaf.getChannel();
+            spillChannel.position(spillChannel.size());
+        }
+    }
+
+    /**
+     * clear
+     * <p>
+     * Drops all in-memory samples and truncates the spill file, preparing the buffer for a new workout.
+     * </p>
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+        totalSamples = 0;
+        spilledSamples = 0;
+        segmentFlushed = 0;
+        failedSegments = 0;
+        if (spillChannel != null) {
+            try {
+                spillChannel.truncate(0);
+                spillChannel.position(0);
+            } catch (IOException e) {
+                failedSegments++;
+            }
+        } else if (spillFile != null && spillFile.exists()) {
+            // Remove leftovers from a previous process
+            spillFile.delete();
+        }
+    }
+
+    /**
+     * setSpillFile
+     * <p>
+     * Drops all samples, deletes the current spill file and continues spilling into another file, so
+     * each workout gets its own file (see {@link WorkoutJournal#getAccelerometerFile}).
+     * </p>
+     *
+     * @param file The new spill file, or null to keep samples in memory only.
+     */
+    public void setSpillFile(File file) {
+        close();
+        if (spillFile != null) {
+            spillFile.delete();
+        }
+        spillFile = file;
+        clear();
+    }
+
+    /**
+     * detachSpillFile
+     * <p>
+     * Flushes the current segment, releases the spill file handle (see {@link #close()}) and moves the
+     * spill file to {@code destination}, so it survives the next {@link #clear()}. Recording continues:
+     * the next spill creates a new file at the original path.
+     * </p>
+     *
+     * @param destination Where to move the samples recorded so far; its directory must exist.
+     * @return True if the samples were moved.
+     */
+    public boolean detachSpillFile(File destination) {
+        flush();
+        close();
+        return spillFile != null && spillFile.exists() && spillFile.renameTo(destination);
+    }
+
+    /**
+     * close
+     * <p>
+     * Releases the spill file handle. The buffer stays usable: the next spill reopens the file, or
+     * creates it if it was moved away, and appends to it.
+     * </p>
+     */
+    public void close() {
+        try {
+            if (spillRaf != null) {
+                spillRaf.close();
+            }
+        } catch (IOException ignored) {
+            // Nothing useful to do if closing fails
+        } finally {
+            spillRaf = null;
+            spillChannel = null;
+        }
+    }
+
+    /**
+     * Returns the number of samples currently held in memory (at most the ring capacity).
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the in-memory capacity in samples.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the total number of samples recorded since the last clear.
+     */
+    public long getTotalSamples() {
+        return totalSamples;
+    }
+
+    /**
+     * Returns the number of samples persisted to the spill file since the last clear.
+     */
+    public long getSpilledSamples() {
+        return spilledSamples;
+    }
+
+    /**
+     * Returns the number of segments that failed to spill to disk since the last clear.
+     */
+    public int getFailedSegments() {
+        return failedSegments;
+    }
+
+    /**
+     * Returns the spill file, or null when the buffer is memory only.
+     */
+    public File getSpillFile() {
+        return spillFile;
+    }
+
+    /**
+     * Converts an age index (0 = oldest sample in memory) into a physical ring index.
+     */
+    private int indexOf(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("index " + i + " size " + size);
+        }
+        int oldest = size < capacity ? 0 : head;
+        return (oldest + i) % capacity;
+    }
+
+    /**
+     * Returns the x value of the i-th oldest sample held in memory.
+     */
+    public float getX(int i) {
+        return xs[indexOf(i)];
+    }
+
+    /**
+     * Returns the y value of the i-th oldest sample held in memory.
+     */
+    public float getY(int i) {
+        return ys[indexOf(i)];
+    }
+
+    /**
+     * Returns the z value of the i-th oldest sample held in memory.
+     */
+    public float getZ(int i) {
+        return zs[indexOf(i)];
+    }
+
+    /**
+     * Returns the timestamp (ns) of the i-th oldest sample held in memory.
+     */
+    public long getTimestamp(int i) {
+        return timestamps[indexOf(i)];
+    }
+}
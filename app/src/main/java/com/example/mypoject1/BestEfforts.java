@@ -0,0 +1,153 @@
+package com.example.mypoject1;
+
+import java.util.Arrays;
+
+/**
+ * BestEfforts
+ * <p>
+ * Finds a workout's fastest segment for each of the standard distances in {@link #DISTANCES_M}
+ * (1 km, 1 mile, 5 km, 10 km, half and full marathon). The input is the cumulative distance and time
+ * series of the route; one pass advances a trailing pointer per distance, so the whole search is
+ * O(points x distances) with no allocation beyond the two series. The start of the fastest segment is
+ * interpolated between points, so the result does not depend on where GPS fixes happen to fall.
+ * </p>
+ *
+ * <p>
+ * Results are arrays aligned with {@link #DISTANCES_M}, holding the best time in milliseconds or
+ * {@link #NONE} for a distance the workout did not cover. They are stored next to the workout by
+ * {@link WorkoutDatabase}; personal records are the minimum per distance over a user's workouts.
+ * </p>
+ */
+public final class BestEfforts {
+
+    /** Standard distances in meters. */
+    public static final double[] DISTANCES_M = {1000, 1609.344, 5000, 10_000, 21_097.5, 42_195};
+    /** Keys of the standard distances, used in the database and in Firestore documents. */
+    public static final String[] KEYS = {"1k", "1mi", "5k", "10k", "half", "marathon"};
+    /** Marks a distance the workout did not cover. */
+    public static final long NONE = -1;
+
+    // Mean Earth radius for the haversine distance
+    private static final double EARTH_RADIUS_M = 6_371_008.8;
+    // Faster than any runner's sprint (m/s); a fix implying more is a GPS jump
+    private static final double MAX_PLAUSIBLE_SPEED_MPS = 12.5;
+
+    private BestEfforts() {
+    }
+
+    /**
+     * Returns an array of {@link #NONE} aligned with {@link #DISTANCES_M}.
+     */
+    public static long[] empty() {
+        long[] efforts = new long[DISTANCES_M.length];
+        Arrays.fill(efforts, NONE);
+        return efforts;
+    }
+
+    /**
+     * Returns the index of a key in {@link #KEYS}, or -1.
+     */
+    public static int indexOf(String key) {
+        for (int i = 0; i < KEYS.length; i++) {
+            if (KEYS[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * fromRoute
+     * <p>
+     * Computes the best efforts of a recorded route, using the haversine distance between fixes.
+     * Fixes with poor accuracy never reach the route ({@link RouteRecorder} drops them), but a fix can
+     * still jump away and back; a fix that would mean moving faster than
+     * {@link #MAX_PLAUSIBLE_SPEED_MPS} from the last accepted one, or that is not later than it, is
+     * skipped so the jump does not add distance and produce a record nobody ran.
+     * </p>
+     *
+     * @param route The route; points must be in time order.
+     * @return Best times aligned with {@link #DISTANCES_M}.
+     */
+    public static long[] fromRoute(RouteStore route) {
+        int capacity = route.size();
+        double[] distance = new double[capacity];
+        long[] time = new long[capacity];
+        RouteStore.Cursor cursor = route.cursor();
+        int n = 0;
+        double lastLat = 0;
+        double lastLng = 0;
+        while (cursor.next() && n < capacity) {
+            double lat = Math.toRadians(cursor.getLatitude());
+            double lng = Math.toRadians(cursor.getLongitude());
+            long millis = cursor.getTimeMillis();
+            if (n == 0) {
+                distance[n] = 0;
+            } else {
+                long elapsed = millis - time[n - 1];
+                double step = haversine(lastLat, lastLng, lat, lng);
+                if (elapsed <= 0 || step > MAX_PLAUSIBLE_SPEED_MPS * elapsed / 1000.0) {
+                    continue;
+                }
+                distance[n] = distance[n - 1] + step;
+            }
+            time[n] = millis;
+            lastLat = lat;
+            lastLng = lng;
+            n++;
+        }
+        return find(distance, time, n);
+    }
+
+    /**
+     * find
+     * <p>
+     * Finds the fastest segment of each standard distance in a cumulative series. For every end point
+     * j, the trailing pointer of a distance is moved forward while the segment from the next point
+     * would still be long enough; since it never moves back, each pointer crosses the series once.
+     * </p>
+     *
+     * @param distance Cumulative distance in meters, non-decreasing.
+     * @param time     Time of each point in milliseconds, non-decreasing.
+     * @param n        Number of points to use.
+     * @return Best times aligned with {@link #DISTANCES_M}.
+     */
+    public static long[] find(double[] distance, long[] time, int n) {
+        int targets = DISTANCES_M.length;
+        long[] best = empty();
+        int[] start = new int[targets];
+        for (int j = 1; j < n; j++) {
+            for (int k = 0; k < targets; k++) {
+                double target = DISTANCES_M[k];
+                if (distance[j] - distance[0] < target) {
+                    // Longer distances are not reached yet either
+                    break;
+                }
+                int i = start[k];
+                while (distance[j] - distance[i + 1] >= target) {
+                    i++;
+                }
+                start[k] = i;
+                // The segment starts between points i and i + 1, where distance[j] - target is reached
+                double startDistance = distance[j] - target;
+                double span = distance[i + 1] - distance[i];
+                double fraction = span > 0 ? (startDistance - distance[i]) / span : 0;
+                long millis = time[j] - time[i] - Math.round(fraction * (time[i + 1] - time[i]));
+                if (best[k] == NONE || millis < best[k]) {
+                    best[k] = millis;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the great-circle distance in meters between two points given in radians.
+     */
+    private static double haversine(double lat1, double lng1, double lat2, double lng2) {
+        double sinLat = Math.sin((lat2 - lat1) / 2);
+        double sinLng = Math.sin((lng2 - lng1) / 2);
+        double a = sinLat * sinLat + Math.cos(lat1) * Math.cos(lat2) * sinLng * sinLng;
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
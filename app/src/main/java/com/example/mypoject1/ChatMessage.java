@@ -33,6 +33,8 @@ public class ChatMessage {
 
     // The textual content of the message, or description if it's a file
     private String content;
+    // Content of a reply that is still streaming in; folded into content by finishStreaming()
+    private StringBuilder streamed;
 
     // The type of the message (text or file)
     private MessageType type;
@@ -82,7 +84,39 @@ public class ChatMessage {
      * @return The message text or description.
      */
     public String getContent() {
-        return content;
+        return streamed != null ? streamed.toString() : content;
+    }
+
+    /**
+     * Appends text to the content, as a streamed reply arrives.
+     *
+     * @param text The text to append.
+     */
+    public void appendContent(String text) {
+        if (streamed == null) {
+            streamed = new StringBuilder(content);
+        }
+        streamed.append(text);
+    }
+
+    /**
+     * Ends a streamed reply: the appended text becomes the content, so later reads do not copy it.
+     */
+    public void finishStreaming() {
+        if (streamed != null) {
+            content = streamed.toString();
+            streamed = null;
+        }
+    }
+
+    /**
+     * Replaces the content, e.g. a placeholder with the first piece of a streamed reply.
+     *
+     * @param content The new content.
+     */
+    public void setContent(String content) {
+        this.content = content;
+        this.streamed = null;
     }
 
     /**
@@ -24,6 +24,8 @@ import java.util.List;
  *   <li>Inflates the appropriate layout for each message type.</li>
  *   <li>Binds the chat message content to the corresponding TextView.</li>
  *   <li>Provides methods to add a new message or remove the last message in the list.</li>
+ *   <li>Appends streamed reply text to the last message with partial rebinds: the new text is passed as
+ *   a payload and appended to the bound TextView instead of rebinding the whole message.</li>
  * </ul>
  * </p>
  */
@@ -114,6 +116,34 @@ public class ChatMessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
         }
     }
 
+    /**
+     * onBindViewHolder
+     * <p>
+     * Partial rebind: if the only changes are appended pieces of a streamed reply (String payloads),
+     * they are appended to the bot message's TextView. Otherwise the message is bound in full.
+     * </p>
+     *
+     * @param holder   The RecyclerView.ViewHolder which should be updated.
+     * @param position The position index of the message in the list.
+     * @param payloads Pending partial changes, empty for a full bind.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || !(holder instanceof BotMessageViewHolder)) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        for (Object payload : payloads) {
+            if (!(payload instanceof String)) {
+                onBindViewHolder(holder, position);
+                return;
+            }
+        }
+        for (Object payload : payloads) {
+            ((BotMessageViewHolder) holder).append((String) payload);
+        }
+    }
+
     /**
      * getItemCount
      * <p>
@@ -142,6 +172,53 @@ public class ChatMessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
         notifyItemInserted(messages.size() - 1);
     }
 
+    /**
+     * appendToLastMessage
+     * <p>
+     * Appends a piece of a streamed reply to the last message. Only the appended text is handed to
+     * the view holder as a payload, so the bubble grows without a full rebind or change animation.
+     * </p>
+     *
+     * @param text The text to append.
+     */
+    public void appendToLastMessage(String text) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        int lastIndex = messages.size() - 1;
+        messages.get(lastIndex).appendContent(text);
+        notifyItemChanged(lastIndex, text);
+    }
+
+    /**
+     * finishLastMessage
+     * <p>
+     * Marks the streamed reply in the last message as complete (or abandoned); nothing visible changes.
+     * </p>
+     */
+    public void finishLastMessage() {
+        if (!messages.isEmpty()) {
+            messages.get(messages.size() - 1).finishStreaming();
+        }
+    }
+
+    /**
+     * replaceLastMessageContent
+     * <p>
+     * Replaces the text of the last message (e.g. the "Thinking..." placeholder) and rebinds it.
+     * </p>
+     *
+     * @param content The new text.
+     */
+    public void replaceLastMessageContent(String content) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        int lastIndex = messages.size() - 1;
+        messages.get(lastIndex).setContent(content);
+        notifyItemChanged(lastIndex);
+    }
+
     /**
      * removeLastMessage
      * <p>
@@ -225,8 +302,17 @@ public class ChatMessagesAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
          * @param message The ChatMessage object containing the bot message.
          */
         public void bind(ChatMessage message) {
-            // Display the content of the chat message in the TextView
-            messageText.setText(message.getContent());
+            // Editable, so streamed text can be appended without copying what is already shown
+            messageText.setText(message.getContent(), TextView.BufferType.EDITABLE);
+        }
+
+        /**
+         * Appends a piece of a streamed reply to the displayed text.
+         *
+         * @param text The text to append.
+         */
+        public void append(String text) {
+            messageText.append(text);
         }
     }
 }
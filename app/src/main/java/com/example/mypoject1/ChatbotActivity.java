@@ -3,7 +3,6 @@ package com.example.mypoject1;
 import android.content.ContentResolver;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.content.res.AssetManager;
 import android.net.Uri;
 import android.os.Bundle;
 import android.text.Editable;
@@ -31,7 +30,6 @@ import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -45,15 +43,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 
 import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 
 /**
  * ChatbotActivity handles the conversation between the user and the chatbot.
@@ -61,13 +52,12 @@ import okhttp3.Response;
  * This activity manages multiple conversation threads, sends messages to the OpenAI API,
  * loads coach-related context data, processes file attachments, and handles UI updates.
  * It integrates Firebase for user authentication and profile data. The class makes extensive
- * use of JSON to manage conversation history and uses OkHttp for network communication.
+ * use of JSON to manage conversation history and sends requests through the shared {@link CoachApiClient}.
  * </p>
  */
 public class ChatbotActivity extends AppCompatActivity {
 
-    // OpenAI API configuration and constants
-    private static final String OPENAI_API_KEY = BuildConfig.OPENAI_API_KEY;
+    // Constants
     private static final String TAG = "chatbot";
     private static final int FILE_SELECT_CODE = 100;
     private static final int TOKEN_LIMIT = 16000;
@@ -97,22 +87,17 @@ public class ChatbotActivity extends AppCompatActivity {
     private boolean isFirstResponse = true;
     private String firstName = "there";
 
-    // Structure to hold each dataset entry from RunningCoachData
-    private static class CoachEntry {
-        String prompt;
-        String completion;
-        String combined;
-    }
-
-    // List to store parsed coach data entries from assets
-    private List<CoachEntry> coachEntries = new ArrayList<>();
-    private HashMap<String, List<CoachEntry>> keywordIndex = new HashMap<>();
+    // Shows the user's avatar and name from the cached profile, then from each profile update
+    private final ProfileRepository.Listener profileListener = this::showProfile;
+    // Chat completion being streamed and the listener receiving it, if any; main thread only
+    private Call currentCall;
+    private StreamingReply currentReply;
 
     /**
      * Called when the activity is starting.
      * <p>
      * Sets up the overall UI, initializes conversation state and threads, retrieves necessary
-     * user data, loads external coach data, and starts UI animations.
+     * user data, starts loading the coach knowledge base in the background, and starts UI animations.
      * </p>
      *
      * @param savedInstanceState Bundle containing the activity's previously saved state.
@@ -123,12 +108,12 @@ public class ChatbotActivity extends AppCompatActivity {
         // Set the layout for the activity using the defined XML file
         setContentView(R.layout.activity_chatbot);
 
-        // Setup user avatar from Firebase profile details
-        setupAvatar();
-        // Retrieve the user's first name from either the Intent extra or SharedPreferences
+        // Retrieve the user's first name from the Intent extra or the cached profile
         retrieveUserFirstName();
         // Find all view components
         findViews();
+        // Setup user avatar from the profile details
+        setupAvatar();
 
         // Configure the RecyclerView for displaying chat messages
         setupChatRecyclerView();
@@ -136,10 +121,12 @@ public class ChatbotActivity extends AppCompatActivity {
         setupUserInputListener();
         // Set up the button to start a new conversation thread
         setupNewThreadButton();
+        // Open the connection to the coach API while the user types the first message
+        CoachApiClient.getInstance().preconnect();
         // Start a fresh conversation thread
         startNewThread();
-        // Load running coach data (coach entries) from assets for context-based responses
-        loadRunningCoachData();
+        // Start building the coach knowledge base in the background, if no earlier screen did
+        CoachKnowledgeBase.getInstance(this);
         // Start UI animations for a dynamic experience
         startUIAnimations();
     }
@@ -162,33 +149,41 @@ public class ChatbotActivity extends AppCompatActivity {
     }
 
     /**
-     * Sets up the user's avatar by fetching the profile image from Firebase Firestore.
+     * Sets up the user's avatar from the profile kept by {@link ProfileRepository}.
      * <p>
-     * If a profile image URI is available from the user's data, it uses Glide to display the image
-     * with a circle crop transformation; otherwise, a default avatar is displayed.
+     * The cached profile is shown immediately and the avatar is updated whenever the profile changes.
      * </p>
      */
     private void setupAvatar() {
-        // Get reference to the avatar ImageView
-        FirebaseAuth fbAuth = FirebaseAuth.getInstance();
-        String uid = fbAuth.getUid();
-        FirebaseFirestore store = FirebaseFirestore.getInstance();
-
-        // Retrieve the user's document and load profile image (if available)
-        store.collection("users").document(uid).get().addOnSuccessListener(documentSnapshot -> {
-            MyUser user = documentSnapshot.toObject(MyUser.class);
-            // If a profile image URI exists, load it using Glide with a circle crop transformation
-            if (user != null && user.getProfileImageUri() != null && !user.getProfileImageUri().isEmpty()) {
-                Glide.with(ChatbotActivity.this)
-                        .load(user.getProfileImageUri())
-                        .placeholder(R.drawable.ic_avatar)
-                        .transform(new CircleCrop())
-                        .into(avatarImage);
-            } else {
-                // Otherwise, set the default avatar image
-                avatarImage.setImageResource(R.drawable.ic_avatar);
-            }
-        }).addOnFailureListener(e -> avatarImage.setImageResource(R.drawable.ic_avatar)); // On failure, use the default avatar image
+        ProfileRepository.getInstance(this).addListener(profileListener);
+    }
+
+    /**
+     * Displays the user's avatar and, unless the name came with the Intent, their first name.
+     * <p>
+     * If a profile image URI is available, it uses Glide to display the image with a circle crop
+     * transformation; otherwise, a default avatar is displayed.
+     * </p>
+     *
+     * @param user The user's profile, or null if it is not available.
+     */
+    private void showProfile(MyUser user) {
+        // If a profile image URI exists, load it using Glide with a circle crop transformation
+        if (user != null && user.getProfileImageUri() != null && !user.getProfileImageUri().isEmpty()) {
+            Glide.with(ChatbotActivity.this)
+                    .load(user.getProfileImageUri())
+                    .placeholder(R.drawable.ic_avatar)
+                    .transform(new CircleCrop())
+                    .into(avatarImage);
+        } else {
+            // Otherwise, set the default avatar image
+            avatarImage.setImageResource(R.drawable.ic_avatar);
+        }
+        String nameExtra = getIntent().getStringExtra("firstName");
+        if ((nameExtra == null || nameExtra.isEmpty()) && user != null
+                && user.getFirstName() != null && !user.getFirstName().isEmpty()) {
+            firstName = user.getFirstName();
+        }
     }
 
 
@@ -196,21 +191,32 @@ public class ChatbotActivity extends AppCompatActivity {
      * Retrieves the user's first name.
      * <p>
      * The first name is retrieved first from the Intent extra. If the Intent extra is missing or empty,
-     * it falls back to retrieving the value from SharedPreferences using a default value.
+     * it falls back to the cached profile, or to a default greeting.
      * </p>
      */
     private void retrieveUserFirstName() {
         // Check if the firstName was passed via the Intent
         String nameExtra = getIntent().getStringExtra("firstName");
+        MyUser profile = ProfileRepository.getInstance(this).getCachedProfile();
         if (nameExtra != null && !nameExtra.isEmpty()) {
             firstName = nameExtra;
-        } else {
-            // Otherwise, retrieve it from SharedPreferences with a default value
-            firstName = getSharedPreferences("MyAppPrefs", MODE_PRIVATE)
-                    .getString("firstName", "there");
+        } else if (profile != null && profile.getFirstName() != null && !profile.getFirstName().isEmpty()) {
+            // Otherwise, use the cached profile
+            firstName = profile.getFirstName();
         }
     }
 
+    /**
+     * Stops observing the profile when the activity is destroyed.
+     */
+    @Override
+    protected void onDestroy() {
+        ProfileRepository.getInstance(this).removeListener(profileListener);
+        // The shared client outlives this screen; stop the reply mid-stream
+        cancelReply();
+        super.onDestroy();
+    }
+
     /**
      * Configures the RecyclerView for displaying chat messages.
      * <p>
@@ -241,8 +247,11 @@ public class ChatbotActivity extends AppCompatActivity {
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                // Enable send button if the text length is greater than zero
-                setSendButtonState(s.length() > 0);
+                // Enable send button if the text length is greater than zero; while a reply
+                // streams the button stops it and stays enabled
+                if (currentCall == null) {
+                    setSendButtonState(s.length() > 0);
+                }
             }
 
             @Override
@@ -302,6 +311,8 @@ public class ChatbotActivity extends AppCompatActivity {
      * </p>
      */
     private void startNewThread() {
+        // A reply still streaming belongs to the previous thread
+        cancelReply();
         // Generate a new unique thread ID
         currentThreadId = UUID.randomUUID().toString();
         // Initialize new conversation history for the thread
@@ -316,113 +327,6 @@ public class ChatbotActivity extends AppCompatActivity {
         runOnUiThread(() -> chatAdapter.notifyDataSetChanged());
     }
 
-    /**
-     * Loads and parses JSON files containing running coach data from the asset folder.
-     * <p>
-     * Iterates through directories and files in "RunningCoachData", reads their content,
-     * parses JSON into coach entries, and indexes keywords for efficient lookup when providing context.
-     * </p>
-     */
-    private void loadRunningCoachData() {
-        try {
-            // Get the asset manager and list directories inside RunningCoachData
-            AssetManager assetManager = getAssets();
-            String[] directories = assetManager.list("RunningCoachData");
-            if (directories != null) {
-                // Iterate through each directory
-                for (String directory : directories) {
-                    String[] files = assetManager.list("RunningCoachData/" + directory);
-                    if (files != null) {
-                        // Iterate through each file in the directory
-                        for (String file : files) {
-                            // Open and read file content
-                            InputStream inputStream = assetManager.open("RunningCoachData/" + directory + "/" + file);
-                            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-                            StringBuilder fileContent = new StringBuilder();
-                            String line;
-                            while ((line = reader.readLine()) != null) {
-                                fileContent.append(line).append("\n");
-                            }
-                            reader.close();
-
-                            try {
-                                // Parse file content as JSON array
-                                JSONArray jsonArray = new JSONArray(fileContent.toString());
-                                // Iterate through all JSON objects (coach entries)
-                                for (int i = 0; i < jsonArray.length(); i++) {
-                                    JSONObject obj = jsonArray.getJSONObject(i);
-                                    CoachEntry entry = new CoachEntry();
-                                    // Extract prompt and completion text
-                                    entry.prompt = obj.optString("prompt");
-                                    entry.completion = obj.optString("completion");
-                                    // Combine both fields to create a comprehensive text sample
-                                    entry.combined = "Prompt: " + entry.prompt + "\nAnswer: " + entry.completion;
-                                    coachEntries.add(entry);
-
-                                    // Tokenize and index keywords for quick searching later
-                                    String[] words = (entry.prompt + " " + entry.completion).toLowerCase().split("\\W+");
-                                    for (String word : words) {
-                                        if (word.length() < 3) continue; // Skip short/common words
-                                        keywordIndex.computeIfAbsent(word, k -> new ArrayList<>()).add(entry);
-                                    }
-                                }
-                            } catch (JSONException je) {
-                                Log.e(TAG, "Error parsing JSON in file: " + file, je);
-                            }
-                        }
-                    }
-                }
-            }
-        } catch (IOException e) {
-            Log.e(TAG, "Error loading RunningCoachData from assets", e);
-        }
-    }
-
-    /**
-     * Selects relevant context from the loaded coach data based on the user's query.
-     * <p>
-     * Analyzes the user query by breaking it into words, scores coach entries based on keyword frequency,
-     * and then returns a summary constructed from the top three matching entries.
-     * </p>
-     *
-     * @param userQuery The input query provided by the user.
-     * @return A summary string containing contextual information from matching coach entries.
-     */
-    private String getRelevantContext(String userQuery) {
-        // Split the user query into individual lowercase words
-        String[] queryWords = userQuery.toLowerCase().split("\\W+");
-        HashMap<CoachEntry, Integer> entryScores = new HashMap<>();
-
-        // Score each coach entry based on keyword matches
-        for (String word : queryWords) {
-            List<CoachEntry> entries = keywordIndex.get(word);
-            if (entries != null) {
-                for (CoachEntry entry : entries) {
-                    entryScores.put(entry, entryScores.getOrDefault(entry, 0) + 1);
-                }
-            }
-        }
-
-        // Sort entries by score (number of keyword hits) in descending order
-        List<CoachEntry> topMatches = new ArrayList<>(entryScores.keySet());
-        topMatches.sort((a, b) -> entryScores.get(b) - entryScores.get(a));
-
-        // Return a summary from the top 3 matching entries (limit summary to ~100 words each)
-        StringBuilder contextBuilder = new StringBuilder();
-        int count = 0;
-        for (CoachEntry entry : topMatches) {
-            String[] words = entry.combined.split("\\s+");
-            int limit = Math.min(words.length, 100); // limit to a maximum of 100 words
-            StringBuilder shortEntry = new StringBuilder();
-            for (int i = 0; i < limit; i++) {
-                shortEntry.append(words[i]).append(" ");
-            }
-            contextBuilder.append(shortEntry.toString().trim()).append("...\n\n");
-            if (++count >= 3) break;
-        }
-        return contextBuilder.toString();
-    }
-
     /**
      * Handles click events for various buttons including back, sending a message, and attaching a file.
      * <p>
@@ -435,6 +339,8 @@ public class ChatbotActivity extends AppCompatActivity {
     public void onClick(View view) {
         // Get the clicked view's ID and start a button press animation
         int id = view.getId();
+        // Decided at the tap: the reply may finish while the press animation runs
+        boolean stopReply = currentCall != null;
         Animation buttonPress = AnimationUtils.loadAnimation(this, R.anim.button_press);
         view.startAnimation(buttonPress);
         buttonPress.setAnimationListener(new Animation.AnimationListener() {
@@ -447,6 +353,9 @@ public class ChatbotActivity extends AppCompatActivity {
                 if (id == R.id.backButton) {
                     // Back button: go to HomeActivity
                     startActivity(new Intent(ChatbotActivity.this, HomeActivity.class));
+                } else if (id == R.id.sendMessageFab && stopReply) {
+                    // Stop button while a reply streams: cancel it
+                    cancelReply();
                 } else if (id == R.id.sendMessageFab) {
                     // Send button: execute sendMessage function
                     sendMessage();
@@ -479,6 +388,21 @@ public class ChatbotActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Turns the send button into a stop button while a reply is streaming, and back afterwards.
+     */
+    private void updateSendFab() {
+        if (currentCall != null) {
+            sendMessageFab.setImageResource(R.drawable.ic_stop);
+            sendMessageFab.setContentDescription("Stop reply");
+            setSendButtonState(true);
+        } else {
+            sendMessageFab.setImageResource(R.drawable.ic_arrow_up);
+            sendMessageFab.setContentDescription("Send message");
+            setSendButtonState(userInput.getText() != null && userInput.getText().length() > 0);
+        }
+    }
+
     /**
      * Inflates the activity's menu.
      * <p>
@@ -520,6 +444,8 @@ public class ChatbotActivity extends AppCompatActivity {
             intent = new Intent(this, SettingsActivity.class);
         } else if (item.getItemId() == R.id.menu_ChatBot) {
             intent = new Intent(this, ChatbotActivity.class);
+        } else if (item.getItemId() == R.id.menu_history) {
+            intent = new Intent(this, WorkoutHistoryActivity.class);
         }
         // Launch the selected activity if applicable
         if (intent != null) {
@@ -665,8 +591,8 @@ public class ChatbotActivity extends AppCompatActivity {
      * Sends the user's message along with context to the chatbot.
      * <p>
      * First, it sanitizes the input, adds the user's message to the conversation history and UI,
-     * optionally appends additional relevant context retrieved from coach data, checks token limits,
-     * and then triggers the asynchronous API call to OpenAI.
+     * then looks up relevant context in the coach knowledge base off the main thread and continues
+     * in {@link #sendWithContext(String)}.
      * </p>
      */
     private void sendMessage() {
@@ -681,28 +607,17 @@ public class ChatbotActivity extends AppCompatActivity {
             // Clear the input field after sending
             userInput.setText("");
 
-            // Append additional relevant context from coach data, if available
-            String relevantContext = getRelevantContext(message);
-            if (!relevantContext.isEmpty()) {
-                appendToConversation("system", "Relevant info:\n" + relevantContext);
-                addMessage(new ChatMessage("assistant", "I found some relevant info from your uploaded data to help guide this answer."));
-            }
-
-            // Check and summarize conversation history if token limit is exceeded
-            Log.d(TAG, "Token estimation: " + estimateTokenCount(conversationHistory));
-            checkTokenLimitAndSummarize();
-
-            // Set flag to indicate awaiting the chatbot's response
+            // Block further sends while the context is looked up; the lookup waits for the
+            // knowledge base if it is still loading
             isWaitingForResponse = true;
-            // Show a temporary "Thinking..." message in the UI
-            ChatMessage thinkingMessage = new ChatMessage("assistant", "Thinking...");
-            addMessage(thinkingMessage);
-            try {
-                // Send the complete conversation history to OpenAI
-                sendToOpenAIUsingHistory();
-            } catch (IOException | JSONException e) {
-                Log.e(TAG, "Error sending message to OpenAI", e);
-            }
+            JSONArray history = conversationHistory;
+            CoachKnowledgeBase.getInstance(this).findRelevantContext(message, relevantContext -> {
+                // Dropped if the screen closed or a new thread started meanwhile
+                if (isDestroyed() || history != conversationHistory) {
+                    return;
+                }
+                sendWithContext(relevantContext);
+            });
         } else if (isWaitingForResponse) {
             // If still waiting for a response, notify the user to wait
             Toast.makeText(this, "Please wait for the bot to reply.", Toast.LENGTH_SHORT).show();
@@ -712,6 +627,31 @@ public class ChatbotActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Appends the coach data context found for the user's message, if any, to the conversation,
+     * checks token limits, and then triggers the asynchronous API call to OpenAI.
+     *
+     * @param relevantContext Context from the coach knowledge base; empty if nothing matched.
+     */
+    private void sendWithContext(String relevantContext) {
+        if (!relevantContext.isEmpty()) {
+            appendToConversation("system", "Relevant info:\n" + relevantContext);
+            addMessage(new ChatMessage("assistant", "I found some relevant info from your uploaded data to help guide this answer."));
+        }
+
+        // Check and summarize conversation history if token limit is exceeded
+        Log.d(TAG, "Token estimation: " + estimateTokenCount(conversationHistory));
+        checkTokenLimitAndSummarize();
+
+        try {
+            // Send the complete conversation history to OpenAI
+            sendToOpenAIUsingHistory();
+        } catch (JSONException e) {
+            Log.e(TAG, "Error sending message to OpenAI", e);
+            isWaitingForResponse = false;
+        }
+    }
+
     /**
      * Adds a chat message to the RecyclerView and scrolls to display the latest entry.
      * <p>
@@ -847,83 +787,128 @@ public class ChatbotActivity extends AppCompatActivity {
     }
 
     /**
-     * Sends the conversation history to OpenAI's API for generating a response.
+     * Sends the conversation history to OpenAI's API and streams the response into the chat.
      * <p>
-     * Configures an OkHttpClient with custom timeouts, constructs the JSON payload including
-     * the model and conversation history, and makes an asynchronous POST request to the API.
-     * On success, it parses the response and updates the conversation history and UI accordingly.
+     * Shows a temporary "Thinking..." message, which the first piece of the reply replaces; later
+     * pieces are appended to the same bubble as they arrive. The request goes through the shared
+     * {@link CoachApiClient}, so it reuses the pooled connection opened by an earlier turn or by the
+     * preconnect in onCreate. The complete reply is added to the conversation history.
      * </p>
      *
-     * @throws IOException   If a network error occurs during the API call.
      * @throws JSONException If an error occurs while building the JSON payload.
      */
-    private void sendToOpenAIUsingHistory() throws IOException, JSONException {
-        // Configure the OkHttpClient with specified timeouts
-        OkHttpClient client = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS) // Connection establishment timeout
-                .writeTimeout(30, TimeUnit.SECONDS)   // Request write timeout
-                .readTimeout(90, TimeUnit.SECONDS)    // Response read timeout
-                .callTimeout(120, TimeUnit.SECONDS)   // Overall call timeout
-                .build();
-
-        // Construct the JSON payload with the chosen model and conversation history
-        JSONObject jsonBody = new JSONObject();
-        jsonBody.put("model", "gpt-4o");
-        jsonBody.put("messages", conversationHistory);
-
-        RequestBody body = RequestBody.create(jsonBody.toString(), MediaType.parse("application/json"));
-        Request request = new Request.Builder()
-                .url("https://api.openai.com/v1/chat/completions")
-                .header("Authorization", "Bearer " + OPENAI_API_KEY)
-                .post(body)
-                .build();
-
-        // Execute the API call asynchronously
-        client.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(Call call, IOException e) {
-                // Log the error and reset waiting flag on failure
-                Log.e(TAG, "Request failed: " + e.getMessage(), e);
-                isWaitingForResponse = false;
+    private void sendToOpenAIUsingHistory() throws JSONException {
+        // Only one reply streams at a time
+        cancelReply();
+        // Set flag to indicate awaiting the chatbot's response
+        isWaitingForResponse = true;
+        // Show a temporary "Thinking..." message in the UI
+        addMessage(new ChatMessage("assistant", "Thinking..."));
+        // Stream the reply; cancelled if the screen goes away or a new thread starts
+        StreamingReply reply = new StreamingReply();
+        currentCall = CoachApiClient.getInstance().streamChatCompletion(conversationHistory, reply);
+        currentReply = reply;
+        reply.call = currentCall;
+        updateSendFab();
+    }
+
+    /**
+     * Cancels the reply being streamed, if any, when the user stops it, a new thread starts or the
+     * screen goes away. The partial reply stays on screen but is not added to the history; a reply
+     * that had not started yet takes its "Thinking..." placeholder with it.
+     */
+    private void cancelReply() {
+        if (currentCall != null) {
+            currentCall.cancel();
+            currentCall = null;
+            if (currentReply.started) {
+                chatAdapter.finishLastMessage();
+            } else {
+                chatAdapter.removeLastMessage();
             }
+            currentReply = null;
+            updateSendFab();
+        }
+        isWaitingForResponse = false;
+    }
 
-            @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                isWaitingForResponse = false;
-                if (response.isSuccessful()) {
-                    try {
-                        // Process the response from OpenAI
-                        String responseBody = response.body().string();
-                        JSONObject jsonResponse = new JSONObject(responseBody);
-                        JSONArray choices = jsonResponse.getJSONArray("choices");
-                        if (choices.length() > 0) {
-                            // Extract the chatbot's reply from the response
-                            JSONObject messageObject = choices.getJSONObject(0).getJSONObject("message");
-                            String botReply = messageObject.getString("content");
-                            // Prepend a personalized greeting if it's the first response
-                            if (isFirstResponse) {
-                                botReply = "Hello " + firstName + ", " + botReply;
-                                isFirstResponse = false;
-                            }
-                            // Append the assistant's reply to conversation history and update UI
-                            appendToConversation("assistant", botReply);
-                            String finalBotReply = botReply;
-                            runOnUiThread(() -> {
-                                // Remove the "Thinking..." placeholder message and add the final reply
-                                chatAdapter.removeLastMessage();
-                                addMessage(new ChatMessage("assistant", finalBotReply));
-                            });
-                        } else {
-                            Log.e(TAG, "No choices found in response");
-                        }
-                    } catch (JSONException e) {
-                        Log.e(TAG, "Error parsing JSON response: " + e.getMessage(), e);
+    /**
+     * StreamingReply
+     * <p>
+     * Receives one streamed reply on an OkHttp thread and applies it to the last chat bubble on the
+     * main thread. Callbacks of a reply that is no longer the current call (cancelled, or its thread
+     * was replaced) are dropped.
+     * </p>
+     */
+    private class StreamingReply implements CoachApiClient.StreamListener {
+        // Set right after the call is enqueued; callbacks run on the main thread after that
+        Call call;
+        // Greeting prepended to the first reply of a thread; main thread only
+        private String greeting = "";
+        private boolean started = false;
+
+        @Override
+        public void onDelta(String text) {
+            runOnUiThread(() -> {
+                if (call != currentCall) {
+                    return;
+                }
+                if (!started) {
+                    // Prepend a personalized greeting if it's the first response
+                    if (isFirstResponse) {
+                        greeting = "Hello " + firstName + ", ";
+                        isFirstResponse = false;
                     }
+                    started = true;
+                    // Replace the "Thinking..." placeholder with the first piece of the reply
+                    chatAdapter.replaceLastMessageContent(greeting + text);
                 } else {
-                    Log.e(TAG, "Response not successful: " + response.code());
+                    chatAdapter.appendToLastMessage(text);
                 }
-            }
-        });
+            });
+        }
+
+        @Override
+        public void onComplete(String reply) {
+            runOnUiThread(() -> {
+                if (call != currentCall) {
+                    return;
+                }
+                currentCall = null;
+                currentReply = null;
+                isWaitingForResponse = false;
+                updateSendFab();
+                if (!started) {
+                    Log.e(TAG, "Empty reply");
+                    chatAdapter.removeLastMessage();
+                    return;
+                }
+                chatAdapter.finishLastMessage();
+                // Append the assistant's complete reply to conversation history
+                appendToConversation("assistant", greeting + reply);
+            });
+        }
+
+        @Override
+        public void onError(IOException e) {
+            // Log the error and reset waiting flag on failure
+            Log.e(TAG, "Request failed: " + e.getMessage(), e);
+            runOnUiThread(() -> {
+                if (call != currentCall) {
+                    return;
+                }
+                currentCall = null;
+                currentReply = null;
+                isWaitingForResponse = false;
+                updateSendFab();
+                if (started) {
+                    // Keep the part of the reply that arrived
+                    chatAdapter.finishLastMessage();
+                } else {
+                    chatAdapter.replaceLastMessageContent("Sorry, I couldn't reach the coach. Please try again.");
+                }
+            });
+        }
     }
 
     /**
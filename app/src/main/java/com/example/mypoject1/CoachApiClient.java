@@ -0,0 +1,237 @@
+package com.example.mypoject1;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * CoachApiClient
+ * <p>
+ * Process-wide HTTP client for the coach (OpenAI chat completions) API. One {@link OkHttpClient} is
+ * shared by every chat turn, so its connection pool, dispatcher threads and TLS session cache are
+ * created once: after the first request, a turn reuses the warm HTTP/2 connection and skips DNS, TCP
+ * and TLS setup. Idle connections are kept for {@link #KEEP_ALIVE_MINUTES}, longer than a typical
+ * pause between chat turns, and HTTP/2 pings detect a connection the network dropped before a turn
+ * is sent on it.
+ * </p>
+ *
+ * <p>
+ * {@link #preconnect()} opens the connection ahead of the first message, while the user is still
+ * typing. Replies are streamed ({@link #streamChatCompletion}): each token is delivered as soon as
+ * its server-sent event arrives, and only the reply text is kept, not the raw response.
+ * </p>
+ */
+public class CoachApiClient {
+
+    private static final String TAG = "CoachApiClient";
+
+    static final String API_HOST = "api.openai.com";
+    static final String CHAT_COMPLETIONS_URL = "https://" + API_HOST + "/v1/chat/completions";
+    static final String MODEL = "gpt-4o";
+
+    private static final MediaType JSON = MediaType.parse("application/json");
+    // Idle connections kept alive between chat turns
+    private static final int MAX_IDLE_CONNECTIONS = 2;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    // HTTP/2 ping interval; a connection that misses a ping is closed instead of failing the next turn
+    private static final long PING_INTERVAL_SECONDS = 30;
+
+    // Data of the event that ends a streamed completion
+    private static final String STREAM_DONE = "[DONE]";
+
+    /**
+     * Receives a streamed reply on an OkHttp thread.
+     */
+    public interface StreamListener {
+        /**
+         * Called with each piece of the reply as it arrives.
+         */
+        void onDelta(String text);
+
+        /**
+         * Called once the reply is complete.
+         */
+        void onComplete(String reply);
+
+        /**
+         * Called if the request or the stream fails; not called after {@link Call#cancel()}.
+         */
+        void onError(IOException e);
+    }
+
+    private static volatile CoachApiClient instance;
+
+    private final OkHttpClient httpClient;
+    private final String apiKey;
+
+    /**
+     * Returns the shared client.
+     */
+    public static CoachApiClient getInstance() {
+        if (instance == null) {
+            synchronized (CoachApiClient.class) {
+                if (instance == null) {
+                    instance = new CoachApiClient(BuildConfig.OPENAI_API_KEY);
+                }
+            }
+        }
+        return instance;
+    }
+
+    private CoachApiClient(String apiKey) {
+        this.apiKey = apiKey;
+        // At most 4 calls to the API run at once (e.g. a preconnect and a reply); later ones wait in
+        // the dispatcher queue. Chat turns are sequential, so this is rarely reached. Idle
+        // connections are limited by the connection pool below, not by this setting
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(4);
+        this.httpClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .pingInterval(PING_INTERVAL_SECONDS, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .connectTimeout(30, TimeUnit.SECONDS) // Connection establishment timeout
+                .writeTimeout(30, TimeUnit.SECONDS)   // Request write timeout
+                .readTimeout(90, TimeUnit.SECONDS)    // Response read timeout
+                .callTimeout(120, TimeUnit.SECONDS)   // Overall call timeout
+                .build();
+    }
+
+    /**
+     * preconnect
+     * <p>
+     * Warms the connection to the API host (DNS, TCP, TLS and HTTP/2 setup) with a bodiless HEAD
+     * request whose response is ignored; the connection then waits in the pool for the first chat
+     * turn. Does nothing if a pooled connection is already idle.
+     * </p>
+     */
+    public void preconnect() {
+        if (httpClient.connectionPool().idleConnectionCount() > 0) {
+            return;
+        }
+        Request request = new Request.Builder()
+                .url("https://" + API_HOST + "/")
+                .head()
+                .build();
+        httpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                // The first turn connects on its own
+                Log.d(TAG, "Preconnect failed: " + e.getMessage());
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                response.close();
+            }
+        });
+    }
+
+    /**
+     * streamChatCompletion
+     * <p>
+     * Requests a streamed chat completion for the given conversation on the shared client. The
+     * response body is read line by line as it arrives; every {@code choices[0].delta.content} of the
+     * stream's events is passed to the listener right away. Cancelling the call stops the stream
+     * mid-reply, and the listener gets no further callbacks.
+     * </p>
+     *
+     * @param messages The conversation, in the chat completions message format.
+     * @param listener Receives the reply.
+     * @return The enqueued call.
+     * @throws JSONException If the payload cannot be built.
+     */
+    public Call streamChatCompletion(JSONArray messages, StreamListener listener) throws JSONException {
+        JSONObject jsonBody = new JSONObject();
+        jsonBody.put("model", MODEL);
+        jsonBody.put("messages", messages);
+        jsonBody.put("stream", true);
+        Request request = new Request.Builder()
+                .url(CHAT_COMPLETIONS_URL)
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Accept", "text/event-stream")
+                .post(RequestBody.create(jsonBody.toString(), JSON))
+                .build();
+        Call call = httpClient.newCall(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                if (!call.isCanceled()) {
+                    listener.onError(e);
+                }
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                try (ResponseBody body = response.body()) {
+                    if (!response.isSuccessful() || body == null) {
+                        throw new IOException("Response not successful: " + response.code());
+                    }
+                    String reply = readStream(body.source(), listener);
+                    if (!call.isCanceled()) {
+                        listener.onComplete(reply);
+                    }
+                } catch (IOException e) {
+                    if (!call.isCanceled()) {
+                        listener.onError(e);
+                    }
+                }
+            }
+        });
+        return call;
+    }
+
+    /**
+     * Reads a completion stream up to its [DONE] event and returns the reply.
+     */
+    private static String readStream(BufferedSource source, StreamListener listener) throws IOException {
+        StringBuilder reply = new StringBuilder();
+        boolean[] done = {false};
+        SseParser parser = new SseParser(data -> {
+            if (STREAM_DONE.equals(data)) {
+                done[0] = true;
+                return;
+            }
+            try {
+                JSONArray choices = new JSONObject(data).optJSONArray("choices");
+                JSONObject delta = choices != null && choices.length() > 0
+                        ? choices.getJSONObject(0).optJSONObject("delta") : null;
+                String text = delta != null && !delta.isNull("content") ? delta.optString("content") : "";
+                if (!text.isEmpty()) {
+                    reply.append(text);
+                    listener.onDelta(text);
+                }
+            } catch (JSONException e) {
+                Log.w(TAG, "Skipping malformed stream event", e);
+            }
+        });
+        String line;
+        while (!done[0] && (line = source.readUtf8Line()) != null) {
+            parser.feedLine(line);
+        }
+        parser.finish();
+        return reply.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.mypoject1;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * CoachKnowledgeBase
+ * <p>
+ * The running coach data, searched for context to send with a chat message. The data is compiled
+ * into a {@link CoachIndex} at build time; here the index asset is memory-mapped once per process on
+ * a background thread, starting when the holder is first requested, and ranked in place by a
+ * {@link CoachSearcher} that only that thread uses. The chat screen never reads assets itself. A
+ * query that arrives while the index is still opening waits on the opening future (off the main
+ * thread) and is answered as soon as it completes.
+ * </p>
+ */
+public class CoachKnowledgeBase {
+
+    private static final String TAG = "CoachKnowledgeBase";
+
+    // Documents returned per query
+    private static final int MAX_MATCHES = 3;
+
+    /**
+     * Receives the result of a query on the main thread.
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    private static volatile CoachKnowledgeBase instance;
+
+    // Opens the index, then answers queries in order; the only thread using the searcher
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "CoachKnowledge"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CompletableFuture<CoachSearcher> searcher;
+
+    /**
+     * Returns the shared knowledge base, starting to open it in the background on the first call.
+     */
+    public static CoachKnowledgeBase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (CoachKnowledgeBase.class) {
+                if (instance == null) {
+                    instance = new CoachKnowledgeBase(context.getApplicationContext().getAssets());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private CoachKnowledgeBase(AssetManager assets) {
+        searcher = CompletableFuture.supplyAsync(() -> {
+            try {
+                return new CoachSearcher(open(assets));
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to open the coach index", e);
+            }
+        }, executor);
+    }
+
+    /**
+     * findRelevantContext
+     * <p>
+     * Selects context for a user's message: the snippets of the {@link #MAX_MATCHES} documents
+     * ranked best by {@link CoachSearcher#search}. Waits for the index if it is still opening.
+     * </p>
+     *
+     * @param userQuery The user's message.
+     * @param callback  Receives the context on the main thread; empty if nothing matched.
+     */
+    public void findRelevantContext(String userQuery, Callback<String> callback) {
+        searcher.thenApplyAsync(opened -> relevantContext(opened, userQuery), executor)
+                .whenComplete((context, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Unable to query coach data", error);
+                    }
+                    String result = context != null ? context : "";
+                    mainHandler.post(() -> callback.onResult(result));
+                });
+    }
+
+    private static String relevantContext(CoachSearcher searcher, String userQuery) {
+        StringBuilder contextBuilder = new StringBuilder();
+        for (int document : searcher.search(userQuery, MAX_MATCHES)) {
+            contextBuilder.append(searcher.getIndex().getSnippet(document)).append("...\n\n");
+        }
+        return contextBuilder.toString();
+    }
+
+    /**
+     * open
+     * <p>
+     * Memory-maps the index asset, which is stored uncompressed in the APK, straight from the APK file.
+     * Nothing is parsed or copied, so this takes the same time whatever the size of the corpus. The
+     * mapping outlives the file descriptor. Runs on the knowledge base thread.
+     * </p>
+     */
+    private static CoachIndex open(AssetManager assets) throws IOException {
+        try (AssetFileDescriptor descriptor = assets.openFd(CoachIndex.ASSET);
+             FileInputStream in = descriptor.createInputStream()) {
+            ByteBuffer buffer = in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    descriptor.getStartOffset(), descriptor.getLength());
+            CoachIndex index = new CoachIndex(buffer);
+            Log.d(TAG, "Opened coach index: " + index.getDocumentCount() + " documents, " + index.getTermCount() + " terms");
+            return index;
+        }
+    }
+}
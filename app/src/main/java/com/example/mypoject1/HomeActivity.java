@@ -25,19 +25,20 @@ import com.google.firebase.auth.FirebaseAuth;
  * <p>
  * Key Features and Flow:
  * <ul>
- *   <li>Retrieves the user's first name from SharedPreferences and shows a welcome message.</li>
+ *   <li>Shows a welcome message with the user's first name from the cached profile ({@link ProfileRepository}).</li>
  *   <li>If no user data is available, redirects to the MainActivity.</li>
  *   <li>Starts various animations on the UI elements to enhance the user experience.</li>
  *   <li>Handles click events to navigate to other activities or perform logout.</li>
- *   <li>Updates the welcome message on resume if the stored first name changes.</li>
- *   <li>Provides an options menu to navigate to Home, Timer, User Details, Chatbot, or to logout.</li>
+ *   <li>Updates the welcome message whenever the profile changes.</li>
+ *   <li>Provides an options menu to navigate to Home, Timer, User Details, Chatbot, Workout History, or to logout.</li>
  * </ul>
  * </p>
  */
-public class HomeActivity extends AppCompatActivity implements View.OnClickListener {
+public class HomeActivity extends AppCompatActivity implements View.OnClickListener, ProfileRepository.Listener {
 
     // View binding instance for easy access to layout views
     private ActivityHomeBinding binding;
+    private ProfileRepository profileRepository;
 
     /**
      * onCreate
@@ -55,20 +56,20 @@ public class HomeActivity extends AppCompatActivity implements View.OnClickListe
         binding = ActivityHomeBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
-        // Retrieve firstName from SharedPreferences to personalize the welcome message.
-        SharedPreferences prefs = getSharedPreferences("MyAppPrefs", MODE_PRIVATE);
-        String firstName = prefs.getString("firstName", null);
-
-        // If no user information is found, redirect to MainActivity (login screen) and finish this activity.
-        if (firstName == null || firstName.isEmpty()) {
+        // If no user is signed in, redirect to MainActivity (login screen) and finish this activity.
+        if (FirebaseAuth.getInstance().getCurrentUser() == null) {
             Intent intent = new Intent(HomeActivity.this, MainActivity.class);
             startActivity(intent);
             finish();
             return;
         }
 
-        // Set the welcome message using the retrieved first name.
-        binding.welcomeTextView.setText("Welcome " + firstName + "!");
+        // Show the welcome message from the cached profile right away; it is refreshed if the profile changes.
+        binding.welcomeTextView.setText("Welcome!");
+        profileRepository = ProfileRepository.getInstance(this);
+        profileRepository.addListener(this);
+        // Build the coach knowledge base in the background so the chat screen finds it ready
+        CoachKnowledgeBase.getInstance(this);
 
         // Load animations from resources to create a dynamic and smooth user interface.
         Animation fadeIn = AnimationUtils.loadAnimation(this, R.anim.fade_in);
@@ -155,22 +156,32 @@ public class HomeActivity extends AppCompatActivity implements View.OnClickListe
     }
 
     /**
-     * onResume
+     * onProfileChanged
      * <p>
-     * Called when the activity resumes. Retrieves the updated first name from SharedPreferences and updates
-     * the welcome message accordingly.
+     * Updates the welcome message with the user's first name.
      * </p>
+     *
+     * @param profile The user's profile, or null if it is not available.
      */
     @Override
-    protected void onResume() {
-        super.onResume();
-        // Retrieve the latest first name from SharedPreferences.
-        SharedPreferences prefs = getSharedPreferences("MyAppPrefs", MODE_PRIVATE);
-        String firstName = prefs.getString("firstName", "");
-        // Update welcome message if a valid first name is present.
-        if (!firstName.isEmpty()) {
-            binding.welcomeTextView.setText("Welcome " + firstName + "!");
+    public void onProfileChanged(MyUser profile) {
+        if (profile != null && profile.getFirstName() != null && !profile.getFirstName().isEmpty()) {
+            binding.welcomeTextView.setText("Welcome " + profile.getFirstName() + "!");
+        }
+    }
+
+    /**
+     * onDestroy
+     * <p>
+     * Stops observing the profile.
+     * </p>
+     */
+    @Override
+    protected void onDestroy() {
+        if (profileRepository != null) {
+            profileRepository.removeListener(this);
         }
+        super.onDestroy();
     }
 
     /**
@@ -243,6 +254,9 @@ public class HomeActivity extends AppCompatActivity implements View.OnClickListe
         } else if (item.getItemId() == R.id.menu_ChatBot) {
             // Navigate to ChatbotActivity.
             intent = new Intent(this, ChatbotActivity.class);
+        } else if (item.getItemId() == R.id.menu_history) {
+            // Navigate to WorkoutHistoryActivity.
+            intent = new Intent(this, WorkoutHistoryActivity.class);
         }
         // Start the corresponding activity if an intent was set.
         if (intent != null) {
@@ -0,0 +1,134 @@
+package com.example.mypoject1;
+
+import android.view.Choreographer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * HudFramePublisher
+ * <p>
+ * Coalesces UI updates for the live workout display to at most one per display frame.
+ * Producers (for example the sensor thread) call {@link #markDirty()} as often as they like;
+ * the first call after a frame schedules a single Choreographer frame callback and every further
+ * call before that frame is a no-op. When the frame arrives, the supplied renderer runs once on
+ * the main thread and reads the latest state.
+ * </p>
+ *
+ * <p>
+ * While a clock is running the display changes every frame anyway, so the publisher can be switched to
+ * continuous mode: it then renders on every frame while active, driven by the display's vsync instead
+ * of a timer. In both modes nothing is scheduled while the publisher is stopped (activity not visible).
+ * </p>
+ *
+ * <p>
+ * The Choreographer instance must belong to the main thread, so the publisher has to be created
+ * on the main thread. {@link Choreographer#postFrameCallback} itself may be called from any thread.
+ * </p>
+ */
+public class HudFramePublisher implements Choreographer.FrameCallback {
+
+    // Choreographer bound to the main looper
+    private final Choreographer choreographer;
+    // Renderer invoked once per frame in which new data was published
+    private final Runnable renderer;
+    // True while a frame callback is scheduled and not yet executed
+    private final AtomicBoolean frameScheduled = new AtomicBoolean(false);
+    // When false, updates are remembered but no frames are requested (activity not visible)
+    private volatile boolean active = false;
+    // True when data changed while the publisher was inactive
+    private volatile boolean pendingWhileInactive = false;
+    // When true, a frame is requested after every rendered frame (main thread only)
+    private boolean continuous = false;
+
+    /**
+     * Creates a publisher. Must be called on the main thread.
+     *
+     * @param renderer Runnable that pushes the latest state into the views.
+     */
+    public HudFramePublisher(Runnable renderer) {
+        this.choreographer = Choreographer.getInstance();
+        this.renderer = renderer;
+    }
+
+    /**
+     * markDirty
+     * <p>
+     * Signals that displayed values changed. Safe to call from any thread; schedules at most one
+     * frame callback until that frame has been rendered.
+     * </p>
+     */
+    public void markDirty() {
+        if (!active) {
+            pendingWhileInactive = true;
+            return;
+        }
+        if (frameScheduled.compareAndSet(false, true)) {
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    /**
+     * start
+     * <p>
+     * Enables frame publishing (typically from onResume). If anything changed while inactive, or
+     * in continuous mode, a frame is requested immediately so the views catch up.
+     * </p>
+     */
+    public void start() {
+        active = true;
+        if (pendingWhileInactive || continuous) {
+            pendingWhileInactive = false;
+            markDirty();
+        }
+    }
+
+    /**
+     * setContinuous
+     * <p>
+     * Enables or disables rendering on every frame, e.g. while a stopwatch or countdown is running.
+     * Must be called on the main thread.
+     * </p>
+     *
+     * @param enabled True to render every frame while active, false to render only after markDirty().
+     */
+    public void setContinuous(boolean enabled) {
+        continuous = enabled;
+        if (enabled) {
+            markDirty();
+        }
+    }
+
+    /**
+     * stop
+     * <p>
+     * Disables frame publishing (typically from onPause) and cancels any scheduled frame.
+     * </p>
+     */
+    public void stop() {
+        active = false;
+        if (frameScheduled.getAndSet(false)) {
+            choreographer.removeFrameCallback(this);
+            pendingWhileInactive = true;
+        }
+    }
+
+    /**
+     * doFrame
+     * <p>
+     * Choreographer callback; clears the scheduled flag before rendering so updates published
+     * during rendering schedule the next frame. In continuous mode the next frame is always requested.
+     * </p>
+     *
+     * @param frameTimeNanos Frame start time supplied by the Choreographer.
+     */
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled.set(false);
+        if (active) {
+            renderer.run();
+            if (continuous) {
+                markDirty();
+            }
+        }
+    }
+}
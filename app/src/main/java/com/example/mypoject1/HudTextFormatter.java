@@ -0,0 +1,214 @@
+package com.example.mypoject1;
+
+/**
+ * HudTextFormatter
+ * <p>
+ * Builds the text of one live HUD field (stopwatch, countdown, steps, distance, pace) in a reusable
+ * {@code char[]} without creating Strings, StringBuilders or Formatters. The result is meant to be
+ * pushed with {@code TextView.setText(char[], int, int)}, which displays the array slice directly.
+ * </p>
+ *
+ * <p>
+ * Usage per update: {@link #reset()}, a chain of {@code append*} calls, then {@link #commit()}. Commit
+ * compares the new text with the text of the previous commit and returns false when nothing visible
+ * changed, so the caller can skip the setText (and the relayout it triggers). Because the TextView keeps
+ * a reference to the array, the caller must call setText right after a commit that returned true.
+ * </p>
+ *
+ * <p>
+ * Digits are always ASCII; the decimal separator is supplied by the caller (normally taken once from
+ * the default locale). Not thread-safe; use it on the main thread.
+ * </p>
+ */
+public class HudTextFormatter {
+
+    private final char decimalSeparator;
+    private char[] buffer;
+    private int length = 0;
+    // Copy of the last committed text, used to detect unchanged updates
+    private char[] committed;
+    private int committedLength = -1;
+
+    /**
+     * Creates a formatter.
+     *
+     * @param capacity         Initial buffer size in characters; grows if ever exceeded.
+     * @param decimalSeparator Character placed between the integer and fractional digits.
+     */
+    public HudTextFormatter(int capacity, char decimalSeparator) {
+        this.decimalSeparator = decimalSeparator;
+        this.buffer = new char[capacity];
+        this.committed = new char[capacity];
+    }
+
+    /**
+     * Clears the text for a new update.
+     */
+    public HudTextFormatter reset() {
+        length = 0;
+        return this;
+    }
+
+    /**
+     * Appends a string (typically a constant label). Copies characters without allocating.
+     */
+    public HudTextFormatter append(String text) {
+        int count = text.length();
+        ensureCapacity(count);
+        text.getChars(0, count, buffer, length);
+        length += count;
+        return this;
+    }
+
+    /**
+     * Appends a single character.
+     */
+    public HudTextFormatter append(char c) {
+        ensureCapacity(1);
+        buffer[length++] = c;
+        return this;
+    }
+
+    /**
+     * Appends a whole number in decimal.
+     */
+    public HudTextFormatter appendLong(long value) {
+        return appendPadded(value, 1);
+    }
+
+    /**
+     * appendPadded
+     * <p>
+     * Appends a whole number left-padded with zeros to at least {@code width} digits
+     * (like {@code %02d} for width 2).
+     * </p>
+     */
+    public HudTextFormatter appendPadded(long value, int width) {
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        int count = Math.max(digits, width);
+        ensureCapacity(count);
+        int end = length + count;
+        for (int i = end - 1; i >= length; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        length = end;
+        return this;
+    }
+
+    /**
+     * appendFixed
+     * <p>
+     * Appends a number rounded to a fixed number of decimals (like {@code %.2f} for 2 decimals).
+     * </p>
+     */
+    public HudTextFormatter appendFixed(double value, int decimals) {
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) {
+            scale *= 10;
+        }
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            append('-');
+        }
+        appendLong(scaled / scale);
+        if (decimals > 0) {
+            append(decimalSeparator);
+            appendPadded(scaled % scale, decimals);
+        }
+        return this;
+    }
+
+    /**
+     * appendStopwatch
+     * <p>
+     * Appends a duration as hh:mm:ss.cc (hours, minutes, seconds, hundredths).
+     * </p>
+     */
+    public HudTextFormatter appendStopwatch(long millis) {
+        appendPadded(millis / 3_600_000, 2).append(':');
+        appendPadded((millis / 60_000) % 60, 2).append(':');
+        appendPadded((millis / 1000) % 60, 2).append('.');
+        return appendPadded((millis % 1000) / 10, 2);
+    }
+
+    /**
+     * appendCountdown
+     * <p>
+     * Appends a duration as mm:ss:cc (minutes, seconds, hundredths), the countdown display format.
+     * </p>
+     */
+    public HudTextFormatter appendCountdown(long millis) {
+        appendPadded(millis / 60_000, 2).append(':');
+        appendPadded((millis / 1000) % 60, 2).append(':');
+        return appendPadded((millis % 1000) / 10, 2);
+    }
+
+    /**
+     * commit
+     * <p>
+     * Finishes the update. Returns true if the text differs from the previous commit, in which case
+     * it must now be displayed; false if the visible text is unchanged.
+     * </p>
+     */
+    public boolean commit() {
+        if (length == committedLength) {
+            boolean same = true;
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] != committed[i]) {
+                    same = false;
+                    break;
+                }
+            }
+            if (same) {
+                return false;
+            }
+        }
+        if (committed.length < buffer.length) {
+            committed = new char[buffer.length];
+        }
+        System.arraycopy(buffer, 0, committed, 0, length);
+        committedLength = length;
+        return true;
+    }
+
+    /**
+     * Forgets the last committed text, so the next commit reports a change (e.g. after the view
+     * was changed by other code).
+     */
+    public void invalidate() {
+        committedLength = -1;
+    }
+
+    /**
+     * Returns the character buffer holding the text; valid from index 0 to {@link #length()}.
+     */
+    public char[] chars() {
+        return buffer;
+    }
+
+    /**
+     * Returns the number of characters in the text.
+     */
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = java.util.Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
@@ -24,8 +24,6 @@ import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.firebase.auth.AuthResult;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.regex.Pattern;
 
@@ -211,6 +209,8 @@ public class LoginActivity extends AppCompatActivity implements View.OnClickList
                         // Log success and notify user on successful login
                         Log.d(TAG, "Login successful");
                         Toast.makeText(LoginActivity.this, "Login Successful", Toast.LENGTH_SHORT).show();
+                        // Upload workouts that were recorded while nobody was signed in
+                        WorkoutSyncWorker.getInstance(LoginActivity.this).requestSync();
                         // Fetch additional user details from Firestore
                         fetchUserDetails();
                     }
@@ -230,50 +230,29 @@ public class LoginActivity extends AppCompatActivity implements View.OnClickList
     /**
      * fetchUserDetails
      * <p>
-     * Retrieves the authenticated user's details from Firestore.
-     * On success, stores the user's first name in SharedPreferences and navigates to HomeActivity.
+     * Retrieves the authenticated user's profile through {@link ProfileRepository}, which caches it
+     * for the other screens. On success, navigates to HomeActivity.
      * </p>
      */
     private void fetchUserDetails() {
-        // Get the user ID from FirebaseAuth
-        String userId = FirebaseAuth.getInstance().getUid();
-        // Obtain an instance of FirebaseFirestore
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        // Retrieve the user document using the user ID
-        db.collection("users").document(userId).get()
-                .addOnSuccessListener(new OnSuccessListener<DocumentSnapshot>() {
-                    @Override
-                    public void onSuccess(DocumentSnapshot documentSnapshot) {
-                        // Hide the progress indicator
-                        progressBar.setVisibility(View.GONE);
-                        // If user details exist, retrieve the first name and store it in SharedPreferences
-                        if (documentSnapshot.exists()) {
-                            String firstName = documentSnapshot.getString("firstName");
-                            getSharedPreferences("MyAppPrefs", MODE_PRIVATE)
-                                    .edit()
-                                    .putString("firstName", firstName)
-                                    .apply();
-
-                            // Create an intent to navigate to HomeActivity and pass the first name as extra data
-                            Intent intent = new Intent(LoginActivity.this, HomeActivity.class);
-                            intent.putExtra("firstName", firstName);
-                            startActivity(intent);
-                            finish();
-                        } else {
-                            // If document does not exist, show a toast indicating missing user details
-                            Toast.makeText(LoginActivity.this, "User details not found", Toast.LENGTH_SHORT).show();
-                        }
-                    }
-                })
-                .addOnFailureListener(new OnFailureListener() {
-                    @Override
-                    public void onFailure(@NonNull Exception e) {
-                        // Hide the progress indicator on failure and notify the user
-                        progressBar.setVisibility(View.GONE);
-                        Toast.makeText(LoginActivity.this, "Error fetching user details", Toast.LENGTH_SHORT).show();
-                        Log.e(TAG, "Error fetching user details: " + e.getMessage());
-                    }
-                });
+        ProfileRepository.getInstance(this).getProfile(new ProfileRepository.Listener() {
+            @Override
+            public void onProfileChanged(MyUser profile) {
+                // Hide the progress indicator
+                progressBar.setVisibility(View.GONE);
+                if (profile != null) {
+                    // Create an intent to navigate to HomeActivity and pass the first name as extra data
+                    Intent intent = new Intent(LoginActivity.this, HomeActivity.class);
+                    intent.putExtra("firstName", profile.getFirstName());
+                    startActivity(intent);
+                    finish();
+                } else {
+                    // If the profile is missing or could not be read, notify the user
+                    Toast.makeText(LoginActivity.this, "User details not found", Toast.LENGTH_SHORT).show();
+                    Log.e(TAG, "No user details for " + FirebaseAuth.getInstance().getUid());
+                }
+            }
+        });
     }
 
     /**
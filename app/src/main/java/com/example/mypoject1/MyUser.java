@@ -55,6 +55,20 @@ public class MyUser {
         this.profileImageUri = profileImageUri;
     }
 
+    /**
+     * Constructor that also sets the profile image URI, used when restoring a cached profile.
+     *
+     * @param firstName       The first name of the user.
+     * @param lastName        The last name of the user.
+     * @param phone           The phone number of the user.
+     * @param yob             The year of birth of the user.
+     * @param profileImageUri URI of the user's profile image, or null.
+     */
+    public MyUser(String firstName, String lastName, String phone, int yob, String profileImageUri) {
+        this(firstName, lastName, phone, yob);
+        this.profileImageUri = profileImageUri;
+    }
+
     /**
      * Retrieves the first name of the user.
      *
@@ -0,0 +1,270 @@
+package com.example.mypoject1;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ProfileRepository
+ * <p>
+ * Single source of the signed-in user's {@link MyUser} profile for every screen. The last known
+ * profile is kept in memory and persisted as one JSON record in the "MyAppPrefs" preferences, so a
+ * screen shows it immediately on open (stale-while-revalidate). While any screen observes the profile,
+ * one Firestore snapshot listener on {@code users/{uid}} keeps it fresh; every change, including edits
+ * made on another device, is written to the cache and delivered to all observers.
+ * </p>
+ *
+ * <p>
+ * The cached record carries the uid it belongs to and is dropped when the signed-in user changes, so
+ * one user's profile is never shown to another. Clearing "MyAppPrefs" on logout removes the persisted
+ * copy. All methods must be called on the main thread; observers are notified on the main thread.
+ * </p>
+ */
+public class ProfileRepository {
+
+    private static final String TAG = "ProfileRepository";
+
+    private static final String PREFS_NAME = "MyAppPrefs";
+    private static final String KEY_PROFILE = "profile";
+
+    /**
+     * Receives the profile on the main thread.
+     */
+    public interface Listener {
+        /**
+         * Called with the current profile, or null if the user has no profile document.
+         */
+        void onProfileChanged(@Nullable MyUser profile);
+    }
+
+    private static volatile ProfileRepository instance;
+
+    private final SharedPreferences prefs;
+    private final List<Listener> listeners = new ArrayList<>();
+    // One-shot callbacks of getProfile waiting for the first snapshot
+    private final List<Listener> pending = new ArrayList<>();
+
+    // User the cache and the snapshot listener belong to; null when signed out
+    private String uid;
+    private MyUser profile;
+    private ListenerRegistration registration;
+
+    /**
+     * Returns the shared repository.
+     */
+    public static ProfileRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ProfileRepository.class) {
+                if (instance == null) {
+                    instance = new ProfileRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private ProfileRepository(Context context) {
+        prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        FirebaseAuth auth = FirebaseAuth.getInstance();
+        switchUser(auth.getUid());
+        auth.addAuthStateListener(firebaseAuth -> switchUser(firebaseAuth.getUid()));
+    }
+
+    /**
+     * Returns the cached profile of the signed-in user without any I/O, or null if none is known yet.
+     */
+    @Nullable
+    public MyUser getCachedProfile() {
+        return profile;
+    }
+
+    /**
+     * addListener
+     * <p>
+     * Starts observing the profile. The cached profile, if any, is delivered immediately; fresh
+     * values follow whenever the Firestore document changes. Call {@link #removeListener} when the
+     * screen goes away.
+     * </p>
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+        if (profile != null) {
+            listener.onProfileChanged(profile);
+        }
+        startListening();
+    }
+
+    /**
+     * Stops observing the profile; the snapshot listener is removed once nobody observes it.
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+        stopListeningIfUnused();
+    }
+
+    /**
+     * getProfile
+     * <p>
+     * Delivers the profile once: immediately from the cache, otherwise with the first snapshot
+     * (null if the user has no profile document or it could not be read).
+     * </p>
+     */
+    public void getProfile(Listener callback) {
+        switchUser(FirebaseAuth.getInstance().getUid());
+        if (profile != null || uid == null) {
+            callback.onProfileChanged(profile);
+            return;
+        }
+        pending.add(callback);
+        startListening();
+    }
+
+    /**
+     * Caches a profile that was just written to Firestore (for example at signup), so screens opened
+     * before the snapshot arrives already show it.
+     */
+    public void setProfile(MyUser user) {
+        // The auth state listener may not have seen a user who signed up a moment ago
+        switchUser(FirebaseAuth.getInstance().getUid());
+        if (uid != null) {
+            update(user);
+        }
+    }
+
+    private void switchUser(String newUid) {
+        if (newUid != null && newUid.equals(uid)) {
+            return;
+        }
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        uid = newUid;
+        profile = newUid != null ? readCache(newUid) : null;
+        if (newUid == null) {
+            deliverPending();
+        } else if (!listeners.isEmpty() || !pending.isEmpty()) {
+            startListening();
+        }
+    }
+
+    private void startListening() {
+        if (registration != null || uid == null) {
+            return;
+        }
+        String listenedUid = uid;
+        registration = FirebaseFirestore.getInstance().collection("users").document(listenedUid)
+                .addSnapshotListener((snapshot, e) -> {
+                    if (!listenedUid.equals(uid)) {
+                        return;
+                    }
+                    if (e != null) {
+                        // Firestore drops a listener after an error; the next observer starts a new one
+                        Log.w(TAG, "Profile listener failed", e);
+                        registration = null;
+                        deliverPending();
+                        return;
+                    }
+                    if (snapshot == null || (!snapshot.exists() && snapshot.getMetadata().isFromCache())) {
+                        // An empty Firestore cache (offline) does not mean the profile was deleted; keep
+                        // the stored profile until the server confirms the document is missing
+                        deliverPending();
+                    } else {
+                        update(snapshot.exists() ? toProfile(snapshot) : null);
+                    }
+                    stopListeningIfUnused();
+                });
+    }
+
+    private void stopListeningIfUnused() {
+        if (registration != null && listeners.isEmpty() && pending.isEmpty()) {
+            registration.remove();
+            registration = null;
+        }
+    }
+
+    /**
+     * Stores a new profile in memory and on disk and notifies observers.
+     */
+    private void update(@Nullable MyUser user) {
+        profile = user;
+        writeCache(user);
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onProfileChanged(user);
+        }
+        deliverPending();
+    }
+
+    private void deliverPending() {
+        List<Listener> callbacks = new ArrayList<>(pending);
+        pending.clear();
+        for (Listener callback : callbacks) {
+            callback.onProfileChanged(profile);
+        }
+    }
+
+    private static MyUser toProfile(DocumentSnapshot snapshot) {
+        try {
+            return snapshot.toObject(MyUser.class);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Malformed profile document", e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the persisted profile; ignored if it belongs to another user or cannot be parsed.
+     */
+    private MyUser readCache(String forUid) {
+        String json = prefs.getString(KEY_PROFILE, null);
+        if (json == null) {
+            return null;
+        }
+        try {
+            JSONObject record = new JSONObject(json);
+            if (!forUid.equals(record.optString("uid"))) {
+                return null;
+            }
+            return new MyUser(record.optString("firstName", null),
+                    record.optString("lastName", null),
+                    record.optString("phone", null),
+                    record.optInt("yob"),
+                    record.optString("profileImageUri", null));
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding unreadable profile cache", e);
+            return null;
+        }
+    }
+
+    private void writeCache(@Nullable MyUser user) {
+        if (user == null) {
+            prefs.edit().remove(KEY_PROFILE).apply();
+            return;
+        }
+        try {
+            JSONObject record = new JSONObject();
+            record.put("uid", uid);
+            record.put("firstName", user.getFirstName());
+            record.put("lastName", user.getLastName());
+            record.put("phone", user.getPhone());
+            record.put("yob", user.getYob());
+            record.put("profileImageUri", user.getProfileImageUri());
+            prefs.edit().putString(KEY_PROFILE, record.toString()).apply();
+        } catch (JSONException e) {
+            Log.e(TAG, "Unable to persist profile", e);
+        }
+    }
+}
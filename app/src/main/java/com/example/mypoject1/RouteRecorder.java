@@ -0,0 +1,297 @@
+package com.example.mypoject1;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+
+import java.util.List;
+
+/**
+ * RouteRecorder
+ * <p>
+ * Streams location fixes for the duration of a workout and appends them to the route store.
+ * A single LocationCallback is subscribed once; fixes are delivered in batches ({@code setMaxWaitTime})
+ * on a dedicated background thread, so the device can collect several fixes per wakeup and the main
+ * thread never sees location traffic.
+ * </p>
+ *
+ * <p>
+ * The update interval adapts to how the user is moving, using the latest GPS speed and step cadence:
+ * <ul>
+ *   <li><b>Stationary:</b> long interval at balanced power accuracy.</li>
+ *   <li><b>Walking:</b> medium interval at high accuracy.</li>
+ *   <li><b>Running:</b> short interval at high accuracy.</li>
+ * </ul>
+ * A tier change must be confirmed by several consecutive observations before the request is
+ * replaced, so the recorder does not flap between intervals. Fixes closer than the smallest
+ * displacement are not delivered, so a runner who stops gets no callbacks at all; when no batch
+ * arrives for {@link #NO_FIX_TIMEOUT_BATCHES} batch periods, that counts as a stationary observation.
+ * </p>
+ */
+public class RouteRecorder {
+
+    private static final String TAG = "RouteRecorder";
+
+    /**
+     * Receives accepted fixes on the location thread.
+     */
+    public interface Sink {
+        void onLocationFix(Location location);
+    }
+
+    /**
+     * Supplies the current step cadence (steps per minute) to the interval policy.
+     */
+    public interface CadenceSource {
+        double getCadence();
+    }
+
+    // Movement tiers and their request parameters
+    static final int TIER_STATIONARY = 0;
+    static final int TIER_WALKING = 1;
+    static final int TIER_RUNNING = 2;
+    private static final long[] TIER_INTERVAL_MS = {15_000L, 5_000L, 2_000L};
+    private static final int[] TIER_PRIORITY = {
+            LocationRequest.PRIORITY_BALANCED_POWER_ACCURACY,
+            LocationRequest.PRIORITY_HIGH_ACCURACY,
+            LocationRequest.PRIORITY_HIGH_ACCURACY
+    };
+    // Fixes are batched for up to this many intervals before being delivered
+    private static final int BATCH_INTERVALS = 5;
+    // Ignore fixes that did not move at least this far (meters)
+    private static final float SMALLEST_DISPLACEMENT_M = 3f;
+    // Fixes less accurate than this are not added to the route (meters)
+    private static final float MAX_ACCEPTED_ACCURACY_M = 30f;
+    // Batch periods without any fix after which the user is taken to be standing still
+    private static final int NO_FIX_TIMEOUT_BATCHES = 2;
+    // Consecutive observations needed before switching tier
+    private static final int TIER_CONFIRMATIONS = 3;
+
+    // Speed / cadence thresholds between tiers
+    private static final float WALKING_SPEED_MPS = 0.5f;
+    private static final float RUNNING_SPEED_MPS = 2.5f;
+    private static final double WALKING_CADENCE_SPM = 30;
+    private static final double RUNNING_CADENCE_SPM = 140;
+
+    private final Context context;
+    private final Sink sink;
+    private final CadenceSource cadenceSource;
+    private final FusedLocationProviderClient fusedLocationClient;
+
+    // start/stop run on the caller's thread, tier changes on the location thread; both guarded by "this"
+    private HandlerThread locationThread;
+    private Handler locationHandler;
+    private volatile boolean running = false;
+    private int currentTier = TIER_WALKING;
+    private int candidateTier = TIER_WALKING;
+    private int candidateCount = 0;
+    private float lastSpeed = 0f;
+
+    private final LocationCallback locationCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(LocationResult locationResult) {
+            if (locationResult == null) {
+                return;
+            }
+            // A batched result holds every fix collected since the last delivery, oldest first
+            List<Location> locations = locationResult.getLocations();
+            float speed = -1f;
+            for (int i = 0; i < locations.size(); i++) {
+                Location location = locations.get(i);
+                if (location.hasAccuracy() && location.getAccuracy() > MAX_ACCEPTED_ACCURACY_M) {
+                    continue;
+                }
+                if (location.hasSpeed()) {
+                    speed = location.getSpeed();
+                }
+                sink.onLocationFix(location);
+            }
+            onBatch(speed);
+        }
+    };
+
+    private final Runnable noFixTimeout = this::onNoFix;
+
+    /**
+     * Creates a recorder.
+     *
+     * @param context       Context used to obtain the location client and check permissions.
+     * @param sink          Receives every accepted fix on the location thread.
+     * @param cadenceSource Supplies the latest step cadence.
+     */
+    public RouteRecorder(Context context, Sink sink, CadenceSource cadenceSource) {
+        this.context = context.getApplicationContext();
+        this.sink = sink;
+        this.cadenceSource = cadenceSource;
+        this.fusedLocationClient = LocationServices.getFusedLocationProviderClient(this.context);
+    }
+
+    /**
+     * start
+     * <p>
+     * Starts the location thread and subscribes to location updates. Does nothing without the
+     * fine location permission or when already running.
+     * </p>
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            Log.d(TAG, "ACCESS_FINE_LOCATION not granted, route will not be recorded");
+            return;
+        }
+        locationThread = new HandlerThread("LocationThread");
+        locationThread.start();
+        locationHandler = new Handler(locationThread.getLooper());
+        running = true;
+        currentTier = TIER_WALKING;
+        candidateTier = TIER_WALKING;
+        candidateCount = 0;
+        requestUpdates();
+    }
+
+    /**
+     * stop
+     * <p>
+     * Unsubscribes from location updates and stops the location thread.
+     * </p>
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        fusedLocationClient.removeLocationUpdates(locationCallback);
+        locationHandler.removeCallbacks(noFixTimeout);
+        locationThread.quitSafely();
+        locationThread = null;
+        locationHandler = null;
+    }
+
+    /**
+     * requestUpdates
+     * <p>
+     * (Re)subscribes the single callback with the parameters of the current tier. Requesting again
+     * with the same callback replaces the previous request instead of adding a second one.
+     * Ignored once the recorder has been stopped, so a late tier change cannot resubscribe.
+     * </p>
+     */
+    private synchronized void requestUpdates() {
+        if (!running) {
+            return;
+        }
+        long interval = TIER_INTERVAL_MS[currentTier];
+        LocationRequest request = LocationRequest.create();
+        request.setPriority(TIER_PRIORITY[currentTier]);
+        request.setInterval(interval);
+        request.setFastestInterval(interval / 2);
+        request.setMaxWaitTime(interval * BATCH_INTERVALS);
+        request.setSmallestDisplacement(SMALLEST_DISPLACEMENT_M);
+        try {
+            fusedLocationClient.requestLocationUpdates(request, locationCallback, locationThread.getLooper());
+            Log.d(TAG, "Location updates requested: tier=" + currentTier + " interval=" + interval + "ms");
+        } catch (SecurityException e) {
+            Log.e(TAG, "Location permission revoked", e);
+        }
+        scheduleNoFixTimeout();
+    }
+
+    /**
+     * Restarts the countdown to {@link #onNoFix()} from a full timeout of the current tier.
+     */
+    private synchronized void scheduleNoFixTimeout() {
+        if (!running) {
+            return;
+        }
+        locationHandler.removeCallbacks(noFixTimeout);
+        locationHandler.postDelayed(noFixTimeout, TIER_INTERVAL_MS[currentTier] * BATCH_INTERVALS * NO_FIX_TIMEOUT_BATCHES);
+    }
+
+    /**
+     * Records the speed of the latest fix of a batch (negative if none had one) and re-evaluates the
+     * tier. Location thread.
+     */
+    private synchronized void onBatch(float speed) {
+        if (speed >= 0) {
+            lastSpeed = speed;
+        }
+        adaptInterval();
+    }
+
+    /**
+     * Runs on the location thread when no batch arrived for the timeout: no displacement means no
+     * speed, so the tier is re-evaluated as if a stationary fix had arrived.
+     */
+    private synchronized void onNoFix() {
+        if (!running) {
+            return;
+        }
+        lastSpeed = 0f;
+        adaptInterval();
+    }
+
+    /**
+     * adaptInterval
+     * <p>
+     * Re-evaluates the movement tier after each delivered batch, or after a batch period without
+     * one, and replaces the request once the new tier has been observed {@link #TIER_CONFIRMATIONS}
+     * times in a row. Either way the no-fix timeout starts over.
+     * </p>
+     */
+    private synchronized void adaptInterval() {
+        if (!running) {
+            return;
+        }
+        scheduleNoFixTimeout();
+        int tier = chooseTier(lastSpeed, cadenceSource.getCadence());
+        if (tier == currentTier) {
+            candidateCount = 0;
+            return;
+        }
+        if (tier == candidateTier) {
+            candidateCount++;
+        } else {
+            candidateTier = tier;
+            candidateCount = 1;
+        }
+        if (candidateCount >= TIER_CONFIRMATIONS) {
+            currentTier = tier;
+            candidateCount = 0;
+            requestUpdates();
+        }
+    }
+
+    /**
+     * chooseTier
+     * <p>
+     * Maps the observed speed and cadence to a movement tier. Either signal alone is enough to move
+     * up a tier, since GPS speed lags at the start of a run while cadence reacts immediately.
+     * </p>
+     *
+     * @param speedMps   Latest GPS speed in meters per second.
+     * @param cadenceSpm Latest step cadence in steps per minute.
+     * @return One of the TIER_* constants.
+     */
+    static int chooseTier(float speedMps, double cadenceSpm) {
+        if (speedMps >= RUNNING_SPEED_MPS || cadenceSpm >= RUNNING_CADENCE_SPM) {
+            return TIER_RUNNING;
+        }
+        if (speedMps >= WALKING_SPEED_MPS || cadenceSpm >= WALKING_CADENCE_SPM) {
+            return TIER_WALKING;
+        }
+        return TIER_STATIONARY;
+    }
+}
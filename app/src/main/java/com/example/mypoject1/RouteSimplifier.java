@@ -0,0 +1,282 @@
+package com.example.mypoject1;
+
+import java.util.Arrays;
+
+/**
+ * RouteSimplifier
+ * <p>
+ * Keeps several simplified copies (levels of detail) of a route while its points arrive, so the map can
+ * be given a polyline whose vertex count depends on the zoom level rather than on the route length.
+ * Each level has its own distance tolerance in meters, from fine to coarse.
+ * </p>
+ *
+ * <p>
+ * Every level is simplified incrementally with an opening-window variant of Douglas-Peucker: the points
+ * since the last kept point (the anchor) are buffered, and as long as all of them lie within the
+ * level's tolerance of the segment from the anchor to the newest point they are dropped. When a point
+ * falls outside, the previous point is kept and becomes the new anchor. The window is capped, so adding
+ * a point costs O(window) per level regardless of route length. A full window is thinned to every
+ * other point instead of forcing a keep, so a level only keeps points where the route bends beyond its
+ * tolerance and the coarse levels stay within a vertex budget however long the route gets. The newest
+ * point is always part of the output, so the drawn line reaches the current position.
+ * </p>
+ *
+ * <p>
+ * Distances are computed on a local equirectangular projection around the first point, which is
+ * accurate well below the tolerances used here for any running route. All methods are synchronized;
+ * points are added on the location thread and read on the main thread.
+ * </p>
+ */
+public class RouteSimplifier {
+
+    // Tolerances of the levels of detail, in meters, from finest to coarsest
+    private static final double[] LEVEL_TOLERANCES_M = {2, 8, 32, 128, 512};
+    // Maximum number of buffered points since the last kept point, per level; must be even
+    private static final int MAX_WINDOW = 64;
+    // Meters per degree of latitude
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    // Web Mercator ground resolution at zoom 0 on the equator (meters per pixel)
+    private static final double METERS_PER_PIXEL_ZOOM_0 = 156_543.03392;
+    // Deviation from the true route that is acceptable on screen, in pixels
+    private static final double PIXEL_TOLERANCE = 1.5;
+
+    /**
+     * Receives the points of a level, in route order.
+     */
+    public interface PointConsumer {
+        void accept(double latitude, double longitude);
+    }
+
+    /**
+     * One level of detail: the kept points plus the window of points since the last kept one.
+     */
+    private static class Level {
+        final double tolerance;
+        double[] keptLat = new double[64];
+        double[] keptLng = new double[64];
+        double[] keptX = new double[64];
+        double[] keptY = new double[64];
+        int keptCount = 0;
+
+        final double[] windowLat = new double[MAX_WINDOW];
+        final double[] windowLng = new double[MAX_WINDOW];
+        final double[] windowX = new double[MAX_WINDOW];
+        final double[] windowY = new double[MAX_WINDOW];
+        int windowCount = 0;
+
+        Level(double tolerance) {
+            this.tolerance = tolerance;
+        }
+
+        void add(double lat, double lng, double x, double y) {
+            if (keptCount == 0) {
+                keep(lat, lng, x, y);
+                return;
+            }
+            if (windowCount == MAX_WINDOW) {
+                thinWindow();
+            }
+            windowLat[windowCount] = lat;
+            windowLng[windowCount] = lng;
+            windowX[windowCount] = x;
+            windowY[windowCount] = y;
+            windowCount++;
+            if (windowCount > 1 && !windowFits(x, y)) {
+                // The point before the newest one is the last that kept the route within tolerance
+                int previous = windowCount - 2;
+                keep(windowLat[previous], windowLng[previous], windowX[previous], windowY[previous]);
+                windowLat[0] = lat;
+                windowLng[0] = lng;
+                windowX[0] = x;
+                windowY[0] = y;
+                windowCount = 1;
+            }
+        }
+
+        /**
+         * Returns true if every buffered point (except the newest) lies within tolerance of the segment
+         * from the anchor to (x, y).
+         */
+        private boolean windowFits(double x, double y) {
+            double ax = keptX[keptCount - 1];
+            double ay = keptY[keptCount - 1];
+            double toleranceSq = tolerance * tolerance;
+            for (int i = 0; i < windowCount - 1; i++) {
+                if (segmentDistanceSq(windowX[i], windowY[i], ax, ay, x, y) > toleranceSq) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Halves the window by dropping every other point, keeping the newest one. The remaining points
+         * are still checked against the tolerance; those dropped lie between two of them.
+         */
+        private void thinWindow() {
+            int count = 0;
+            for (int i = 1; i < windowCount; i += 2) {
+                windowLat[count] = windowLat[i];
+                windowLng[count] = windowLng[i];
+                windowX[count] = windowX[i];
+                windowY[count] = windowY[i];
+                count++;
+            }
+            windowCount = count;
+        }
+
+        private void keep(double lat, double lng, double x, double y) {
+            if (keptCount == keptLat.length) {
+                int capacity = keptCount * 2;
+                keptLat = Arrays.copyOf(keptLat, capacity);
+                keptLng = Arrays.copyOf(keptLng, capacity);
+                keptX = Arrays.copyOf(keptX, capacity);
+                keptY = Arrays.copyOf(keptY, capacity);
+            }
+            keptLat[keptCount] = lat;
+            keptLng[keptCount] = lng;
+            keptX[keptCount] = x;
+            keptY[keptCount] = y;
+            keptCount++;
+        }
+
+        int outputCount() {
+            return keptCount + (windowCount > 0 ? 1 : 0);
+        }
+    }
+
+    private final Level[] levels = new Level[LEVEL_TOLERANCES_M.length];
+    private double originLat;
+    private double originLng;
+    private double metersPerDegreeLng;
+    private boolean hasOrigin = false;
+    private int version = 0;
+
+    /**
+     * Creates an empty simplifier with the default levels of detail.
+     */
+    public RouteSimplifier() {
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = new Level(LEVEL_TOLERANCES_M[i]);
+        }
+    }
+
+    /**
+     * add
+     * <p>
+     * Adds the next route point to every level.
+     * </p>
+     *
+     * @param latitude  Latitude in degrees.
+     * @param longitude Longitude in degrees.
+     */
+    public synchronized void add(double latitude, double longitude) {
+        if (!hasOrigin) {
+            originLat = latitude;
+            originLng = longitude;
+            metersPerDegreeLng = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+            hasOrigin = true;
+        }
+        double x = (longitude - originLng) * metersPerDegreeLng;
+        double y = (latitude - originLat) * METERS_PER_DEGREE;
+        for (Level level : levels) {
+            level.add(latitude, longitude, x, y);
+        }
+        version++;
+    }
+
+    /**
+     * Returns a counter that changes every time a point is added or the simplifier is cleared.
+     */
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of levels of detail.
+     */
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    /**
+     * Returns the number of points in the given level.
+     */
+    public synchronized int getPointCount(int level) {
+        return levels[level].outputCount();
+    }
+
+    /**
+     * levelFor
+     * <p>
+     * Chooses the coarsest level whose tolerance is still invisible at the given zoom, then moves to
+     * coarser levels while the chosen one has more than {@code maxVertices} points.
+     * </p>
+     *
+     * @param zoom        Current map zoom level.
+     * @param latitude    Latitude at the centre of the map, for the ground resolution.
+     * @param maxVertices Vertex budget for the polyline.
+     * @return The index of the level to draw.
+     */
+    public synchronized int levelFor(float zoom, double latitude, int maxVertices) {
+        double metersPerPixel = METERS_PER_PIXEL_ZOOM_0 * Math.cos(Math.toRadians(latitude)) / Math.pow(2, zoom);
+        double allowed = metersPerPixel * PIXEL_TOLERANCE;
+        int level = 0;
+        while (level + 1 < levels.length && levels[level + 1].tolerance <= allowed) {
+            level++;
+        }
+        while (level + 1 < levels.length && levels[level].outputCount() > maxVertices) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * forEachPoint
+     * <p>
+     * Passes the points of a level to the consumer, ending with the newest route point.
+     * The consumer is called while the simplifier is locked and must not call back into it.
+     * </p>
+     *
+     * @param level    Level index, 0 being the finest.
+     * @param consumer Receives the points in route order.
+     */
+    public synchronized void forEachPoint(int level, PointConsumer consumer) {
+        Level l = levels[level];
+        for (int i = 0; i < l.keptCount; i++) {
+            consumer.accept(l.keptLat[i], l.keptLng[i]);
+        }
+        if (l.windowCount > 0) {
+            consumer.accept(l.windowLat[l.windowCount - 1], l.windowLng[l.windowCount - 1]);
+        }
+    }
+
+    /**
+     * clear
+     * <p>
+     * Removes all points from every level.
+     * </p>
+     */
+    public synchronized void clear() {
+        for (Level level : levels) {
+            level.keptCount = 0;
+            level.windowCount = 0;
+        }
+        hasOrigin = false;
+        version++;
+    }
+
+    /**
+     * Squared distance from point p to the segment a-b.
+     */
+    private static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq > 0 ? ((px - ax) * dx + (py - ay) * dy) / lengthSq : 0;
+        t = Math.max(0, Math.min(1, t));
+        double ex = ax + t * dx - px;
+        double ey = ay + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+}
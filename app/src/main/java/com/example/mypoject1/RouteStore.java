@@ -0,0 +1,318 @@
+package com.example.mypoject1;
+
+/**
+ * RouteStore
+ * <p>
+ * A compact, append-only container for the points of a recorded route. Each point is stored as
+ * fixed-point E7 integers (degrees * 10^7, about 1 cm resolution) for latitude and longitude plus a
+ * timestamp. Consecutive points are delta encoded and written as zigzag varints, so a typical GPS fix
+ * costs 5-8 bytes instead of a boxed LatLng (about 32 bytes plus a list reference).
+ * </p>
+ *
+ * <p>
+ * Bytes are written into fixed-size primitive blocks; a full block is never copied, a new one is
+ * simply added. Points are read back sequentially through a {@link Cursor}. The same encoding is used
+ * by {@link #toByteArray()} / {@link #fromByteArray(byte[])}, so the upload payload is just the
+ * stored bytes behind a small header.
+ * </p>
+ *
+ * <p>
+ * Appending and taking a cursor are synchronized. A cursor works on the blocks and length captured
+ * when it was created, so it can be iterated without holding a lock while new points are appended.
+ * </p>
+ */
+public class RouteStore {
+
+    // Serialization header: format marker and version
+    private static final int MAGIC = 0x52; // 'R'
+    private static final int VERSION = 1;
+
+    // Size of each storage block in bytes
+    private static final int BLOCK_SIZE = 4096;
+    // Fixed-point scale: degrees * 10^7
+    private static final double E7 = 1e7;
+
+    private byte[][] blocks = new byte[4][];
+    private int blockCount = 0;
+    // Number of bytes written in total, across all blocks
+    private int length = 0;
+    private int size = 0;
+
+    // Last appended point, the base for the next delta
+    private int lastLatE7 = 0;
+    private int lastLngE7 = 0;
+    private long lastTimeMillis = 0;
+
+    /**
+     * Sequential reader over the points of a store.
+     */
+    public static class Cursor {
+        private final byte[][] blocks;
+        private final int length;
+        private int position = 0;
+        private int latE7 = 0;
+        private int lngE7 = 0;
+        private long timeMillis = 0;
+
+        private Cursor(byte[][] blocks, int length) {
+            this.blocks = blocks;
+            this.length = length;
+        }
+
+        /**
+         * Advances to the next point.
+         *
+         * @return false when there are no more points.
+         */
+        public boolean next() {
+            if (position >= length) {
+                return false;
+            }
+            latE7 += (int) zigzagDecode(readVarint());
+            lngE7 += (int) zigzagDecode(readVarint());
+            timeMillis += readVarint();
+            return true;
+        }
+
+        /**
+         * Returns the latitude of the current point in degrees.
+         */
+        public double getLatitude() {
+            return latE7 / E7;
+        }
+
+        /**
+         * Returns the longitude of the current point in degrees.
+         */
+        public double getLongitude() {
+            return lngE7 / E7;
+        }
+
+        /**
+         * Returns the latitude of the current point as degrees * 10^7.
+         */
+        public int getLatE7() {
+            return latE7;
+        }
+
+        /**
+         * Returns the longitude of the current point as degrees * 10^7.
+         */
+        public int getLngE7() {
+            return lngE7;
+        }
+
+        /**
+         * Returns the timestamp of the current point in milliseconds.
+         */
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        private long readVarint() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                byte b = blocks[position / BLOCK_SIZE][position % BLOCK_SIZE];
+                position++;
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+            }
+        }
+    }
+
+    /**
+     * add
+     * <p>
+     * Appends a point. Timestamps are expected to be non-decreasing; an earlier timestamp is stored
+     * as a zero delta.
+     * </p>
+     *
+     * @param latitude   Latitude in degrees.
+     * @param longitude  Longitude in degrees.
+     * @param timeMillis Time of the fix in milliseconds.
+     */
+    public void add(double latitude, double longitude, long timeMillis) {
+        addE7((int) Math.round(latitude * E7), (int) Math.round(longitude * E7), timeMillis);
+    }
+
+    /**
+     * addE7
+     * <p>
+     * Appends a point given in fixed-point E7 coordinates.
+     * </p>
+     */
+    public synchronized void addE7(int latE7, int lngE7, long timeMillis) {
+        // The first point is stored relative to (0, 0, 0)
+        writeVarint(zigzagEncode((long) latE7 - lastLatE7));
+        writeVarint(zigzagEncode((long) lngE7 - lastLngE7));
+        writeVarint(Math.max(0, timeMillis - lastTimeMillis));
+        lastLatE7 = latE7;
+        lastLngE7 = lngE7;
+        lastTimeMillis = Math.max(lastTimeMillis, timeMillis);
+        size++;
+    }
+
+    /**
+     * Returns the number of stored points.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes used by the encoded points.
+     */
+    public synchronized int getEncodedLength() {
+        return length;
+    }
+
+    /**
+     * Returns a cursor positioned before the first point.
+     */
+    public synchronized Cursor cursor() {
+        return new Cursor(blocks, length);
+    }
+
+    /**
+     * clear
+     * <p>
+     * Removes all points.
+     * </p>
+     */
+    public synchronized void clear() {
+        // Open cursors still read the old blocks, so they are replaced rather than overwritten
+        blocks = new byte[4][];
+        blockCount = 0;
+        length = 0;
+        size = 0;
+        lastLatE7 = 0;
+        lastLngE7 = 0;
+        lastTimeMillis = 0;
+    }
+
+    /**
+     * toByteArray
+     * <p>
+     * Serializes the store: a magic byte, a version byte, the point count as a varint and then the
+     * encoded points exactly as they are stored.
+     * </p>
+     *
+     * @return The serialized route.
+     */
+    public synchronized byte[] toByteArray() {
+        byte[] header = new byte[2 + 5];
+        header[0] = (byte) MAGIC;
+        header[1] = (byte) VERSION;
+        int headerLength = 2;
+        int value = size;
+        while ((value & ~0x7F) != 0) {
+            header[headerLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        header[headerLength++] = (byte) value;
+
+        byte[] out = new byte[headerLength + length];
+        System.arraycopy(header, 0, out, 0, headerLength);
+        int copied = 0;
+        for (int i = 0; copied < length; i++) {
+            int count = Math.min(BLOCK_SIZE, length - copied);
+            System.arraycopy(blocks[i], 0, out, headerLength + copied, count);
+            copied += count;
+        }
+        return out;
+    }
+
+    /**
+     * fromByteArray
+     * <p>
+     * Rebuilds a store from the output of {@link #toByteArray()}.
+     * </p>
+     *
+     * @param data Serialized route.
+     * @return A new store holding the same points.
+     * @throws IllegalArgumentException If the data is not a serialized route.
+     */
+    public static RouteStore fromByteArray(byte[] data) {
+        if (data.length < 3 || (data[0] & 0xFF) != MAGIC || (data[1] & 0xFF) != VERSION) {
+            throw new IllegalArgumentException("Not a serialized route");
+        }
+        int position = 2;
+        int count = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (position == data.length) {
+                throw new IllegalArgumentException("Route data truncated");
+            }
+            b = data[position++];
+            count |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        // The stored encoding is the serialized encoding: copy the bytes, then replay them once to
+        // validate the point count and restore the delta base for further appends
+        RouteStore store = new RouteStore();
+        for (int i = position; i < data.length; i++) {
+            store.writeByte(data[i]);
+        }
+        Cursor cursor = store.cursor();
+        int points = 0;
+        try {
+            while (cursor.next()) {
+                points++;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Route data truncated", e);
+        }
+        // A last varint cut off inside a block reads on into the unused zero bytes of that block
+        if (points != count || cursor.position != store.length) {
+            throw new IllegalArgumentException("Route data truncated");
+        }
+        store.size = count;
+        store.lastLatE7 = cursor.getLatE7();
+        store.lastLngE7 = cursor.getLngE7();
+        store.lastTimeMillis = cursor.getTimeMillis();
+        return store;
+    }
+
+    /**
+     * Writes an unsigned varint: 7 bits per byte, high bit set on all but the last byte.
+     */
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((byte) value);
+    }
+
+    private void writeByte(byte b) {
+        int blockIndex = length / BLOCK_SIZE;
+        if (blockIndex == blockCount) {
+            if (blockCount == blocks.length) {
+                // Only the small array of block references grows; block contents are never copied
+                byte[][] grown = new byte[blocks.length * 2][];
+                System.arraycopy(blocks, 0, grown, 0, blockCount);
+                blocks = grown;
+            }
+            blocks[blockCount++] = new byte[BLOCK_SIZE];
+        }
+        blocks[blockIndex][length % BLOCK_SIZE] = b;
+        length++;
+    }
+
+    /**
+     * Maps signed deltas to unsigned values so small negative numbers stay short.
+     */
+    private static long zigzagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigzagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -3,21 +3,21 @@ package com.example.mypoject1;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
+import androidx.core.content.FileProvider;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
+import android.content.ComponentName;
+import android.content.ServiceConnection;
 import android.content.SharedPreferences;
-import android.os.AsyncTask;
 import android.Manifest;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.hardware.Sensor;
-import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
-import android.hardware.SensorManager;
+import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.IBinder;
 import android.os.Looper;
 import android.util.Log;
 import android.view.Menu;
@@ -42,17 +42,25 @@ import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.MapView;
 import com.google.android.gms.maps.MapsInitializer;
 import com.google.android.gms.maps.OnMapReadyCallback;
+import com.google.android.gms.maps.model.CameraPosition;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.Polyline;
+import com.google.android.gms.maps.model.PolylineOptions;
 
-// API usage: Firebase Firestore API is imported to store and retrieve workout summary data remotely.
+// API usage: Firebase Auth API is imported to sign the user out and to tag workouts with their owner;
+// workouts reach Firestore via WorkoutSyncWorker.
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.auth.FirebaseUser;
 import com.google.android.gms.location.LocationServices;
 
+import java.io.File;
+import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Future;
 
 /**
  * TimerActivity
@@ -63,24 +71,30 @@ import java.util.Locale;
  * Google Maps API for location updates.
  * </p>
  * <p>
+ * The recording itself (sensors, timers and route data) is owned by {@link WorkoutRecordingService}. This activity
+ * binds to it, forwards the user's commands and redraws from a {@link WorkoutSnapshot}, so leaving or recreating
+ * the screen does not interrupt the workout.
+ * </p>
+ * <p>
  * Major Functions and Features:
  * <ul>
- *   <li><b>Lifecycle Management:</b> onCreate, onResume, onPause, onDestroy, onLowMemory are overridden to manage
- *       sensors and MapView lifecycle.</li>
+ *   <li><b>Lifecycle Management:</b> onCreate, onStart, onResume, onPause, onStop, onDestroy, onLowMemory are
+ *       overridden to manage the service binding and MapView lifecycle.</li>
  *   <li><b>UI Initialization:</b> findViews(), applying animations, and setting click listeners.</li>
  *   <li><b>Map Integration:</b> onMapReady, requestFreshLocation, and moveToDefaultLocation are used to set the user's
  *       location and update the map camera.</li>
- *   <li><b>Sensor Management:</b> onSensorChanged and onAccuracyChanged handle step counter and accelerometer data,
- *       while updateSteps() and updateDistance() update UI elements.</li>
+ *   <li><b>Sensor Data:</b> step and distance values recorded by the service are shown by renderHud(), which
+ *       runs at most once per display frame.</li>
  *   <li><b>Stopwatch and Countdown Timer:</b> Methods for starting, pausing, resetting, and updating the stopwatch and
  *       timer are provided.</li>
  *   <li><b>Workout Summary and Sharing:</b> Methods to show a workout summary, store it in Firebase, and share it via
  *       implicit intents.</li>
- *   <li><b>Asynchronous Tasks:</b> AverageSpeedAnalysisTask computes average speed in the background using AsyncTask.</li>
+ *   <li><b>Workout Analytics:</b> splits, moving time, max speed and cadence distribution are maintained by the
+ *       service while recording ({@link WorkoutAnalytics}), so the summary is shown as soon as Finish is tapped.</li>
  * </ul>
  * </p>
  */
-public class RunningActivity extends AppCompatActivity implements View.OnClickListener, SensorEventListener, OnMapReadyCallback {
+public class RunningActivity extends AppCompatActivity implements View.OnClickListener, OnMapReadyCallback, WorkoutRecordingService.Listener {
 
     // Logging tag for debug messages
     private static final String TAG = "TimerActivity";
@@ -89,39 +103,76 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
     Button btnBack, btnStartStopwatch, btnResetStopwatch, btnStartTimer, btnResetTimer;
     Button btnFinishWorkout, btnCloseDialog, btnShareSummary;
     EditText etTimeInput;
-    TextView tvWorkoutSummary, tvTotalSteps, tvTotalDistance, tvAverageSpeed;
+    TextView tvWorkoutSummary, tvTotalSteps, tvTotalDistance, tvAverageSpeed, tvWorkoutAnalytics;
     LinearLayout workoutSummaryDialog;
-    TextView tvStopwatch, tvCountDown, tvSteps, tvDistance;
+    TextView tvStopwatch, tvCountDown, tvSteps, tvDistance, tvPace;
 
-    // Map and Firebase objects
+    // Map and workout storage objects
     private MapView mapView;
     private GoogleMap gMap;
-    private FirebaseFirestore db;
+    private WorkoutRepository workoutRepository;
 
     // Route tracking fields for mapping the workout route
-    private List<LatLng> routePoints = new ArrayList<>();
     private Polyline routePolyline;
+    // How often the drawn route is refreshed while recording, and the vertex budget of the polyline
+    private static final long ROUTE_REFRESH_MS = 1000;
+    private static final int MAX_ROUTE_VERTICES = 1000;
+    // Version and level of detail of the route currently drawn, to skip unchanged refreshes
+    private int drawnRouteVersion = -1;
+    private int drawnRouteLevel = -1;
+    // Reused vertex list handed to the polyline
+    private final List<LatLng> routeVertices = new ArrayList<>();
+    private final Runnable routeRefreshRunnable = new Runnable() {
+        @Override
+        public void run() {
+            refreshRoutePolyline();
+            timerHandler.postDelayed(this, ROUTE_REFRESH_MS);
+        }
+    };
 
-    // Stopwatch and Timer Variables
+    // Stopwatch and Timer Variables (UI mirrors of the state kept in the recording service)
     boolean isStopwatchRunning = false;
-    long stopwatchTime = 0, stopwatchStartTime = 0;
     boolean isTimerRunning = false;
-    long timeRemain = 0, millisAtPause = 0;
+    long timeRemain = 0;
     Handler timerHandler = new Handler();
-    Runnable countdownRunnable, stopwatchRunnable;
 
-    // Sensor-related fields
-    private SensorManager sensorManager;
-    private Sensor stepCounterSensor;
-    private Sensor accelerometerSensor;
-    private float initialStepCount = -1;
+    // Latest values read from the recording service
     int stepCount = 0;
     double distanceCovered = 0.0;
-
-    // Storage for accelerometer data (for advanced analysis)
-    private List<float[]> accelerometerData = new ArrayList<>();
     long totalElapsedTime = 0;
-    private float latestSensorReading = -1;
+
+    // Publishes step, distance and pace to the views at most once per display frame
+    private HudFramePublisher hudPublisher;
+    // Reusable char[] text builders for the live HUD (no String/Formatter garbage per frame)
+    private final char decimalSeparator = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+    private final HudTextFormatter stopwatchText = new HudTextFormatter(16, decimalSeparator);
+    private final HudTextFormatter countdownText = new HudTextFormatter(16, decimalSeparator);
+    private final HudTextFormatter stepsText = new HudTextFormatter(24, decimalSeparator);
+    private final HudTextFormatter distanceText = new HudTextFormatter(32, decimalSeparator);
+    private final HudTextFormatter paceText = new HudTextFormatter(24, decimalSeparator);
+
+    // Bound recording service that owns sensors, timers and route data
+    private WorkoutRecordingService recordingService;
+    // Reusable snapshot of the service state, refreshed before each redraw
+    private final WorkoutSnapshot snapshot = new WorkoutSnapshot();
+
+    // Connection to the recording service (same process, no IPC)
+    private final ServiceConnection serviceConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            recordingService = ((WorkoutRecordingService.LocalBinder) binder).getService();
+            recordingService.setListener(RunningActivity.this);
+            Log.d(TAG, "Recording service connected");
+            // Restore the UI for a workout that may have been running while the activity was gone
+            syncWithService();
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            recordingService = null;
+            Log.d(TAG, "Recording service disconnected");
+        }
+    };
 
     /**
      * onCreate
@@ -139,8 +190,8 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
         // Set the layout for this activity
         setContentView(R.layout.activity_running);
 
-        // Initialize Firebase Firestore for storing workout data
-        db = FirebaseFirestore.getInstance();
+        // Local-first workout storage; also resumes uploading workouts left pending by earlier sessions
+        workoutRepository = WorkoutRepository.getInstance(this);
 
         // Initialize Google Maps SDK
         try {
@@ -201,17 +252,8 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
         updateSteps();
         updateDistance();
 
-        // Initialize sensors: step counter and accelerometer for tracking user activity
-        sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
-        if (sensorManager != null) {
-            stepCounterSensor = sensorManager.getDefaultSensor(Sensor.TYPE_STEP_COUNTER);
-            accelerometerSensor = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
-            Log.d(TAG, "Step counter sensor: " + (stepCounterSensor != null ? "available" : "not available"));
-            Log.d(TAG, "Accelerometer sensor: " + (accelerometerSensor != null ? "available" : "not available"));
-        }
-        if (stepCounterSensor == null) {
-            Log.d(TAG, "Step counter sensor not available.");
-        }
+        // Coalesce step/distance/pace updates to display frames instead of updating per sensor event
+        hudPublisher = new HudFramePublisher(this::renderHud);
 
         // Initialize MapView for showing location on a map
         if (mapView == null) {
@@ -241,12 +283,14 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
         tvCountDown = findViewById(R.id.tvCountDown);
         tvSteps = findViewById(R.id.tvSteps);
         tvDistance = findViewById(R.id.tvDistance);
+        tvPace = findViewById(R.id.tvPace);
         btnFinishWorkout = findViewById(R.id.btnFinishWorkout);
         workoutSummaryDialog = findViewById(R.id.workoutSummaryDialog);
         tvWorkoutSummary = findViewById(R.id.tvWorkoutSummary);
         tvTotalSteps = findViewById(R.id.tvTotalSteps);
         tvTotalDistance = findViewById(R.id.tvTotalDistance);
         tvAverageSpeed = findViewById(R.id.tvAverageSpeed);
+        tvWorkoutAnalytics = findViewById(R.id.tvWorkoutAnalytics);
         btnCloseDialog = findViewById(R.id.btnCloseDialog);
         btnShareSummary = findViewById(R.id.btnShareSummary);
         mapView = findViewById(R.id.mapView);
@@ -258,25 +302,29 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
         }
     }
 
+    /**
+     * onStart
+     * <p>
+     * Called when the activity becomes visible. Binds to the recording service, creating it if needed.
+     * </p>
+     */
+    @Override
+    protected void onStart() {
+        super.onStart();
+        bindService(new Intent(this, WorkoutRecordingService.class), serviceConnection, Context.BIND_AUTO_CREATE);
+    }
+
     /**
      * onResume
      * <p>
-     * Called when the activity resumes. Registers sensor listeners and resumes the MapView.
+     * Called when the activity resumes. Starts frame-synced HUD updates and resumes the MapView.
      * </p>
      */
     @Override
     protected void onResume() {
         super.onResume();
-        // Register step counter sensor listener with highest possible update rate
-        if (stepCounterSensor != null) {
-            sensorManager.registerListener(this, stepCounterSensor, SensorManager.SENSOR_DELAY_FASTEST);
-            Log.d(TAG, "Sensor listener registered");
-        }
-        // Register accelerometer sensor listener with default update rate
-        if (accelerometerSensor != null) {
-            sensorManager.registerListener(this, accelerometerSensor, SensorManager.SENSOR_DELAY_NORMAL);
-            Log.d(TAG, "Accelerometer sensor listener registered");
-        }
+        // Resume frame-synced HUD updates
+        hudPublisher.start();
         // Resume the MapView when activity becomes visible
         if (mapView != null) {
             Log.d(TAG, "Calling mapView.onResume()");
@@ -287,17 +335,15 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
     /**
      * onPause
      * <p>
-     * Called when the activity is paused. Unregisters sensor listeners and pauses the MapView.
+     * Called when the activity is paused. Stops HUD updates and pauses the MapView. Recording continues in
+     * the service; it switches sensors to hardware batching on its own once the screen turns off.
      * </p>
      */
     @Override
     protected void onPause() {
         super.onPause();
-        // Unregister all sensor listeners to conserve resources
-        if (sensorManager != null) {
-            sensorManager.unregisterListener(this);
-            Log.d(TAG, "Sensor listener unregistered");
-        }
+        // Stop requesting frames while the activity is not visible
+        hudPublisher.stop();
         // Pause the MapView to avoid unnecessary updates when activity is not visible
         if (mapView != null) {
             Log.d(TAG, "Calling mapView.onPause()");
@@ -305,6 +351,24 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
         }
     }
 
+    /**
+     * onStop
+     * <p>
+     * Called when the activity is no longer visible. Stops the UI update routines and unbinds from the
+     * recording service. A running workout keeps the service alive in the foreground.
+     * </p>
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        timerHandler.removeCallbacks(routeRefreshRunnable);
+        if (recordingService != null) {
+            recordingService.setListener(null);
+            recordingService = null;
+        }
+        unbindService(serviceConnection);
+    }
+
     /**
      * onDestroy
      * <p>
@@ -372,6 +436,40 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
         } catch (SecurityException e) {
             Log.e(TAG, "SecurityException in onMapReady", e);
         }
+        // Zoom changes may call for a different level of detail of the route
+        gMap.setOnCameraIdleListener(this::refreshRoutePolyline);
+        refreshRoutePolyline();
+    }
+
+    /**
+     * refreshRoutePolyline
+     * <p>
+     * Draws the recorded route using the level of detail that fits the current zoom, limited to
+     * MAX_ROUTE_VERTICES vertices whatever the route length. Runs at most once per ROUTE_REFRESH_MS
+     * (and when the camera settles), and does nothing if neither the route nor the level changed.
+     * </p>
+     */
+    private void refreshRoutePolyline() {
+        if (gMap == null || recordingService == null) {
+            return;
+        }
+        RouteSimplifier simplifier = recordingService.getRouteSimplifier();
+        CameraPosition camera = gMap.getCameraPosition();
+        int level = simplifier.levelFor(camera.zoom, camera.target.latitude, MAX_ROUTE_VERTICES);
+        int version = simplifier.getVersion();
+        if (version == drawnRouteVersion && level == drawnRouteLevel) {
+            return;
+        }
+        routeVertices.clear();
+        simplifier.forEachPoint(level, (lat, lng) -> routeVertices.add(new LatLng(lat, lng)));
+        if (routePolyline == null) {
+            routePolyline = gMap.addPolyline(new PolylineOptions()
+                    .width(10f)
+                    .color(ContextCompat.getColor(this, R.color.button_primary)));
+        }
+        routePolyline.setPoints(routeVertices);
+        drawnRouteVersion = version;
+        drawnRouteLevel = level;
     }
 
     /**
@@ -438,52 +536,110 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
     }
 
     /**
-     * onSensorChanged
+     * onWorkoutDataChanged
      * <p>
-     * Called when sensor values have changed.
-     * Handles step counting and accelerometer events.
-     * For step counter: updates the step count and distance covered.
-     * For accelerometer: collects data for potential later analysis.
+     * Called by the recording service on its sensor thread after a batch of sensor data was processed.
+     * Only schedules a redraw; the views are refreshed on the next display frame.
      * </p>
-     *
-     * @param event The SensorEvent containing sensor data.
      */
     @Override
-    public void onSensorChanged(SensorEvent event) {
-        // Process step counter sensor events
-        if (event.sensor.getType() == Sensor.TYPE_STEP_COUNTER) {
-            // Update the latest sensor reading
-            latestSensorReading = event.values[0];
-            // Set the initial step count on the first reading
-            if (initialStepCount == -1) {
-                initialStepCount = event.values[0];
-            }
-            // Compute the current step count
-            stepCount = (int) (event.values[0] - initialStepCount);
-            // Estimate distance (assuming average step length of 0.8 m)
-            distanceCovered = stepCount * 0.8;
-            // Update UI elements for steps and distance
-            updateSteps();
-            updateDistance();
-        } else if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
-            // Add accelerometer readings for later asynchronous analysis (advanced data processing)
-            accelerometerData.add(event.values.clone());
-        }
+    public void onWorkoutDataChanged() {
+        hudPublisher.markDirty();
     }
 
     /**
-     * onAccuracyChanged
+     * onCountdownFinished
      * <p>
-     * Called when the accuracy of a sensor changes.
-     * Not used in this activity; thus, no action is taken.
+     * Called by the recording service on the main thread when the countdown reaches zero.
+     * Updates the UI and notifies the user.
      * </p>
-     *
-     * @param sensor   The sensor whose accuracy changed.
-     * @param accuracy The new accuracy value.
      */
     @Override
-    public void onAccuracyChanged(Sensor sensor, int accuracy) {
-        // No action needed for this use case.
+    public void onCountdownFinished() {
+        // Timer has finished; update UI and notify the user
+        isTimerRunning = false;
+        timeRemain = 0;
+        updateCountText(0);
+        updateFrameLoop();
+        btnStartTimer.setText("Start");
+        Toast.makeText(RunningActivity.this, "Time's up! Great job!", Toast.LENGTH_LONG).show();
+        stopCounters();
+    }
+
+    /**
+     * syncWithService
+     * <p>
+     * Reads the service state and brings the buttons, displays and update routines in line with it.
+     * Used after (re)binding, e.g. when the activity was recreated during a running workout.
+     * </p>
+     */
+    private void syncWithService() {
+        if (recordingService == null) {
+            return;
+        }
+        recordingService.fillSnapshot(snapshot);
+        // Stopwatch state
+        isStopwatchRunning = snapshot.isStopwatchRunning();
+        totalElapsedTime = snapshot.getStopwatchElapsedMillis();
+        updateStopwatchText(totalElapsedTime);
+        if (isStopwatchRunning) {
+            btnStartStopwatch.setText("Pause");
+        } else {
+            btnStartStopwatch.setText(totalElapsedTime > 0 ? "Resume" : "Start");
+        }
+        // Countdown state
+        isTimerRunning = snapshot.isCountdownRunning();
+        timeRemain = snapshot.getCountdownRemainingMillis();
+        updateCountText(timeRemain);
+        if (isTimerRunning) {
+            btnStartTimer.setText("Pause");
+        } else {
+            btnStartTimer.setText(timeRemain > 0 ? "Resume" : "Start");
+        }
+        updateFrameLoop();
+        renderHud();
+        // Keep the drawn route up to date while the activity is visible
+        timerHandler.removeCallbacks(routeRefreshRunnable);
+        timerHandler.post(routeRefreshRunnable);
+    }
+
+    /**
+     * updateFrameLoop
+     * <p>
+     * Renders the HUD on every display frame while the stopwatch or countdown is running, and only on
+     * data changes otherwise. Frames are only requested while the activity is visible.
+     * </p>
+     */
+    private void updateFrameLoop() {
+        hudPublisher.setContinuous(isStopwatchRunning || isTimerRunning);
+    }
+
+    /**
+     * renderHud
+     * <p>
+     * Pushes the latest stopwatch, countdown, step, distance and pace values into their TextViews.
+     * Invoked by the HudFramePublisher on the main thread, at most once per display frame. The times
+     * are computed by the service from monotonic start points, so a late frame never causes drift.
+     * </p>
+     */
+    private void renderHud() {
+        // Copy the latest values from the service before drawing
+        if (recordingService != null) {
+            recordingService.fillSnapshot(snapshot);
+            stepCount = snapshot.getSteps();
+            distanceCovered = snapshot.getDistanceMeters();
+            if (snapshot.isStopwatchRunning()) {
+                totalElapsedTime = snapshot.getStopwatchElapsedMillis();
+                updateStopwatchText(totalElapsedTime);
+            }
+            if (snapshot.isCountdownRunning()) {
+                timeRemain = snapshot.getCountdownRemainingMillis();
+                updateCountText(timeRemain);
+            }
+        }
+        updateSteps();
+        updateDistance();
+        updatePace();
     }
 
     /**
@@ -494,7 +650,7 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
      */
     private void updateSteps() {
         // Display the current step count on the screen
-        tvSteps.setText("Steps: " + stepCount);
+        showHudText(tvSteps, stepsText.reset().append("Steps: ").appendLong(stepCount));
     }
 
     /**
@@ -505,43 +661,81 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
      */
     private void updateDistance() {
         // Display the calculated distance in meters with two decimal precision
-        tvDistance.setText("Distance: " + String.format(Locale.getDefault(), "%.2f", distanceCovered) + " m");
+        showHudText(tvDistance, distanceText.reset().append("Distance: ").appendFixed(distanceCovered, 2).append(" m"));
+    }
+
+    /**
+     * updatePace
+     * <p>
+     * Updates the TextView displaying the pace (minutes per kilometer): the rolling pace over the last
+     * 30 seconds while moving, otherwise the average pace of the current workout.
+     * </p>
+     */
+    private void updatePace() {
+        long rollingPace = snapshot.getRollingPaceSecondsPerKm();
+        if (rollingPace > 0) {
+            showHudText(tvPace, paceText.reset().append("Pace: ").appendLong(rollingPace / 60).append(':')
+                    .appendPadded(rollingPace % 60, 2).append(" /km"));
+            return;
+        }
+        // Pace is undefined until both time and distance are available
+        if (totalElapsedTime <= 0 || distanceCovered <= 0) {
+            showHudText(tvPace, paceText.reset().append("Pace: --:-- /km"));
+            return;
+        }
+        long secondsPerKm = Math.round((totalElapsedTime / 1000.0) / (distanceCovered / 1000.0));
+        showHudText(tvPace, paceText.reset().append("Pace: ").appendLong(secondsPerKm / 60).append(':')
+                .appendPadded(secondsPerKm % 60, 2).append(" /km"));
+    }
+
+    /**
+     * showHudText
+     * <p>
+     * Displays the text built in a HudTextFormatter, skipping the update (and the relayout it
+     * triggers) when the visible text did not change. The TextView shows the formatter's buffer
+     * directly, so no String is created.
+     * </p>
+     *
+     * @param view The TextView to update.
+     * @param text The formatter holding the new text.
+     */
+    private static void showHudText(TextView view, HudTextFormatter text) {
+        if (text.commit()) {
+            view.setText(text.chars(), 0, text.length());
+        }
     }
 
     /**
      * startStopwatch
      * <p>
-     * Starts the stopwatch by recording the start time, setting the running flag,
-     * updating the start button text, and beginning the periodic update routine.
+     * Starts the stopwatch in the recording service, sets the running flag,
+     * updates the start button text, and starts rendering the display on every frame.
      * </p>
      */
     private void startStopwatch() {
-        // Record current system time as the start time
-        stopwatchStartTime = System.currentTimeMillis();
+        // The service records the start time and keeps the workout running in the foreground
+        recordingService.startStopwatch();
         isStopwatchRunning = true;
         // Update UI button to show the option to pause
         btnStartStopwatch.setText("Pause");
-        // Begin running the stopwatch update routine
-        runStopwatch();
-        // Start any additional counters if necessary
-        startCounters();
+        // Begin rendering the stopwatch on display frames
+        updateFrameLoop();
     }
 
     /**
      * pauseStopwatch
      * <p>
-     * Pauses the stopwatch by adding the elapsed time to a cumulative total,
-     * updating the UI button text, and removing scheduled runnable tasks.
+     * Pauses the stopwatch in the recording service (which keeps the cumulative total),
+     * updating the UI button text, and stopping the per-frame rendering.
      * </p>
      */
     private void pauseStopwatch() {
-        // Calculate and add elapsed time since start to total stopwatch time
-        stopwatchTime += System.currentTimeMillis() - stopwatchStartTime;
+        recordingService.pauseStopwatch();
         isStopwatchRunning = false;
         // Update UI button to allow resume
         btnStartStopwatch.setText("Resume");
-        // Stop the stopwatch update routine
-        timerHandler.removeCallbacks(stopwatchRunnable);
+        // Stop rendering the stopwatch on every frame
+        updateFrameLoop();
         // Stop any active counters
         stopCounters();
     }
@@ -555,62 +749,29 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
      */
     private void resetStopwatch() {
         // Reset stored time and elapsed time counters
-        stopwatchTime = 0;
+        recordingService.resetStopwatch();
         totalElapsedTime = 0;
         updateStopwatchText(0);
         isStopwatchRunning = false;
+        updateFrameLoop();
         // Reset the UI button text
         btnStartStopwatch.setText("Start");
         // Stop the stopwatch routine if it is running
         stopCounters();
     }
 
-    /**
-     * runStopwatch
-     * <p>
-     * Initiates a periodic task using a Handler to update the stopwatch display.
-     * Calculates elapsed time and updates the TextView every 10 milliseconds.
-     * </p>
-     */
-    private void runStopwatch() {
-        // Define a runnable that updates the stopwatch display
-        stopwatchRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (isStopwatchRunning) {
-                    // Compute elapsed milliseconds including previously elapsed time
-                    long elapsedMillis = System.currentTimeMillis() - stopwatchStartTime + stopwatchTime;
-                    // Update the stopwatch display with the formatted time
-                    updateStopwatchText(elapsedMillis);
-                    totalElapsedTime = elapsedMillis;
-                    // Schedule the next update in 10 milliseconds
-                    timerHandler.postDelayed(this, 10);
-                }
-            }
-        };
-        // Start the runnable immediately
-        timerHandler.post(stopwatchRunnable);
-    }
-
     /**
      * updateStopwatchText
      * <p>
-     * Formats the elapsed time in hours, minutes, seconds, and hundredths of a second,
-     * then updates the corresponding TextView.
+     * Formats the elapsed time in hours, minutes, seconds, and hundredths of a second without
+     * allocating, then updates the corresponding TextView if the visible text changed.
      * </p>
      *
      * @param elapsedMillis The elapsed time in milliseconds.
      */
     private void updateStopwatchText(long elapsedMillis) {
-        // Convert milliseconds into hours, minutes, seconds and fractions
-        int hours = (int) (elapsedMillis / 3600000);
-        int minutes = (int) (elapsedMillis / 60000) % 60;
-        int seconds = (int) (elapsedMillis / 1000) % 60;
-        int milliseconds = (int) (elapsedMillis % 1000) / 10;
-        // Format the time string using locale-specific formatting
-        String timeFormat = String.format(Locale.getDefault(), "%02d:%02d:%02d.%02d", hours, minutes, seconds, milliseconds);
-        // Update the stopwatch TextView with the formatted string
-        tvStopwatch.setText(timeFormat);
+        // Format hh:mm:ss.cc into the reusable buffer and update the TextView only if it changed
+        showHudText(tvStopwatch, stopwatchText.reset().appendStopwatch(elapsedMillis));
     }
 
     /**
@@ -626,6 +787,7 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
             // Convert input from seconds to milliseconds
             int seconds = Integer.parseInt(input);
             timeRemain = seconds * 1000L;
+            recordingService.setCountdown(timeRemain);
             // Update the countdown display with the new time
             updateCountText(timeRemain);
         }
@@ -634,20 +796,17 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
     /**
      * resetTimer
      * <p>
-     * Resets the countdown timer by stopping any running tasks, zeroing counters,
+     * Resets the countdown timer by stopping the per-frame rendering, zeroing counters,
      * and updating the UI to reflect the reset state.
      * </p>
      */
     private void resetTimer() {
-        // Remove any pending countdown runnable tasks
-        if (countdownRunnable != null) {
-            timerHandler.removeCallbacks(countdownRunnable);
-        }
         // Reset timer variables
+        recordingService.resetCountdown();
         timeRemain = 0;
-        millisAtPause = 0;
         updateCountText(0);
         isTimerRunning = false;
+        updateFrameLoop();
         // Update the UI button to indicate the timer is ready to start
         btnStartTimer.setText("Start");
         stopCounters();
@@ -656,51 +815,31 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
     /**
      * startTimer
      * <p>
-     * Starts the countdown timer using a Handler to decrement the remaining time at a 10ms interval.
-     * Displays a Toast when the timer finishes.
+     * Starts the countdown timer in the recording service and begins updating the display.
+     * The service reports the end of the countdown through onCountdownFinished.
      * </p>
      */
     private void startTimer() {
-        // Define a runnable task to update the countdown timer
-        countdownRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (timeRemain > 0) {
-                    // Reduce the remaining time and update the display
-                    timeRemain -= 10;
-                    updateCountText(timeRemain);
-                    timerHandler.postDelayed(this, 10);
-                } else {
-                    // Timer has finished; update UI and notify the user
-                    isTimerRunning = false;
-                    updateCountText(0);
-                    btnStartTimer.setText("Start");
-                    Toast.makeText(RunningActivity.this, "Time's up! Great job!", Toast.LENGTH_LONG).show();
-                    stopCounters();
-                }
-            }
-        };
-        // Start the runnable task
-        timerHandler.post(countdownRunnable);
+        recordingService.startCountdown();
         isTimerRunning = true;
         btnStartTimer.setText("Pause");
-        startCounters();
+        updateFrameLoop();
     }
 
     /**
      * pauseTimer
      * <p>
-     * Pauses the countdown timer by removing scheduled tasks, saving the remaining time,
+     * Pauses the countdown timer by stopping the per-frame rendering, saving the remaining time,
      * and updating the UI button to allow resuming.
      * </p>
      */
     private void pauseTimer() {
-        if (countdownRunnable != null) {
-            timerHandler.removeCallbacks(countdownRunnable);
-        }
         // Save the current remaining time for later resumption
-        millisAtPause = timeRemain;
+        recordingService.pauseCountdown();
+        timeRemain = recordingService.getCountdownRemainingMillis();
+        updateCountText(timeRemain);
         isTimerRunning = false;
+        updateFrameLoop();
         btnStartTimer.setText("Resume");
         stopCounters();
     }
@@ -714,30 +853,8 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
      * @param millisUntilFinished The remaining time in milliseconds.
      */
     private void updateCountText(long millisUntilFinished) {
-        // Convert milliseconds into minutes, seconds, and hundredths
-        int minutes = (int) (millisUntilFinished / 1000) / 60;
-        int seconds = (int) (millisUntilFinished / 1000) % 60;
-        int milliseconds = (int) (millisUntilFinished % 1000) / 10;
-        // Create a formatted time string
-        String timeFormat = String.format(Locale.getDefault(), "%02d:%02d:%02d", minutes, seconds, milliseconds);
-        // Update the countdown TextView
-        tvCountDown.setText(timeFormat);
-    }
-
-    /**
-     * startCounters
-     * <p>
-     * Prepares the counters used during the workout.
-     * Currently ensures step count is valid.
-     * </p>
-     */
-    private void startCounters() {
-        if (isStopwatchRunning || isTimerRunning) {
-            // If no initial step count is set, default it to 0
-            if (initialStepCount < 0) {
-                initialStepCount = 0;
-            }
-        }
+        // Format mm:ss:cc into the reusable buffer and update the TextView only if it changed
+        showHudText(tvCountDown, countdownText.reset().appendCountdown(millisUntilFinished));
     }
 
     /**
@@ -747,8 +864,7 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
      * </p>
      */
     private void stopCounters() {
-        updateSteps();
-        updateDistance();
+        renderHud();
     }
 
     /**
@@ -762,6 +878,11 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
      */
     @Override
     public void onClick(View view) {
+        // Workout controls need the recording service; binding completes right after onStart
+        if (recordingService == null && view != btnBack && view != btnShareSummary) {
+            Log.d(TAG, "Recording service not bound yet, ignoring click");
+            return;
+        }
         // Check which button was clicked and perform the corresponding action
         if (view == btnBack) {
             // Navigate back to HomeActivity
@@ -793,10 +914,11 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
             // Reset the timer
             resetTimer();
         } else if (view == btnFinishWorkout) {
-            // Display the workout summary dialog, store workout data remotely, and calculate average speed
+            // Display the workout summary dialog (statistics are already computed) and store the workout
+            Future<WorkoutBiomechanics.SampleFile> accelerometerSamples = recordingService.finishWorkout();
+            syncWithService();
             showWorkoutSummary();
-            storeWorkoutSummary();
-            new AverageSpeedAnalysisTask().execute(); // AsyncTask for background average speed calculation
+            storeWorkoutSummary(accelerometerSamples);
         } else if (view == btnCloseDialog) {
             // Close the summary dialog and reset workout data for a new session
             closeWorkoutSummaryDialog();
@@ -818,6 +940,7 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
         tvTotalSteps.setText("Total Steps: " + stepCount);
         tvTotalDistance.setText("Total Distance: " + String.format(Locale.getDefault(), "%.2f", distanceCovered) + " m");
         tvWorkoutSummary.setText("Elapsed Time: " + tvStopwatch.getText().toString());
+        showAnalytics(recordingService.getAnalyticsSummary());
         // Show the summary dialog with a fade-in effect
         workoutSummaryDialog.setVisibility(View.VISIBLE);
         workoutSummaryDialog.setAlpha(0f);
@@ -825,6 +948,63 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
         disableMainLayout();
     }
 
+    /**
+     * showAnalytics
+     * <p>
+     * Fills the summary dialog with the statistics the service maintained during the workout: average
+     * and max speed, moving time, per-km and per-mile splits and the most frequent cadence range.
+     * </p>
+     *
+     * @param summary The workout statistics.
+     */
+    private void showAnalytics(WorkoutAnalytics.Summary summary) {
+        if (summary.getMovingMillis() > 0) {
+            tvAverageSpeed.setText("Average Speed: " + String.format(Locale.getDefault(), "%.2f m/s", summary.getAverageMovingSpeed()));
+        } else {
+            tvAverageSpeed.setText("Average Speed: N/A");
+        }
+        StringBuilder text = new StringBuilder();
+        text.append("Moving Time: ").append(formatDuration(summary.getMovingMillis()))
+                .append(" of ").append(formatDuration(summary.getElapsedMillis())).append('\n');
+        text.append("Max Speed: ").append(String.format(Locale.getDefault(), "%.2f m/s", summary.getMaxSpeed()));
+        appendSplits(text, "km", summary.getKmSplitMillis());
+        appendSplits(text, "mi", summary.getMileSplitMillis());
+        long[] cadence = summary.getCadenceMillis();
+        int top = 0;
+        for (int i = 1; i < cadence.length; i++) {
+            if (cadence[i] > cadence[top]) {
+                top = i;
+            }
+        }
+        if (cadence[top] > 0) {
+            int from = top * WorkoutAnalytics.CADENCE_BUCKET_SPM;
+            text.append("\nMost Frequent Cadence: ").append(from)
+                    .append(top == cadence.length - 1 ? "+" : "-" + (from + WorkoutAnalytics.CADENCE_BUCKET_SPM))
+                    .append(" spm (").append(Math.round(100.0 * cadence[top] / summary.getMovingMillis())).append("%)");
+        }
+        tvWorkoutAnalytics.setText(text);
+    }
+
+    /**
+     * Appends one line per completed split ("km 1: 5:12").
+     */
+    private static void appendSplits(StringBuilder text, String unit, long[] splits) {
+        for (int i = 0; i < splits.length; i++) {
+            text.append('\n').append(unit).append(' ').append(i + 1).append(": ").append(formatDuration(splits[i]));
+        }
+    }
+
+    /**
+     * Formats a duration as m:ss, or h:mm:ss from one hour.
+     */
+    private static String formatDuration(long millis) {
+        long seconds = millis / 1000;
+        if (seconds >= 3600) {
+            return String.format(Locale.getDefault(), "%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+        }
+        return String.format(Locale.getDefault(), "%d:%02d", seconds / 60, seconds % 60);
+    }
+
     /**
      * closeWorkoutSummaryDialog
      * <p>
@@ -835,25 +1015,22 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
     private void closeWorkoutSummaryDialog() {
         // Animate the dialog fade-out and then set visibility to gone
         workoutSummaryDialog.animate().alpha(0f).setDuration(300).withEndAction(() -> workoutSummaryDialog.setVisibility(View.GONE));
-        // Reset the initial step count with the latest sensor reading if available
-        if (latestSensorReading != -1) {
-            initialStepCount = latestSensorReading;
-        }
-        // Reset workout metrics
+        // Reset workout metrics in the service (steps, route and accelerometer data) and locally
+        recordingService.resetWorkout();
         stepCount = 0;
         distanceCovered = 0.0;
-        routePoints.clear();
         if (routePolyline != null) {
             routePolyline.remove();
+            routePolyline = null;
         }
+        drawnRouteVersion = -1;
         tvTotalSteps.setText("Total Steps: 0");
         tvTotalDistance.setText("Total Distance: 0.0 m");
         updateDistance();
         updateSteps();
+        updatePace();
         // Re-enable main layout controls after closing the dialog
         enableMainLayout();
-        // Clear any stored accelerometer data for the next workout
-        accelerometerData.clear();
     }
 
     /**
@@ -907,22 +1084,36 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
     /**
      * storeWorkoutSummary
      * <p>
-     * Stores the current workout summary (steps, distance, elapsed time, and route points) into Firebase Firestore.
+     * Stores the current workout summary (steps, distance, elapsed time, and route points). The workout is
+     * committed to the local database right away and uploaded to Firebase Firestore in the background,
+     * so finishing a workout never waits on the network. New personal records are announced once stored.
      * </p>
+     *
+     * @param accelerometerSamples The workout's accelerometer samples, analyzed before the workout is stored.
      */
-    private void storeWorkoutSummary() {
-        // Build a HashMap containing workout summary details
-        java.util.Map<String, Object> summary = new java.util.HashMap<>();
-        summary.put("steps", stepCount);
-        summary.put("distance", distanceCovered);
-        summary.put("elapsedTime", tvStopwatch.getText().toString());
-        summary.put("routePoints", routePoints);
-        summary.put("timestamp", System.currentTimeMillis());
-        // Add the summary to the "workouts" collection in Firestore
-        db.collection("workouts")
-                .add(summary)
-                .addOnSuccessListener(documentReference -> Log.d(TAG, "Workout summary saved with ID: " + documentReference.getId()))
-                .addOnFailureListener(e -> Log.e(TAG, "Error adding workout summary", e));
+    private void storeWorkoutSummary(Future<WorkoutBiomechanics.SampleFile> accelerometerSamples) {
+        // The route is stored in its compact delta/varint encoding
+        RouteStore route = recordingService.getRoute();
+        // Same id as the workout journal, so a journal recovered later cannot store the workout twice
+        String workoutId = recordingService.getWorkoutId();
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        WorkoutRecord record = new WorkoutRecord(
+                -1,
+                workoutId != null ? workoutId : UUID.randomUUID().toString(),
+                currentUser != null ? currentUser.getUid() : null,
+                stepCount,
+                distanceCovered,
+                totalElapsedTime,
+                tvStopwatch.getText().toString(),
+                route.toByteArray(),
+                route.size(),
+                System.currentTimeMillis(),
+                false);
+        workoutRepository.saveWorkout(record, accelerometerSamples, newRecords -> {
+            if (!newRecords.isEmpty() && !isFinishing()) {
+                Toast.makeText(this, "New personal record: " + String.join(", ", newRecords), Toast.LENGTH_LONG).show();
+            }
+        });
     }
 
     /**
@@ -938,38 +1129,41 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
                 "Steps: " + stepCount + "\n" +
                 "Distance: " + String.format(Locale.getDefault(), "%.2f", distanceCovered) + " m\n" +
                 "Average Speed: " + tvAverageSpeed.getText().toString();
-        // Create an intent for sharing plain text content
-        Intent shareIntent = new Intent(Intent.ACTION_SEND);
-        shareIntent.setType("text/plain");
-        shareIntent.putExtra(Intent.EXTRA_TEXT, shareContent);
-        // Launch the chooser for sharing
-        startActivity(Intent.createChooser(shareIntent, "Share your workout"));
+        // Attach the workout as GPX and FIT files when its trace is available
+        String workoutId = recordingService != null ? recordingService.getWorkoutId() : null;
+        if (workoutId == null) {
+            startShareChooser(shareContent, Collections.emptyList());
+            return;
+        }
+        workoutRepository.exportTrace(WorkoutTrace.getTraceFile(getFilesDir(), workoutId),
+                new File(getCacheDir(), "exports"),
+                files -> startShareChooser(shareContent, files));
     }
 
     /**
-     * AverageSpeedAnalysisTask
-     * <p>
-     * An AsyncTask that computes the average speed of the workout in the background.
-     * Average Speed is calculated as distance covered (in meters) divided by total elapsed time (in seconds).
-     * </p>
+     * Opens the share chooser for the summary text and the exported workout files, if any.
      */
-    private class AverageSpeedAnalysisTask extends AsyncTask<Void, Void, String> {
-        @Override
-        protected String doInBackground(Void... voids) {
-            // If no time elapsed, return "N/A" to avoid division by zero
-            if (totalElapsedTime == 0) {
-                return "N/A";
-            }
-            // Calculate average speed
-            double avgSpeed = distanceCovered / (totalElapsedTime / 1000.0);
-            return String.format(Locale.getDefault(), "%.2f m/s", avgSpeed);
+    private void startShareChooser(String shareContent, List<File> files) {
+        if (isFinishing() || isDestroyed()) {
+            return;
         }
-        @Override
-        protected void onPostExecute(String result) {
-            // Update the average speed TextView in the workout summary dialog and log the result
-            tvAverageSpeed.setText("Average Speed: " + result);
-            Log.d(TAG, "Average Speed computed: " + result);
+        // Create an intent for sharing plain text content
+        Intent shareIntent = new Intent(Intent.ACTION_SEND);
+        shareIntent.setType("text/plain");
+        shareIntent.putExtra(Intent.EXTRA_TEXT, shareContent);
+        if (!files.isEmpty()) {
+            ArrayList<Uri> uris = new ArrayList<>();
+            for (File file : files) {
+                uris.add(FileProvider.getUriForFile(this, getPackageName() + ".fileprovider", file));
+            }
+            // GPX and FIT have no common type other than a generic one
+            shareIntent.setAction(Intent.ACTION_SEND_MULTIPLE);
+            shareIntent.setType("application/octet-stream");
+            shareIntent.putParcelableArrayListExtra(Intent.EXTRA_STREAM, uris);
+            shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
         }
+        // Launch the chooser for sharing
+        startActivity(Intent.createChooser(shareIntent, "Share your workout"));
     }
 
     /**
@@ -1011,6 +1205,8 @@ public class RunningActivity extends AppCompatActivity implements View.OnClickLi
             intent = new Intent(this, SettingsActivity.class);
         } else if (item.getItemId() == R.id.menu_ChatBot) {
             intent = new Intent(this, ChatbotActivity.class);
+        } else if (item.getItemId() == R.id.menu_history) {
+            intent = new Intent(this, WorkoutHistoryActivity.class);
         }
         if (intent != null) {
             startActivity(intent);
@@ -0,0 +1,352 @@
+package com.example.mypoject1;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorEventListener2;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.PowerManager;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SensorBatchingController
+ * <p>
+ * Owns the registration of workout sensors and switches between two modes:
+ * <ul>
+ *   <li><b>Interactive:</b> the screen is on, samples are delivered as they happen.</li>
+ *   <li><b>Low power:</b> the screen is off, sensors are registered with a {@code maxReportLatencyUs}
+ *       so the hardware FIFO collects samples and the application processor only wakes up once per
+ *       batch instead of once per sample.</li>
+ * </ul>
+ * The mode follows the screen state automatically via ACTION_SCREEN_OFF / ACTION_SCREEN_ON broadcasts.
+ * </p>
+ *
+ * <p>
+ * Events are forwarded unchanged to the delegate listener. Because a batch is delivered as a burst of
+ * events on the sensor handler, the controller posts a single "batch complete" callback behind the
+ * first event of a burst; it runs once the queued events have been processed, so per-batch work (such
+ * as UI refreshes) happens once per batch rather than once per event. Consumers must use
+ * {@link SensorEvent#timestamp} rather than the arrival time, since batched samples arrive late.
+ * </p>
+ *
+ * <p>
+ * Switching modes flushes the hardware FIFO first and re-registers only once every sensor has reported
+ * {@link #onFlushCompleted}, since unregistering drops the samples the FIFO still holds. The switch
+ * runs on the sensor handler, where the flushed events and their completions are delivered.
+ * </p>
+ */
+public class SensorBatchingController extends BroadcastReceiver implements SensorEventListener2 {
+
+    private static final String TAG = "SensorBatching";
+
+    // Upper bound for how long the hardware may hold samples while the screen is off
+    private static final int MAX_REPORT_LATENCY_US = 10_000_000;
+    // Fraction of the reserved FIFO we allow a batch to fill, leaving headroom to avoid drops
+    private static final double FIFO_FILL_RATIO = 0.8;
+    // Longest wait for flush completions before re-registering anyway
+    private static final long FLUSH_TIMEOUT_MS = 1_000;
+
+    /**
+     * A sensor together with its sampling periods for both modes. The periods change on the sensor
+     * thread only (see {@link #setSamplingPeriods}).
+     */
+    private static class SensorConfig {
+        final Sensor sensor;
+        int interactivePeriodUs;
+        int lowPowerPeriodUs;
+
+        SensorConfig(Sensor sensor, int interactivePeriodUs, int lowPowerPeriodUs) {
+            this.sensor = sensor;
+            this.interactivePeriodUs = interactivePeriodUs;
+            this.lowPowerPeriodUs = lowPowerPeriodUs;
+        }
+    }
+
+    private final Context context;
+    private final SensorManager sensorManager;
+    private final SensorEventListener delegate;
+    private final Runnable onBatchComplete;
+    private final Handler handler;
+    private final List<SensorConfig> sensors = new ArrayList<>();
+
+    private volatile boolean started = false;
+    private boolean receiverRegistered = false;
+    private volatile boolean lowPower = false;
+    // True while a batch-complete callback is queued on the sensor handler (sensor thread only)
+    private boolean batchCallbackPending = false;
+    // Sensors whose flush has not completed yet during a mode switch (sensor thread only)
+    private int flushesPending = 0;
+
+    private final Runnable flushTimeoutRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Log.w(TAG, flushesPending + " sensors did not complete their flush, re-registering anyway");
+            reregister();
+        }
+    };
+
+    private final Runnable batchCompleteRunnable = new Runnable() {
+        @Override
+        public void run() {
+            batchCallbackPending = false;
+            if (onBatchComplete != null) {
+                onBatchComplete.run();
+            }
+        }
+    };
+
+    /**
+     * Creates a controller.
+     *
+     * @param context         Context used to register the screen state receiver.
+     * @param sensorManager   The system SensorManager.
+     * @param delegate        Listener that receives every sensor event.
+     * @param onBatchComplete Runnable invoked on the sensor thread after each burst of events, may be null.
+     * @param handler         Handler of the thread on which sensor events are delivered.
+     */
+    public SensorBatchingController(Context context, SensorManager sensorManager, SensorEventListener delegate,
+                                    Runnable onBatchComplete, Handler handler) {
+        this.context = context.getApplicationContext();
+        this.sensorManager = sensorManager;
+        this.delegate = delegate;
+        this.onBatchComplete = onBatchComplete;
+        this.handler = handler;
+    }
+
+    /**
+     * addSensor
+     * <p>
+     * Adds a sensor to be managed. Must be called before {@link #start()}; null sensors are ignored.
+     * </p>
+     *
+     * @param sensor              The sensor to register.
+     * @param interactivePeriodUs Sampling period while the screen is on.
+     * @param lowPowerPeriodUs    Sampling period while the screen is off.
+     */
+    public void addSensor(Sensor sensor, int interactivePeriodUs, int lowPowerPeriodUs) {
+        if (sensor != null) {
+            sensors.add(new SensorConfig(sensor, interactivePeriodUs, lowPowerPeriodUs));
+        }
+    }
+
+    /**
+     * setSamplingPeriods
+     * <p>
+     * Changes the sampling periods of a sensor added with {@link #addSensor}, e.g. to sample faster
+     * while a workout is recorded. Like a mode switch, the FIFO is flushed before the sensors are
+     * re-registered with the new periods, so no sample is dropped. Unknown or null sensors are ignored.
+     * </p>
+     *
+     * @param sensor              The sensor.
+     * @param interactivePeriodUs New sampling period while the screen is on.
+     * @param lowPowerPeriodUs    New sampling period while the screen is off.
+     */
+    public void setSamplingPeriods(Sensor sensor, int interactivePeriodUs, int lowPowerPeriodUs) {
+        if (sensor == null) {
+            return;
+        }
+        handler.post(() -> {
+            for (SensorConfig config : sensors) {
+                if (config.sensor == sensor && (config.interactivePeriodUs != interactivePeriodUs
+                        || config.lowPowerPeriodUs != lowPowerPeriodUs)) {
+                    config.interactivePeriodUs = interactivePeriodUs;
+                    config.lowPowerPeriodUs = lowPowerPeriodUs;
+                    Log.d(TAG, "Sampling periods of " + sensor.getName() + " changed");
+                    flushAndReregister();
+                }
+            }
+        });
+    }
+
+    /**
+     * start
+     * <p>
+     * Registers all sensors in the mode matching the current screen state and starts listening for
+     * screen on/off broadcasts. Calling start while already started has no effect.
+     * </p>
+     */
+    public void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        if (!receiverRegistered) {
+            IntentFilter filter = new IntentFilter();
+            filter.addAction(Intent.ACTION_SCREEN_OFF);
+            filter.addAction(Intent.ACTION_SCREEN_ON);
+            context.registerReceiver(this, filter);
+            receiverRegistered = true;
+        }
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        lowPower = powerManager != null && !powerManager.isInteractive();
+        registerAll();
+    }
+
+    /**
+     * stop
+     * <p>
+     * Unregisters all sensors and the screen state receiver.
+     * </p>
+     */
+    public void stop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        sensorManager.unregisterListener(this);
+        if (receiverRegistered) {
+            context.unregisterReceiver(this);
+            receiverRegistered = false;
+        }
+        Log.d(TAG, "Sensors unregistered");
+    }
+
+    /**
+     * setLowPower
+     * <p>
+     * Switches between interactive and batched registration. The hardware FIFO is flushed first, so
+     * the samples it holds are delivered (and the display catches up immediately when leaving
+     * low-power mode); the sensors are re-registered with the new latency once the flush completed.
+     * </p>
+     *
+     * @param enabled True to batch samples in the sensor hub, false for immediate delivery.
+     */
+    public void setLowPower(boolean enabled) {
+        if (lowPower == enabled) {
+            return;
+        }
+        lowPower = enabled;
+        if (started) {
+            handler.post(this::flushAndReregister);
+        }
+        Log.d(TAG, "Low power batching " + (enabled ? "enabled" : "disabled"));
+    }
+
+    /**
+     * Starts a flush of every sensor; {@link #onFlushCompleted} re-registers once all have reported.
+     * A switch requested while a flush is running is applied when it completes. Sensor thread only.
+     */
+    private void flushAndReregister() {
+        if (!started || flushesPending > 0) {
+            return;
+        }
+        flushesPending = sensors.size();
+        if (flushesPending == 0 || !sensorManager.flush(this)) {
+            reregister();
+            return;
+        }
+        handler.postDelayed(flushTimeoutRunnable, FLUSH_TIMEOUT_MS);
+    }
+
+    /**
+     * Registers the sensors again with the parameters of the current mode. Sensor thread only.
+     */
+    private void reregister() {
+        flushesPending = 0;
+        handler.removeCallbacks(flushTimeoutRunnable);
+        if (!started) {
+            return;
+        }
+        sensorManager.unregisterListener(this);
+        registerAll();
+    }
+
+    /**
+     * Returns true while sensors are registered in batched low-power mode.
+     */
+    public boolean isLowPower() {
+        return lowPower;
+    }
+
+    /**
+     * Registers every configured sensor using the parameters of the current mode.
+     */
+    private void registerAll() {
+        for (SensorConfig config : sensors) {
+            int periodUs = lowPower ? config.lowPowerPeriodUs : config.interactivePeriodUs;
+            int latencyUs = lowPower ? batchLatencyFor(config.sensor, periodUs) : 0;
+            sensorManager.registerListener(this, config.sensor, periodUs, latencyUs, handler);
+            Log.d(TAG, "Registered " + config.sensor.getName() + " period=" + periodUs + "us latency=" + latencyUs + "us");
+        }
+    }
+
+    /**
+     * batchLatencyFor
+     * <p>
+     * Computes the longest report latency the sensor's reserved FIFO can absorb at the given rate
+     * without dropping samples, capped at {@link #MAX_REPORT_LATENCY_US}. Returns 0 for sensors
+     * without a hardware FIFO (they cannot batch).
+     * </p>
+     */
+    private static int batchLatencyFor(Sensor sensor, int periodUs) {
+        int fifo = sensor.getFifoReservedEventCount();
+        if (fifo <= 0) {
+            return 0;
+        }
+        // On-change sensors (like the step counter) report rarely; the FIFO easily covers the cap
+        if (sensor.getReportingMode() == Sensor.REPORTING_MODE_ON_CHANGE) {
+            return MAX_REPORT_LATENCY_US;
+        }
+        long latency = (long) (fifo * FIFO_FILL_RATIO) * Math.max(periodUs, sensor.getMinDelay());
+        return (int) Math.min(latency, MAX_REPORT_LATENCY_US);
+    }
+
+    /**
+     * onReceive
+     * <p>
+     * Follows the screen state: batch while the screen is off, deliver immediately while it is on.
+     * </p>
+     */
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (Intent.ACTION_SCREEN_OFF.equals(intent.getAction())) {
+            setLowPower(true);
+        } else if (Intent.ACTION_SCREEN_ON.equals(intent.getAction())) {
+            setLowPower(false);
+        }
+    }
+
+    /**
+     * onSensorChanged
+     * <p>
+     * Forwards the event to the delegate and makes sure a single batch-complete callback is queued
+     * behind the current burst of events.
+     * </p>
+     */
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        delegate.onSensorChanged(event);
+        if (!batchCallbackPending) {
+            batchCallbackPending = true;
+            handler.post(batchCompleteRunnable);
+        }
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {
+        delegate.onAccuracyChanged(sensor, accuracy);
+    }
+
+    /**
+     * onFlushCompleted
+     * <p>
+     * Called on the sensor thread after the flushed samples of a sensor were delivered. Once every
+     * sensor has reported, the mode switch that requested the flush re-registers the sensors.
+     * </p>
+     */
+    @Override
+    public void onFlushCompleted(Sensor sensor) {
+        Log.d(TAG, "FIFO flush completed for " + sensor.getName());
+        if (flushesPending > 0 && --flushesPending == 0) {
+            reregister();
+        }
+    }
+}
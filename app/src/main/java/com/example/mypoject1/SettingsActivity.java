@@ -53,6 +53,10 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
     private static final String TAG = "UserDetailsActivity";
     // Uri to hold the user's profile image.
     private Uri profileImageUri;
+    // Profile last shown in the form; fields the user has edited since then are not overwritten.
+    private MyUser shownProfile;
+    // Receives the cached profile immediately and every later change of it.
+    private final ProfileRepository.Listener profileListener = this::showDetails;
 
     // Request codes for handling activity results.
     private static final int CAMERA_REQUEST_CODE = 100;
@@ -76,7 +80,7 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
 
         // Find and initialize UI elements.
         findViews();
-        // Load user details from Firestore and display them.
+        // Display the cached user details and keep them up to date.
         loadDetails();
 
         // Load animations from resources.
@@ -124,48 +128,81 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
     }
 
     /**
-     * Loads user details from Firebase Firestore and displays them in the UI.
+     * Loads user details and displays them in the UI.
      * <p>
-     * The method retrieves the current user's document from the "users" collection using their UID.
-     * It then populates the email, first name, last name, phone number, and year of birth fields.
-     * If a profile image URL exists, it uses Glide to load and display the image.
+     * The email comes from FirebaseAuth. The other details come from {@link ProfileRepository}, which
+     * delivers the cached profile immediately and then every change of the user's document.
      * </p>
      */
     private void loadDetails() {
-        FirebaseAuth fbAuth = FirebaseAuth.getInstance();
-        String uid = fbAuth.getUid();
-        FirebaseFirestore store = FirebaseFirestore.getInstance();
+        // Display the user's email from FirebaseAuth.
+        tvDetailsEmail.setText(FirebaseAuth.getInstance().getCurrentUser().getEmail());
+        ProfileRepository.getInstance(this).addListener(profileListener);
+    }
 
-        // Fetch the user's document from the "users" collection using their UID.
-        store.collection("users").document(uid).get().addOnSuccessListener(documentSnapshot -> {
-            // Convert the document into a MyUser object.
-            MyUser user = documentSnapshot.toObject(MyUser.class);
-
-            // Display the user's email from FirebaseAuth.
-            tvDetailsEmail.setText(fbAuth.getCurrentUser().getEmail());
-            // Populate the user details in their respective EditTexts.
-            etDetailsFirstName.setText(user.getFirstName());
-            etDetailsLastName.setText(user.getLastName());
-            etDetailsPhone.setText(user.getPhone());
-            etDetailsYOB.setText(String.valueOf(user.getYob()));
-
-            // Load the user's profile image using Glide if the URL is available.
-            if (user.getProfileImageUri() != null && !user.getProfileImageUri().isEmpty()) {
+    /**
+     * Displays the user's profile.
+     * <p>
+     * Populates the first name, last name, phone number, and year of birth fields, except those the
+     * user has edited since they were last shown. If a profile image URL exists, it uses Glide to load
+     * and display the image.
+     * </p>
+     *
+     * @param user The user's profile, or null if it could not be loaded.
+     */
+    private void showDetails(MyUser user) {
+        if (user == null) {
+            // Log error and show a toast message if user details fail to load.
+            Log.e(TAG, "Failed to load user details");
+            Toast.makeText(this, "Failed to load user details", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        MyUser shown = shownProfile;
+        // Populate the user details in their respective EditTexts.
+        setIfUnedited(etDetailsFirstName, shown != null ? shown.getFirstName() : null, user.getFirstName());
+        setIfUnedited(etDetailsLastName, shown != null ? shown.getLastName() : null, user.getLastName());
+        setIfUnedited(etDetailsPhone, shown != null ? shown.getPhone() : null, user.getPhone());
+        setIfUnedited(etDetailsYOB, shown != null ? String.valueOf(shown.getYob()) : null, String.valueOf(user.getYob()));
+        shownProfile = user;
+
+        // Load the user's profile image using Glide if the URL is available and has changed.
+        if (user.getProfileImageUri() != null && !user.getProfileImageUri().isEmpty()) {
+            if (profileImageUri == null || !profileImageUri.toString().equals(user.getProfileImageUri())) {
                 profileImageUri = Uri.parse(user.getProfileImageUri());
                 Glide.with(this)
                         .load(profileImageUri) // Load image from URI.
                         .placeholder(R.drawable.default_user_photo)
                         .transform(new CircleCrop()) // Apply circular crop transformation.
                         .into(ivProfilePhoto);
-            } else {
-                // If no profile image is set, display the default user photo.
-                ivProfilePhoto.setImageResource(R.drawable.default_user_photo);
             }
-        }).addOnFailureListener(e -> {
-            // Log error and show a toast message if user details fail to load.
-            Log.e(TAG, "Failed to load user details: " + e.getMessage());
-            Toast.makeText(this, "Failed to load user details", Toast.LENGTH_SHORT).show();
-        });
+        } else {
+            // If no profile image is set, display the default user photo.
+            profileImageUri = null;
+            ivProfilePhoto.setImageResource(R.drawable.default_user_photo);
+        }
+    }
+
+    /**
+     * Sets a field to a new value unless the user changed it since the previous value was shown.
+     *
+     * @param field The field to update.
+     * @param shown The value shown before, or null if none was shown yet.
+     * @param value The new value.
+     */
+    private static void setIfUnedited(EditText field, String shown, String value) {
+        String current = field.getText().toString();
+        if (shown == null ? current.isEmpty() : current.equals(shown)) {
+            field.setText(value);
+        }
+    }
+
+    /**
+     * Stops observing the profile when the activity is destroyed.
+     */
+    @Override
+    protected void onDestroy() {
+        ProfileRepository.getInstance(this).removeListener(profileListener);
+        super.onDestroy();
     }
 
     /**
@@ -313,8 +350,8 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
     /**
      * Saves updated user details (first name, last name, phone, and year of birth) to Firestore.
      * <p>
-     * The method first validates the inputs. If valid, it updates the user document in Firestore
-     * and saves the new details in SharedPreferences. Upon success, it reloads the details.
+     * The method first validates the inputs. If valid, it updates the user document in Firestore;
+     * {@link ProfileRepository} picks up the change and caches it.
      * </p>
      */
     private void saveChanges() {
@@ -341,19 +378,8 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
                         "lastName", updatedLastName,
                         "phone", updatedPhone,
                         "yob", Integer.parseInt(updatedYob))
-                .addOnSuccessListener(aVoid -> {
-                    // On success, update SharedPreferences with the new details.
-                    SharedPreferences.Editor editor = getSharedPreferences("MyAppPrefs", Context.MODE_PRIVATE).edit();
-                    editor.putString("firstName", updatedFirstName);
-                    editor.putString("lastName", updatedLastName);
-                    editor.putString("phone", updatedPhone);
-                    editor.putInt("yob", Integer.parseInt(updatedYob));
-                    editor.apply();
-
-                    Toast.makeText(SettingsActivity.this, "Details updated successfully", Toast.LENGTH_SHORT).show();
-                    // Reload the user details to reflect the updates.
-                    loadDetails();
-                })
+                .addOnSuccessListener(aVoid ->
+                        Toast.makeText(SettingsActivity.this, "Details updated successfully", Toast.LENGTH_SHORT).show())
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Failed to update user details: " + e.getMessage());
                     Toast.makeText(SettingsActivity.this, "Failed to update details", Toast.LENGTH_SHORT).show();
@@ -685,6 +711,8 @@ public class SettingsActivity extends AppCompatActivity implements View.OnClickL
             intent = new Intent(this, SettingsActivity.class);
         } else if(item.getItemId() == R.id.menu_ChatBot){
             intent = new Intent(this, ChatbotActivity.class);
+        } else if (item.getItemId() == R.id.menu_history) {
+            intent = new Intent(this, WorkoutHistoryActivity.class);
         }
         if (intent != null) {
             startActivity(intent);
@@ -175,11 +175,8 @@ public class SignupActivity extends AppCompatActivity implements View.OnClickLis
                                                     // Notify the user to verify their email.
                                                     Toast.makeText(SignupActivity.this, "User created. Please verify your email.", Toast.LENGTH_LONG).show();
 
-                                                    // Store the user's first name in SharedPreferences for personalization.
-                                                    getSharedPreferences("MyAppPrefs", MODE_PRIVATE)
-                                                            .edit()
-                                                            .putString("firstName", firstName)
-                                                            .apply();
+                                                    // Cache the new profile so the next screens show it right away.
+                                                    ProfileRepository.getInstance(SignupActivity.this).setProfile(user);
 
                                                     // Navigate to HomeActivity, passing the user's first name.
                                                     Intent intent = new Intent(SignupActivity.this, HomeActivity.class);
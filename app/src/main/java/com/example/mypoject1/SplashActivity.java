@@ -45,6 +45,9 @@ public class SplashActivity extends AppCompatActivity {
         // Set the splash screen layout
         setContentView(R.layout.activity_splash);
 
+        // Store any workout that was interrupted by a crash or process kill (runs in the background)
+        WorkoutRepository.getInstance(this).recoverInterruptedWorkouts();
+
         // Initialize UI elements: splash logo and progress bar.
         ImageView splashLogo = findViewById(R.id.splash_logo);
         progressBar = findViewById(R.id.progress_bar);
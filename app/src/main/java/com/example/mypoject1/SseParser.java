@@ -0,0 +1,77 @@
+package com.example.mypoject1;
+
+/**
+ * SseParser
+ * <p>
+ * Incremental parser for a server-sent events stream, fed one line at a time as the lines arrive.
+ * Only the {@code data} field is used: consecutive {@code data:} lines are joined with newlines and
+ * delivered as one event when a blank line ends the event. Comment lines (starting with ':') and
+ * other fields ({@code event}, {@code id}, {@code retry}) are ignored. Only the event being read is
+ * held in memory, never the whole stream.
+ * </p>
+ *
+ * <p>
+ * Not thread-safe; feed it from the thread that reads the stream.
+ * </p>
+ */
+public class SseParser {
+
+    /**
+     * Receives the data of each complete event.
+     */
+    public interface Listener {
+        void onEvent(String data);
+    }
+
+    private final Listener listener;
+    // Data of the event being read, null until a data line arrives
+    private StringBuilder data;
+
+    public SseParser(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Feeds one line, without its line terminator.
+     */
+    public void feedLine(String line) {
+        if (line.isEmpty()) {
+            dispatch();
+            return;
+        }
+        if (line.charAt(0) == ':') {
+            return;
+        }
+        int colon = line.indexOf(':');
+        String field = colon >= 0 ? line.substring(0, colon) : line;
+        if (!"data".equals(field)) {
+            return;
+        }
+        // A single space after the colon is not part of the value
+        int start = colon < 0 ? line.length() : colon + 1;
+        if (start < line.length() && line.charAt(start) == ' ') {
+            start++;
+        }
+        if (data == null) {
+            data = new StringBuilder();
+        } else {
+            data.append('\n');
+        }
+        data.append(line, start, line.length());
+    }
+
+    /**
+     * Delivers an event left unterminated when the stream ended.
+     */
+    public void finish() {
+        dispatch();
+    }
+
+    private void dispatch() {
+        if (data != null) {
+            String event = data.toString();
+            data = null;
+            listener.onEvent(event);
+        }
+    }
+}
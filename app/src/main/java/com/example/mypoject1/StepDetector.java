@@ -0,0 +1,215 @@
+package com.example.mypoject1;
+
+/**
+ * StepDetector
+ * <p>
+ * A streaming step and cadence detector that works directly on raw accelerometer samples. It is used
+ * as a fallback when the device has no hardware step counter. Every sample is processed in constant
+ * time and no objects are allocated after construction, so it can run on the sensor thread at
+ * 200 Hz without creating garbage.
+ * </p>
+ *
+ * <p>
+ * Processing pipeline for each sample:
+ * <ul>
+ *   <li><b>Magnitude:</b> the orientation independent vector length sqrt(x*x + y*y + z*z).</li>
+ *   <li><b>Gravity removal:</b> a slow exponential moving average tracks the gravity baseline and is
+ *       subtracted (high-pass filter).</li>
+ *   <li><b>Smoothing:</b> a fast exponential moving average removes jitter (low-pass filter).</li>
+ *   <li><b>Peak detection:</b> a local maximum counts as a step when its rise above the preceding
+ *       valley exceeds an adaptive threshold derived from recent peak amplitudes, and enough time has
+ *       passed since the previous step.</li>
+ *   <li><b>Cadence:</b> step timestamps are kept in a fixed ring and cadence is computed over a
+ *       sliding time window.</li>
+ * </ul>
+ * Filter coefficients are derived from the actual sample interval, so the detector behaves the same
+ * at 50 Hz and at 200 Hz.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe; feed it from a single thread.
+ * </p>
+ */
+public class StepDetector {
+
+    // Filter time constants (seconds)
+    private static final double GRAVITY_TAU_S = 1.0;
+    private static final double SMOOTH_TAU_S = 0.04;
+
+    // Step timing limits: no human runs faster than ~4 steps/s or walks slower than ~0.5 steps/s
+    private static final long MIN_STEP_INTERVAL_NS = 250_000_000L;
+    private static final long MAX_STEP_INTERVAL_NS = 2_000_000_000L;
+
+    // Adaptive threshold parameters (m/s^2)
+    private static final double MIN_THRESHOLD = 1.2;
+    private static final double THRESHOLD_RATIO = 0.5;
+    private static final double PEAK_AVERAGE_WEIGHT = 0.125;
+
+    // Cadence window
+    private static final long CADENCE_WINDOW_NS = 10_000_000_000L;
+    private static final int STEP_RING_SIZE = 64;
+
+    // Filter state
+    private boolean initialized = false;
+    private long lastSampleNs;
+    private double gravity;
+    private double smoothed;
+    private double previous;
+    private boolean rising;
+
+    // Peak / valley tracking
+    private double valley;
+    private double averagePeak = MIN_THRESHOLD / THRESHOLD_RATIO;
+    private long lastStepNs = Long.MIN_VALUE;
+
+    // Step timestamps for the cadence window
+    private final long[] stepTimes = new long[STEP_RING_SIZE];
+    private int stepHead = 0;
+    private int stepTail = 0;
+    private int stepsInRing = 0;
+
+    private int stepCount = 0;
+
+    /**
+     * addSample
+     * <p>
+     * Feeds one accelerometer sample into the detector.
+     * </p>
+     *
+     * @param x           Acceleration on the x axis (m/s^2).
+     * @param y           Acceleration on the y axis (m/s^2).
+     * @param z           Acceleration on the z axis (m/s^2).
+     * @param timestampNs Sample timestamp in nanoseconds (monotonic).
+     * @return true if this sample completed a new step.
+     */
+    public boolean addSample(float x, float y, float z, long timestampNs) {
+        double magnitude = Math.sqrt((double) x * x + (double) y * y + (double) z * z);
+
+        // First sample: seed the filters with the current reading
+        if (!initialized) {
+            initialized = true;
+            lastSampleNs = timestampNs;
+            gravity = magnitude;
+            smoothed = 0;
+            previous = 0;
+            valley = 0;
+            rising = false;
+            return false;
+        }
+
+        // Derive filter coefficients from the real sample interval (alpha = dt / (tau + dt))
+        double dt = (timestampNs - lastSampleNs) / 1e9;
+        lastSampleNs = timestampNs;
+        if (dt <= 0) {
+            return false;
+        }
+        gravity += (dt / (GRAVITY_TAU_S + dt)) * (magnitude - gravity);
+        smoothed += (dt / (SMOOTH_TAU_S + dt)) * ((magnitude - gravity) - smoothed);
+
+        boolean stepDetected = false;
+        if (smoothed > previous) {
+            rising = true;
+        } else if (smoothed < previous) {
+            if (rising) {
+                // The previous sample was a local maximum
+                stepDetected = onPeak(previous, timestampNs);
+                // Start measuring the next valley from this peak
+                valley = previous;
+            }
+            rising = false;
+            if (smoothed < valley) {
+                valley = smoothed;
+            }
+        }
+        previous = smoothed;
+        return stepDetected;
+    }
+
+    /**
+     * onPeak
+     * <p>
+     * Evaluates a local maximum against the adaptive threshold and the step timing limits.
+     * </p>
+     */
+    private boolean onPeak(double peak, long timestampNs) {
+        double amplitude = peak - valley;
+        double threshold = Math.max(MIN_THRESHOLD, averagePeak * THRESHOLD_RATIO);
+        if (amplitude < threshold) {
+            return false;
+        }
+        // Ignore peaks that come too soon after the previous step (double bounces)
+        if (lastStepNs != Long.MIN_VALUE && timestampNs - lastStepNs < MIN_STEP_INTERVAL_NS) {
+            return false;
+        }
+        // Track the typical peak amplitude so the threshold follows the user's intensity
+        averagePeak += PEAK_AVERAGE_WEIGHT * (amplitude - averagePeak);
+        // After a long pause the old cadence no longer applies
+        if (lastStepNs != Long.MIN_VALUE && timestampNs - lastStepNs > MAX_STEP_INTERVAL_NS) {
+            stepHead = stepTail = stepsInRing = 0;
+        }
+        lastStepNs = timestampNs;
+        stepCount++;
+        recordStepTime(timestampNs);
+        return true;
+    }
+
+    /**
+     * Stores a step timestamp in the cadence ring, overwriting the oldest entry when full.
+     */
+    private void recordStepTime(long timestampNs) {
+        stepTimes[stepHead] = timestampNs;
+        stepHead = (stepHead + 1) % STEP_RING_SIZE;
+        if (stepsInRing == STEP_RING_SIZE) {
+            stepTail = (stepTail + 1) % STEP_RING_SIZE;
+        } else {
+            stepsInRing++;
+        }
+        // Drop steps that slid out of the cadence window
+        while (stepsInRing > 0 && timestampNs - stepTimes[stepTail] > CADENCE_WINDOW_NS) {
+            stepTail = (stepTail + 1) % STEP_RING_SIZE;
+            stepsInRing--;
+        }
+    }
+
+    /**
+     * getCadence
+     * <p>
+     * Returns the cadence in steps per minute over the sliding window, or 0 when there are not
+     * enough recent steps or the user stopped moving.
+     * </p>
+     *
+     * @return Cadence in steps per minute.
+     */
+    public double getCadence() {
+        if (stepsInRing < 2 || lastSampleNs - lastStepNs > MAX_STEP_INTERVAL_NS) {
+            return 0;
+        }
+        long oldest = stepTimes[stepTail];
+        long newest = stepTimes[(stepHead - 1 + STEP_RING_SIZE) % STEP_RING_SIZE];
+        if (newest <= oldest) {
+            return 0;
+        }
+        return (stepsInRing - 1) * 60e9 / (newest - oldest);
+    }
+
+    /**
+     * Returns the total number of steps detected since the last reset.
+     */
+    public int getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * reset
+     * <p>
+     * Clears all filter and step state, e.g. before a new workout.
+     * </p>
+     */
+    public void reset() {
+        initialized = false;
+        averagePeak = MIN_THRESHOLD / THRESHOLD_RATIO;
+        lastStepNs = Long.MIN_VALUE;
+        stepHead = stepTail = stepsInRing = 0;
+        stepCount = 0;
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.mypoject1;
+
+import java.util.Arrays;
+
+/**
+ * WorkoutAnalytics
+ * <p>
+ * Incremental workout statistics. Each sample (a time on a monotonic millisecond clock, the cumulative
+ * distance and the current cadence) updates every statistic in constant time, so the summary of a
+ * finished workout is available immediately instead of after a pass over the recorded data:
+ * </p>
+ * <ul>
+ *   <li>per-kilometer and per-mile splits, with the crossing time interpolated between samples;</li>
+ *   <li>elapsed time (first to last sample), moving time and moving distance (intervals faster than
+ *       {@link #MOVING_SPEED_MPS}), and their ratio, the average moving speed;</li>
+ *   <li>rolling pace over the last {@link #ROLLING_WINDOW_MS};</li>
+ *   <li>max speed, measured over spans of at least {@link #SPEED_WINDOW_MS} so that step-quantized
+ *       distance does not produce spikes;</li>
+ *   <li>cadence distribution: moving time per {@link #CADENCE_BUCKET_SPM} steps-per-minute bucket.</li>
+ * </ul>
+ *
+ * <p>
+ * Samples are cumulative, so a dropped sample only lowers the resolution of the statistics. Samples
+ * that are not newer than the previous one, or arrive after {@link #finish}, are ignored. All methods
+ * are synchronized: samples are added on the analytics thread while the UI reads the rolling pace and
+ * the summary.
+ * </p>
+ */
+public class WorkoutAnalytics {
+
+    static final double METERS_PER_KM = 1000.0;
+    static final double METERS_PER_MILE = 1609.344;
+
+    // Slower intervals (standing at a crossing, paused) do not count as moving time
+    static final double MOVING_SPEED_MPS = 0.5;
+    // Window of the rolling pace
+    static final long ROLLING_WINDOW_MS = 30_000;
+    // Shortest span over which a speed counts towards the max speed
+    static final long SPEED_WINDOW_MS = 10_000;
+    // Cadence histogram geometry; the last bucket also holds everything above
+    static final int CADENCE_BUCKET_SPM = 10;
+    static final int CADENCE_BUCKETS = 25;
+    // Samples kept for the rolling window (older ones are dropped even if still inside the window)
+    private static final int WINDOW_CAPACITY = 256;
+
+    private boolean started = false;
+    private boolean finished = false;
+    private long firstTime;
+    private long lastTime;
+    private double baseDistance;
+    private double lastDistance;
+    private long movingMillis = 0;
+    private double movingMeters = 0;
+    private double maxSpeed = 0;
+
+    private final Splits kmSplits = new Splits(METERS_PER_KM);
+    private final Splits mileSplits = new Splits(METERS_PER_MILE);
+    private final long[] cadenceMillis = new long[CADENCE_BUCKETS];
+
+    // Recent samples (time, distance) as a ring buffer, oldest at windowStart
+    private final long[] windowTimes = new long[WINDOW_CAPACITY];
+    private final double[] windowDistances = new double[WINDOW_CAPACITY];
+    private int windowStart = 0;
+    private int windowSize = 0;
+
+    /**
+     * addSample
+     * <p>
+     * Adds a sample and updates all statistics. The first sample sets the start time and the distance
+     * baseline (distance covered before the workout started is not counted).
+     * </p>
+     *
+     * @param timeMillis     Sample time on a monotonic clock, in milliseconds.
+     * @param distanceMeters Cumulative distance, in meters.
+     * @param cadence        Current cadence in steps per minute, or 0 if unknown.
+     */
+    public synchronized void addSample(long timeMillis, double distanceMeters, double cadence) {
+        if (finished) {
+            return;
+        }
+        if (!started) {
+            started = true;
+            firstTime = timeMillis;
+            lastTime = timeMillis;
+            baseDistance = distanceMeters;
+            lastDistance = 0;
+            addToWindow(timeMillis, 0);
+            return;
+        }
+        if (timeMillis <= lastTime) {
+            return;
+        }
+        double distance = Math.max(lastDistance, distanceMeters - baseDistance);
+        long dt = timeMillis - lastTime;
+        double dd = distance - lastDistance;
+
+        kmSplits.advance(lastTime, lastDistance, timeMillis, distance);
+        mileSplits.advance(lastTime, lastDistance, timeMillis, distance);
+        if (dd * 1000.0 / dt >= MOVING_SPEED_MPS) {
+            movingMillis += dt;
+            movingMeters += dd;
+            int bucket = (int) Math.min(CADENCE_BUCKETS - 1, Math.max(0, cadence) / CADENCE_BUCKET_SPM);
+            cadenceMillis[bucket] += dt;
+        }
+
+        addToWindow(timeMillis, distance);
+        // Speed over the shortest span in the window that is at least SPEED_WINDOW_MS long
+        for (int i = windowSize - 1; i >= 0; i--) {
+            int index = (windowStart + i) % WINDOW_CAPACITY;
+            long span = timeMillis - windowTimes[index];
+            if (span >= SPEED_WINDOW_MS) {
+                maxSpeed = Math.max(maxSpeed, (distance - windowDistances[index]) * 1000.0 / span);
+                break;
+            }
+        }
+
+        lastTime = timeMillis;
+        lastDistance = distance;
+    }
+
+    /**
+     * Adds the final sample of the workout; later samples are ignored.
+     */
+    public synchronized void finish(long timeMillis, double distanceMeters, double cadence) {
+        addSample(timeMillis, distanceMeters, cadence);
+        finished = true;
+    }
+
+    /**
+     * Returns the pace over the last {@link #ROLLING_WINDOW_MS} in seconds per kilometer, or 0 if the
+     * distance covered in the window is too short to tell or no sample arrived within the window.
+     *
+     * @param nowMillis Current time on the clock of the samples.
+     */
+    public synchronized long getRollingPaceSecondsPerKm(long nowMillis) {
+        if (windowSize < 2) {
+            return 0;
+        }
+        int oldest = windowStart;
+        int newest = (windowStart + windowSize - 1) % WINDOW_CAPACITY;
+        if (nowMillis - windowTimes[newest] > ROLLING_WINDOW_MS) {
+            return 0;
+        }
+        double meters = windowDistances[newest] - windowDistances[oldest];
+        long millis = windowTimes[newest] - windowTimes[oldest];
+        if (millis <= 0 || meters * 1000.0 / millis < MOVING_SPEED_MPS) {
+            return 0;
+        }
+        return Math.round(millis / meters);
+    }
+
+    /**
+     * Returns an immutable copy of the statistics so far.
+     */
+    public synchronized Summary summarize() {
+        return new Summary(started ? lastTime - firstTime : 0, movingMillis, movingMeters, lastDistance,
+                maxSpeed, kmSplits.toArray(), mileSplits.toArray(), cadenceMillis.clone());
+    }
+
+    /**
+     * Appends a sample to the rolling window and drops samples that left it.
+     */
+    private void addToWindow(long timeMillis, double distance) {
+        if (windowSize == WINDOW_CAPACITY) {
+            windowStart = (windowStart + 1) % WINDOW_CAPACITY;
+            windowSize--;
+        }
+        int index = (windowStart + windowSize) % WINDOW_CAPACITY;
+        windowTimes[index] = timeMillis;
+        windowDistances[index] = distance;
+        windowSize++;
+        // Keep one sample at or before the window start, so the window always spans ROLLING_WINDOW_MS
+        while (windowSize > 2
+                && timeMillis - windowTimes[(windowStart + 1) % WINDOW_CAPACITY] >= ROLLING_WINDOW_MS) {
+            windowStart = (windowStart + 1) % WINDOW_CAPACITY;
+            windowSize--;
+        }
+    }
+
+    /**
+     * Split times for one split length, recorded as each boundary is crossed.
+     */
+    private static final class Splits {
+        private final double length;
+        private long[] durations = new long[8];
+        private int count = 0;
+        // Time at which the previous boundary (or the start) was crossed
+        private long lastCrossing = Long.MIN_VALUE;
+
+        Splits(double length) {
+            this.length = length;
+        }
+
+        /**
+         * Records every boundary crossed between two samples, interpolating the crossing times.
+         */
+        void advance(long t0, double d0, long t1, double d1) {
+            if (lastCrossing == Long.MIN_VALUE) {
+                lastCrossing = t0;
+            }
+            double boundary = (count + 1) * length;
+            while (d1 >= boundary && d1 > d0) {
+                long crossing = t0 + Math.round((boundary - d0) / (d1 - d0) * (t1 - t0));
+                if (count == durations.length) {
+                    durations = Arrays.copyOf(durations, count * 2);
+                }
+                durations[count++] = crossing - lastCrossing;
+                lastCrossing = crossing;
+                boundary = (count + 1) * length;
+            }
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(durations, count);
+        }
+    }
+
+    /**
+     * Summary
+     * <p>
+     * Immutable statistics of a workout, as returned by {@link #summarize()}.
+     * </p>
+     */
+    public static final class Summary {
+        private final long elapsedMillis;
+        private final long movingMillis;
+        private final double movingMeters;
+        private final double distanceMeters;
+        private final double maxSpeed;
+        private final long[] kmSplitMillis;
+        private final long[] mileSplitMillis;
+        private final long[] cadenceMillis;
+
+        Summary(long elapsedMillis, long movingMillis, double movingMeters, double distanceMeters,
+                double maxSpeed, long[] kmSplitMillis, long[] mileSplitMillis, long[] cadenceMillis) {
+            this.elapsedMillis = elapsedMillis;
+            this.movingMillis = movingMillis;
+            this.movingMeters = movingMeters;
+            this.distanceMeters = distanceMeters;
+            this.maxSpeed = maxSpeed;
+            this.kmSplitMillis = kmSplitMillis;
+            this.mileSplitMillis = mileSplitMillis;
+            this.cadenceMillis = cadenceMillis;
+        }
+
+        /**
+         * Returns the time from the first to the last sample, stops included.
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Returns the time spent moving faster than {@link #MOVING_SPEED_MPS}.
+         */
+        public long getMovingMillis() {
+            return movingMillis;
+        }
+
+        /**
+         * Returns the distance covered since the first sample, in meters.
+         */
+        public double getDistanceMeters() {
+            return distanceMeters;
+        }
+
+        /**
+         * Returns the distance covered while moving (see {@link #getMovingMillis()}), in meters. It leaves
+         * out the drift counted while standing still, so it can be slightly below the total distance.
+         */
+        public double getMovingDistanceMeters() {
+            return movingMeters;
+        }
+
+        /**
+         * Returns the moving distance over the moving time in meters per second, or 0 without movement.
+         */
+        public double getAverageMovingSpeed() {
+            return movingMillis > 0 ? movingMeters * 1000.0 / movingMillis : 0;
+        }
+
+        /**
+         * Returns the highest speed over any span of at least {@link #SPEED_WINDOW_MS}, in meters per second.
+         */
+        public double getMaxSpeed() {
+            return maxSpeed;
+        }
+
+        /**
+         * Returns the duration of each completed kilometer, in milliseconds.
+         */
+        public long[] getKmSplitMillis() {
+            return kmSplitMillis.clone();
+        }
+
+        /**
+         * Returns the duration of each completed mile, in milliseconds.
+         */
+        public long[] getMileSplitMillis() {
+            return mileSplitMillis.clone();
+        }
+
+        /**
+         * Returns the moving time per cadence bucket: bucket i covers [i, i + 1) times
+         * {@link #CADENCE_BUCKET_SPM} steps per minute, the last bucket everything above.
+         */
+        public long[] getCadenceMillis() {
+            return cadenceMillis.clone();
+        }
+    }
+}
@@ -0,0 +1,604 @@
+package com.example.mypoject1;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * WorkoutBiomechanics
+ * <p>
+ * Post-run analysis of the raw accelerometer samples that {@link AccelerometerRingBuffer} spilled to
+ * disk during a workout. The workout is cut into {@link #WINDOW_NS} windows; each window is analyzed
+ * independently and the per-window statistics are merged, so the windows are processed in parallel
+ * with fork/join and the run time falls with the number of cores:
+ * </p>
+ * <ul>
+ *   <li>footstrikes are the peaks of the acceleration magnitude more than {@link #IMPACT_THRESHOLD}
+ *       above the window mean, at least {@link #MIN_STEP_NS} apart;</li>
+ *   <li>cadence variability is the coefficient of variation of the step intervals, plus the spread of
+ *       the cadence between windows;</li>
+ *   <li>vertical oscillation is estimated from the amplitude A of the dynamic acceleration at the step
+ *       frequency f, taken from a single-frequency Fourier component of the window so impacts and
+ *       noise at other frequencies are filtered out (peak-to-peak displacement of a sinusoid,
+ *       2A / (2 pi f)^2); the magnitude is dominated by the vertical axis while running, so no
+ *       orientation is needed;</li>
+ *   <li>impact magnitude statistics (mean, spread, 95th percentile, max) of the footstrike peaks, in g.</li>
+ * </ul>
+ *
+ * <p>
+ * Only windows with at least {@link #MIN_WINDOW_STEPS} footstrikes count, so stops and the time before
+ * the start do not skew the results. A step interval that crosses a window boundary is not counted.
+ * The spill file is memory-mapped and read with absolute gets, so workers share it without copying.
+ * </p>
+ */
+public final class WorkoutBiomechanics {
+
+    static final double GRAVITY = 9.80665;
+    // Analysis window
+    static final long WINDOW_NS = 10_000_000_000L;
+    // Peaks closer than this are one footstrike (240 spm)
+    static final long MIN_STEP_NS = 250_000_000L;
+    // Longer intervals are pauses, not steps (30 spm)
+    static final long MAX_STEP_NS = 2_000_000_000L;
+    // Footstrike peaks rise this far above the window mean (m/s^2)
+    static final double IMPACT_THRESHOLD = 0.5 * GRAVITY;
+    // Windows with fewer footstrikes are not running
+    static final int MIN_WINDOW_STEPS = 8;
+    // Impact histogram: 0.05 g bins up to 10 g, for the percentile
+    static final double IMPACT_BIN_G = 0.05;
+    static final int IMPACT_BINS = 200;
+    // Slower streams cannot resolve footstrikes or the step frequency (Hz); 50 Hz batching passes
+    static final double MIN_SAMPLE_RATE_HZ = 40;
+    // Windows analyzed by one task without splitting further
+    private static final int WINDOWS_PER_TASK = 4;
+
+    // Directory (under filesDir) and suffix of the accelerometer samples of finished workouts
+    private static final String DIRECTORY_NAME = "accelerometer";
+    private static final String SUFFIX = ".bin";
+
+    private WorkoutBiomechanics() {
+    }
+
+    /**
+     * Returns the file holding the accelerometer samples of a finished workout until it is analyzed.
+     *
+     * @param filesDir  The app's files directory.
+     * @param workoutId Id of the workout (its Firestore document id).
+     */
+    public static File getSampleFile(File filesDir, String workoutId) {
+        return new File(new File(filesDir, DIRECTORY_NAME), workoutId + SUFFIX);
+    }
+
+    /**
+     * analyze
+     * <p>
+     * Analyzes the samples of a spill file that fall in [fromNs, toNs); the range is clipped to the
+     * samples in the file, so 0 and Long.MAX_VALUE analyze the whole file. If the samples in the range
+     * were recorded slower than {@link #MIN_SAMPLE_RATE_HZ}, there is nothing meaningful to measure
+     * and null is returned.
+     * </p>
+     *
+     * @param spillFile File written by {@link AccelerometerRingBuffer}.
+     * @param fromNs    Start of the workout, on the sensor timestamp clock.
+     * @param toNs      End of the workout, on the sensor timestamp clock.
+     * @param pool      Pool running the window tasks.
+     * @return The statistics, {@link Result#getActiveWindows()} being 0 if no running was found; null
+     * if the sample rate is too low for step-level analysis.
+     * @throws IOException If the file cannot be read or is truncated.
+     */
+    public static Result analyze(File spillFile, long fromNs, long toNs, ForkJoinPool pool) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(spillFile, "r");
+             FileChannel channel = file.getChannel()) {
+            long size = channel.size();
+            if (size == 0 || toNs <= fromNs) {
+                return new Stats().toResult();
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Spill file too large: " + size);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.BIG_ENDIAN);
+            Samples samples = Samples.index(buffer);
+            if (samples.size() == 0) {
+                return new Stats().toResult();
+            }
+            long start = Math.max(fromNs, samples.timestamp(0));
+            long end = Math.min(toNs, samples.timestamp(samples.size() - 1) + 1);
+            if (end <= start) {
+                return new Stats().toResult();
+            }
+            int inRange = samples.lowerBound(end) - samples.lowerBound(start);
+            if (inRange * 1e9 / (end - start) < MIN_SAMPLE_RATE_HZ) {
+                return null;
+            }
+            int windows = (int) ((end - start + WINDOW_NS - 1) / WINDOW_NS);
+            return pool.invoke(new WindowTask(samples, start, end, 0, windows)).toResult();
+        }
+    }
+
+    /**
+     * Sample access over the blocks of a spill file. Each block is an int count followed by
+     * {@link AccelerometerRingBuffer#SAMPLE_BYTES} per sample.
+     */
+    static final class Samples {
+        private final ByteBuffer buffer;
+        // First sample index and byte offset of the samples of each block
+        private final int[] blockStart;
+        private final int[] blockOffset;
+        private final int blocks;
+        private final int count;
+
+        private Samples(ByteBuffer buffer, int[] blockStart, int[] blockOffset, int blocks, int count) {
+            this.buffer = buffer;
+            this.blockStart = blockStart;
+            this.blockOffset = blockOffset;
+            this.blocks = blocks;
+            this.count = count;
+        }
+
+        /**
+         * Walks the block headers (one read per block) to locate every sample.
+         */
+        static Samples index(ByteBuffer buffer) throws IOException {
+            int[] starts = new int[64];
+            int[] offsets = new int[64];
+            int blocks = 0;
+            int count = 0;
+            int position = 0;
+            int limit = buffer.limit();
+            while (position + 4 <= limit) {
+                int blockSamples = buffer.getInt(position);
+                long end = position + 4 + (long) blockSamples * AccelerometerRingBuffer.SAMPLE_BYTES;
+                if (blockSamples < 0 || end > limit) {
+                    throw new IOException("Truncated accelerometer block at " + position);
+                }
+                if (blocks == starts.length) {
+                    starts = Arrays.copyOf(starts, blocks * 2);
+                    offsets = Arrays.copyOf(offsets, blocks * 2);
+                }
+                starts[blocks] = count;
+                offsets[blocks] = position + 4;
+                blocks++;
+                count += blockSamples;
+                position = (int) end;
+            }
+            return new Samples(buffer, starts, offsets, blocks, count);
+        }
+
+        int size() {
+            return count;
+        }
+
+        /**
+         * Returns the block holding sample i.
+         */
+        int blockOf(int i) {
+            int low = 0;
+            int high = blocks - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (blockStart[mid] <= i) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
+        int offsetOf(int i, int block) {
+            return blockOffset[block] + (i - blockStart[block]) * AccelerometerRingBuffer.SAMPLE_BYTES;
+        }
+
+        /**
+         * Returns the index of the first sample after the given block.
+         */
+        int nextBlockStart(int block) {
+            return block + 1 < blocks ? blockStart[block + 1] : count;
+        }
+
+        long timestamp(int i) {
+            return buffer.getLong(offsetOf(i, blockOf(i)));
+        }
+
+        long timestampAt(int offset) {
+            return buffer.getLong(offset);
+        }
+
+        double magnitudeAt(int offset) {
+            double x = buffer.getFloat(offset + 8);
+            double y = buffer.getFloat(offset + 12);
+            double z = buffer.getFloat(offset + 16);
+            return Math.sqrt(x * x + y * y + z * z);
+        }
+
+        /**
+         * Returns the index of the first sample at or after {@code timeNs} (samples are in time order).
+         */
+        int lowerBound(long timeNs) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamp(mid) < timeNs) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Analyzes windows [fromWindow, toWindow), splitting the range in halves until it is small.
+     */
+    private static final class WindowTask extends RecursiveTask<Stats> {
+        private final Samples samples;
+        private final long startNs;
+        private final long endNs;
+        private final int fromWindow;
+        private final int toWindow;
+
+        WindowTask(Samples samples, long startNs, long endNs, int fromWindow, int toWindow) {
+            this.samples = samples;
+            this.startNs = startNs;
+            this.endNs = endNs;
+            this.fromWindow = fromWindow;
+            this.toWindow = toWindow;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (toWindow - fromWindow <= WINDOWS_PER_TASK) {
+                Stats stats = new Stats();
+                for (int w = fromWindow; w < toWindow; w++) {
+                    long from = startNs + w * WINDOW_NS;
+                    analyzeWindow(samples, samples.lowerBound(from), samples.lowerBound(Math.min(endNs, from + WINDOW_NS)), stats);
+                }
+                return stats;
+            }
+            int middle = (fromWindow + toWindow) >>> 1;
+            WindowTask left = new WindowTask(samples, startNs, endNs, fromWindow, middle);
+            left.fork();
+            Stats right = new WindowTask(samples, startNs, endNs, middle, toWindow).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * analyzeWindow
+     * <p>
+     * Detects the footstrikes of one window (samples [from, to)) and adds its statistics if it is
+     * running. Three passes: the mean magnitude, the peaks, then the amplitude of the magnitude around
+     * that mean at the step frequency the peaks give.
+     * </p>
+     */
+    static void analyzeWindow(Samples samples, int from, int to, Stats stats) {
+        if (to - from < 3) {
+            return;
+        }
+        double sum = 0;
+        int block = samples.blockOf(from);
+        int blockEnd = samples.nextBlockStart(block);
+        for (int i = from; i < to; i++) {
+            while (i == blockEnd) {
+                block++;
+                blockEnd = samples.nextBlockStart(block);
+            }
+            sum += samples.magnitudeAt(samples.offsetOf(i, block));
+        }
+        double mean = sum / (to - from);
+
+        // Footstrikes of this window, kept in a small local array
+        double[] peaks = new double[64];
+        long[] peakTimes = new long[64];
+        int peakCount = 0;
+        double previous = mean;
+        double current = Double.NaN;
+        long currentTime = 0;
+        block = samples.blockOf(from);
+        blockEnd = samples.nextBlockStart(block);
+        for (int i = from; i < to; i++) {
+            while (i == blockEnd) {
+                block++;
+                blockEnd = samples.nextBlockStart(block);
+            }
+            int offset = samples.offsetOf(i, block);
+            double next = samples.magnitudeAt(offset);
+            // current is a local maximum above the threshold: a footstrike candidate
+            if (!Double.isNaN(current) && current - mean > IMPACT_THRESHOLD && current >= previous && current > next) {
+                if (peakCount > 0 && currentTime - peakTimes[peakCount - 1] < MIN_STEP_NS) {
+                    // Same footstrike: keep the higher peak
+                    if (current > peaks[peakCount - 1]) {
+                        peaks[peakCount - 1] = current;
+                        peakTimes[peakCount - 1] = currentTime;
+                    }
+                } else {
+                    if (peakCount == peaks.length) {
+                        peaks = Arrays.copyOf(peaks, peakCount * 2);
+                        peakTimes = Arrays.copyOf(peakTimes, peakCount * 2);
+                    }
+                    peaks[peakCount] = current;
+                    peakTimes[peakCount] = currentTime;
+                    peakCount++;
+                }
+            }
+            if (!Double.isNaN(current)) {
+                previous = current;
+            }
+            current = next;
+            currentTime = samples.timestampAt(offset);
+        }
+        if (peakCount < MIN_WINDOW_STEPS) {
+            return;
+        }
+
+        int intervals = 0;
+        double intervalSum = 0;
+        for (int p = 1; p < peakCount; p++) {
+            long interval = peakTimes[p] - peakTimes[p - 1];
+            if (interval <= MAX_STEP_NS) {
+                double seconds = interval / 1e9;
+                intervals++;
+                intervalSum += seconds;
+                stats.intervalSum += seconds;
+                stats.intervalSquares += seconds * seconds;
+            }
+        }
+        stats.intervals += intervals;
+        if (intervals == 0) {
+            return;
+        }
+        stats.activeWindows++;
+        stats.steps += peakCount;
+        double stepHz = intervals / intervalSum;
+        double cadence = stepHz * 60;
+        stats.cadenceSum += cadence;
+        stats.cadenceSquares += cadence * cadence;
+        // Peak-to-peak displacement of a sinusoid with the dynamic amplitude at the step frequency
+        double omega = 2 * Math.PI * stepHz;
+        double amplitude = amplitudeAt(samples, from, to, mean, omega);
+        stats.oscillationSum += 2 * amplitude / (omega * omega);
+        for (int p = 0; p < peakCount; p++) {
+            double g = peaks[p] / GRAVITY;
+            stats.impactSum += g;
+            stats.impactSquares += g * g;
+            stats.impactMax = Math.max(stats.impactMax, g);
+            stats.impactHistogram[(int) Math.min(IMPACT_BINS - 1, g / IMPACT_BIN_G)]++;
+        }
+    }
+
+    /**
+     * Returns the amplitude of the Fourier component at angular frequency {@code omega} (rad/s) of the
+     * magnitude minus {@code mean} over samples [from, to), using the sample timestamps for the phase.
+     */
+    private static double amplitudeAt(Samples samples, int from, int to, double mean, double omega) {
+        double re = 0;
+        double im = 0;
+        int block = samples.blockOf(from);
+        int blockEnd = samples.nextBlockStart(block);
+        long startTime = 0;
+        for (int i = from; i < to; i++) {
+            while (i == blockEnd) {
+                block++;
+                blockEnd = samples.nextBlockStart(block);
+            }
+            int offset = samples.offsetOf(i, block);
+            long time = samples.timestampAt(offset);
+            if (i == from) {
+                startTime = time;
+            }
+            double phase = omega * ((time - startTime) / 1e9);
+            double dynamic = samples.magnitudeAt(offset) - mean;
+            re += dynamic * Math.cos(phase);
+            im += dynamic * Math.sin(phase);
+        }
+        return 2 * Math.hypot(re, im) / (to - from);
+    }
+
+    /**
+     * Mergeable partial sums of a range of windows.
+     */
+    static final class Stats {
+        int activeWindows;
+        long steps;
+        long intervals;
+        double intervalSum;
+        double intervalSquares;
+        double cadenceSum;
+        double cadenceSquares;
+        double oscillationSum;
+        double impactSum;
+        double impactSquares;
+        double impactMax;
+        final long[] impactHistogram = new long[IMPACT_BINS];
+
+        Stats merge(Stats other) {
+            activeWindows += other.activeWindows;
+            steps += other.steps;
+            intervals += other.intervals;
+            intervalSum += other.intervalSum;
+            intervalSquares += other.intervalSquares;
+            cadenceSum += other.cadenceSum;
+            cadenceSquares += other.cadenceSquares;
+            oscillationSum += other.oscillationSum;
+            impactSum += other.impactSum;
+            impactSquares += other.impactSquares;
+            impactMax = Math.max(impactMax, other.impactMax);
+            for (int i = 0; i < IMPACT_BINS; i++) {
+                impactHistogram[i] += other.impactHistogram[i];
+            }
+            return this;
+        }
+
+        Result toResult() {
+            if (activeWindows == 0) {
+                return new Result(0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+            }
+            double meanInterval = intervalSum / intervals;
+            double intervalStd = standardDeviation(intervalSum, intervalSquares, intervals);
+            double meanImpact = impactSum / steps;
+            return new Result(activeWindows, steps,
+                    cadenceSum / activeWindows,
+                    standardDeviation(cadenceSum, cadenceSquares, activeWindows),
+                    100 * intervalStd / meanInterval,
+                    100 * oscillationSum / activeWindows,
+                    meanImpact,
+                    standardDeviation(impactSum, impactSquares, steps),
+                    percentile(0.95),
+                    impactMax);
+        }
+
+        /**
+         * Returns the upper edge of the histogram bin holding the given fraction of the impacts.
+         */
+        private double percentile(double fraction) {
+            long target = (long) Math.ceil(fraction * steps);
+            long seen = 0;
+            for (int i = 0; i < IMPACT_BINS; i++) {
+                seen += impactHistogram[i];
+                if (seen >= target) {
+                    return Math.min(impactMax, (i + 1) * IMPACT_BIN_G);
+                }
+            }
+            return impactMax;
+        }
+
+        private static double standardDeviation(double sum, double squares, long n) {
+            if (n < 2) {
+                return 0;
+            }
+            double mean = sum / n;
+            return Math.sqrt(Math.max(0, squares / n - mean * mean));
+        }
+    }
+
+    /**
+     * SampleFile
+     * <p>
+     * The accelerometer samples of a finished workout: the detached spill file and the time range of
+     * the workout on the sensor timestamp clock.
+     * </p>
+     */
+    public static final class SampleFile {
+        public final File file;
+        public final long fromNs;
+        public final long toNs;
+
+        public SampleFile(File file, long fromNs, long toNs) {
+            this.file = file;
+            this.fromNs = fromNs;
+            this.toNs = toNs;
+        }
+    }
+
+    /**
+     * Result
+     * <p>
+     * Immutable biomechanics of a workout, stored with it by {@link WorkoutDatabase}.
+     * </p>
+     */
+    public static final class Result {
+        private final int activeWindows;
+        private final long steps;
+        private final double cadenceMean;
+        private final double cadenceStd;
+        private final double stepIntervalCv;
+        private final double verticalOscillationCm;
+        private final double impactMeanG;
+        private final double impactStdG;
+        private final double impactP95G;
+        private final double impactMaxG;
+
+        public Result(int activeWindows, long steps, double cadenceMean, double cadenceStd, double stepIntervalCv,
+                      double verticalOscillationCm, double impactMeanG, double impactStdG, double impactP95G,
+                      double impactMaxG) {
+            this.activeWindows = activeWindows;
+            this.steps = steps;
+            this.cadenceMean = cadenceMean;
+            this.cadenceStd = cadenceStd;
+            this.stepIntervalCv = stepIntervalCv;
+            this.verticalOscillationCm = verticalOscillationCm;
+            this.impactMeanG = impactMeanG;
+            this.impactStdG = impactStdG;
+            this.impactP95G = impactP95G;
+            this.impactMaxG = impactMaxG;
+        }
+
+        /**
+         * Returns the number of {@link #WINDOW_NS} windows in which running was detected.
+         */
+        public int getActiveWindows() {
+            return activeWindows;
+        }
+
+        /**
+         * Returns the footstrikes detected in the active windows.
+         */
+        public long getSteps() {
+            return steps;
+        }
+
+        /**
+         * Returns the mean cadence of the active windows, in steps per minute.
+         */
+        public double getCadenceMean() {
+            return cadenceMean;
+        }
+
+        /**
+         * Returns the standard deviation of the cadence between windows, in steps per minute.
+         */
+        public double getCadenceStd() {
+            return cadenceStd;
+        }
+
+        /**
+         * Returns the coefficient of variation of the step intervals, in percent.
+         */
+        public double getStepIntervalCv() {
+            return stepIntervalCv;
+        }
+
+        /**
+         * Returns the estimated peak-to-peak vertical oscillation, in centimeters.
+         */
+        public double getVerticalOscillationCm() {
+            return verticalOscillationCm;
+        }
+
+        /**
+         * Returns the mean footstrike acceleration magnitude, in g.
+         */
+        public double getImpactMeanG() {
+            return impactMeanG;
+        }
+
+        /**
+         * Returns the standard deviation of the footstrike acceleration magnitude, in g.
+         */
+        public double getImpactStdG() {
+            return impactStdG;
+        }
+
+        /**
+         * Returns the 95th percentile of the footstrike acceleration magnitude, in g (0.05 g resolution).
+         */
+        public double getImpactP95G() {
+            return impactP95G;
+        }
+
+        /**
+         * Returns the highest footstrike acceleration magnitude, in g.
+         */
+        public double getImpactMaxG() {
+            return impactMaxG;
+        }
+    }
+}
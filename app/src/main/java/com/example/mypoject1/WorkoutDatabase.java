@@ -0,0 +1,545 @@
+package com.example.mypoject1;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WorkoutDatabase
+ * <p>
+ * Local SQLite store for finished workouts. It is the source of truth on the device: a workout is
+ * committed here first, and {@link WorkoutSyncWorker} later uploads rows that are still pending.
+ * History screens read from here, so they work offline and at disk speed. Workout headers of the
+ * signed-in user that exist only in Firestore (recorded on another device or before a reinstall) are
+ * cached here as already synced rows when the history pages through them.
+ * </p>
+ *
+ * <p>
+ * The {@link BestEfforts} of each workout are stored in a side table, one row per covered distance,
+ * so a user's personal records are one grouped query. The {@link WorkoutBiomechanics} of a workout,
+ * if its accelerometer samples were analyzed, are one row of another side table.
+ * </p>
+ *
+ * <p>
+ * The helper is a process-wide singleton (SQLiteOpenHelper serializes access to its connection),
+ * and every method performs disk I/O, so it must be called off the main thread.
+ * </p>
+ */
+public class WorkoutDatabase extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "workouts.db";
+    private static final int DATABASE_VERSION = 4;
+
+    static final String TABLE_WORKOUTS = "workouts";
+    static final String COLUMN_ID = "_id";
+    static final String COLUMN_REMOTE_ID = "remote_id";
+    static final String COLUMN_UID = "uid";
+    static final String COLUMN_STEPS = "steps";
+    static final String COLUMN_DISTANCE = "distance";
+    static final String COLUMN_ELAPSED_MILLIS = "elapsed_millis";
+    static final String COLUMN_ELAPSED_TEXT = "elapsed_text";
+    static final String COLUMN_ROUTE = "route";
+    static final String COLUMN_ROUTE_POINTS = "route_points";
+    static final String COLUMN_TIMESTAMP = "timestamp";
+    static final String COLUMN_SYNCED = "synced";
+
+    static final String TABLE_BEST_EFFORTS = "best_efforts";
+    static final String COLUMN_WORKOUT_ID = "workout_id";
+    static final String COLUMN_DISTANCE_KEY = "distance_key";
+    static final String COLUMN_MILLIS = "millis";
+
+    static final String TABLE_BIOMECHANICS = "biomechanics";
+    static final String COLUMN_ACTIVE_WINDOWS = "active_windows";
+    static final String COLUMN_FOOTSTRIKES = "footstrikes";
+    static final String COLUMN_CADENCE_MEAN = "cadence_mean";
+    static final String COLUMN_CADENCE_STD = "cadence_std";
+    static final String COLUMN_STEP_INTERVAL_CV = "step_interval_cv";
+    static final String COLUMN_VERTICAL_OSCILLATION = "vertical_oscillation_cm";
+    static final String COLUMN_IMPACT_MEAN = "impact_mean_g";
+    static final String COLUMN_IMPACT_STD = "impact_std_g";
+    static final String COLUMN_IMPACT_P95 = "impact_p95_g";
+    static final String COLUMN_IMPACT_MAX = "impact_max_g";
+
+    // Workouts whose routes are read per page when best efforts are rebuilt (routes can be large)
+    private static final int ROUTE_PAGE_SIZE = 20;
+
+    // Values of COLUMN_SYNCED. A queued workout was handed to Firestore, which delivers it on its own
+    // (its write queue survives restarts); it is checked against the server before it is sent again.
+    // An uploaded workout is on the server but not yet added to its rollups; it is done after that.
+    static final int SYNC_PENDING = 0;
+    static final int SYNC_DONE = 1;
+    static final int SYNC_QUEUED = 2;
+    static final int SYNC_UPLOADED = 3;
+
+    private static volatile WorkoutDatabase instance;
+
+    /**
+     * Returns the shared database helper.
+     */
+    public static WorkoutDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (WorkoutDatabase.class) {
+                if (instance == null) {
+                    instance = new WorkoutDatabase(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private WorkoutDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // Readers (history) and the writer (finish/sync) do not block each other
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_WORKOUTS + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + COLUMN_REMOTE_ID + " TEXT NOT NULL UNIQUE, "
+                + COLUMN_UID + " TEXT, "
+                + COLUMN_STEPS + " INTEGER NOT NULL, "
+                + COLUMN_DISTANCE + " REAL NOT NULL, "
+                + COLUMN_ELAPSED_MILLIS + " INTEGER NOT NULL, "
+                + COLUMN_ELAPSED_TEXT + " TEXT, "
+                + COLUMN_ROUTE + " BLOB, "
+                + COLUMN_ROUTE_POINTS + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_TIMESTAMP + " INTEGER NOT NULL, "
+                + COLUMN_SYNCED + " INTEGER NOT NULL DEFAULT 0)");
+        // History is listed newest first; the sync worker looks up pending rows
+        db.execSQL("CREATE INDEX idx_workouts_timestamp ON " + TABLE_WORKOUTS + " (" + COLUMN_TIMESTAMP + " DESC)");
+        db.execSQL("CREATE INDEX idx_workouts_synced ON " + TABLE_WORKOUTS + " (" + COLUMN_SYNCED + ", " + COLUMN_ID + ")");
+        createUidIndex(db);
+        createBestEffortsTable(db);
+        createBiomechanicsTable(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            // Version 2: owner uid; existing rows are claimed by the next signed-in user (claimUnownedWorkouts)
+            db.execSQL("ALTER TABLE " + TABLE_WORKOUTS + " ADD COLUMN " + COLUMN_UID + " TEXT");
+            createUidIndex(db);
+        }
+        if (oldVersion < 3) {
+            // Version 3: best efforts, computed for the routes already stored
+            createBestEffortsTable(db);
+            rebuildBestEfforts(db);
+        }
+        if (oldVersion < 4) {
+            // Version 4: accelerometer analysis of workouts recorded from now on
+            createBiomechanicsTable(db);
+        }
+    }
+
+    /**
+     * A user's history is read newest first, one page at a time.
+     */
+    private static void createUidIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX idx_workouts_uid_timestamp ON " + TABLE_WORKOUTS
+                + " (" + COLUMN_UID + ", " + COLUMN_TIMESTAMP + " DESC)");
+    }
+
+    private static void createBestEffortsTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_BEST_EFFORTS + " ("
+                + COLUMN_WORKOUT_ID + " INTEGER NOT NULL, "
+                + COLUMN_DISTANCE_KEY + " TEXT NOT NULL, "
+                + COLUMN_MILLIS + " INTEGER NOT NULL, "
+                + "PRIMARY KEY (" + COLUMN_WORKOUT_ID + ", " + COLUMN_DISTANCE_KEY + "))");
+    }
+
+    private static void createBiomechanicsTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_BIOMECHANICS + " ("
+                + COLUMN_WORKOUT_ID + " INTEGER PRIMARY KEY, "
+                + COLUMN_ACTIVE_WINDOWS + " INTEGER NOT NULL, "
+                + COLUMN_FOOTSTRIKES + " INTEGER NOT NULL, "
+                + COLUMN_CADENCE_MEAN + " REAL NOT NULL, "
+                + COLUMN_CADENCE_STD + " REAL NOT NULL, "
+                + COLUMN_STEP_INTERVAL_CV + " REAL NOT NULL, "
+                + COLUMN_VERTICAL_OSCILLATION + " REAL NOT NULL, "
+                + COLUMN_IMPACT_MEAN + " REAL NOT NULL, "
+                + COLUMN_IMPACT_STD + " REAL NOT NULL, "
+                + COLUMN_IMPACT_P95 + " REAL NOT NULL, "
+                + COLUMN_IMPACT_MAX + " REAL NOT NULL)");
+    }
+
+    /**
+     * insertWorkout
+     * <p>
+     * Stores a finished workout as pending upload, together with its best efforts and biomechanics if
+     * they were computed, and sets its local id.
+     * </p>
+     *
+     * @param record The workout to store.
+     * @return The local row id.
+     */
+    public long insertWorkout(WorkoutRecord record) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            long id = db.insertOrThrow(TABLE_WORKOUTS, null, toValues(record));
+            writeBestEfforts(db, id, record.getBestEfforts());
+            writeBiomechanics(db, id, record.getBiomechanics());
+            db.setTransactionSuccessful();
+            record.setLocalId(id);
+            return id;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Stores the biomechanics of a workout analyzed after it was inserted, replacing any previous ones.
+     *
+     * @param localId The workout's local row id.
+     * @param result  The analysis result.
+     */
+    public void setBiomechanics(long localId, WorkoutBiomechanics.Result result) {
+        writeBiomechanics(getWritableDatabase(), localId, result);
+    }
+
+    /**
+     * cacheWorkouts
+     * <p>
+     * Stores workout headers read from Firestore, in one transaction. Workouts that are already stored
+     * (same document id) are left unchanged.
+     * </p>
+     *
+     * @param records Workouts to cache.
+     * @return The number of workouts that were not stored before.
+     */
+    public int cacheWorkouts(List<WorkoutRecord> records) {
+        SQLiteDatabase db = getWritableDatabase();
+        int inserted = 0;
+        db.beginTransaction();
+        try {
+            for (WorkoutRecord record : records) {
+                long id = db.insertWithOnConflict(TABLE_WORKOUTS, null, toValues(record), SQLiteDatabase.CONFLICT_IGNORE);
+                if (id != -1) {
+                    writeBestEfforts(db, id, record.getBestEfforts());
+                    writeBiomechanics(db, id, record.getBiomechanics());
+                    record.setLocalId(id);
+                    inserted++;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return inserted;
+    }
+
+    /**
+     * Assigns workouts recorded while nobody was signed in (or before owners were stored) to a user.
+     *
+     * @return The number of workouts claimed.
+     */
+    public int claimUnownedWorkouts(String uid) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_UID, uid);
+        return getWritableDatabase().update(TABLE_WORKOUTS, values, COLUMN_UID + " IS NULL", null);
+    }
+
+    /**
+     * Returns up to {@code limit} owned workouts that were not uploaded yet, oldest first.
+     */
+    public List<WorkoutRecord> getPendingWorkouts(int limit) {
+        SQLiteDatabase db = getReadableDatabase();
+        List<WorkoutRecord> records = query(db, COLUMN_SYNCED + " = " + SYNC_PENDING + " AND " + COLUMN_UID + " IS NOT NULL",
+                null, COLUMN_ID + " ASC", limit);
+        // Uploaded with the header
+        for (WorkoutRecord record : records) {
+            record.setBestEfforts(readBestEfforts(db, record.getLocalId()));
+            record.setBiomechanics(readBiomechanics(db, record.getLocalId()));
+        }
+        return records;
+    }
+
+    /**
+     * getWorkoutsBefore
+     * <p>
+     * Returns up to {@code limit} workouts of a user that come after the cursor in history order:
+     * newest first, and by descending document id among workouts finished at the same time, the order
+     * of the Firestore history query.
+     * </p>
+     *
+     * @param beforeTimestamp Timestamp of the cursor; Long.MAX_VALUE for the first page.
+     * @param beforeRemoteId  Document id of the cursor, or null to skip every workout at its timestamp.
+     */
+    public List<WorkoutRecord> getWorkoutsBefore(String uid, long beforeTimestamp, String beforeRemoteId, int limit) {
+        String timestamp = Long.toString(beforeTimestamp);
+        String orderBy = COLUMN_TIMESTAMP + " DESC, " + COLUMN_REMOTE_ID + " DESC";
+        if (beforeRemoteId == null) {
+            return query(getReadableDatabase(), COLUMN_UID + " = ? AND " + COLUMN_TIMESTAMP + " < ?",
+                    new String[]{uid, timestamp}, orderBy, limit);
+        }
+        return query(getReadableDatabase(), COLUMN_UID + " = ? AND (" + COLUMN_TIMESTAMP + " < ? OR ("
+                        + COLUMN_TIMESTAMP + " = ? AND " + COLUMN_REMOTE_ID + " < ?))",
+                new String[]{uid, timestamp, timestamp, beforeRemoteId}, orderBy, limit);
+    }
+
+    /**
+     * getPersonalRecords
+     * <p>
+     * Returns a user's fastest time per standard distance over all stored workouts.
+     * </p>
+     *
+     * @return Best times aligned with {@link BestEfforts#DISTANCES_M}, {@link BestEfforts#NONE} where
+     * no workout covered the distance.
+     */
+    public long[] getPersonalRecords(String uid) {
+        long[] records = BestEfforts.empty();
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT e." + COLUMN_DISTANCE_KEY + ", MIN(e." + COLUMN_MILLIS + ")"
+                        + " FROM " + TABLE_BEST_EFFORTS + " e JOIN " + TABLE_WORKOUTS + " w ON w." + COLUMN_ID + " = e." + COLUMN_WORKOUT_ID
+                        + " WHERE w." + COLUMN_UID + " = ? GROUP BY e." + COLUMN_DISTANCE_KEY,
+                new String[]{uid})) {
+            while (cursor.moveToNext()) {
+                int index = BestEfforts.indexOf(cursor.getString(0));
+                if (index >= 0) {
+                    records[index] = cursor.getLong(1);
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Recomputes the best efforts of every stored route, in one transaction.
+     *
+     * @return The number of routes processed.
+     */
+    public int rebuildBestEfforts() {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            int count = rebuildBestEfforts(db);
+            db.setTransactionSuccessful();
+            return count;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * rebuildBestEfforts
+     * <p>
+     * Replaces the best efforts of every workout that has a local route. Routes are read a page at a
+     * time by ascending id, so only a few of them are decoded and in memory at once. Workouts cached
+     * from Firestore without a route keep the best efforts read from their header.
+     * </p>
+     *
+     * @param db Database in a transaction.
+     * @return The number of routes processed.
+     */
+    private static int rebuildBestEfforts(SQLiteDatabase db) {
+        int count = 0;
+        long afterId = 0;
+        while (true) {
+            List<WorkoutRecord> page = query(db, COLUMN_ROUTE + " IS NOT NULL AND " + COLUMN_ID + " > ?",
+                    new String[]{Long.toString(afterId)}, COLUMN_ID + " ASC", ROUTE_PAGE_SIZE);
+            for (WorkoutRecord record : page) {
+                long[] efforts;
+                try {
+                    efforts = BestEfforts.fromRoute(RouteStore.fromByteArray(record.getRoute()));
+                } catch (IllegalArgumentException e) {
+                    // A corrupt route has no best efforts
+                    efforts = BestEfforts.empty();
+                }
+                db.delete(TABLE_BEST_EFFORTS, COLUMN_WORKOUT_ID + " = ?", new String[]{Long.toString(record.getLocalId())});
+                writeBestEfforts(db, record.getLocalId(), efforts);
+                afterId = record.getLocalId();
+                count++;
+            }
+            if (page.size() < ROUTE_PAGE_SIZE) {
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Marks the given workouts as uploaded and added to their rollups, in one transaction.
+     */
+    public void markSynced(List<Long> localIds) {
+        setSyncState(localIds, SYNC_DONE);
+    }
+
+    /**
+     * Marks the given workouts as confirmed on the server but not yet added to their rollups.
+     */
+    public void markUploaded(List<Long> localIds) {
+        setSyncState(localIds, SYNC_UPLOADED);
+    }
+
+    /**
+     * Marks the given workouts as handed to Firestore but not yet acknowledged by the server.
+     */
+    public void markQueued(List<Long> localIds) {
+        setSyncState(localIds, SYNC_QUEUED);
+    }
+
+    /**
+     * Marks the given workouts as pending again, after Firestore rejected their upload.
+     */
+    public void markPending(List<Long> localIds) {
+        setSyncState(localIds, SYNC_PENDING);
+    }
+
+    /**
+     * Returns up to {@code limit} workouts queued in Firestore whose delivery is not confirmed yet.
+     */
+    public List<WorkoutRecord> getQueuedWorkouts(int limit) {
+        return query(getReadableDatabase(), COLUMN_SYNCED + " = " + SYNC_QUEUED, null, COLUMN_ID + " ASC", limit);
+    }
+
+    /**
+     * Returns up to {@code limit} uploaded workouts of a user that are not yet added to their rollups.
+     */
+    public List<WorkoutRecord> getUploadedWorkouts(String uid, int limit) {
+        return query(getReadableDatabase(), COLUMN_SYNCED + " = " + SYNC_UPLOADED + " AND " + COLUMN_UID + " = ?",
+                new String[]{uid}, COLUMN_ID + " ASC", limit);
+    }
+
+    /**
+     * setSyncState
+     * <p>
+     * Sets the sync state of the given workouts, in one transaction.
+     * </p>
+     *
+     * @param localIds Local row ids of the workouts.
+     * @param state    One of SYNC_PENDING, SYNC_DONE, SYNC_QUEUED or SYNC_UPLOADED.
+     */
+    private void setSyncState(List<Long> localIds, int state) {
+        SQLiteDatabase db = getWritableDatabase();
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_SYNCED, state);
+        db.beginTransaction();
+        try {
+            for (Long id : localIds) {
+                db.update(TABLE_WORKOUTS, values, COLUMN_ID + " = ?", new String[]{Long.toString(id)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Inserts one row per covered distance; null or {@link BestEfforts#NONE} entries are skipped.
+     */
+    private static void writeBestEfforts(SQLiteDatabase db, long workoutId, long[] efforts) {
+        if (efforts == null) {
+            return;
+        }
+        ContentValues values = new ContentValues();
+        for (int i = 0; i < efforts.length && i < BestEfforts.KEYS.length; i++) {
+            if (efforts[i] == BestEfforts.NONE) {
+                continue;
+            }
+            values.put(COLUMN_WORKOUT_ID, workoutId);
+            values.put(COLUMN_DISTANCE_KEY, BestEfforts.KEYS[i]);
+            values.put(COLUMN_MILLIS, efforts[i]);
+            db.insertWithOnConflict(TABLE_BEST_EFFORTS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        }
+    }
+
+    private static long[] readBestEfforts(SQLiteDatabase db, long workoutId) {
+        long[] efforts = BestEfforts.empty();
+        try (Cursor cursor = db.query(TABLE_BEST_EFFORTS, new String[]{COLUMN_DISTANCE_KEY, COLUMN_MILLIS},
+                COLUMN_WORKOUT_ID + " = ?", new String[]{Long.toString(workoutId)}, null, null, null)) {
+            while (cursor.moveToNext()) {
+                int index = BestEfforts.indexOf(cursor.getString(0));
+                if (index >= 0) {
+                    efforts[index] = cursor.getLong(1);
+                }
+            }
+        }
+        return efforts;
+    }
+
+    private static void writeBiomechanics(SQLiteDatabase db, long workoutId, WorkoutBiomechanics.Result result) {
+        if (result == null) {
+            return;
+        }
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_WORKOUT_ID, workoutId);
+        values.put(COLUMN_ACTIVE_WINDOWS, result.getActiveWindows());
+        values.put(COLUMN_FOOTSTRIKES, result.getSteps());
+        values.put(COLUMN_CADENCE_MEAN, result.getCadenceMean());
+        values.put(COLUMN_CADENCE_STD, result.getCadenceStd());
+        values.put(COLUMN_STEP_INTERVAL_CV, result.getStepIntervalCv());
+        values.put(COLUMN_VERTICAL_OSCILLATION, result.getVerticalOscillationCm());
+        values.put(COLUMN_IMPACT_MEAN, result.getImpactMeanG());
+        values.put(COLUMN_IMPACT_STD, result.getImpactStdG());
+        values.put(COLUMN_IMPACT_P95, result.getImpactP95G());
+        values.put(COLUMN_IMPACT_MAX, result.getImpactMaxG());
+        db.insertWithOnConflict(TABLE_BIOMECHANICS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private static WorkoutBiomechanics.Result readBiomechanics(SQLiteDatabase db, long workoutId) {
+        try (Cursor cursor = db.query(TABLE_BIOMECHANICS, new String[]{COLUMN_ACTIVE_WINDOWS, COLUMN_FOOTSTRIKES,
+                        COLUMN_CADENCE_MEAN, COLUMN_CADENCE_STD, COLUMN_STEP_INTERVAL_CV, COLUMN_VERTICAL_OSCILLATION,
+                        COLUMN_IMPACT_MEAN, COLUMN_IMPACT_STD, COLUMN_IMPACT_P95, COLUMN_IMPACT_MAX},
+                COLUMN_WORKOUT_ID + " = ?", new String[]{Long.toString(workoutId)}, null, null, null)) {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            return new WorkoutBiomechanics.Result(cursor.getInt(0), cursor.getLong(1), cursor.getDouble(2),
+                    cursor.getDouble(3), cursor.getDouble(4), cursor.getDouble(5), cursor.getDouble(6),
+                    cursor.getDouble(7), cursor.getDouble(8), cursor.getDouble(9));
+        }
+    }
+
+    private static ContentValues toValues(WorkoutRecord record) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_REMOTE_ID, record.getRemoteId());
+        values.put(COLUMN_UID, record.getUid());
+        values.put(COLUMN_STEPS, record.getSteps());
+        values.put(COLUMN_DISTANCE, record.getDistanceMeters());
+        values.put(COLUMN_ELAPSED_MILLIS, record.getElapsedMillis());
+        values.put(COLUMN_ELAPSED_TEXT, record.getElapsedText());
+        values.put(COLUMN_ROUTE, record.getRoute());
+        values.put(COLUMN_ROUTE_POINTS, record.getRoutePointCount());
+        values.put(COLUMN_TIMESTAMP, record.getTimestamp());
+        values.put(COLUMN_SYNCED, record.isSynced() ? SYNC_DONE : SYNC_PENDING);
+        return values;
+    }
+
+    private static List<WorkoutRecord> query(SQLiteDatabase db, String selection, String[] args, String orderBy, int limit) {
+        List<WorkoutRecord> result = new ArrayList<>();
+        try (Cursor cursor = db.query(TABLE_WORKOUTS, null, selection, args,
+                null, null, orderBy, Integer.toString(limit))) {
+            int id = cursor.getColumnIndexOrThrow(COLUMN_ID);
+            int remoteId = cursor.getColumnIndexOrThrow(COLUMN_REMOTE_ID);
+            int uid = cursor.getColumnIndexOrThrow(COLUMN_UID);
+            int steps = cursor.getColumnIndexOrThrow(COLUMN_STEPS);
+            int distance = cursor.getColumnIndexOrThrow(COLUMN_DISTANCE);
+            int elapsedMillis = cursor.getColumnIndexOrThrow(COLUMN_ELAPSED_MILLIS);
+            int elapsedText = cursor.getColumnIndexOrThrow(COLUMN_ELAPSED_TEXT);
+            int route = cursor.getColumnIndexOrThrow(COLUMN_ROUTE);
+            int routePoints = cursor.getColumnIndexOrThrow(COLUMN_ROUTE_POINTS);
+            int timestamp = cursor.getColumnIndexOrThrow(COLUMN_TIMESTAMP);
+            int synced = cursor.getColumnIndexOrThrow(COLUMN_SYNCED);
+            while (cursor.moveToNext()) {
+                result.add(new WorkoutRecord(
+                        cursor.getLong(id),
+                        cursor.getString(remoteId),
+                        cursor.getString(uid),
+                        cursor.getInt(steps),
+                        cursor.getDouble(distance),
+                        cursor.getLong(elapsedMillis),
+                        cursor.getString(elapsedText),
+                        cursor.getBlob(route),
+                        cursor.getInt(routePoints),
+                        cursor.getLong(timestamp),
+                        cursor.getInt(synced) == SYNC_DONE || cursor.getInt(synced) == SYNC_UPLOADED));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.mypoject1;
+
+import android.os.Bundle;
+import android.view.View;
+import android.widget.ImageButton;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.gms.maps.CameraUpdateFactory;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.MapView;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.PolylineOptions;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WorkoutHistoryActivity
+ * <p>
+ * Lists the signed-in user's workouts, newest first. The list is paged by {@link WorkoutHistoryPager}:
+ * when the user scrolls within {@link #PREFETCH_DISTANCE} rows of the end, the next page (usually
+ * already prefetched) is appended, so opening the screen costs the same whether the user has ten
+ * workouts or thousands.
+ * </p>
+ *
+ * <p>
+ * Rows carry summaries only. Tapping one loads that workout's route with
+ * {@link WorkoutRepository#loadRoute} (from the local database, or from its Firestore chunks if it was
+ * recorded on another device) and draws it on a lite-mode map above the list.
+ * </p>
+ */
+public class WorkoutHistoryActivity extends AppCompatActivity implements WorkoutHistoryPager.Listener,
+        WorkoutHistoryAdapter.OnWorkoutClickListener {
+
+    // Rows left below the last visible one when the next page is requested
+    private static final int PREFETCH_DISTANCE = 5;
+    // Vertex budget of the drawn route, and the padding around it in pixels
+    private static final int MAX_ROUTE_VERTICES = 1000;
+    private static final int ROUTE_PADDING_PX = 48;
+
+    private WorkoutRepository repository;
+    private MapView routeMapView;
+    private GoogleMap routeMap;
+    // Workout whose route is shown or loading; a route that arrives for another one is dropped
+    private WorkoutRecord selectedWorkout;
+    private WorkoutHistoryAdapter adapter;
+    private WorkoutHistoryPager pager;
+    private LinearLayoutManager layoutManager;
+    private ProgressBar progressBar;
+    private TextView tvEmpty;
+
+    /**
+     * onCreate
+     * <p>
+     * Sets up the list and starts loading the first page. Without a signed-in user there is no
+     * history to show, so the activity closes.
+     * </p>
+     *
+     * @param savedInstanceState Bundle containing the activity's previously saved state.
+     */
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_workout_history);
+
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) {
+            Toast.makeText(this, "Please log in to see your workouts", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
+
+        repository = WorkoutRepository.getInstance(this);
+        progressBar = findViewById(R.id.historyProgressBar);
+        tvEmpty = findViewById(R.id.tvHistoryEmpty);
+        routeMapView = findViewById(R.id.routeMapView);
+        routeMapView.onCreate(savedInstanceState);
+        routeMapView.getMapAsync(map -> {
+            routeMap = map;
+            map.getUiSettings().setMapToolbarEnabled(false);
+            if (selectedWorkout != null) {
+                onWorkoutClick(selectedWorkout);
+            }
+        });
+        ImageButton backButton = findViewById(R.id.backButton);
+        backButton.setOnClickListener(view -> finish());
+
+        RecyclerView recyclerView = findViewById(R.id.historyRecyclerView);
+        layoutManager = new LinearLayoutManager(this);
+        adapter = new WorkoutHistoryAdapter(this);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - 1 - PREFETCH_DISTANCE) {
+                    pager.loadNextPage();
+                }
+            }
+        });
+
+        pager = new WorkoutHistoryPager(repository, user.getUid(), this);
+        progressBar.setVisibility(View.VISIBLE);
+        pager.start();
+    }
+
+    /**
+     * Appends a page and shows the empty message if the user has no workouts.
+     */
+    @Override
+    public void onPageLoaded(List<WorkoutRecord> page) {
+        progressBar.setVisibility(View.GONE);
+        adapter.addPage(page);
+        tvEmpty.setVisibility(adapter.getItemCount() == 0 && pager.isEndReached() ? View.VISIBLE : View.GONE);
+    }
+
+    /**
+     * Clears the list before it is rebuilt with newer workouts.
+     */
+    @Override
+    public void onHistoryReset() {
+        adapter.clear();
+    }
+
+    /**
+     * onWorkoutClick
+     * <p>
+     * Loads the route of the tapped workout in the background and shows it on the map; the list
+     * itself never holds routes.
+     * </p>
+     *
+     * @param workout The workout of the tapped row.
+     */
+    @Override
+    public void onWorkoutClick(WorkoutRecord workout) {
+        selectedWorkout = workout;
+        if (routeMap == null) {
+            // Drawn once the map is ready
+            return;
+        }
+        repository.loadRoute(workout, route -> {
+            if (isDestroyed() || workout != selectedWorkout) {
+                return;
+            }
+            if (route == null || route.size() == 0) {
+                routeMapView.setVisibility(View.GONE);
+                Toast.makeText(this, "No route recorded for this workout", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            routeMapView.setVisibility(View.VISIBLE);
+            drawRoute(route);
+        });
+    }
+
+    /**
+     * drawRoute
+     * <p>
+     * Replaces the drawn route, simplified with a {@link RouteSimplifier} to its finest level within
+     * {@link #MAX_ROUTE_VERTICES} points, and fits the camera to it.
+     * </p>
+     */
+    private void drawRoute(RouteStore route) {
+        RouteSimplifier simplifier = new RouteSimplifier();
+        RouteStore.Cursor cursor = route.cursor();
+        while (cursor.next()) {
+            simplifier.add(cursor.getLatitude(), cursor.getLongitude());
+        }
+        int level = 0;
+        while (level + 1 < simplifier.getLevelCount() && simplifier.getPointCount(level) > MAX_ROUTE_VERTICES) {
+            level++;
+        }
+        List<LatLng> vertices = new ArrayList<>(simplifier.getPointCount(level));
+        LatLngBounds.Builder bounds = new LatLngBounds.Builder();
+        simplifier.forEachPoint(level, (lat, lng) -> {
+            LatLng vertex = new LatLng(lat, lng);
+            vertices.add(vertex);
+            bounds.include(vertex);
+        });
+        routeMap.clear();
+        routeMap.addPolyline(new PolylineOptions()
+                .addAll(vertices)
+                .width(10f)
+                .color(ContextCompat.getColor(this, R.color.button_primary)));
+        // The map was just made visible and may not be laid out yet
+        LatLngBounds routeBounds = bounds.build();
+        routeMapView.post(() -> {
+            if (routeMapView.getWidth() > 0 && routeMapView.getHeight() > 0) {
+                routeMap.moveCamera(CameraUpdateFactory.newLatLngBounds(routeBounds,
+                        routeMapView.getWidth(), routeMapView.getHeight(), ROUTE_PADDING_PX));
+            }
+        });
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (routeMapView != null) {
+            routeMapView.onStart();
+        }
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (routeMapView != null) {
+            routeMapView.onResume();
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if (routeMapView != null) {
+            routeMapView.onPause();
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (routeMapView != null) {
+            routeMapView.onStop();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (routeMapView != null) {
+            routeMapView.onDestroy();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        if (routeMapView != null) {
+            routeMapView.onLowMemory();
+        }
+    }
+}
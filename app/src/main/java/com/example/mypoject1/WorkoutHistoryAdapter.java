@@ -0,0 +1,112 @@
+package com.example.mypoject1;
+
+import android.text.format.DateUtils;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * WorkoutHistoryAdapter
+ * <p>
+ * A RecyclerView adapter showing one row per workout (date, distance, steps and time). Pages are
+ * appended as {@link WorkoutHistoryPager} delivers them, so only the inserted range is bound. Tapping
+ * a row reports its workout to the click listener.
+ * </p>
+ */
+public class WorkoutHistoryAdapter extends RecyclerView.Adapter<WorkoutHistoryAdapter.WorkoutViewHolder> {
+
+    /**
+     * Receives the workout of a tapped row.
+     */
+    public interface OnWorkoutClickListener {
+        void onWorkoutClick(WorkoutRecord workout);
+    }
+
+    // Workouts shown, newest first
+    private final List<WorkoutRecord> workouts = new ArrayList<>();
+    private final OnWorkoutClickListener clickListener;
+
+    public WorkoutHistoryAdapter(OnWorkoutClickListener clickListener) {
+        this.clickListener = clickListener;
+    }
+
+    @NonNull
+    @Override
+    public WorkoutViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_workout_history, parent, false);
+        WorkoutViewHolder holder = new WorkoutViewHolder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                clickListener.onWorkoutClick(workouts.get(position));
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull WorkoutViewHolder holder, int position) {
+        holder.bind(workouts.get(position));
+    }
+
+    @Override
+    public int getItemCount() {
+        return workouts.size();
+    }
+
+    /**
+     * Appends a page of workouts and notifies the inserted range.
+     */
+    public void addPage(List<WorkoutRecord> page) {
+        int start = workouts.size();
+        workouts.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+    }
+
+    /**
+     * Removes all workouts.
+     */
+    public void clear() {
+        int count = workouts.size();
+        workouts.clear();
+        notifyItemRangeRemoved(0, count);
+    }
+
+    /**
+     * WorkoutViewHolder
+     * <p>
+     * Holds the views of one workout row.
+     * </p>
+     */
+    static class WorkoutViewHolder extends RecyclerView.ViewHolder {
+        private final TextView tvDate;
+        private final TextView tvDistance;
+        private final TextView tvDetails;
+
+        WorkoutViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvDate = itemView.findViewById(R.id.tvWorkoutDate);
+            tvDistance = itemView.findViewById(R.id.tvWorkoutDistance);
+            tvDetails = itemView.findViewById(R.id.tvWorkoutDetails);
+        }
+
+        /**
+         * Displays a workout's date, distance in kilometers, steps and elapsed time.
+         */
+        void bind(WorkoutRecord workout) {
+            tvDate.setText(DateUtils.formatDateTime(itemView.getContext(), workout.getTimestamp(),
+                    DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_TIME | DateUtils.FORMAT_ABBREV_MONTH));
+            tvDistance.setText(String.format(Locale.getDefault(), "%.2f km", workout.getDistanceMeters() / 1000));
+            String elapsed = workout.getElapsedText() != null ? workout.getElapsedText() : "";
+            tvDetails.setText(workout.getSteps() + " steps  •  " + elapsed);
+        }
+    }
+}
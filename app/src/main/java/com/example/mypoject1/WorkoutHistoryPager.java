@@ -0,0 +1,188 @@
+package com.example.mypoject1;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * WorkoutHistoryPager
+ * <p>
+ * Pages through a user's workout history for {@link WorkoutHistoryActivity} using a (timestamp,
+ * document id) cursor: every page is "the next {@link #PAGE_SIZE} workouts after the last one shown",
+ * which {@link WorkoutRepository#loadHistoryPage} answers from the local cache right away and then
+ * checks against a Firestore {@code startAfter}/{@code limit} query in the background. Neither costs
+ * more for the thousandth page than for the first. If Firestore had workouts that a page lacked, they
+ * are cached by then; a prefetched page is simply read again, a shown one makes the history reload
+ * from the top.
+ * </p>
+ *
+ * <p>
+ * As soon as a page is shown, the following one is loaded in the background and kept ready, so
+ * scrolling to the end of the list usually finds the next page already there. All methods must be
+ * called on the main thread.
+ * </p>
+ */
+public class WorkoutHistoryPager {
+
+    // Workouts per page
+    static final int PAGE_SIZE = 20;
+
+    /**
+     * Receives pages on the main thread.
+     */
+    public interface Listener {
+        /**
+         * Called with the next page to append; an empty page means the history has been fully shown.
+         */
+        void onPageLoaded(List<WorkoutRecord> page);
+
+        /**
+         * Called when newer workouts were found and the list must be rebuilt from the first page.
+         */
+        void onHistoryReset();
+    }
+
+    private final WorkoutRepository repository;
+    private final String uid;
+    private final Listener listener;
+
+    // Timestamp and document id of the last workout loaded; the cursor for the next page
+    private long nextBefore = Long.MAX_VALUE;
+    private String nextBeforeId = null;
+    // Next page, loaded ahead of time, and the cursor it was read after; null if not loaded yet
+    private List<WorkoutRecord> prefetched;
+    private long prefetchedAfter;
+    private String prefetchedAfterId;
+    private boolean loading = false;
+    // True when the listener is waiting for the page being loaded
+    private boolean waiting = false;
+    private boolean endReached = false;
+    // Incremented on reset so that results of loads started before are dropped
+    private int generation = 0;
+
+    public WorkoutHistoryPager(WorkoutRepository repository, String uid, Listener listener) {
+        this.repository = repository;
+        this.uid = uid;
+        this.listener = listener;
+    }
+
+    /**
+     * start
+     * <p>
+     * Loads the first page and, in parallel, checks Firestore for workouts newer than the cache (for
+     * example recorded on another device). If some are found, the history is reloaded from the top.
+     * </p>
+     */
+    public void start() {
+        loadNextPage();
+        int startGeneration = generation;
+        repository.refreshHistory(uid, PAGE_SIZE, changed -> {
+            if (changed && startGeneration == generation) {
+                reload();
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the list from the first page, after workouts were cached that shown pages lacked.
+     */
+    private void reload() {
+        reset();
+        listener.onHistoryReset();
+        loadNextPage();
+    }
+
+    /**
+     * loadNextPage
+     * <p>
+     * Delivers the next page: immediately if it was prefetched, otherwise once it is loaded. Does
+     * nothing while a requested page is still loading or after the end of the history.
+     * </p>
+     */
+    public void loadNextPage() {
+        if (waiting) {
+            return;
+        }
+        if (prefetched != null) {
+            List<WorkoutRecord> page = prefetched;
+            prefetched = null;
+            listener.onPageLoaded(page);
+            fetch();
+        } else if (loading) {
+            waiting = true;
+        } else if (!endReached) {
+            waiting = true;
+            fetch();
+        }
+    }
+
+    /**
+     * Returns true once every page has been delivered.
+     */
+    public boolean isEndReached() {
+        return endReached && !loading && prefetched == null;
+    }
+
+    /**
+     * Forgets all pages; the next call to {@link #loadNextPage()} starts from the newest workout.
+     */
+    public void reset() {
+        generation++;
+        nextBefore = Long.MAX_VALUE;
+        nextBeforeId = null;
+        prefetched = null;
+        loading = false;
+        waiting = false;
+        endReached = false;
+    }
+
+    /**
+     * Loads the page after the cursor; delivers it if the listener is waiting, keeps it otherwise.
+     */
+    private void fetch() {
+        if (loading || endReached) {
+            return;
+        }
+        loading = true;
+        int fetchGeneration = generation;
+        long after = nextBefore;
+        String afterId = nextBeforeId;
+        repository.loadHistoryPage(uid, nextBefore, nextBeforeId, PAGE_SIZE, page -> {
+            if (fetchGeneration != generation) {
+                return;
+            }
+            loading = false;
+            if (page.size() < PAGE_SIZE) {
+                endReached = true;
+            }
+            if (!page.isEmpty()) {
+                WorkoutRecord last = page.get(page.size() - 1);
+                nextBefore = last.getTimestamp();
+                nextBeforeId = last.getRemoteId();
+            }
+            if (waiting) {
+                waiting = false;
+                listener.onPageLoaded(page);
+                // Prefetch the page after this one
+                fetch();
+            } else {
+                prefetched = page;
+                prefetchedAfter = after;
+                prefetchedAfterId = afterId;
+            }
+        }, missed -> {
+            if (!missed || fetchGeneration != generation) {
+                return;
+            }
+            if (prefetched != null && prefetchedAfter == after && Objects.equals(prefetchedAfterId, afterId)) {
+                // Not shown yet: read it again from the updated cache
+                prefetched = null;
+                nextBefore = after;
+                nextBeforeId = afterId;
+                endReached = false;
+                fetch();
+            } else {
+                reload();
+            }
+        });
+    }
+}
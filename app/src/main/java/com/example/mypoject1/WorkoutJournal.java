@@ -0,0 +1,468 @@
+package com.example.mypoject1;
+
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * WorkoutJournal
+ * <p>
+ * An append-only binary journal of the workout in progress, so a crash or process kill does not lose
+ * the run. The recording threads append small records (step deltas, location fixes, accelerometer
+ * segment markers, timer events) into an in-memory buffer; a background task writes the buffer to a
+ * {@link FileChannel} and forces it to disk every {@link #SYNC_INTERVAL_MS}. Durability is therefore
+ * paid once per interval instead of once per event, and at most the last interval can be lost.
+ * </p>
+ *
+ * <p>
+ * Record layout: {@code [type:1][payload length:1][payload][crc32:4]}, all big-endian. The CRC covers
+ * type, length and payload, so a record torn by a crash is detected and recovery stops there. The first
+ * record is a header holding the workout id, which is also the Firestore document id of the workout, so
+ * a workout that is recovered after it was already saved does not produce a duplicate.
+ * </p>
+ *
+ * <p>
+ * Raw accelerometer samples are not duplicated here; {@link AccelerometerRingBuffer} spills them next to
+ * the journal, into the file named by {@link #getAccelerometerFile}, which stays until the workout is
+ * recovered or reset. The journal only records how many samples had been spilled at each segment
+ * boundary.
+ * </p>
+ */
+public class WorkoutJournal implements Closeable {
+
+    private static final String TAG = "WorkoutJournal";
+
+    // Directory (under filesDir) and suffix of journal files
+    public static final String DIRECTORY_NAME = "journals";
+    private static final String SUFFIX = ".journal";
+    // Suffix of the accelerometer spill file of a journaled workout
+    private static final String ACCELEROMETER_SUFFIX = ".accel";
+
+    // Record types
+    private static final byte TYPE_HEADER = 1;
+    private static final byte TYPE_STEPS = 2;
+    private static final byte TYPE_LOCATION = 3;
+    private static final byte TYPE_ACCEL_SEGMENT = 4;
+    private static final byte TYPE_TIMER = 5;
+    private static final byte TYPE_FINISHED = 6;
+
+    private static final int VERSION = 1;
+
+    // Timer events recorded with appendTimerEvent
+    public static final int TIMER_STOPWATCH_START = 1;
+    public static final int TIMER_STOPWATCH_PAUSE = 2;
+    public static final int TIMER_STOPWATCH_RESET = 3;
+    public static final int TIMER_COUNTDOWN_START = 4;
+    public static final int TIMER_COUNTDOWN_PAUSE = 5;
+    public static final int TIMER_COUNTDOWN_RESET = 6;
+
+    // Grouped fsync interval and in-memory buffer size
+    private static final long SYNC_INTERVAL_MS = 3000;
+    private static final int BUFFER_SIZE = 16 * 1024;
+    // type + length + crc
+    private static final int RECORD_OVERHEAD = 6;
+
+    // Journals currently being written in this process; recovery must leave them alone
+    private static final Set<String> OPEN_JOURNALS = Collections.synchronizedSet(new HashSet<>());
+
+    private final File file;
+    private final String workoutId;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService syncExecutor;
+    private final ScheduledFuture<?> syncTask;
+    private boolean closed = false;
+    // True when data was written to the channel but not yet forced to disk
+    private boolean dirty = false;
+    // Buffer position of the record being written
+    private int recordStart;
+
+    /**
+     * Returns the directory holding journal files.
+     */
+    public static File getJournalDirectory(File filesDir) {
+        return new File(filesDir, DIRECTORY_NAME);
+    }
+
+    /**
+     * Returns the file the accelerometer samples of a journaled workout are spilled to while it is
+     * recorded; recovery analyzes it if the workout was interrupted before it was finished.
+     *
+     * @param directory Journal directory.
+     * @param workoutId Id of the workout.
+     */
+    public static File getAccelerometerFile(File directory, String workoutId) {
+        return new File(directory, workoutId + ACCELEROMETER_SUFFIX);
+    }
+
+    /**
+     * Returns the accelerometer spill file that belongs to a journal file.
+     */
+    public static File getAccelerometerFile(File journalFile) {
+        String name = journalFile.getName();
+        return getAccelerometerFile(journalFile.getParentFile(), name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * create
+     * <p>
+     * Creates a new journal for a workout and writes its header.
+     * </p>
+     *
+     * @param directory       Journal directory, created if missing.
+     * @param workoutId       Id of the workout (also used as its Firestore document id).
+     * @param startWallMillis Wall clock time at which the workout started.
+     * @return The open journal.
+     * @throws IOException If the file cannot be created.
+     */
+    public static WorkoutJournal create(File directory, String workoutId, long startWallMillis) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        WorkoutJournal journal = new WorkoutJournal(new File(directory, workoutId + SUFFIX), workoutId);
+        byte[] id = workoutId.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        synchronized (journal) {
+            journal.begin(TYPE_HEADER, 1 + 8 + 1 + id.length);
+            journal.buffer.put((byte) VERSION).putLong(startWallMillis).put((byte) id.length).put(id);
+            journal.end();
+        }
+        journal.sync();
+        return journal;
+    }
+
+    private WorkoutJournal(File file, String workoutId) throws IOException {
+        this.file = file;
+        this.workoutId = workoutId;
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        this.channel = randomAccessFile.getChannel();
+        channel.truncate(0);
+        OPEN_JOURNALS.add(file.getAbsolutePath());
+        syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "JournalSync"));
+        syncTask = syncExecutor.scheduleWithFixedDelay(this::syncQuietly, SYNC_INTERVAL_MS, SYNC_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the id of the journaled workout.
+     */
+    public String getWorkoutId() {
+        return workoutId;
+    }
+
+    /**
+     * Appends a step count change.
+     *
+     * @param wallMillis Time of the change.
+     * @param stepDelta  Steps taken since the previous step record.
+     */
+    public synchronized void appendSteps(long wallMillis, int stepDelta) {
+        if (begin(TYPE_STEPS, 8 + 4)) {
+            buffer.putLong(wallMillis).putInt(stepDelta);
+            end();
+        }
+    }
+
+    /**
+     * Appends a location fix in E7 fixed point.
+     */
+    public synchronized void appendLocation(long timeMillis, int latE7, int lngE7) {
+        if (begin(TYPE_LOCATION, 8 + 4 + 4)) {
+            buffer.putLong(timeMillis).putInt(latE7).putInt(lngE7);
+            end();
+        }
+    }
+
+    /**
+     * Appends an accelerometer segment boundary: the number of samples spilled to disk so far.
+     */
+    public synchronized void appendAccelerometerSegment(long wallMillis, long spilledSamples) {
+        if (begin(TYPE_ACCEL_SEGMENT, 8 + 8)) {
+            buffer.putLong(wallMillis).putLong(spilledSamples);
+            end();
+        }
+    }
+
+    /**
+     * Appends a stopwatch or countdown event.
+     *
+     * @param wallMillis  Time of the event.
+     * @param event       One of the TIMER_* constants.
+     * @param valueMillis Stopwatch elapsed time, or countdown remaining time, at the event.
+     */
+    public synchronized void appendTimerEvent(long wallMillis, int event, long valueMillis) {
+        if (begin(TYPE_TIMER, 8 + 1 + 8)) {
+            buffer.putLong(wallMillis).put((byte) event).putLong(valueMillis);
+            end();
+        }
+    }
+
+    /**
+     * Appends the final totals when the user finishes the workout.
+     */
+    public synchronized void appendFinished(long wallMillis, int steps, double distanceMeters, long elapsedMillis) {
+        if (begin(TYPE_FINISHED, 8 + 4 + 8 + 8)) {
+            buffer.putLong(wallMillis).putInt(steps).putDouble(distanceMeters).putLong(elapsedMillis);
+            end();
+        }
+    }
+
+    /**
+     * sync
+     * <p>
+     * Writes buffered records to the file and forces them to disk. Called periodically by the journal
+     * itself; call directly after important events (e.g. finishing the workout).
+     * </p>
+     *
+     * @throws IOException If writing fails.
+     */
+    public synchronized void sync() throws IOException {
+        if (closed) {
+            return;
+        }
+        writeBuffer();
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    /**
+     * Syncs and closes the journal, keeping the file for recovery.
+     */
+    @Override
+    public void close() {
+        syncTask.cancel(false);
+        syncExecutor.shutdown();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            try {
+                sync();
+            } catch (IOException e) {
+                Log.e(TAG, "Unable to sync journal on close", e);
+            }
+            closed = true;
+            try {
+                randomAccessFile.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Unable to close journal", e);
+            }
+            OPEN_JOURNALS.remove(file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Closes the journal and deletes its file; used once the workout has been saved or discarded.
+     */
+    public void delete() {
+        close();
+        if (!file.delete()) {
+            Log.w(TAG, "Unable to delete " + file);
+        }
+    }
+
+    /**
+     * findRecoverable
+     * <p>
+     * Lists journal files left behind by workouts that were not saved or discarded, skipping journals
+     * that are still being written in this process.
+     * </p>
+     *
+     * @param directory Journal directory.
+     * @return The journal files to recover (possibly empty).
+     */
+    public static File[] findRecoverable(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX)
+                && !OPEN_JOURNALS.contains(new File(dir, name).getAbsolutePath()));
+        return files != null ? files : new File[0];
+    }
+
+    /**
+     * recover
+     * <p>
+     * Replays a journal into a finished workout record. Reading stops at the first record whose CRC does
+     * not match (a write torn by the crash); everything before it is used. A stopwatch that was running
+     * when the journal ends is counted up to the last journaled event. If the user had already finished
+     * the workout, the final totals from the FINISHED record are used.
+     * </p>
+     *
+     * @param file             The journal file.
+     * @param stepLengthMeters Step length used to estimate the distance from the step count.
+     * @return The recovered workout, or null if the journal does not even contain a valid header.
+     * @throws IOException If the file cannot be read.
+     */
+    public static WorkoutRecord recover(File file, double stepLengthMeters) throws IOException {
+        byte[] data;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            data = new byte[(int) in.length()];
+            in.readFully(data);
+        }
+        ByteBuffer in = ByteBuffer.wrap(data);
+        CRC32 crc = new CRC32();
+        String workoutId = null;
+        long startWall = 0;
+        long lastWall = 0;
+        int steps = 0;
+        RouteStore route = new RouteStore();
+        long spilledSamples = 0;
+        boolean stopwatchRunning = false;
+        long stopwatchValue = 0;
+        long stopwatchStartWall = 0;
+        boolean finished = false;
+        int finishedSteps = 0;
+        double finishedDistance = 0;
+        long finishedElapsed = 0;
+        int records = 0;
+
+        while (in.remaining() >= RECORD_OVERHEAD) {
+            int start = in.position();
+            byte type = in.get();
+            int length = in.get() & 0xFF;
+            if (in.remaining() < length + 4) {
+                break;
+            }
+            crc.reset();
+            crc.update(data, start, 2 + length);
+            if (in.getInt(start + 2 + length) != (int) crc.getValue()) {
+                Log.w(TAG, "Torn record at offset " + start + " in " + file.getName());
+                break;
+            }
+            if (workoutId == null && type != TYPE_HEADER) {
+                break;
+            }
+            switch (type) {
+                case TYPE_HEADER: {
+                    in.get(); // version
+                    startWall = in.getLong();
+                    byte[] id = new byte[in.get() & 0xFF];
+                    in.get(id);
+                    workoutId = new String(id, java.nio.charset.StandardCharsets.UTF_8);
+                    lastWall = startWall;
+                    break;
+                }
+                case TYPE_STEPS:
+                    lastWall = Math.max(lastWall, in.getLong());
+                    steps += in.getInt();
+                    break;
+                case TYPE_LOCATION: {
+                    long time = in.getLong();
+                    route.addE7(in.getInt(), in.getInt(), time);
+                    lastWall = Math.max(lastWall, time);
+                    break;
+                }
+                case TYPE_ACCEL_SEGMENT:
+                    lastWall = Math.max(lastWall, in.getLong());
+                    spilledSamples = in.getLong();
+                    break;
+                case TYPE_TIMER: {
+                    long wall = in.getLong();
+                    int event = in.get();
+                    long value = in.getLong();
+                    lastWall = Math.max(lastWall, wall);
+                    if (event == TIMER_STOPWATCH_START) {
+                        stopwatchRunning = true;
+                        stopwatchValue = value;
+                        stopwatchStartWall = wall;
+                    } else if (event == TIMER_STOPWATCH_PAUSE) {
+                        stopwatchRunning = false;
+                        stopwatchValue = value;
+                    } else if (event == TIMER_STOPWATCH_RESET) {
+                        stopwatchRunning = false;
+                        stopwatchValue = 0;
+                    }
+                    break;
+                }
+                case TYPE_FINISHED:
+                    lastWall = Math.max(lastWall, in.getLong());
+                    finished = true;
+                    finishedSteps = in.getInt();
+                    finishedDistance = in.getDouble();
+                    finishedElapsed = in.getLong();
+                    break;
+                default:
+                    // Unknown record from a newer version: skip it
+                    break;
+            }
+            in.position(start + 2 + length + 4);
+            records++;
+        }
+        if (workoutId == null) {
+            return null;
+        }
+
+        long elapsed = stopwatchRunning ? stopwatchValue + Math.max(0, lastWall - stopwatchStartWall) : stopwatchValue;
+        if (finished) {
+            steps = finishedSteps;
+            elapsed = finishedElapsed;
+        }
+        double distance = finished ? finishedDistance : steps * stepLengthMeters;
+        Log.d(TAG, "Recovered " + records + " records of workout " + workoutId + " (" + route.size()
+                + " route points, " + spilledSamples + " accelerometer samples on disk)");
+        String elapsedText = new HudTextFormatter(16, '.').appendStopwatch(elapsed).toString();
+        // The owner is assigned when the workout is uploaded (WorkoutDatabase.claimUnownedWorkouts)
+        return new WorkoutRecord(-1, workoutId, null, steps, distance, elapsed, elapsedText,
+                route.toByteArray(), route.size(), lastWall, false);
+    }
+
+    /**
+     * Starts a record; flushes the buffer to the channel first if the record would not fit.
+     * Returns false if the journal is closed or the buffer could not be flushed.
+     */
+    private boolean begin(byte type, int payloadLength) {
+        if (closed) {
+            return false;
+        }
+        if (buffer.remaining() < payloadLength + RECORD_OVERHEAD) {
+            try {
+                writeBuffer();
+            } catch (IOException e) {
+                Log.e(TAG, "Unable to write journal, dropping record", e);
+                return false;
+            }
+        }
+        recordStart = buffer.position();
+        buffer.put(type).put((byte) payloadLength);
+        return true;
+    }
+
+    /**
+     * Finishes the record started by begin() by appending the CRC over type, length and payload.
+     */
+    private void end() {
+        crc.reset();
+        crc.update(buffer.array(), recordStart, buffer.position() - recordStart);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+            dirty = true;
+        }
+        buffer.clear();
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            Log.e(TAG, "Journal sync failed", e);
+        }
+    }
+}
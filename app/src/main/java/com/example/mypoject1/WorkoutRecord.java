@@ -0,0 +1,135 @@
+package com.example.mypoject1;
+
+/**
+ * WorkoutRecord
+ * <p>
+ * A finished workout as stored in the local {@link WorkoutDatabase} and uploaded to Firestore by
+ * {@link WorkoutSyncWorker}. The route is kept in the compact {@link RouteStore} byte encoding.
+ * </p>
+ */
+public class WorkoutRecord {
+
+    // Local row id, -1 until the record has been inserted
+    private long localId;
+    // Firestore document id, generated up front so that retried uploads overwrite instead of duplicating
+    private final String remoteId;
+    // Firebase uid of the owner; null for a workout recorded while no user was signed in
+    private final String uid;
+    private final int steps;
+    private final double distanceMeters;
+    private final long elapsedMillis;
+    private final String elapsedText;
+    private final byte[] route;
+    private final int routePointCount;
+    private final long timestamp;
+    private final boolean synced;
+    // Fastest time per standard distance (see BestEfforts), or null if not computed
+    private long[] bestEfforts;
+    // Accelerometer analysis, or null if the workout has none
+    private WorkoutBiomechanics.Result biomechanics;
+
+    /**
+     * Creates a record.
+     *
+     * @param localId         Local row id, or -1 for a record that was not stored yet.
+     * @param remoteId        Firestore document id.
+     * @param uid             Firebase uid of the owner, or null if not known yet.
+     * @param steps           Steps taken.
+     * @param distanceMeters  Distance covered in meters.
+     * @param elapsedMillis   Stopwatch time in milliseconds.
+     * @param elapsedText     Stopwatch time as displayed (hh:mm:ss.cc).
+     * @param route           Route serialized with {@link RouteStore#toByteArray()}, or null for a workout
+     *                        whose header was cached from Firestore (see {@link WorkoutRepository#loadRoute}).
+     * @param routePointCount Number of points in the route.
+     * @param timestamp       Time the workout was finished, in milliseconds since the epoch.
+     * @param synced          True once the record has been uploaded.
+     */
+    public WorkoutRecord(long localId, String remoteId, String uid, int steps, double distanceMeters, long elapsedMillis,
+                         String elapsedText, byte[] route, int routePointCount, long timestamp, boolean synced) {
+        this.localId = localId;
+        this.remoteId = remoteId;
+        this.uid = uid;
+        this.steps = steps;
+        this.distanceMeters = distanceMeters;
+        this.elapsedMillis = elapsedMillis;
+        this.elapsedText = elapsedText;
+        this.route = route;
+        this.routePointCount = routePointCount;
+        this.timestamp = timestamp;
+        this.synced = synced;
+    }
+
+    public long getLocalId() {
+        return localId;
+    }
+
+    void setLocalId(long localId) {
+        this.localId = localId;
+    }
+
+    /**
+     * Returns the fastest time in milliseconds per {@link BestEfforts#DISTANCES_M} entry
+     * ({@link BestEfforts#NONE} for distances not covered), or null if not computed.
+     */
+    public long[] getBestEfforts() {
+        return bestEfforts;
+    }
+
+    void setBestEfforts(long[] bestEfforts) {
+        this.bestEfforts = bestEfforts;
+    }
+
+    /**
+     * Returns the analysis of the workout's accelerometer samples, or null if it has none.
+     */
+    public WorkoutBiomechanics.Result getBiomechanics() {
+        return biomechanics;
+    }
+
+    void setBiomechanics(WorkoutBiomechanics.Result biomechanics) {
+        this.biomechanics = biomechanics;
+    }
+
+    public String getRemoteId() {
+        return remoteId;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public String getElapsedText() {
+        return elapsedText;
+    }
+
+    /**
+     * Returns the serialized route; decode with {@link RouteStore#fromByteArray(byte[])}.
+     */
+    public byte[] getRoute() {
+        return route;
+    }
+
+    public int getRoutePointCount() {
+        return routePointCount;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public boolean isSynced() {
+        return synced;
+    }
+}
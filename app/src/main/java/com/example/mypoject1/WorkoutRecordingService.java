@@ -0,0 +1,972 @@
+package com.example.mypoject1;
+
+import android.Manifest;
+import android.app.AlarmManager;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.location.Location;
+import android.os.Binder;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WorkoutRecordingService
+ * <p>
+ * A foreground service that owns the whole workout recording pipeline: step counter and accelerometer
+ * sensors (delivered on a background thread and batched while the screen is off), the accelerometer
+ * ring buffer, the fallback step detector, the GPS route recorder and the stopwatch / countdown state.
+ * Because the state lives here instead of in {@link RunningActivity}, leaving the screen, rotating the
+ * phone or recreating the activity no longer interrupts or loses a workout.
+ * </p>
+ *
+ * <p>
+ * The activity binds with {@link LocalBinder} (same process, no IPC) and calls
+ * {@link #fillSnapshot(WorkoutSnapshot)} to copy the live values into a reusable object before each
+ * redraw. While a stopwatch or countdown is running the service is started and promoted to the
+ * foreground with an ongoing notification; otherwise it only lives as long as a client is bound.
+ * Memory stays bounded: accelerometer samples live in a fixed ring buffer that spills to disk.
+ * </p>
+ *
+ * <p>
+ * From the first timer start until the workout is reset, every step delta, location fix, accelerometer
+ * segment and timer event is also appended to a {@link WorkoutJournal}, from which
+ * {@link WorkoutRepository} recovers the workout on the next launch if the process dies mid-run.
+ * In parallel, a full-resolution {@link WorkoutTraceWriter} trace (one row per accelerometer sample)
+ * is collected, spilling its column blocks to disk as they fill, and handed to
+ * {@link WorkoutRepository} to be written to a trace file when the workout is finished. The
+ * accelerometer spill file of a finished workout is handed over for {@link WorkoutBiomechanics} analysis.
+ * </p>
+ */
+public class WorkoutRecordingService extends Service implements SensorEventListener {
+
+    private static final String TAG = "WorkoutRecording";
+
+    // Foreground notification configuration
+    private static final String CHANNEL_ID = "WorkoutRecordingChannel";
+    // Delivered by the countdown alarm, which keeps counting and wakes the device while the CPU sleeps
+    private static final String ACTION_COUNTDOWN_FINISHED = "com.example.mypoject1.action.COUNTDOWN_FINISHED";
+    private static final int NOTIFICATION_ID = 1001;
+
+    // Sampling period for the accelerometer when it also drives step detection (200 Hz)
+    private static final int STEP_DETECTION_SAMPLING_US = 5000;
+    // Accelerometer rate while the screen is off and samples are batched in the sensor hub (50 Hz)
+    private static final int LOW_POWER_ACCEL_SAMPLING_US = 20000;
+    // Accelerometer rate during a workout on devices with a step counter, fast enough to resolve
+    // footstrikes for the biomechanics analysis (100 Hz); idle, the default rate is enough
+    private static final int WORKOUT_ACCEL_SAMPLING_US = 10000;
+
+    // Accelerometer ring buffer geometry: 4 segments of 1024 samples are kept in memory
+    private static final int ACCEL_SEGMENT_SIZE = 1024;
+    private static final int ACCEL_SEGMENT_COUNT = 4;
+
+    // Average step length used to estimate distance from steps (meters)
+    static final double STEP_LENGTH_METERS = 0.8;
+
+    // Step counter cadence is measured over windows of at least this length
+    private static final long COUNTER_CADENCE_WINDOW_NS = 5_000_000_000L;
+    // Without a step counter event for this long, the cadence is considered zero
+    private static final long COUNTER_CADENCE_TIMEOUT_NS = 5_000_000_000L;
+
+    // Analytics samples waiting for the analytics thread; further samples are dropped while it is full
+    private static final int ANALYTICS_QUEUE_CAPACITY = 32;
+
+    /**
+     * Callbacks for the bound client. Implementations must be cheap; they are invoked on the
+     * recording threads and are expected to only schedule UI work.
+     */
+    public interface Listener {
+        /**
+         * Called on the sensor thread after a batch of sensor data changed the workout state.
+         */
+        void onWorkoutDataChanged();
+
+        /**
+         * Called on the main thread when the countdown timer reaches zero.
+         */
+        void onCountdownFinished();
+    }
+
+    /**
+     * Binder returned to clients in the same process; exposes the service instance directly.
+     */
+    public class LocalBinder extends Binder {
+        public WorkoutRecordingService getService() {
+            return WorkoutRecordingService.this;
+        }
+    }
+
+    private final IBinder binder = new LocalBinder();
+    private volatile Listener listener;
+
+    // Sensor pipeline, running on its own thread
+    private HandlerThread sensorThread;
+    private Handler sensorHandler;
+    private SensorManager sensorManager;
+    private SensorBatchingController sensorBatching;
+    private StepDetector stepDetector;
+    private Sensor accelerometerSensor;
+    private AccelerometerRingBuffer accelerometerData;
+    private float initialStepCount = -1;
+    private float latestSensorReading = -1;
+    private volatile int stepCount = 0;
+    private volatile double distanceCovered = 0.0;
+    // Cadence derived from the hardware step counter (sensor thread writes, any thread reads)
+    private long counterWindowStartNs = 0;
+    private int counterWindowStartSteps = 0;
+    private volatile long lastStepEventNs = 0;
+    private volatile double counterCadence = 0;
+    // Cadence of the fallback step detector, published after every sample (sensor thread writes, any
+    // thread reads); the detector itself is confined to the sensor thread
+    private volatile double detectorCadence = 0;
+    // Sensor time of the event that last changed the distance
+    private volatile long distanceTimeNs = 0;
+
+    // Live statistics of the workout in progress, replaced on reset. Samples are cumulative, so the
+    // analytics thread may drop some under load without skewing the results.
+    private volatile WorkoutAnalytics analytics = new WorkoutAnalytics();
+    private final ThreadPoolExecutor analyticsExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(ANALYTICS_QUEUE_CAPACITY),
+            runnable -> new Thread(runnable, "WorkoutAnalytics"),
+            new ThreadPoolExecutor.DiscardPolicy());
+    // Distance of the last sample handed to the analytics (sensor thread only)
+    private double analyzedDistance = -1;
+
+    // Route points, appended by the location pipeline on its own thread
+    private final RouteStore route = new RouteStore();
+    // Levels of detail of the same route for drawing on the map
+    private final RouteSimplifier routeSimplifier = new RouteSimplifier();
+    private RouteRecorder routeRecorder;
+
+    // Id of the workout in progress (also its Firestore document id); set on the first timer start
+    private volatile String workoutId;
+    // Crash-safe journal of the workout in progress; null when idle or if it could not be created
+    private volatile WorkoutJournal journal;
+    // Full-resolution trace of the workout in progress and its start on the sensor clock (sensor thread only)
+    private WorkoutTraceWriter trace;
+    private long traceStartNs;
+    // Latest fix as latitude E7 in the high and longitude E7 in the low 32 bits (location thread writes)
+    private volatile long lastPositionE7 = packPosition(WorkoutTrace.NO_POSITION, WorkoutTrace.NO_POSITION);
+    // Step count and spilled accelerometer samples already written to the journal (sensor thread only)
+    private int journaledSteps = 0;
+    private long journaledSpilledSamples = 0;
+
+    // Stopwatch and countdown state on the monotonic elapsedRealtime clock; main thread only
+    private final WorkoutTimer stopwatch = new WorkoutTimer(SystemClock::elapsedRealtime);
+    private final WorkoutTimer countdown = new WorkoutTimer(SystemClock::elapsedRealtime);
+    private boolean inForeground = false;
+
+
+    /**
+     * onCreate
+     * <p>
+     * Starts the sensor thread and registers the step counter and accelerometer. If the device has
+     * no step counter, the accelerometer is sampled at 200 Hz and feeds the StepDetector instead;
+     * otherwise it runs at the default rate until a workout starts (see {@link #beginWorkout()}).
+     * </p>
+     */
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        Log.d(TAG, "Service created");
+        createNotificationChannel();
+
+        // Start the background thread that receives sensor callbacks
+        sensorThread = new HandlerThread("SensorThread");
+        sensorThread.start();
+        sensorHandler = new Handler(sensorThread.getLooper());
+
+        // Samples stay in memory until a workout starts and spills them next to its journal; the files
+        // of interrupted workouts are left for recovery
+        accelerometerData = new AccelerometerRingBuffer(null, ACCEL_SEGMENT_SIZE, ACCEL_SEGMENT_COUNT);
+
+        // Route recording only runs while the workout is in the foreground (see updateForegroundState)
+        routeRecorder = new RouteRecorder(this, this::onLocationFix, this::getCadence);
+
+        // Initialize sensors: step counter and accelerometer for tracking user activity
+        sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
+        if (sensorManager == null) {
+            Log.e(TAG, "SensorManager not available");
+            return;
+        }
+        Sensor stepCounterSensor = sensorManager.getDefaultSensor(Sensor.TYPE_STEP_COUNTER);
+        accelerometerSensor = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+        Log.d(TAG, "Step counter sensor: " + (stepCounterSensor != null ? "available" : "not available"));
+        Log.d(TAG, "Accelerometer sensor: " + (accelerometerSensor != null ? "available" : "not available"));
+        if (stepCounterSensor == null && accelerometerSensor != null) {
+            // Fall back to detecting steps from the accelerometer stream
+            stepDetector = new StepDetector();
+            Log.d(TAG, "Using accelerometer step detector as fallback");
+        }
+
+        // Step counter at the highest rate; accelerometer at the default rate while idle, or at 200 Hz
+        // when it drives step detection
+        sensorBatching = new SensorBatchingController(this, sensorManager, this, this::onSensorBatch, sensorHandler);
+        sensorBatching.addSensor(stepCounterSensor, SensorManager.SENSOR_DELAY_FASTEST, SensorManager.SENSOR_DELAY_NORMAL);
+        sensorBatching.addSensor(accelerometerSensor,
+                stepDetector != null ? STEP_DETECTION_SAMPLING_US : SensorManager.SENSOR_DELAY_NORMAL,
+                stepDetector != null ? LOW_POWER_ACCEL_SAMPLING_US : SensorManager.SENSOR_DELAY_NORMAL);
+        sensorBatching.start();
+    }
+
+    /**
+     * onStartCommand
+     * <p>
+     * The service is started (in addition to being bound) while a workout is running, so that it
+     * survives the activity being destroyed. START_NOT_STICKY: a killed workout is not resumed blindly.
+     * </p>
+     */
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        Log.d(TAG, "Service started");
+        if (intent != null && ACTION_COUNTDOWN_FINISHED.equals(intent.getAction())) {
+            onCountdownAlarm();
+        }
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return binder;
+    }
+
+    /**
+     * onUnbind
+     * <p>
+     * Drops the listener of the departing client. Returns false; new clients simply bind again.
+     * </p>
+     */
+    @Override
+    public boolean onUnbind(Intent intent) {
+        listener = null;
+        return false;
+    }
+
+    /**
+     * onDestroy
+     * <p>
+     * Stops route recording, unregisters sensors, releases the accelerometer spill file and stops
+     * the sensor thread. A journal that is still open is closed but kept, so an unsaved workout can
+     * be recovered.
+     * </p>
+     */
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        cancelCountdownAlarm();
+        routeRecorder.stop();
+        if (sensorBatching != null) {
+            sensorBatching.stop();
+        }
+        analyticsExecutor.shutdownNow();
+        WorkoutJournal openJournal = journal;
+        journal = null;
+        if (sensorThread != null) {
+            sensorHandler.post(accelerometerData::close);
+            if (openJournal != null) {
+                sensorHandler.post(openJournal::close);
+            }
+            sensorThread.quitSafely();
+        } else if (openJournal != null) {
+            openJournal.close();
+        }
+        Log.d(TAG, "Service destroyed");
+    }
+
+    /**
+     * setListener
+     * <p>
+     * Registers the bound client's callbacks (pass null to clear).
+     * </p>
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * onSensorChanged
+     * <p>
+     * Runs on the sensor thread. Updates the step count from the step counter (or the fallback
+     * detector) and records accelerometer samples. Clients are notified once per delivered batch.
+     * </p>
+     */
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        if (event.sensor.getType() == Sensor.TYPE_STEP_COUNTER) {
+            latestSensorReading = event.values[0];
+            // Set the initial step count on the first reading
+            if (initialStepCount == -1) {
+                initialStepCount = event.values[0];
+            }
+            stepCount = (int) (event.values[0] - initialStepCount);
+            distanceCovered = stepCount * STEP_LENGTH_METERS;
+            distanceTimeNs = event.timestamp;
+            updateCounterCadence(event.timestamp);
+        } else if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
+            // Copy the reading into the primitive ring buffer for later analysis (no per-event allocation)
+            accelerometerData.add(event.values[0], event.values[1], event.values[2], event.timestamp);
+            if (trace != null && event.timestamp >= traceStartNs) {
+                addTraceRow(event);
+            }
+            // Without a step counter, detect steps from the same samples and feed the same step/distance path
+            if (stepDetector != null) {
+                if (stepDetector.addSample(event.values[0], event.values[1], event.values[2], event.timestamp)) {
+                    stepCount = stepDetector.getStepCount();
+                    distanceCovered = stepCount * STEP_LENGTH_METERS;
+                    distanceTimeNs = event.timestamp;
+                }
+                detectorCadence = stepDetector.getCadence();
+            }
+        }
+    }
+
+    /**
+     * Appends the current workout state to the trace, one row per accelerometer sample. Sensor thread.
+     */
+    private void addTraceRow(SensorEvent event) {
+        float x = event.values[0];
+        float y = event.values[1];
+        float z = event.values[2];
+        long position = lastPositionE7;
+        try {
+            trace.addRow((event.timestamp - traceStartNs) / 1_000_000L,
+                    (int) (position >> 32), (int) position,
+                    stepCount,
+                    (int) Math.round(getCadence() * 10),
+                    (int) Math.round(Math.sqrt(x * x + y * y + z * z) * 1000));
+        } catch (IOException e) {
+            // Recording continues without a trace
+            Log.e(TAG, "Unable to spill workout trace", e);
+            trace.close();
+            trace = null;
+        }
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {
+        // No action needed for this use case.
+    }
+
+    /**
+     * updateCounterCadence
+     * <p>
+     * Derives the cadence from the hardware step counter by comparing step counts across windows of
+     * at least {@link #COUNTER_CADENCE_WINDOW_NS}. Runs on the sensor thread.
+     * </p>
+     *
+     * @param timestampNs Timestamp of the step counter event.
+     */
+    private void updateCounterCadence(long timestampNs) {
+        if (lastStepEventNs == 0 || timestampNs - lastStepEventNs > COUNTER_CADENCE_TIMEOUT_NS) {
+            // First event, or resuming after a pause: start a new window
+            counterWindowStartNs = timestampNs;
+            counterWindowStartSteps = stepCount;
+        } else if (timestampNs - counterWindowStartNs >= COUNTER_CADENCE_WINDOW_NS) {
+            counterCadence = (stepCount - counterWindowStartSteps) * 60_000_000_000.0 / (timestampNs - counterWindowStartNs);
+            counterWindowStartNs = timestampNs;
+            counterWindowStartSteps = stepCount;
+        }
+        lastStepEventNs = timestampNs;
+    }
+
+    /**
+     * getCadence
+     * <p>
+     * Returns the current cadence in steps per minute, from the fallback detector when it is in use,
+     * otherwise from the step counter. Safe to call from any thread: it only reads values the sensor
+     * thread publishes in volatile fields, never the detector's own state.
+     * </p>
+     */
+    public double getCadence() {
+        if (stepDetector != null) {
+            return detectorCadence;
+        }
+        if (SystemClock.elapsedRealtimeNanos() - lastStepEventNs > COUNTER_CADENCE_TIMEOUT_NS) {
+            return 0;
+        }
+        return counterCadence;
+    }
+
+    /**
+     * onLocationFix
+     * <p>
+     * Runs on the location thread for every accepted fix and appends it to the route.
+     * </p>
+     */
+    private void onLocationFix(Location location) {
+        route.add(location.getLatitude(), location.getLongitude(), location.getTime());
+        routeSimplifier.add(location.getLatitude(), location.getLongitude());
+        int latE7 = (int) Math.round(location.getLatitude() * 1e7);
+        int lngE7 = (int) Math.round(location.getLongitude() * 1e7);
+        lastPositionE7 = packPosition(latE7, lngE7);
+        WorkoutJournal j = journal;
+        if (j != null) {
+            j.appendLocation(location.getTime(), latE7, lngE7);
+        }
+    }
+
+    private static long packPosition(int latE7, int lngE7) {
+        return ((long) latE7 << 32) | (lngE7 & 0xFFFFFFFFL);
+    }
+
+    /**
+     * onSensorBatch
+     * <p>
+     * Runs on the sensor thread after each delivered batch: journals the step delta and, when the ring
+     * buffer spilled another segment, a segment marker, hands a new distance to the analytics, then
+     * notifies the client.
+     * </p>
+     */
+    private void onSensorBatch() {
+        double distance = distanceCovered;
+        if (workoutId != null && distance != analyzedDistance) {
+            analyzedDistance = distance;
+            WorkoutAnalytics a = analytics;
+            long timeMillis = distanceTimeNs / 1_000_000L;
+            double cadence = getCadence();
+            analyticsExecutor.execute(() -> a.addSample(timeMillis, distance, cadence));
+        }
+        WorkoutJournal j = journal;
+        if (j != null) {
+            long now = System.currentTimeMillis();
+            int steps = stepCount;
+            if (steps != journaledSteps) {
+                j.appendSteps(now, steps - journaledSteps);
+                journaledSteps = steps;
+            }
+            long spilled = accelerometerData.getSpilledSamples();
+            if (spilled != journaledSpilledSamples) {
+                j.appendAccelerometerSegment(now, spilled);
+                journaledSpilledSamples = spilled;
+            }
+        }
+        notifyDataChanged();
+    }
+
+    /**
+     * Forwards a data change to the bound client, if any.
+     */
+    private void notifyDataChanged() {
+        Listener l = listener;
+        if (l != null) {
+            l.onWorkoutDataChanged();
+        }
+    }
+
+    /**
+     * fillSnapshot
+     * <p>
+     * Copies the live workout state into the caller's snapshot. Must be called on the main thread;
+     * performs no allocation.
+     * </p>
+     *
+     * @param out Snapshot to overwrite.
+     */
+    public void fillSnapshot(WorkoutSnapshot out) {
+        out.steps = stepCount;
+        out.distanceMeters = distanceCovered;
+        out.cadence = getCadence();
+        out.stopwatchRunning = stopwatch.isRunning();
+        out.stopwatchElapsedMillis = stopwatch.getElapsedMillis();
+        out.countdownRunning = countdown.isRunning();
+        out.countdownRemainingMillis = countdown.getRemainingMillis();
+        out.routePointCount = route.size();
+        out.accelerometerSamples = accelerometerData.getTotalSamples();
+        out.recording = inForeground;
+        out.rollingPaceSecondsPerKm = analytics.getRollingPaceSecondsPerKm(SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Returns the current stopwatch time in milliseconds, based on the monotonic elapsedRealtime clock.
+     */
+    public long getStopwatchElapsedMillis() {
+        return stopwatch.getElapsedMillis();
+    }
+
+    /**
+     * Returns the remaining countdown time in milliseconds.
+     */
+    public long getCountdownRemainingMillis() {
+        return countdown.getRemainingMillis();
+    }
+
+    /**
+     * Returns the id of the workout in progress (also its Firestore document id), or null before the
+     * first timer start.
+     */
+    public String getWorkoutId() {
+        return workoutId;
+    }
+
+    /**
+     * getAnalyticsSummary
+     * <p>
+     * Returns the statistics of the current workout (splits, moving time, max speed, cadence
+     * distribution). They are maintained while recording, so after {@link #finishWorkout()} this is
+     * a copy, not a computation. Main thread.
+     * </p>
+     */
+    public WorkoutAnalytics.Summary getAnalyticsSummary() {
+        return analytics.summarize();
+    }
+
+    /**
+     * beginWorkout
+     * <p>
+     * On the first timer start, assigns the workout id, opens its journal, starts its trace, spills
+     * accelerometer samples next to the journal and raises the accelerometer rate for the
+     * biomechanics analysis.
+     * Main thread; the journal header is a single small record.
+     * </p>
+     */
+    private void beginWorkout() {
+        if (workoutId != null) {
+            return;
+        }
+        String id = UUID.randomUUID().toString();
+        long startWall = System.currentTimeMillis();
+        long startNs = SystemClock.elapsedRealtimeNanos();
+        workoutId = id;
+        setWorkoutSampling(true);
+        // Distance and time baseline of the statistics
+        analytics.addSample(SystemClock.elapsedRealtime(), distanceCovered, 0);
+        try {
+            journal = WorkoutJournal.create(WorkoutJournal.getJournalDirectory(getFilesDir()), id, startWall);
+        } catch (IOException e) {
+            // Recording continues without crash protection
+            Log.e(TAG, "Unable to create workout journal", e);
+        }
+        File spillDirectory = WorkoutTrace.getSpillDirectory(getFilesDir(), id);
+        File accelerometerFile = WorkoutJournal.getAccelerometerFile(
+                WorkoutJournal.getJournalDirectory(getFilesDir()), id);
+        sensorHandler.post(() -> {
+            // Samples from now on are crash-safe with the journal
+            accelerometerData.setSpillFile(accelerometerFile);
+            trace = new WorkoutTraceWriter(startWall, spillDirectory);
+            traceStartNs = startNs;
+        });
+    }
+
+    /**
+     * Samples the accelerometer at {@link #WORKOUT_ACCEL_SAMPLING_US} during a workout and at the
+     * default rate otherwise. The step detector fallback always samples fast, so it is left alone.
+     */
+    private void setWorkoutSampling(boolean active) {
+        if (sensorBatching == null || stepDetector != null) {
+            return;
+        }
+        sensorBatching.setSamplingPeriods(accelerometerSensor,
+                active ? WORKOUT_ACCEL_SAMPLING_US : SensorManager.SENSOR_DELAY_NORMAL,
+                active ? LOW_POWER_ACCEL_SAMPLING_US : SensorManager.SENSOR_DELAY_NORMAL);
+    }
+
+    /**
+     * Journals a stopwatch or countdown event, if a journal is open.
+     */
+    private void journalTimerEvent(int event, long valueMillis) {
+        WorkoutJournal j = journal;
+        if (j != null) {
+            j.appendTimerEvent(System.currentTimeMillis(), event, valueMillis);
+        }
+    }
+
+    /**
+     * startStopwatch
+     * <p>
+     * Starts or resumes the stopwatch and promotes the service to the foreground.
+     * </p>
+     */
+    public void startStopwatch() {
+        beginWorkout();
+        stopwatch.start();
+        journalTimerEvent(WorkoutJournal.TIMER_STOPWATCH_START, stopwatch.getElapsedMillis());
+        updateForegroundState();
+    }
+
+    /**
+     * pauseStopwatch
+     * <p>
+     * Pauses the stopwatch, keeping the accumulated time.
+     * </p>
+     */
+    public void pauseStopwatch() {
+        if (stopwatch.isRunning()) {
+            stopwatch.pause();
+            journalTimerEvent(WorkoutJournal.TIMER_STOPWATCH_PAUSE, stopwatch.getElapsedMillis());
+        }
+        updateForegroundState();
+    }
+
+    /**
+     * resetStopwatch
+     * <p>
+     * Stops the stopwatch and clears its time.
+     * </p>
+     */
+    public void resetStopwatch() {
+        stopwatch.reset();
+        journalTimerEvent(WorkoutJournal.TIMER_STOPWATCH_RESET, 0);
+        updateForegroundState();
+    }
+
+    /**
+     * setCountdown
+     * <p>
+     * Sets the countdown duration. Ignored while the countdown is running.
+     * </p>
+     *
+     * @param millis Countdown duration in milliseconds.
+     */
+    public void setCountdown(long millis) {
+        countdown.setDuration(millis);
+    }
+
+    /**
+     * startCountdown
+     * <p>
+     * Starts or resumes the countdown from the remaining time. The finish event is a single
+     * alarm at the deadline instead of a polling loop.
+     * </p>
+     */
+    public void startCountdown() {
+        if (countdown.isRunning()) {
+            return;
+        }
+        beginWorkout();
+        countdown.start();
+        journalTimerEvent(WorkoutJournal.TIMER_COUNTDOWN_START, countdown.getRemainingMillis());
+        scheduleCountdownAlarm();
+        updateForegroundState();
+    }
+
+    /**
+     * pauseCountdown
+     * <p>
+     * Pauses the countdown and stores the remaining time.
+     * </p>
+     */
+    public void pauseCountdown() {
+        if (countdown.isRunning()) {
+            countdown.pause();
+            journalTimerEvent(WorkoutJournal.TIMER_COUNTDOWN_PAUSE, countdown.getRemainingMillis());
+        }
+        cancelCountdownAlarm();
+        updateForegroundState();
+    }
+
+    /**
+     * resetCountdown
+     * <p>
+     * Stops the countdown and clears the remaining time.
+     * </p>
+     */
+    public void resetCountdown() {
+        countdown.reset();
+        journalTimerEvent(WorkoutJournal.TIMER_COUNTDOWN_RESET, 0);
+        cancelCountdownAlarm();
+        updateForegroundState();
+    }
+
+    /**
+     * scheduleCountdownAlarm
+     * <p>
+     * Schedules the end of the countdown as an {@link AlarmManager#ELAPSED_REALTIME_WAKEUP} alarm that
+     * starts this service with {@link #ACTION_COUNTDOWN_FINISHED}. A Handler delay counts uptime, which
+     * stops while the CPU sleeps, so a countdown running with the screen off would end late. Exact and
+     * allowed in Doze when the user permits exact alarms; otherwise the system may defer it slightly.
+     * </p>
+     */
+    private void scheduleCountdownAlarm() {
+        AlarmManager alarmManager = getSystemService(AlarmManager.class);
+        if (alarmManager == null) {
+            return;
+        }
+        long triggerAt = SystemClock.elapsedRealtime() + countdown.getRemainingMillis();
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms()) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, triggerAt, countdownAlarmIntent());
+        } else {
+            alarmManager.setAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, triggerAt, countdownAlarmIntent());
+        }
+    }
+
+    private void cancelCountdownAlarm() {
+        AlarmManager alarmManager = getSystemService(AlarmManager.class);
+        if (alarmManager != null) {
+            alarmManager.cancel(countdownAlarmIntent());
+        }
+    }
+
+    private PendingIntent countdownAlarmIntent() {
+        Intent intent = new Intent(this, WorkoutRecordingService.class).setAction(ACTION_COUNTDOWN_FINISHED);
+        return PendingIntent.getService(this, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    /**
+     * onCountdownAlarm
+     * <p>
+     * Ends the countdown when its alarm fires. An alarm that arrives after the countdown was paused or
+     * reset is ignored, and one that arrives early is scheduled again for the time still left.
+     * </p>
+     */
+    private void onCountdownAlarm() {
+        if (!countdown.isRunning()) {
+            return;
+        }
+        if (countdown.getRemainingMillis() > 0) {
+            scheduleCountdownAlarm();
+            return;
+        }
+        countdown.reset();
+        updateForegroundState();
+        Listener l = listener;
+        if (l != null) {
+            l.onCountdownFinished();
+        }
+    }
+
+    /**
+     * getRoute
+     * <p>
+     * Returns the live route store. Points keep being appended while recording; callers iterate a
+     * {@link RouteStore#cursor()} (which sees the points present when it was taken) instead of copying.
+     * </p>
+     */
+    public RouteStore getRoute() {
+        return route;
+    }
+
+    /**
+     * Returns the levels of detail of the live route, for drawing it on the map.
+     */
+    public RouteSimplifier getRouteSimplifier() {
+        return routeSimplifier;
+    }
+
+    /**
+     * finishWorkout
+     * <p>
+     * Stops the timers, persists the remaining accelerometer samples and leaves the foreground.
+     * The final totals are journaled and synced, so a workout that was finished but not yet saved is
+     * recovered with exactly these values. The recorded values stay available until
+     * {@link #resetWorkout()} is called.
+     * </p>
+     *
+     * @return Completes on the sensor thread with the workout's accelerometer samples, moved out of the
+     * ring buffer's spill file (see {@link WorkoutBiomechanics#getSampleFile}), or with null if there
+     * is no workout or the samples could not be moved.
+     */
+    public Future<WorkoutBiomechanics.SampleFile> finishWorkout() {
+        pauseStopwatch();
+        pauseCountdown();
+        long elapsed = stopwatch.getElapsedMillis();
+        long finishNs = SystemClock.elapsedRealtimeNanos();
+        String id = workoutId;
+        if (id != null) {
+            // Close the statistics at the finish; samples still queued or taken later are ignored
+            analytics.finish(SystemClock.elapsedRealtime(), distanceCovered, getCadence());
+        }
+        CompletableFuture<WorkoutBiomechanics.SampleFile> samples = new CompletableFuture<>();
+        sensorHandler.post(() -> {
+            // Persist the partially filled accelerometer segment on the thread that owns the buffer
+            accelerometerData.flush();
+            Log.d(TAG, "Accelerometer samples recorded: " + accelerometerData.getTotalSamples()
+                    + ", spilled to disk: " + accelerometerData.getSpilledSamples());
+            samples.complete(id != null ? detachAccelerometerSamples(id, finishNs) : null);
+            WorkoutJournal j = journal;
+            if (j != null) {
+                onSensorBatch();
+                j.appendFinished(System.currentTimeMillis(), stepCount, distanceCovered, elapsed);
+                try {
+                    j.sync();
+                } catch (IOException e) {
+                    Log.e(TAG, "Unable to sync workout journal", e);
+                }
+            }
+            if (trace != null && id != null) {
+                // Compressed and written on the repository's I/O thread; no more rows are added
+                WorkoutRepository.getInstance(this).writeTrace(trace, WorkoutTrace.getTraceFile(getFilesDir(), id));
+                trace = null;
+            }
+        });
+        return samples;
+    }
+
+    /**
+     * Moves the accelerometer samples recorded so far to the sample file of a finished workout. The
+     * range starts at the workout start; earlier samples in the file are skipped by the analysis.
+     * Sensor thread.
+     */
+    private WorkoutBiomechanics.SampleFile detachAccelerometerSamples(String id, long finishNs) {
+        File destination = WorkoutBiomechanics.getSampleFile(getFilesDir(), id);
+        File directory = destination.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            Log.e(TAG, "Unable to create " + directory);
+            return null;
+        }
+        if (!accelerometerData.detachSpillFile(destination)) {
+            Log.w(TAG, "No accelerometer samples to analyze");
+            return null;
+        }
+        return new WorkoutBiomechanics.SampleFile(destination, traceStartNs, finishNs);
+    }
+
+    /**
+     * resetWorkout
+     * <p>
+     * Clears steps, distance, route, accelerometer data and timers so a new workout can start, and
+     * deletes the journal (the workout has been saved or discarded). Sensor-owned state is reset on
+     * the sensor thread.
+     * </p>
+     */
+    public void resetWorkout() {
+        resetStopwatch();
+        resetCountdown();
+        route.clear();
+        routeSimplifier.clear();
+        WorkoutJournal finishedJournal = journal;
+        journal = null;
+        workoutId = null;
+        setWorkoutSampling(false);
+        analytics = new WorkoutAnalytics();
+        lastPositionE7 = packPosition(WorkoutTrace.NO_POSITION, WorkoutTrace.NO_POSITION);
+        sensorHandler.post(() -> {
+            if (finishedJournal != null) {
+                finishedJournal.delete();
+            }
+            if (trace != null) {
+                // Discarded before it was finished
+                trace.close();
+                trace = null;
+            }
+            analyzedDistance = -1;
+            journaledSteps = 0;
+            journaledSpilledSamples = 0;
+            // Restart step counting from the latest hardware reading
+            if (latestSensorReading != -1) {
+                initialStepCount = latestSensorReading;
+            }
+            stepCount = 0;
+            distanceCovered = 0.0;
+            lastStepEventNs = 0;
+            counterCadence = 0;
+            if (stepDetector != null) {
+                stepDetector.reset();
+                detectorCadence = 0;
+            }
+            // The samples were moved to the finished workout or are discarded with it
+            accelerometerData.setSpillFile(null);
+            notifyDataChanged();
+        });
+    }
+
+    /**
+     * updateForegroundState
+     * <p>
+     * Enters the foreground (and the started state) while a stopwatch or countdown is running and
+     * leaves it when both are stopped, so an idle service only lives while a client is bound.
+     * GPS route recording follows the same state, so location is only requested during a workout.
+     * </p>
+     */
+    private void updateForegroundState() {
+        boolean shouldRecord = stopwatch.isRunning() || countdown.isRunning();
+        if (shouldRecord && !inForeground) {
+            // Keep the service alive even if the activity unbinds
+            startForegroundService(new Intent(this, WorkoutRecordingService.class));
+            try {
+                startForeground(NOTIFICATION_ID, buildNotification(), foregroundServiceType());
+                inForeground = true;
+                routeRecorder.start();
+                Log.d(TAG, "Recording in foreground");
+            } catch (SecurityException | IllegalStateException e) {
+                Log.e(TAG, "Unable to enter foreground", e);
+                stopSelf();
+            }
+        } else if (!shouldRecord && inForeground) {
+            routeRecorder.stop();
+            stopForeground(STOP_FOREGROUND_REMOVE);
+            // No longer needed once unbound
+            stopSelf();
+            inForeground = false;
+            Log.d(TAG, "Recording left foreground");
+        }
+    }
+
+    /**
+     * foregroundServiceType
+     * <p>
+     * Returns the foreground service types the app currently holds permissions for: location when
+     * fine location was granted, health when activity recognition or body sensors was granted.
+     * </p>
+     */
+    private int foregroundServiceType() {
+        int type = 0;
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+            type |= ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE
+                && (ContextCompat.checkSelfPermission(this, Manifest.permission.ACTIVITY_RECOGNITION) == PackageManager.PERMISSION_GRANTED
+                || ContextCompat.checkSelfPermission(this, Manifest.permission.BODY_SENSORS) == PackageManager.PERMISSION_GRANTED)) {
+            type |= ServiceInfo.FOREGROUND_SERVICE_TYPE_HEALTH;
+        }
+        return type;
+    }
+
+    /**
+     * Builds the ongoing notification shown while a workout is being recorded.
+     */
+    private Notification buildNotification() {
+        Intent openIntent = new Intent(this, RunningActivity.class);
+        openIntent.addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, openIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_timer)
+                .setContentTitle("Chase It")
+                .setContentText("Workout in progress")
+                .setContentIntent(pendingIntent)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .build();
+    }
+
+    /**
+     * Creates the low-importance notification channel used for the recording notification.
+     */
+    private void createNotificationChannel() {
+        NotificationChannel channel = new NotificationChannel(
+                CHANNEL_ID,
+                "Workout Recording",
+                NotificationManager.IMPORTANCE_LOW
+        );
+        NotificationManager manager = getSystemService(NotificationManager.class);
+        if (manager != null) {
+            manager.createNotificationChannel(channel);
+        }
+    }
+}
@@ -0,0 +1,638 @@
+package com.example.mypoject1;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteConstraintException;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * WorkoutRepository
+ * <p>
+ * Entry point for storing and reading finished workouts. Writes are local-first: a workout is committed
+ * to the on-device {@link WorkoutDatabase} on a background thread and the call returns immediately;
+ * {@link WorkoutSyncWorker} uploads it to Firestore whenever the network allows. Reads (history) come
+ * from the local database and are delivered on the main thread. Each page of the user's history is
+ * merged with the same page read from Firestore with a cursor query, and the remote workouts are
+ * cached locally, so each page costs one indexed query no matter how long the history is.
+ * </p>
+ *
+ * <p>
+ * Workouts interrupted by a crash or process kill are recovered from their {@link WorkoutJournal} by
+ * {@link #recoverInterruptedWorkouts()}, which the launcher activity calls on every app start.
+ * </p>
+ */
+public class WorkoutRepository {
+
+    private static final String TAG = "WorkoutRepository";
+
+    // Longest wait for the recording service to hand over a finished workout's accelerometer samples
+    private static final long SAMPLES_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Receives the result of an asynchronous read on the main thread.
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    private static volatile WorkoutRepository instance;
+
+    private final WorkoutDatabase database;
+    private final WorkoutSyncWorker syncWorker;
+    private final File journalDirectory;
+    private final File filesDirectory;
+    // Single thread: local writes are applied in order and never block the UI
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "WorkoutIO"));
+    // Waits for sample hand-over and analysis of finished workouts, so ioExecutor never does
+    private final ExecutorService analysisExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "WorkoutAnalysis"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Accelerometer analysis of finished workouts, one window task per core
+    private final ForkJoinPool analysisPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Returns the shared repository.
+     */
+    public static WorkoutRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (WorkoutRepository.class) {
+                if (instance == null) {
+                    instance = new WorkoutRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private WorkoutRepository(Context context) {
+        this.database = WorkoutDatabase.getInstance(context);
+        this.syncWorker = WorkoutSyncWorker.getInstance(context);
+        this.journalDirectory = WorkoutJournal.getJournalDirectory(context.getFilesDir());
+        this.filesDirectory = context.getFilesDir();
+    }
+
+    /**
+     * recoverInterruptedWorkouts
+     * <p>
+     * Replays journals left behind by workouts that were neither saved nor discarded and stores them
+     * like finished workouts. A journal whose workout was already saved (the app died between saving
+     * and resetting) hits the unique document id and is simply removed. The accelerometer samples the
+     * workout left on disk are analyzed with it. Returns immediately.
+     * </p>
+     */
+    public void recoverInterruptedWorkouts() {
+        // Listed now, on the caller's thread, so a workout that starts afterwards is never picked up
+        File[] journals = WorkoutJournal.findRecoverable(journalDirectory);
+        if (journals.length == 0) {
+            return;
+        }
+        ioExecutor.execute(() -> {
+            int recovered = 0;
+            for (File file : journals) {
+                try {
+                    WorkoutRecord record = WorkoutJournal.recover(file, WorkoutRecordingService.STEP_LENGTH_METERS);
+                    if (record != null && (record.getSteps() > 0 || record.getElapsedMillis() > 0
+                            || record.getRoutePointCount() > 0)) {
+                        computeBestEfforts(record);
+                        // The samples were moved to the sample file if the workout was finished, and are
+                        // still next to the journal otherwise; either holds only this workout
+                        File samples = WorkoutBiomechanics.getSampleFile(filesDirectory, record.getRemoteId());
+                        if (!samples.isFile()) {
+                            samples = WorkoutJournal.getAccelerometerFile(journalDirectory, record.getRemoteId());
+                        }
+                        if (samples.isFile()) {
+                            record.setBiomechanics(analyzeBiomechanics(record.getRemoteId(),
+                                    new WorkoutBiomechanics.SampleFile(samples, 0, Long.MAX_VALUE)));
+                        }
+                        database.insertWorkout(record);
+                        recovered++;
+                    }
+                } catch (SQLiteConstraintException e) {
+                    Log.d(TAG, "Journaled workout was already stored: " + file.getName());
+                } catch (IOException | RuntimeException e) {
+                    // Keep the journal for the next attempt
+                    Log.e(TAG, "Unable to recover " + file.getName(), e);
+                    continue;
+                }
+                if (!file.delete()) {
+                    Log.w(TAG, "Unable to delete " + file);
+                }
+                // Samples of an empty or already stored workout
+                WorkoutJournal.getAccelerometerFile(file).delete();
+            }
+            if (recovered > 0) {
+                Log.d(TAG, "Recovered " + recovered + " interrupted workouts");
+                syncWorker.requestSync();
+            }
+        });
+    }
+
+    /**
+     * saveWorkout
+     * <p>
+     * Computes the best efforts of a finished workout, commits it locally and schedules its upload.
+     * Returns immediately; never waits on the network. When samples are given, the upload is only
+     * scheduled once they have been analyzed on the analysis thread and the biomechanics stored,
+     * so the I/O thread never waits for the hand-over or the analysis.
+     * </p>
+     *
+     * @param record    The workout to store.
+     * @param samples   Its accelerometer samples as handed over by the recording service, or null. The
+     *                  sample file is deleted once analyzed.
+     * @param callback  Receives on the main thread the keys ({@link BestEfforts#KEYS}) of the distances on
+     *                  which the workout beat the owner's previous personal record; empty if none or if
+     *                  the workout could not be stored. May be null.
+     */
+    public void saveWorkout(WorkoutRecord record, Future<WorkoutBiomechanics.SampleFile> samples,
+                            Callback<List<String>> callback) {
+        ioExecutor.execute(() -> {
+            List<String> newRecords = new ArrayList<>();
+            long id = -1;
+            try {
+                long[] efforts = computeBestEfforts(record);
+                long[] previous = record.getUid() != null ? database.getPersonalRecords(record.getUid()) : BestEfforts.empty();
+                id = database.insertWorkout(record);
+                Log.d(TAG, "Workout stored locally with id " + id);
+                for (int i = 0; i < efforts.length; i++) {
+                    if (efforts[i] != BestEfforts.NONE && (previous[i] == BestEfforts.NONE || efforts[i] < previous[i])) {
+                        newRecords.add(BestEfforts.KEYS[i]);
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error storing workout locally", e);
+            }
+            if (samples != null) {
+                long localId = id;
+                analysisExecutor.execute(() -> storeBiomechanics(record.getRemoteId(), localId, awaitSamples(samples)));
+            } else if (id != -1) {
+                syncWorker.requestSync();
+            }
+            if (callback != null) {
+                mainHandler.post(() -> callback.onResult(newRecords));
+            }
+        });
+    }
+
+    /**
+     * Analyzes the samples of a stored workout on the analysis thread, then stores the result and
+     * schedules the upload on the I/O thread. Without a local row (the insert failed) the sample file
+     * is only deleted.
+     */
+    private void storeBiomechanics(String workoutId, long localId, WorkoutBiomechanics.SampleFile samples) {
+        if (localId == -1) {
+            if (samples != null && !samples.file.delete()) {
+                Log.w(TAG, "Unable to delete " + samples.file);
+            }
+            return;
+        }
+        WorkoutBiomechanics.Result result = analyzeBiomechanics(workoutId, samples);
+        ioExecutor.execute(() -> {
+            if (result != null) {
+                try {
+                    database.setBiomechanics(localId, result);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Error storing biomechanics of " + workoutId, e);
+                }
+            }
+            syncWorker.requestSync();
+        });
+    }
+
+    /**
+     * Computes and attaches the best efforts of a workout's route. Runs on the I/O thread.
+     *
+     * @return The best efforts; all {@link BestEfforts#NONE} without a readable route.
+     */
+    private static long[] computeBestEfforts(WorkoutRecord record) {
+        long[] efforts = BestEfforts.empty();
+        if (record.getRoute() != null) {
+            try {
+                efforts = BestEfforts.fromRoute(RouteStore.fromByteArray(record.getRoute()));
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "Corrupt route of " + record.getRemoteId(), e);
+            }
+        }
+        record.setBestEfforts(efforts);
+        return efforts;
+    }
+
+    private static WorkoutBiomechanics.SampleFile awaitSamples(Future<WorkoutBiomechanics.SampleFile> samples) {
+        try {
+            return samples.get(SAMPLES_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            Log.e(TAG, "Accelerometer samples not handed over", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * analyzeBiomechanics
+     * <p>
+     * Analyzes a workout's accelerometer samples on the analysis pool and deletes the sample file.
+     * The calling thread waits for the pool.
+     * </p>
+     *
+     * @return The result if running was detected, otherwise null.
+     */
+    private WorkoutBiomechanics.Result analyzeBiomechanics(String workoutId, WorkoutBiomechanics.SampleFile samples) {
+        if (samples == null) {
+            return null;
+        }
+        WorkoutBiomechanics.Result biomechanics = null;
+        long start = System.nanoTime();
+        try {
+            WorkoutBiomechanics.Result result = WorkoutBiomechanics.analyze(samples.file, samples.fromNs, samples.toNs, analysisPool);
+            Log.d(TAG, "Analyzed accelerometer samples of " + workoutId + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+            if (result == null) {
+                Log.w(TAG, "Accelerometer of " + workoutId + " sampled too slowly to analyze");
+            } else if (result.getActiveWindows() > 0) {
+                biomechanics = result;
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Unable to analyze accelerometer samples of " + workoutId, e);
+        }
+        if (!samples.file.delete()) {
+            Log.w(TAG, "Unable to delete " + samples.file);
+        }
+        return biomechanics;
+    }
+
+    /**
+     * loadPersonalRecords
+     * <p>
+     * Reads a user's personal records from the best efforts stored with each workout.
+     * </p>
+     *
+     * @param uid      The user.
+     * @param callback Receives best times aligned with {@link BestEfforts#DISTANCES_M} on the main thread,
+     *                 {@link BestEfforts#NONE} for distances never covered.
+     */
+    public void loadPersonalRecords(String uid, Callback<long[]> callback) {
+        ioExecutor.execute(() -> {
+            long[] records = BestEfforts.empty();
+            try {
+                records = database.getPersonalRecords(uid);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Unable to read personal records", e);
+            }
+            long[] result = records;
+            mainHandler.post(() -> callback.onResult(result));
+        });
+    }
+
+    /**
+     * rebuildBestEfforts
+     * <p>
+     * Recomputes the best efforts of every locally stored route, for example after importing a history
+     * or changing the distances. One linear pass per route, so a full history takes milliseconds.
+     * </p>
+     *
+     * @param callback Receives the number of routes processed on the main thread, or -1 on failure.
+     */
+    public void rebuildBestEfforts(Callback<Integer> callback) {
+        ioExecutor.execute(() -> {
+            int count = -1;
+            long start = System.nanoTime();
+            try {
+                count = database.rebuildBestEfforts();
+                Log.d(TAG, "Rebuilt best efforts of " + count + " workouts in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms");
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Unable to rebuild best efforts", e);
+            }
+            int result = count;
+            mainHandler.post(() -> callback.onResult(result));
+        });
+    }
+
+    /**
+     * loadHistoryPage
+     * <p>
+     * Reads one page of a user's history, newest first, after a (timestamp, document id) cursor. The
+     * local page is delivered as soon as it is read, at disk speed. The Firestore page after the same
+     * cursor (served by the uid + timestamp composite index) is then read in the background and cached,
+     * and {@code onReconciled} reports whether it held workouts that belong in the delivered page but
+     * were not cached, e.g. recorded on another device. The id breaks ties between workouts finished in
+     * the same millisecond, so none is skipped at a page boundary.
+     * </p>
+     *
+     * @param uid             Owner of the history.
+     * @param beforeTimestamp Timestamp of the last workout shown; Long.MAX_VALUE for the first page.
+     * @param beforeRemoteId  Document id of the last workout shown; null for the first page.
+     * @param limit           Maximum number of workouts.
+     * @param callback        Receives the local workouts on the main thread.
+     * @param onReconciled    Receives on the main thread, after the callback, true if the page missed
+     *                        workouts that are now cached; false if it was complete or Firestore could not
+     *                        be reached.
+     */
+    public void loadHistoryPage(String uid, long beforeTimestamp, String beforeRemoteId, int limit,
+                                Callback<List<WorkoutRecord>> callback, Callback<Boolean> onReconciled) {
+        ioExecutor.execute(() -> {
+            List<WorkoutRecord> local = database.getWorkoutsBefore(uid, beforeTimestamp, beforeRemoteId, limit);
+            mainHandler.post(() -> callback.onResult(local));
+            Query query = historyQuery(uid);
+            if (beforeTimestamp != Long.MAX_VALUE) {
+                query = beforeRemoteId != null ? query.startAfter(beforeTimestamp, beforeRemoteId)
+                        : query.startAfter(beforeTimestamp);
+            }
+            query.limit(limit).get().addOnCompleteListener(ioExecutor, task -> {
+                boolean missed = false;
+                if (task.isSuccessful()) {
+                    List<WorkoutRecord> remote = toRecords(task.getResult().getDocuments());
+                    missed = missesRemote(local, remote, limit);
+                    cache(remote);
+                } else {
+                    Log.w(TAG, "Unable to read workout history from Firestore", task.getException());
+                }
+                boolean result = missed;
+                mainHandler.post(() -> onReconciled.onResult(result));
+            });
+        });
+    }
+
+    /**
+     * missesRemote
+     * <p>
+     * Returns true if a remote page read after the same cursor as a local one holds a workout that the
+     * local page lacks but should show: one that sorts before its last workout, or any at all if the
+     * local page was not full.
+     * </p>
+     */
+    private static boolean missesRemote(List<WorkoutRecord> local, List<WorkoutRecord> remote, int limit) {
+        Set<String> localIds = new HashSet<>();
+        for (WorkoutRecord record : local) {
+            localIds.add(record.getRemoteId());
+        }
+        WorkoutRecord last = local.size() < limit ? null : local.get(local.size() - 1);
+        for (WorkoutRecord record : remote) {
+            if (!localIds.contains(record.getRemoteId())
+                    && (last == null || compareHistoryOrder(record, last) < 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Negative if workout a comes first in the history: finished later, or at the same time with the
+     * greater document id.
+     */
+    private static int compareHistoryOrder(WorkoutRecord a, WorkoutRecord b) {
+        int order = Long.compare(b.getTimestamp(), a.getTimestamp());
+        return order != 0 ? order : b.getRemoteId().compareTo(a.getRemoteId());
+    }
+
+    /**
+     * refreshHistory
+     * <p>
+     * Caches the newest page of a user's history from Firestore, picking up workouts recorded on other
+     * devices since the history was last opened.
+     * </p>
+     *
+     * @param uid      Owner of the history.
+     * @param limit    Number of workouts to read.
+     * @param callback Receives true on the main thread if workouts that were not cached yet were found.
+     */
+    public void refreshHistory(String uid, int limit, Callback<Boolean> callback) {
+        historyQuery(uid).limit(limit).get().addOnCompleteListener(ioExecutor, task -> {
+            boolean changed = false;
+            if (task.isSuccessful()) {
+                changed = cache(toRecords(task.getResult().getDocuments())) > 0;
+            } else {
+                Log.w(TAG, "Unable to refresh workout history", task.getException());
+            }
+            boolean result = changed;
+            mainHandler.post(() -> callback.onResult(result));
+        });
+    }
+
+    /**
+     * A user's workouts, newest first and by descending document id on ties; requires the uid +
+     * timestamp composite index.
+     */
+    private static Query historyQuery(String uid) {
+        return FirebaseFirestore.getInstance().collection("workouts")
+                .whereEqualTo("uid", uid)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+    }
+
+    private static List<WorkoutRecord> toRecords(List<DocumentSnapshot> documents) {
+        List<WorkoutRecord> records = new ArrayList<>(documents.size());
+        for (DocumentSnapshot document : documents) {
+            WorkoutRecord record = WorkoutSyncWorker.fromDocument(document);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Caches workout headers read from Firestore; returns how many were new. Runs on the I/O thread.
+     */
+    private int cache(List<WorkoutRecord> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        try {
+            return database.cacheWorkouts(records);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Unable to cache workout history", e);
+            return 0;
+        }
+    }
+
+    /**
+     * loadRoute
+     * <p>
+     * Loads the route of a workout for display, separately from the workout list. A locally stored
+     * route is decoded in the background; otherwise the route chunks are read from the workout's
+     * Firestore sub-collection (see {@link WorkoutSyncWorker}) and joined in order.
+     * </p>
+     *
+     * @param record   The workout.
+     * @param callback Receives the route on the main thread, or null if it could not be loaded.
+     */
+    public void loadRoute(WorkoutRecord record, Callback<RouteStore> callback) {
+        if (record.getRoute() != null) {
+            ioExecutor.execute(() -> {
+                RouteStore route = null;
+                try {
+                    route = RouteStore.fromByteArray(record.getRoute());
+                } catch (IllegalArgumentException e) {
+                    Log.e(TAG, "Corrupt local route of " + record.getRemoteId(), e);
+                }
+                RouteStore result = route;
+                mainHandler.post(() -> callback.onResult(result));
+            });
+            return;
+        }
+        FirebaseFirestore.getInstance().collection("workouts").document(record.getRemoteId())
+                .collection(WorkoutSyncWorker.ROUTE_CHUNKS)
+                .orderBy(FieldPath.documentId())
+                .get()
+                .addOnCompleteListener(ioExecutor, task -> {
+                    RouteStore route = null;
+                    if (task.isSuccessful()) {
+                        try {
+                            route = new RouteStore();
+                            for (DocumentSnapshot chunk : task.getResult()) {
+                                Blob points = chunk.getBlob("points");
+                                if (points == null) {
+                                    continue;
+                                }
+                                RouteStore.Cursor cursor = RouteStore.fromByteArray(points.toBytes()).cursor();
+                                while (cursor.next()) {
+                                    route.addE7(cursor.getLatE7(), cursor.getLngE7(), cursor.getTimeMillis());
+                                }
+                            }
+                        } catch (IllegalArgumentException e) {
+                            Log.e(TAG, "Corrupt route chunk of " + record.getRemoteId(), e);
+                            route = null;
+                        }
+                    } else {
+                        Log.e(TAG, "Unable to load route of " + record.getRemoteId(), task.getException());
+                    }
+                    RouteStore result = route;
+                    mainHandler.post(() -> callback.onResult(result));
+                });
+    }
+
+    /**
+     * loadRollups
+     * <p>
+     * Reads the user's rollup documents (see {@link WorkoutRollups}) for the week and month containing
+     * {@code timestamp} plus the all-time total: three small reads instead of aggregating every workout.
+     * Workouts still waiting in the local upload queue are not included yet.
+     * </p>
+     *
+     * @param uid       The user.
+     * @param timestamp Any time within the week and month of interest, in milliseconds since the epoch.
+     * @param callback  Receives the rollup fields keyed by period id on the main thread; a period without
+     *                  workouts is missing, and the map is empty if the read failed.
+     */
+    public void loadRollups(String uid, long timestamp, Callback<Map<String, Map<String, Object>>> callback) {
+        CollectionReference rollups = FirebaseFirestore.getInstance().collection("users").document(uid)
+                .collection(WorkoutRollups.COLLECTION);
+        List<Task<DocumentSnapshot>> reads = new ArrayList<>();
+        for (WorkoutRollups.Period period : WorkoutRollups.periodsOf(timestamp, ZoneId.systemDefault())) {
+            reads.add(rollups.document(period.id).get());
+        }
+        Tasks.whenAllComplete(reads).addOnCompleteListener(ioExecutor, task -> {
+            Map<String, Map<String, Object>> result = new HashMap<>();
+            for (Task<DocumentSnapshot> read : reads) {
+                if (read.isSuccessful() && read.getResult().exists()) {
+                    result.put(read.getResult().getId(), read.getResult().getData());
+                } else if (!read.isSuccessful()) {
+                    Log.w(TAG, "Unable to load workout rollup", read.getException());
+                }
+            }
+            mainHandler.post(() -> callback.onResult(result));
+        });
+    }
+
+    /**
+     * writeTrace
+     * <p>
+     * Compresses and writes the trace of a finished workout in the background, then deletes the
+     * writer's spill files and traces beyond the number kept ({@link WorkoutTrace#deleteOldTraces}).
+     * The writer is owned by the I/O thread from now on. Work queued afterwards, such as an export of
+     * the same trace, sees the file.
+     * </p>
+     *
+     * @param trace The workout's trace; no rows may be added any more.
+     * @param file  The trace file, see {@link WorkoutTrace#getTraceFile(File, String)}.
+     */
+    public void writeTrace(WorkoutTraceWriter trace, File file) {
+        ioExecutor.execute(() -> {
+            try (WorkoutTraceWriter writer = trace) {
+                writer.writeTo(file);
+                Log.d(TAG, "Trace written: " + writer.getRowCount() + " rows, " + file.length() + " bytes");
+            } catch (IOException e) {
+                Log.e(TAG, "Unable to write workout trace", e);
+                file.delete();
+            }
+            int deleted = WorkoutTrace.deleteOldTraces(filesDirectory);
+            if (deleted > 0) {
+                Log.d(TAG, "Deleted " + deleted + " old traces");
+            }
+        });
+    }
+
+    /**
+     * exportTrace
+     * <p>
+     * Converts a workout trace file to GPX and FIT in the background, streaming from the
+     * memory-mapped trace.
+     * </p>
+     *
+     * @param traceFile The trace, see {@link WorkoutTrace#getTraceFile(File, String)}.
+     * @param directory Directory for "workout.gpx" and "workout.fit"; created if needed.
+     * @param callback  Receives the exported files on the main thread; empty if there is no trace or
+     *                  the export failed.
+     */
+    public void exportTrace(File traceFile, File directory, Callback<List<File>> callback) {
+        ioExecutor.execute(() -> {
+            List<File> result = new ArrayList<>();
+            if (traceFile.isFile()) {
+                try {
+                    WorkoutTraceReader trace = WorkoutTraceReader.open(traceFile);
+                    if (!directory.isDirectory() && !directory.mkdirs()) {
+                        throw new IOException("Unable to create " + directory);
+                    }
+                    File gpx = new File(directory, "workout.gpx");
+                    try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                            new FileOutputStream(gpx), StandardCharsets.UTF_8))) {
+                        WorkoutTraceExporter.writeGpx(trace, out);
+                    }
+                    File fit = new File(directory, "workout.fit");
+                    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(fit))) {
+                        WorkoutTraceExporter.writeFit(trace, out);
+                    }
+                    result.add(gpx);
+                    result.add(fit);
+                } catch (IOException | RuntimeException e) {
+                    Log.e(TAG, "Unable to export " + traceFile.getName(), e);
+                }
+            }
+            mainHandler.post(() -> callback.onResult(result));
+        });
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.mypoject1;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * WorkoutRollups
+ * <p>
+ * Names and time ranges of the per-user aggregate documents kept in {@code users/{uid}/rollups}.
+ * Each finished workout is added to three rollups: its ISO week ({@code week-2026-W42}), its calendar
+ * month ({@code month-2026-10}) and the all-time {@code total}. {@link WorkoutSyncWorker} updates them in
+ * a transaction once the workout is uploaded, so a stats screen reads one or two small documents instead
+ * of every workout.
+ * </p>
+ *
+ * <p>
+ * Rollup document fields: {@code type} (week, month or total), {@code start} (period start, epoch ms),
+ * {@code workouts}, {@code distance}, {@code steps}, {@code elapsedMillis} (sums) and
+ * {@code longestDistance} (distance of the longest workout in the period). The total also carries
+ * {@code backfilled} once the workouts uploaded before rollups existed were added.
+ * </p>
+ */
+public final class WorkoutRollups {
+
+    /** Sub-collection of a user document holding the rollups. */
+    public static final String COLLECTION = "rollups";
+    /** Id of the all-time rollup. */
+    public static final String TOTAL_ID = "total";
+
+    public static final String TYPE_WEEK = "week";
+    public static final String TYPE_MONTH = "month";
+    public static final String TYPE_TOTAL = "total";
+
+    /**
+     * A rollup period: document id and time range [startMillis, endMillis).
+     */
+    public static final class Period {
+        public final String id;
+        public final String type;
+        public final long startMillis;
+        public final long endMillis;
+
+        Period(String id, String type, long startMillis, long endMillis) {
+            this.id = id;
+            this.type = type;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+    }
+
+    private WorkoutRollups() {
+    }
+
+    /**
+     * periodsOf
+     * <p>
+     * Returns the rollups a workout finished at {@code timestamp} belongs to: its week, its month and
+     * the all-time total.
+     * </p>
+     *
+     * @param timestamp Time the workout was finished, in milliseconds since the epoch.
+     * @param zone      Time zone that defines the user's weeks and months.
+     */
+    public static Period[] periodsOf(long timestamp, ZoneId zone) {
+        return new Period[]{week(timestamp, zone), month(timestamp, zone),
+                new Period(TOTAL_ID, TYPE_TOTAL, 0, Long.MAX_VALUE)};
+    }
+
+    /**
+     * Returns the ISO week (Monday to Sunday) containing {@code timestamp}.
+     */
+    public static Period week(long timestamp, ZoneId zone) {
+        LocalDate day = Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+        LocalDate monday = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        String id = String.format(Locale.US, "week-%04d-W%02d",
+                day.get(IsoFields.WEEK_BASED_YEAR), day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+        return new Period(id, TYPE_WEEK, startOf(monday, zone), startOf(monday.plusWeeks(1), zone));
+    }
+
+    /**
+     * Returns the calendar month containing {@code timestamp}.
+     */
+    public static Period month(long timestamp, ZoneId zone) {
+        LocalDate first = Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate().withDayOfMonth(1);
+        String id = String.format(Locale.US, "month-%04d-%02d", first.getYear(), first.getMonthValue());
+        return new Period(id, TYPE_MONTH, startOf(first, zone), startOf(first.plusMonths(1), zone));
+    }
+
+    private static long startOf(LocalDate day, ZoneId zone) {
+        return day.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+}
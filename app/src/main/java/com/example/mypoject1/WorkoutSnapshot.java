@@ -0,0 +1,103 @@
+package com.example.mypoject1;
+
+/**
+ * WorkoutSnapshot
+ * <p>
+ * A reusable, caller-owned copy of the live workout state held by {@link WorkoutRecordingService}.
+ * The UI keeps one instance and asks the service to fill it before each redraw, so reading the
+ * state never allocates and never touches collections owned by the recording threads.
+ * </p>
+ */
+public class WorkoutSnapshot {
+
+    // Fields are written by WorkoutRecordingService.fillSnapshot() (same package)
+    int steps;
+    double distanceMeters;
+    double cadence;
+    boolean stopwatchRunning;
+    long stopwatchElapsedMillis;
+    boolean countdownRunning;
+    long countdownRemainingMillis;
+    int routePointCount;
+    long accelerometerSamples;
+    boolean recording;
+    long rollingPaceSecondsPerKm;
+
+    /**
+     * Returns the number of steps taken in the current workout.
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * Returns the estimated distance covered, in meters.
+     */
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    /**
+     * Returns the current cadence in steps per minute, or 0 when unknown.
+     */
+    public double getCadence() {
+        return cadence;
+    }
+
+    /**
+     * Returns true while the stopwatch is running.
+     */
+    public boolean isStopwatchRunning() {
+        return stopwatchRunning;
+    }
+
+    /**
+     * Returns the stopwatch time in milliseconds at the moment the snapshot was taken.
+     */
+    public long getStopwatchElapsedMillis() {
+        return stopwatchElapsedMillis;
+    }
+
+    /**
+     * Returns true while the countdown timer is running.
+     */
+    public boolean isCountdownRunning() {
+        return countdownRunning;
+    }
+
+    /**
+     * Returns the remaining countdown time in milliseconds at the moment the snapshot was taken.
+     */
+    public long getCountdownRemainingMillis() {
+        return countdownRemainingMillis;
+    }
+
+    /**
+     * Returns the number of recorded route points.
+     */
+    public int getRoutePointCount() {
+        return routePointCount;
+    }
+
+    /**
+     * Returns the number of accelerometer samples recorded in the current workout.
+     */
+    public long getAccelerometerSamples() {
+        return accelerometerSamples;
+    }
+
+    /**
+     * Returns true while the service is recording in the foreground.
+     */
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Returns the pace over the last 30 seconds in seconds per kilometer, or 0 when unknown
+     * (not moving, or no workout in progress).
+     */
+    public long getRollingPaceSecondsPerKm() {
+        return rollingPaceSecondsPerKm;
+    }
+}
@@ -0,0 +1,622 @@
+package com.example.mypoject1;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WorkoutSyncWorker
+ * <p>
+ * Uploads workouts that are pending in the local {@link WorkoutDatabase} to Firestore in the background.
+ * Pending rows are grouped into {@link WriteBatch} commits (one round trip per batch instead of one per
+ * workout). Each workout is written to a document id generated when it was stored locally, so a batch
+ * that is retried after a timeout overwrites instead of creating duplicates.
+ * </p>
+ *
+ * <p>
+ * Once committed, a batch's workouts are marked queued and Firestore's own persistent write queue
+ * delivers it, even across restarts. {@code waitForPendingWrites} only says that every queued write was
+ * acknowledged or rejected, so each queued workout is then looked up on the server: a batch is atomic,
+ * so its header exists exactly when the whole batch was applied. Found workouts are uploaded, missing
+ * ones go back to pending and are sent again.
+ * </p>
+ *
+ * <p>
+ * An uploaded workout is then added to the user's week, month and all-time {@link WorkoutRollups} in
+ * one transaction per workout, which also sets the header's {@link #ROLLED_UP} flag. The transaction
+ * reads the flag first, so a workout is never counted twice, and reads the rollups, so
+ * {@code longestDistance} is a true maximum whatever device uploaded what. Workouts uploaded before
+ * rollups existed have no flag; they are added once per user by a backfill that pages through the
+ * user's headers on the server and then sets {@code backfilled} on the total rollup.
+ * </p>
+ *
+ * <p>
+ * A workout is uploaded as a small header document (summary metrics only) plus a
+ * {@link #ROUTE_CHUNKS} sub-collection holding the route in fixed-size chunks of
+ * {@link #ROUTE_CHUNK_POINTS} points, each in the {@link RouteStore} byte encoding. Header and chunks are
+ * written in the same batch, so a workout is never visible without its route. Lists read headers only;
+ * the route is loaded on demand by {@link WorkoutRepository#loadRoute}.
+ * </p>
+ *
+ * <p>
+ * Every header carries the owner's {@code uid}, so a user's history is a single indexed query on
+ * uid and timestamp (see firestore.indexes.json). Workouts recorded while nobody was signed in wait
+ * locally until a user signs in and claims them.
+ * </p>
+ *
+ * <p>
+ * A failed batch is retried with exponential backoff. When the device regains connectivity, a pending
+ * retry is brought forward. All work runs on a single background thread; {@link #requestSync()} may be
+ * called from any thread and coalesces with an already scheduled run.
+ * </p>
+ */
+public class WorkoutSyncWorker {
+
+    private static final String TAG = "WorkoutSync";
+
+    // Workouts per WriteBatch, and the Firestore limit on writes (header + route chunks) per batch
+    private static final int BATCH_SIZE = 20;
+    private static final int MAX_BATCH_WRITES = 500;
+    // Sub-collection of a workout document holding its route, and the points per chunk document (about 3-4 KB)
+    static final String ROUTE_CHUNKS = "routeChunks";
+    static final int ROUTE_CHUNK_POINTS = 500;
+    // Header field set once the workout is added to its rollups, and total rollup field set after the backfill
+    static final String ROLLED_UP = "rolledUp";
+    static final String BACKFILLED = "backfilled";
+    // Queued headers looked up per query (limit of whereIn), and headers read per backfill page
+    private static final int CONFIRM_QUERY_SIZE = 10;
+    private static final int BACKFILL_PAGE_SIZE = 100;
+    // How long to wait for a batch commit before treating it as failed
+    private static final long COMMIT_TIMEOUT_SECONDS = 30;
+    // Retry backoff: doubled after each failure, reset after a success
+    private static final long INITIAL_BACKOFF_MS = 5_000;
+    private static final long MAX_BACKOFF_MS = 15 * 60_000;
+
+    private static volatile WorkoutSyncWorker instance;
+
+    private final WorkoutDatabase database;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "WorkoutSync");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    // User whose rollups are known to be backfilled; only used on the sync thread
+    private String backfilledUid;
+
+    // Guarded by "this"
+    private ScheduledFuture<?> scheduled;
+    private long scheduledAtMs = 0;
+    private long backoffMs = INITIAL_BACKOFF_MS;
+
+    /**
+     * Returns the shared worker, creating it (and scheduling an initial sync) on first use.
+     */
+    public static WorkoutSyncWorker getInstance(Context context) {
+        if (instance == null) {
+            synchronized (WorkoutSyncWorker.class) {
+                if (instance == null) {
+                    instance = new WorkoutSyncWorker(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private WorkoutSyncWorker(Context context) {
+        this.database = WorkoutDatabase.getInstance(context);
+        // Retry right away when a network becomes available instead of waiting out the backoff
+        ConnectivityManager connectivityManager = context.getSystemService(ConnectivityManager.class);
+        if (connectivityManager != null) {
+            connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(Network network) {
+                    requestSync();
+                }
+            });
+        }
+        // Upload anything left over from previous sessions
+        requestSync();
+    }
+
+    /**
+     * requestSync
+     * <p>
+     * Schedules an upload of pending workouts as soon as possible. If a run is already scheduled
+     * (for example a backoff retry), it is brought forward instead of adding a second one.
+     * </p>
+     */
+    public void requestSync() {
+        scheduleIn(0);
+    }
+
+    private synchronized void scheduleIn(long delayMs) {
+        long now = System.currentTimeMillis();
+        long at = now + delayMs;
+        // A run that already started may have missed new rows, so only a future run can absorb the request
+        if (scheduled != null && !scheduled.isDone() && scheduledAtMs > now) {
+            if (scheduledAtMs <= at) {
+                return;
+            }
+            scheduled.cancel(false);
+        }
+        scheduledAtMs = at;
+        scheduled = executor.schedule(this::syncPending, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * syncPending
+     * <p>
+     * Runs on the sync thread: confirms batches still queued from earlier runs, commits pending
+     * workouts batch by batch, then adds uploaded workouts to their rollups. If any step fails, a
+     * retry is scheduled with backoff.
+     * </p>
+     */
+    private void syncPending() {
+        FirebaseFirestore firestore = FirebaseFirestore.getInstance();
+        CollectionReference workouts = firestore.collection("workouts");
+        try {
+            confirmQueued(firestore, workouts);
+        } catch (Exception e) {
+            Log.w(TAG, "Queued workouts not confirmed yet, will retry", e);
+            scheduleRetry();
+            return;
+        }
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user != null) {
+            try {
+                database.claimUnownedWorkouts(user.getUid());
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Unable to assign workouts to the signed-in user", e);
+            }
+        }
+        while (true) {
+            List<WorkoutRecord> pending;
+            try {
+                pending = database.getPendingWorkouts(BATCH_SIZE);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Unable to read pending workouts", e);
+                scheduleRetry();
+                return;
+            }
+            if (pending.isEmpty()) {
+                break;
+            }
+
+            WriteBatch batch = firestore.batch();
+            List<Long> ids = new ArrayList<>(pending.size());
+            int writes = 0;
+            for (WorkoutRecord record : pending) {
+                List<byte[]> chunks;
+                try {
+                    chunks = chunkRoute(record.getRoute());
+                } catch (IllegalArgumentException e) {
+                    // A corrupt route must not hold back this and every later upload: send the summary alone
+                    Log.e(TAG, "Corrupt route of " + record.getRemoteId() + ", uploading it without route", e);
+                    chunks = Collections.emptyList();
+                }
+                // Keep each workout's writes in one batch; the rest goes in the next round
+                int recordWrites = 1 + chunks.size();
+                if (!ids.isEmpty() && writes + recordWrites > MAX_BATCH_WRITES) {
+                    break;
+                }
+                DocumentReference header = workouts.document(record.getRemoteId());
+                batch.set(header, toDocument(record, chunks.size()));
+                for (int i = 0; i < chunks.size(); i++) {
+                    batch.set(header.collection(ROUTE_CHUNKS).document(chunkId(i)), toChunkDocument(i, chunks.get(i)));
+                }
+                writes += recordWrites;
+                ids.add(record.getLocalId());
+            }
+            Task<Void> commit = batch.commit();
+            // From here on Firestore owns delivery; the batch is confirmed before it is sent again
+            database.markQueued(ids);
+            try {
+                Tasks.await(commit, COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                database.markUploaded(ids);
+                Log.d(TAG, "Uploaded " + ids.size() + " workouts");
+            } catch (ExecutionException e) {
+                // Rejected by Firestore (for example by security rules): nothing was written
+                Log.w(TAG, "Workout upload rejected, will retry", e);
+                database.markPending(ids);
+                scheduleRetry();
+                return;
+            } catch (Exception e) {
+                // Still queued in Firestore; confirmed against the server on the next run
+                Log.w(TAG, "Workout upload not acknowledged yet, will retry", e);
+                scheduleRetry();
+                return;
+            }
+        }
+        if (user != null) {
+            try {
+                backfillRollups(firestore, workouts, user.getUid());
+                addUploadedToRollups(firestore, workouts, user.getUid());
+            } catch (Exception e) {
+                Log.w(TAG, "Rollups not updated yet, will retry", e);
+                scheduleRetry();
+                return;
+            }
+        }
+        synchronized (this) {
+            backoffMs = INITIAL_BACKOFF_MS;
+        }
+    }
+
+    /**
+     * confirmQueued
+     * <p>
+     * Settles the workouts queued by earlier runs. Once Firestore has acknowledged or rejected every
+     * pending write, the headers of the queued workouts are looked up on the server: a workout whose
+     * header exists was uploaded with its whole batch, one whose header is missing was rejected and
+     * goes back to pending.
+     * </p>
+     *
+     * @throws Exception If the writes are still pending or the server cannot be reached; nothing changes.
+     */
+    private void confirmQueued(FirebaseFirestore firestore, CollectionReference workouts) throws Exception {
+        List<WorkoutRecord> queued = database.getQueuedWorkouts(MAX_BATCH_WRITES);
+        if (queued.isEmpty()) {
+            return;
+        }
+        Tasks.await(firestore.waitForPendingWrites(), COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        // Queries are by owner, so that they are allowed for the signed-in user
+        Map<String, List<WorkoutRecord>> byUid = new LinkedHashMap<>();
+        for (WorkoutRecord record : queued) {
+            byUid.computeIfAbsent(record.getUid(), uid -> new ArrayList<>()).add(record);
+        }
+        List<Long> uploaded = new ArrayList<>();
+        List<Long> rejected = new ArrayList<>();
+        for (Map.Entry<String, List<WorkoutRecord>> entry : byUid.entrySet()) {
+            List<WorkoutRecord> records = entry.getValue();
+            for (int from = 0; from < records.size(); from += CONFIRM_QUERY_SIZE) {
+                List<WorkoutRecord> group = records.subList(from, Math.min(from + CONFIRM_QUERY_SIZE, records.size()));
+                List<String> remoteIds = new ArrayList<>(group.size());
+                for (WorkoutRecord record : group) {
+                    remoteIds.add(record.getRemoteId());
+                }
+                QuerySnapshot found = Tasks.await(workouts.whereEqualTo("uid", entry.getKey())
+                                .whereIn(FieldPath.documentId(), remoteIds).get(Source.SERVER),
+                        COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                if (found.getMetadata().hasPendingWrites()) {
+                    throw new IllegalStateException("Workout upload still pending");
+                }
+                List<String> foundIds = new ArrayList<>();
+                for (DocumentSnapshot header : found.getDocuments()) {
+                    foundIds.add(header.getId());
+                }
+                for (WorkoutRecord record : group) {
+                    (foundIds.contains(record.getRemoteId()) ? uploaded : rejected).add(record.getLocalId());
+                }
+            }
+        }
+        database.markUploaded(uploaded);
+        database.markPending(rejected);
+        if (!rejected.isEmpty()) {
+            Log.w(TAG, rejected.size() + " queued workouts were rejected, sending again");
+        }
+    }
+
+    /**
+     * Adds the user's uploaded workouts to their rollups, one transaction each, and marks them synced.
+     */
+    private void addUploadedToRollups(FirebaseFirestore firestore, CollectionReference workouts, String uid)
+            throws Exception {
+        while (true) {
+            List<WorkoutRecord> uploaded = database.getUploadedWorkouts(uid, BATCH_SIZE);
+            if (uploaded.isEmpty()) {
+                return;
+            }
+            for (WorkoutRecord record : uploaded) {
+                Tasks.await(addToRollups(firestore, workouts.document(record.getRemoteId())),
+                        COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                database.markSynced(Collections.singletonList(record.getLocalId()));
+            }
+        }
+    }
+
+    /**
+     * backfillRollups
+     * <p>
+     * Adds the user's workouts that were uploaded before rollups existed, once per user: pages through
+     * every header of the user on the server and adds those without the {@link #ROLLED_UP} flag, then
+     * marks the total rollup as {@link #BACKFILLED}. Safe to repeat or to run on several devices at
+     * once, since every workout is added by a transaction that checks the flag.
+     * </p>
+     */
+    private void backfillRollups(FirebaseFirestore firestore, CollectionReference workouts, String uid)
+            throws Exception {
+        if (uid.equals(backfilledUid)) {
+            return;
+        }
+        DocumentReference total = firestore.collection("users").document(uid)
+                .collection(WorkoutRollups.COLLECTION).document(WorkoutRollups.TOTAL_ID);
+        DocumentSnapshot totalSnapshot = Tasks.await(total.get(Source.SERVER), COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(totalSnapshot.getBoolean(BACKFILLED))) {
+            int added = 0;
+            Query page = workouts.whereEqualTo("uid", uid).orderBy("timestamp", Query.Direction.DESCENDING)
+                    .limit(BACKFILL_PAGE_SIZE);
+            while (true) {
+                List<DocumentSnapshot> headers = Tasks.await(page.get(Source.SERVER),
+                        COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS).getDocuments();
+                for (DocumentSnapshot header : headers) {
+                    if (!Boolean.TRUE.equals(header.getBoolean(ROLLED_UP))
+                            && Tasks.await(addToRollups(firestore, header.getReference()),
+                            COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                        added++;
+                    }
+                }
+                if (headers.size() < BACKFILL_PAGE_SIZE) {
+                    break;
+                }
+                page = page.startAfter(headers.get(headers.size() - 1));
+            }
+            Map<String, Object> marker = new HashMap<>();
+            marker.put(BACKFILLED, true);
+            Tasks.await(total.set(marker, SetOptions.merge()), COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Log.d(TAG, "Backfilled rollups with " + added + " workouts");
+        }
+        backfilledUid = uid;
+    }
+
+    /**
+     * addToRollups
+     * <p>
+     * Adds one uploaded workout to its week, month and all-time rollups in a transaction, unless its
+     * header already carries the {@link #ROLLED_UP} flag, and sets the flag. Every read comes before
+     * the writes, as transactions require; Firestore retries the transaction if another device changed
+     * the header or a rollup in between.
+     * </p>
+     *
+     * @param header The workout's header document.
+     * @return A task resolving to true if the workout was added, false if it already was (or is gone).
+     */
+    static Task<Boolean> addToRollups(FirebaseFirestore firestore, DocumentReference header) {
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(header);
+            WorkoutRecord record = snapshot.exists() ? fromDocument(snapshot) : null;
+            if (record == null || record.getUid() == null || Boolean.TRUE.equals(snapshot.getBoolean(ROLLED_UP))) {
+                return false;
+            }
+            CollectionReference rollups = firestore.collection("users").document(record.getUid())
+                    .collection(WorkoutRollups.COLLECTION);
+            WorkoutRollups.Period[] periods = WorkoutRollups.periodsOf(record.getTimestamp(), ZoneId.systemDefault());
+            double[] longest = new double[periods.length];
+            for (int i = 0; i < periods.length; i++) {
+                Double current = transaction.get(rollups.document(periods[i].id)).getDouble("longestDistance");
+                longest[i] = current != null ? current : 0;
+            }
+            for (int i = 0; i < periods.length; i++) {
+                transaction.set(rollups.document(periods[i].id),
+                        toRollupUpdate(record, periods[i], longest[i]), SetOptions.merge());
+            }
+            transaction.update(header, ROLLED_UP, true);
+            return true;
+        });
+    }
+
+    private void scheduleRetry() {
+        long delay;
+        synchronized (this) {
+            delay = backoffMs;
+            backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        }
+        scheduleIn(delay);
+    }
+
+    /**
+     * Builds the header document of a workout: summary metrics only, the route lives in its chunks.
+     */
+    static Map<String, Object> toDocument(WorkoutRecord record, int routeChunkCount) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("uid", record.getUid());
+        summary.put("steps", record.getSteps());
+        summary.put("distance", record.getDistanceMeters());
+        summary.put("elapsedTime", record.getElapsedText());
+        summary.put("elapsedMillis", record.getElapsedMillis());
+        summary.put("routePointCount", record.getRoutePointCount());
+        summary.put("routeChunkCount", routeChunkCount);
+        summary.put("timestamp", record.getTimestamp());
+        // Set by addToRollups; a header is only sent again if the server never had it
+        summary.put(ROLLED_UP, false);
+        long[] efforts = record.getBestEfforts();
+        if (efforts != null) {
+            // Best time in milliseconds per covered distance, keyed like BestEfforts.KEYS
+            Map<String, Object> bestEfforts = new HashMap<>();
+            for (int i = 0; i < efforts.length; i++) {
+                if (efforts[i] != BestEfforts.NONE) {
+                    bestEfforts.put(BestEfforts.KEYS[i], efforts[i]);
+                }
+            }
+            summary.put("bestEfforts", bestEfforts);
+        }
+        WorkoutBiomechanics.Result biomechanics = record.getBiomechanics();
+        if (biomechanics != null) {
+            Map<String, Object> values = new HashMap<>();
+            values.put("activeWindows", biomechanics.getActiveWindows());
+            values.put("footstrikes", biomechanics.getSteps());
+            values.put("cadenceMean", biomechanics.getCadenceMean());
+            values.put("cadenceStd", biomechanics.getCadenceStd());
+            values.put("stepIntervalCv", biomechanics.getStepIntervalCv());
+            values.put("verticalOscillationCm", biomechanics.getVerticalOscillationCm());
+            values.put("impactMeanG", biomechanics.getImpactMeanG());
+            values.put("impactStdG", biomechanics.getImpactStdG());
+            values.put("impactP95G", biomechanics.getImpactP95G());
+            values.put("impactMaxG", biomechanics.getImpactMaxG());
+            summary.put("biomechanics", values);
+        }
+        return summary;
+    }
+
+    /**
+     * toRollupUpdate
+     * <p>
+     * Builds the merge update that adds a workout to a rollup document. Sums use atomic increments;
+     * {@code longestDistance} is written only if the workout beats the rollup's current value, read in
+     * the same transaction.
+     * </p>
+     *
+     * @param record       The workout being added.
+     * @param period       The rollup period it belongs to.
+     * @param longestSoFar The rollup's current longest distance, 0 if it has none.
+     */
+    static Map<String, Object> toRollupUpdate(WorkoutRecord record, WorkoutRollups.Period period, double longestSoFar) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("type", period.type);
+        update.put("start", period.startMillis);
+        update.put("workouts", FieldValue.increment(1));
+        update.put("distance", FieldValue.increment(record.getDistanceMeters()));
+        update.put("steps", FieldValue.increment(record.getSteps()));
+        update.put("elapsedMillis", FieldValue.increment(record.getElapsedMillis()));
+        if (record.getDistanceMeters() > longestSoFar) {
+            update.put("longestDistance", record.getDistanceMeters());
+        }
+        return update;
+    }
+
+    /**
+     * fromDocument
+     * <p>
+     * Reads a workout header document back into a synced record without a route (the route stays in
+     * its chunks until {@link WorkoutRepository#loadRoute} is called).
+     * </p>
+     *
+     * @param document A document of the workouts collection.
+     * @return The record, or null if the document is not a workout header.
+     */
+    static WorkoutRecord fromDocument(DocumentSnapshot document) {
+        Long timestamp = document.getLong("timestamp");
+        if (timestamp == null) {
+            return null;
+        }
+        Long steps = document.getLong("steps");
+        Double distance = document.getDouble("distance");
+        Long elapsedMillis = document.getLong("elapsedMillis");
+        Long routePointCount = document.getLong("routePointCount");
+        WorkoutRecord record = new WorkoutRecord(-1, document.getId(), document.getString("uid"),
+                steps != null ? steps.intValue() : 0,
+                distance != null ? distance : 0,
+                elapsedMillis != null ? elapsedMillis : 0,
+                document.getString("elapsedTime"),
+                null,
+                routePointCount != null ? routePointCount.intValue() : 0,
+                timestamp,
+                true);
+        Object bestEfforts = document.get("bestEfforts");
+        if (bestEfforts instanceof Map) {
+            long[] efforts = BestEfforts.empty();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) bestEfforts).entrySet()) {
+                int index = BestEfforts.indexOf(String.valueOf(entry.getKey()));
+                if (index >= 0 && entry.getValue() instanceof Number) {
+                    efforts[index] = ((Number) entry.getValue()).longValue();
+                }
+            }
+            record.setBestEfforts(efforts);
+        }
+        Object biomechanics = document.get("biomechanics");
+        if (biomechanics instanceof Map) {
+            Map<?, ?> values = (Map<?, ?>) biomechanics;
+            record.setBiomechanics(new WorkoutBiomechanics.Result(
+                    (int) number(values, "activeWindows"),
+                    (long) number(values, "footstrikes"),
+                    number(values, "cadenceMean"),
+                    number(values, "cadenceStd"),
+                    number(values, "stepIntervalCv"),
+                    number(values, "verticalOscillationCm"),
+                    number(values, "impactMeanG"),
+                    number(values, "impactStdG"),
+                    number(values, "impactP95G"),
+                    number(values, "impactMaxG")));
+        }
+        return record;
+    }
+
+    /**
+     * Returns a numeric field of a map read from Firestore, or 0 if it is missing.
+     */
+    private static double number(Map<?, ?> values, String key) {
+        Object value = values.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+
+    /**
+     * Builds the document of one route chunk.
+     */
+    private static Map<String, Object> toChunkDocument(int index, byte[] points) {
+        Map<String, Object> chunk = new HashMap<>();
+        chunk.put("index", index);
+        chunk.put("points", Blob.fromBytes(points));
+        return chunk;
+    }
+
+    /**
+     * Returns the id of a route chunk document; zero-padded so that ids sort in route order.
+     */
+    static String chunkId(int index) {
+        return String.format(Locale.US, "%05d", index);
+    }
+
+    /**
+     * chunkRoute
+     * <p>
+     * Splits a serialized route into chunks of {@link #ROUTE_CHUNK_POINTS} points. Each chunk is a
+     * complete {@link RouteStore} serialization (its first point is absolute), so chunks decode on
+     * their own.
+     * </p>
+     *
+     * @param route Route serialized with {@link RouteStore#toByteArray()}, or null.
+     * @return The serialized chunks, empty for a missing or empty route.
+     * @throws IllegalArgumentException If the route data is corrupt.
+     */
+    static List<byte[]> chunkRoute(byte[] route) {
+        List<byte[]> chunks = new ArrayList<>();
+        if (route == null) {
+            return chunks;
+        }
+        RouteStore.Cursor cursor = RouteStore.fromByteArray(route).cursor();
+        RouteStore chunk = new RouteStore();
+        while (cursor.next()) {
+            chunk.addE7(cursor.getLatE7(), cursor.getLngE7(), cursor.getTimeMillis());
+            if (chunk.size() == ROUTE_CHUNK_POINTS) {
+                chunks.add(chunk.toByteArray());
+                chunk = new RouteStore();
+            }
+        }
+        if (chunk.size() > 0) {
+            chunks.add(chunk.toByteArray());
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.mypoject1;
+
+import java.util.function.LongSupplier;
+
+/**
+ * WorkoutTimer
+ * <p>
+ * A drift-free stopwatch / countdown. Instead of adding up ticks, it remembers the monotonic time at
+ * which it was (re)started and the time accumulated before that, and derives the elapsed time from
+ * the clock whenever it is asked. A late or skipped update therefore never shifts the result.
+ * </p>
+ *
+ * <p>
+ * With a duration set the timer acts as a countdown: {@link #getRemainingMillis()} counts down to zero
+ * and, read once when the countdown starts, tells the owner when to schedule the single "finished" event.
+ * The clock is injected (normally {@code SystemClock::elapsedRealtime}, which keeps counting in deep
+ * sleep and never jumps with wall clock changes) so the class can be tested on the JVM.
+ * Not thread-safe; use it from one thread.
+ * </p>
+ */
+public class WorkoutTimer {
+
+    private final LongSupplier clock;
+    private boolean running = false;
+    // Clock reading when the timer was last started
+    private long startedAt = 0;
+    // Time accumulated before the last start
+    private long accumulated = 0;
+    // Countdown duration, 0 for a plain stopwatch
+    private long duration = 0;
+
+    /**
+     * Creates a stopped timer.
+     *
+     * @param clock Monotonic millisecond clock.
+     */
+    public WorkoutTimer(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Starts or resumes the timer. Has no effect while running.
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+        startedAt = clock.getAsLong();
+        running = true;
+    }
+
+    /**
+     * Pauses the timer, keeping the elapsed time. Has no effect while stopped.
+     */
+    public void pause() {
+        if (!running) {
+            return;
+        }
+        accumulated += clock.getAsLong() - startedAt;
+        running = false;
+    }
+
+    /**
+     * Stops the timer and clears the elapsed time and the countdown duration.
+     */
+    public void reset() {
+        running = false;
+        accumulated = 0;
+        duration = 0;
+    }
+
+    /**
+     * setDuration
+     * <p>
+     * Turns the timer into a countdown of the given length and clears the elapsed time.
+     * Ignored while running.
+     * </p>
+     *
+     * @param millis Countdown length in milliseconds.
+     */
+    public void setDuration(long millis) {
+        if (running) {
+            return;
+        }
+        duration = Math.max(0, millis);
+        accumulated = 0;
+    }
+
+    /**
+     * Returns true while the timer is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the elapsed time in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return running ? accumulated + clock.getAsLong() - startedAt : accumulated;
+    }
+
+    /**
+     * Returns the time left of the countdown in milliseconds, never negative.
+     */
+    public long getRemainingMillis() {
+        return Math.max(0, duration - getElapsedMillis());
+    }
+}
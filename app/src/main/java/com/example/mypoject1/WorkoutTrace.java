@@ -0,0 +1,169 @@
+package com.example.mypoject1;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * WorkoutTrace
+ * <p>
+ * Constants of the versioned columnar file format for full-resolution workout traces, written by
+ * {@link WorkoutTraceWriter} and read by {@link WorkoutTraceReader}. A trace has one row per recorded
+ * accelerometer sample; every row holds the same six values (time, latitude, longitude, step count,
+ * cadence, acceleration magnitude), but each value is stored as its own column.
+ * </p>
+ *
+ * <p>
+ * File layout (big-endian):
+ * <ul>
+ *   <li>header: int magic, byte version, long start time (epoch ms), int row count, byte column count</li>
+ *   <li>column directory, per column: byte column id, byte encoding, int decoded length,
+ *   int stored length, int offset of the column data from the start of the file</li>
+ *   <li>column data: the differences between consecutive values as zigzag varints, either stored as is
+ *   ({@link #ENCODING_VARINT}) or deflate-compressed ({@link #ENCODING_DEFLATE}) when that is smaller</li>
+ * </ul>
+ * Because every column is located through the directory, a reader only decodes the columns it needs.
+ * </p>
+ *
+ * <p>
+ * Trace files are kept for the {@link #MAX_TRACES} most recent workouts; older ones are deleted by
+ * {@link #deleteOldTraces(File)} whenever a new trace is written.
+ * </p>
+ */
+public final class WorkoutTrace {
+
+    static final int MAGIC = 0x57545243; // "WTRC"
+    static final int VERSION = 1;
+    // magic + version + start time + row count + column count
+    static final int HEADER_SIZE = 4 + 1 + 8 + 4 + 1;
+    // id + encoding + decoded length + stored length + offset
+    static final int DIRECTORY_ENTRY_SIZE = 1 + 1 + 4 + 4 + 4;
+
+    // Column ids
+    /** Milliseconds since the start of the trace. */
+    public static final int COLUMN_TIME = 0;
+    /** Latitude in degrees * 10^7, or {@link #NO_POSITION} before the first fix. */
+    public static final int COLUMN_LATITUDE = 1;
+    /** Longitude in degrees * 10^7, or {@link #NO_POSITION} before the first fix. */
+    public static final int COLUMN_LONGITUDE = 2;
+    /** Steps since the start of the workout. */
+    public static final int COLUMN_STEPS = 3;
+    /** Cadence in steps per minute * 10. */
+    public static final int COLUMN_CADENCE = 4;
+    /** Acceleration magnitude in mm/s^2. */
+    public static final int COLUMN_ACCELERATION = 5;
+    static final int COLUMN_COUNT = 6;
+
+    // Column encodings
+    static final int ENCODING_VARINT = 0;
+    static final int ENCODING_DEFLATE = 1;
+
+    /** Latitude / longitude value of rows recorded before the first location fix. */
+    public static final int NO_POSITION = Integer.MIN_VALUE;
+
+    // Directory (under filesDir) and suffix of trace files
+    private static final String DIRECTORY_NAME = "traces";
+    private static final String SUFFIX = ".trace";
+    // Suffix of the spill directory of a trace being recorded
+    private static final String SPILL_SUFFIX = ".parts";
+
+    // Trace files kept
+    static final int MAX_TRACES = 20;
+    // A spill directory untouched for this long belongs to a workout that was never finished
+    static final long STALE_SPILL_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private WorkoutTrace() {
+    }
+
+    /**
+     * Returns the trace file of a workout.
+     *
+     * @param filesDir  The app's files directory.
+     * @param workoutId Id of the workout (its Firestore document id).
+     */
+    public static File getTraceFile(File filesDir, String workoutId) {
+        return new File(new File(filesDir, DIRECTORY_NAME), workoutId + SUFFIX);
+    }
+
+    /**
+     * Returns the directory holding the column spill files of a workout's trace while it is recorded.
+     *
+     * @param filesDir  The app's files directory.
+     * @param workoutId Id of the workout.
+     */
+    public static File getSpillDirectory(File filesDir, String workoutId) {
+        return new File(new File(filesDir, DIRECTORY_NAME), workoutId + SPILL_SUFFIX);
+    }
+
+    /**
+     * deleteOldTraces
+     * <p>
+     * Deletes all but the {@link #MAX_TRACES} most recently written trace files, and the spill
+     * directories of workouts that were never finished (untouched for {@link #STALE_SPILL_MILLIS}).
+     * </p>
+     *
+     * @param filesDir The app's files directory.
+     * @return The number of traces and spill directories deleted.
+     */
+    public static int deleteOldTraces(File filesDir) {
+        return deleteOldTraces(new File(filesDir, DIRECTORY_NAME), MAX_TRACES, System.currentTimeMillis());
+    }
+
+    static int deleteOldTraces(File directory, int keep, long nowMillis) {
+        int deleted = 0;
+        File[] traces = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (traces != null && traces.length > keep) {
+            Arrays.sort(traces, Comparator.comparingLong(File::lastModified).reversed());
+            for (int i = keep; i < traces.length; i++) {
+                if (traces[i].delete()) {
+                    deleted++;
+                }
+            }
+        }
+        File[] spills = directory.listFiles((dir, name) -> name.endsWith(SPILL_SUFFIX));
+        if (spills != null) {
+            for (File spill : spills) {
+                if (nowMillis - lastModified(spill) > STALE_SPILL_MILLIS) {
+                    deleteDirectory(spill);
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Latest modification time of a directory and the files in it.
+     */
+    private static long lastModified(File directory) {
+        long latest = directory.lastModified();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                latest = Math.max(latest, file.lastModified());
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Deletes a directory and the files in it (not recursive).
+     */
+    static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    static long zigzagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long zigzagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.mypoject1;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * WorkoutTraceExporter
+ * <p>
+ * Streams a {@link WorkoutTrace} into the GPX and FIT formats understood by other fitness apps. Only
+ * the time, position and cadence columns are read, through {@link WorkoutTraceReader} cursors; the
+ * output is written point by point, so exporting a long run never builds a list of points in memory.
+ * </p>
+ *
+ * <p>
+ * A trace has a row per accelerometer sample while the position only changes on a new GPS fix, so a
+ * track point is written for each row where the position changes. Cadence is exported the way running
+ * watches report it: strides (steps of one foot) per minute, i.e. half the step cadence.
+ * </p>
+ */
+public final class WorkoutTraceExporter {
+
+    // Seconds between the Unix epoch and the FIT epoch (1989-12-31T00:00:00Z)
+    private static final long FIT_EPOCH_OFFSET_SECONDS = 631065600L;
+    // FIT protocol 2.0, profile 21.32
+    private static final int FIT_PROTOCOL_VERSION = 0x20;
+    private static final int FIT_PROFILE_VERSION = 2132;
+    private static final int FIT_HEADER_SIZE = 14;
+
+    // FIT base types
+    private static final int FIT_ENUM = 0x00;
+    private static final int FIT_UINT8 = 0x02;
+    private static final int FIT_UINT16 = 0x84;
+    private static final int FIT_SINT32 = 0x85;
+    private static final int FIT_UINT32 = 0x86;
+
+    // Global message numbers and the local message types used for them
+    private static final int MESG_FILE_ID = 0;
+    private static final int MESG_SESSION = 18;
+    private static final int MESG_RECORD = 20;
+    private static final int MESG_ACTIVITY = 34;
+    private static final int LOCAL_FILE_ID = 0;
+    private static final int LOCAL_RECORD = 1;
+    private static final int LOCAL_SESSION = 2;
+    private static final int LOCAL_ACTIVITY = 3;
+
+    // Field definitions per message: {field number, size in bytes, base type}
+    private static final int[][] FILE_ID_FIELDS = {
+            {0, 1, FIT_ENUM},     // type
+            {1, 2, FIT_UINT16},   // manufacturer
+            {4, 4, FIT_UINT32},   // time_created
+    };
+    private static final int[][] RECORD_FIELDS = {
+            {253, 4, FIT_UINT32}, // timestamp
+            {0, 4, FIT_SINT32},   // position_lat
+            {1, 4, FIT_SINT32},   // position_long
+            {4, 1, FIT_UINT8},    // cadence
+    };
+    private static final int[][] SESSION_FIELDS = {
+            {253, 4, FIT_UINT32}, // timestamp
+            {2, 4, FIT_UINT32},   // start_time
+            {7, 4, FIT_UINT32},   // total_elapsed_time (ms)
+            {8, 4, FIT_UINT32},   // total_timer_time (ms)
+            {5, 1, FIT_ENUM},     // sport
+    };
+    private static final int[][] ACTIVITY_FIELDS = {
+            {253, 4, FIT_UINT32}, // timestamp
+            {0, 4, FIT_UINT32},   // total_timer_time (ms)
+            {1, 2, FIT_UINT16},   // num_sessions
+            {2, 1, FIT_ENUM},     // type
+            {3, 1, FIT_ENUM},     // event
+            {4, 1, FIT_ENUM},     // event_type
+    };
+
+    // FIT enum values
+    private static final int FILE_TYPE_ACTIVITY = 4;
+    private static final int MANUFACTURER_DEVELOPMENT = 255;
+    private static final int SPORT_RUNNING = 1;
+    private static final int ACTIVITY_TYPE_MANUAL = 0;
+    private static final int EVENT_ACTIVITY = 26;
+    private static final int EVENT_TYPE_STOP = 1;
+
+    private static final int[] FIT_CRC_TABLE = {
+            0x0000, 0xCC01, 0xD801, 0x1400, 0xF001, 0x3C00, 0x2800, 0xE401,
+            0xA001, 0x6C00, 0x7800, 0xB401, 0x5000, 0x9C01, 0x8801, 0x4400
+    };
+
+    /**
+     * Receives the track points of a trace.
+     */
+    private interface FixConsumer {
+        void onFix(long timeMillis, int latE7, int lngE7, int cadenceTenths) throws IOException;
+    }
+
+    private WorkoutTraceExporter() {
+    }
+
+    /**
+     * writeGpx
+     * <p>
+     * Writes the trace as a GPX 1.1 track. The writer is flushed but not closed.
+     * </p>
+     *
+     * @param trace The trace to export.
+     * @param out   Destination.
+     * @throws IOException If writing fails.
+     */
+    public static void writeGpx(WorkoutTraceReader trace, Writer out) throws IOException {
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        timeFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        Date date = new Date();
+        long start = trace.getStartWallMillis();
+
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<gpx version=\"1.1\" creator=\"Chase It\" xmlns=\"http://www.topografix.com/GPX/1/1\""
+                + " xmlns:gpxtpx=\"http://www.garmin.com/xmlschemas/TrackPointExtension/v1\">\n");
+        date.setTime(start);
+        out.write(" <metadata><time>" + timeFormat.format(date) + "</time></metadata>\n");
+        out.write(" <trk>\n  <type>running</type>\n  <trkseg>\n");
+        forEachFix(trace, (timeMillis, latE7, lngE7, cadenceTenths) -> {
+            out.write("   <trkpt lat=\"");
+            writeE7(out, latE7);
+            out.write("\" lon=\"");
+            writeE7(out, lngE7);
+            out.write("\"><time>");
+            date.setTime(start + timeMillis);
+            out.write(timeFormat.format(date));
+            out.write("</time><extensions><gpxtpx:TrackPointExtension><gpxtpx:cad>");
+            out.write(Integer.toString(strideCadence(cadenceTenths)));
+            out.write("</gpxtpx:cad></gpxtpx:TrackPointExtension></extensions></trkpt>\n");
+        });
+        out.write("  </trkseg>\n </trk>\n</gpx>\n");
+        out.flush();
+    }
+
+    /**
+     * writeFit
+     * <p>
+     * Writes the trace as a FIT activity file (file id, one record per track point, a running session
+     * and the activity summary). The FIT header holds the data size, so the position columns are read
+     * twice: once to count the points, once to write them. The stream is flushed but not closed.
+     * </p>
+     *
+     * @param trace The trace to export.
+     * @param out   Destination.
+     * @throws IOException If writing fails.
+     */
+    public static void writeFit(WorkoutTraceReader trace, OutputStream out) throws IOException {
+        long[] summary = new long[3]; // point count, first time, last time
+        forEachFix(trace, (timeMillis, latE7, lngE7, cadenceTenths) -> {
+            if (summary[0]++ == 0) {
+                summary[1] = timeMillis;
+            }
+            summary[2] = timeMillis;
+        });
+        long points = summary[0];
+        long start = trace.getStartWallMillis();
+        long firstMillis = points > 0 ? summary[1] : 0;
+        long lastMillis = points > 0 ? summary[2] : 0;
+
+        long dataSize = definitionSize(FILE_ID_FIELDS) + dataSize(FILE_ID_FIELDS)
+                + definitionSize(RECORD_FIELDS) + points * dataSize(RECORD_FIELDS)
+                + definitionSize(SESSION_FIELDS) + dataSize(SESSION_FIELDS)
+                + definitionSize(ACTIVITY_FIELDS) + dataSize(ACTIVITY_FIELDS);
+
+        FitStream fit = new FitStream(out);
+        fit.writeByte(FIT_HEADER_SIZE);
+        fit.writeByte(FIT_PROTOCOL_VERSION);
+        fit.writeShort(FIT_PROFILE_VERSION);
+        fit.writeInt((int) dataSize);
+        fit.writeByte('.');
+        fit.writeByte('F');
+        fit.writeByte('I');
+        fit.writeByte('T');
+        // Header CRC over the first 12 bytes; the file CRC keeps running over the whole file
+        fit.writeShort(fit.crc);
+
+        fit.writeDefinition(LOCAL_FILE_ID, MESG_FILE_ID, FILE_ID_FIELDS);
+        fit.writeByte(LOCAL_FILE_ID);
+        fit.writeByte(FILE_TYPE_ACTIVITY);
+        fit.writeShort(MANUFACTURER_DEVELOPMENT);
+        fit.writeInt(fitTime(start));
+
+        fit.writeDefinition(LOCAL_RECORD, MESG_RECORD, RECORD_FIELDS);
+        forEachFix(trace, (timeMillis, latE7, lngE7, cadenceTenths) -> {
+            fit.writeByte(LOCAL_RECORD);
+            fit.writeInt(fitTime(start + timeMillis));
+            fit.writeInt(semicircles(latE7));
+            fit.writeInt(semicircles(lngE7));
+            fit.writeByte(Math.min(254, strideCadence(cadenceTenths)));
+        });
+
+        int elapsedMillis = (int) (lastMillis - firstMillis);
+        fit.writeDefinition(LOCAL_SESSION, MESG_SESSION, SESSION_FIELDS);
+        fit.writeByte(LOCAL_SESSION);
+        fit.writeInt(fitTime(start + lastMillis));
+        fit.writeInt(fitTime(start + firstMillis));
+        fit.writeInt(elapsedMillis);
+        fit.writeInt(elapsedMillis);
+        fit.writeByte(SPORT_RUNNING);
+
+        fit.writeDefinition(LOCAL_ACTIVITY, MESG_ACTIVITY, ACTIVITY_FIELDS);
+        fit.writeByte(LOCAL_ACTIVITY);
+        fit.writeInt(fitTime(start + lastMillis));
+        fit.writeInt(elapsedMillis);
+        fit.writeShort(1);
+        fit.writeByte(ACTIVITY_TYPE_MANUAL);
+        fit.writeByte(EVENT_ACTIVITY);
+        fit.writeByte(EVENT_TYPE_STOP);
+
+        int fileCrc = fit.crc;
+        fit.writeShort(fileCrc);
+        out.flush();
+    }
+
+    /**
+     * forEachFix
+     * <p>
+     * Walks the time, position and cadence columns in step and reports every row whose position differs
+     * from the previous row's (rows before the first fix are skipped).
+     * </p>
+     */
+    private static void forEachFix(WorkoutTraceReader trace, FixConsumer consumer) throws IOException {
+        try (WorkoutTraceReader.ColumnCursor time = trace.column(WorkoutTrace.COLUMN_TIME);
+             WorkoutTraceReader.ColumnCursor lat = trace.column(WorkoutTrace.COLUMN_LATITUDE);
+             WorkoutTraceReader.ColumnCursor lng = trace.column(WorkoutTrace.COLUMN_LONGITUDE);
+             WorkoutTraceReader.ColumnCursor cadence = trace.column(WorkoutTrace.COLUMN_CADENCE)) {
+            int previousLat = WorkoutTrace.NO_POSITION;
+            int previousLng = WorkoutTrace.NO_POSITION;
+            while (time.hasNext()) {
+                long timeMillis = time.next();
+                int latE7 = (int) lat.next();
+                int lngE7 = (int) lng.next();
+                int cadenceTenths = (int) cadence.next();
+                if (latE7 == WorkoutTrace.NO_POSITION || (latE7 == previousLat && lngE7 == previousLng)) {
+                    continue;
+                }
+                previousLat = latE7;
+                previousLng = lngE7;
+                consumer.onFix(timeMillis, latE7, lngE7, cadenceTenths);
+            }
+        }
+    }
+
+    /**
+     * Writes degrees * 10^7 as a decimal number with 7 fractional digits, without going through a double.
+     */
+    private static void writeE7(Writer out, int valueE7) throws IOException {
+        long value = valueE7;
+        if (value < 0) {
+            out.write('-');
+            value = -value;
+        }
+        out.write(Long.toString(value / 10_000_000L));
+        out.write('.');
+        long fraction = value % 10_000_000L;
+        for (long divisor = 1_000_000L; divisor > 0; divisor /= 10) {
+            out.write((char) ('0' + (fraction / divisor) % 10));
+        }
+    }
+
+    private static int strideCadence(int cadenceTenths) {
+        return Math.max(0, Math.round(cadenceTenths / 20f));
+    }
+
+    private static int fitTime(long wallMillis) {
+        return (int) (wallMillis / 1000 - FIT_EPOCH_OFFSET_SECONDS);
+    }
+
+    /**
+     * Converts degrees * 10^7 to FIT semicircles (2^31 semicircles = 180 degrees).
+     */
+    private static int semicircles(int valueE7) {
+        return (int) Math.round(valueE7 * (2147483648.0 / 1_800_000_000.0));
+    }
+
+    private static int definitionSize(int[][] fields) {
+        return 6 + 3 * fields.length;
+    }
+
+    private static int dataSize(int[][] fields) {
+        int size = 1;
+        for (int[] field : fields) {
+            size += field[1];
+        }
+        return size;
+    }
+
+    /**
+     * Little-endian output that keeps the running FIT CRC of everything written.
+     */
+    private static class FitStream {
+        private final OutputStream out;
+        int crc = 0;
+
+        FitStream(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeByte(int b) throws IOException {
+            out.write(b);
+            int tmp = FIT_CRC_TABLE[crc & 0xF];
+            crc = (crc >> 4) & 0x0FFF;
+            crc = crc ^ tmp ^ FIT_CRC_TABLE[b & 0xF];
+            tmp = FIT_CRC_TABLE[crc & 0xF];
+            crc = (crc >> 4) & 0x0FFF;
+            crc = crc ^ tmp ^ FIT_CRC_TABLE[(b >> 4) & 0xF];
+        }
+
+        void writeShort(int value) throws IOException {
+            writeByte(value & 0xFF);
+            writeByte((value >> 8) & 0xFF);
+        }
+
+        void writeInt(int value) throws IOException {
+            writeShort(value & 0xFFFF);
+            writeShort((value >>> 16) & 0xFFFF);
+        }
+
+        void writeDefinition(int localType, int globalMessage, int[][] fields) throws IOException {
+            writeByte(0x40 | localType);
+            writeByte(0); // reserved
+            writeByte(0); // little-endian
+            writeShort(globalMessage);
+            writeByte(fields.length);
+            for (int[] field : fields) {
+                writeByte(field[0]);
+                writeByte(field[1]);
+                writeByte(field[2]);
+            }
+        }
+    }
+}
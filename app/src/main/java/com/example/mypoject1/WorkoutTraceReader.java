@@ -0,0 +1,256 @@
+package com.example.mypoject1;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * WorkoutTraceReader
+ * <p>
+ * Reads a {@link WorkoutTrace} directly from a {@link ByteBuffer}, typically a read-only memory map of
+ * the trace file. Opening a trace only parses the header and the column directory; values are decoded
+ * lazily, one column at a time, through a {@link ColumnCursor}. Uncompressed columns are decoded in
+ * place from the buffer; compressed columns are inflated in small chunks as the cursor advances. No
+ * row objects are ever created, so an analysis or an export that needs two columns never touches the
+ * other four.
+ * </p>
+ *
+ * <p>
+ * The reader itself is immutable and may be shared between threads; each cursor belongs to one thread.
+ * </p>
+ */
+public class WorkoutTraceReader {
+
+    private final ByteBuffer buffer;
+    private final long startWallMillis;
+    private final int rowCount;
+    private final int[] encodings = new int[WorkoutTrace.COLUMN_COUNT];
+    private final int[] decodedLengths = new int[WorkoutTrace.COLUMN_COUNT];
+    private final int[] storedLengths = new int[WorkoutTrace.COLUMN_COUNT];
+    // Offset of each column's data, -1 for columns the trace does not contain
+    private final int[] offsets = new int[WorkoutTrace.COLUMN_COUNT];
+
+    /**
+     * Sequential reader over the values of one column.
+     */
+    public static class ColumnCursor implements Closeable {
+        // Chunk size used when inflating compressed columns
+        private static final int CHUNK_SIZE = 512;
+
+        private final ByteBuffer source;
+        private final Inflater inflater;
+        private final byte[] input;
+        private final byte[] output;
+        private int outputPosition = 0;
+        private int outputLength = 0;
+        private int remaining;
+        private long value = 0;
+
+        private ColumnCursor(ByteBuffer source, boolean compressed, int rows) {
+            this.source = source;
+            this.remaining = rows;
+            if (compressed) {
+                inflater = new Inflater();
+                input = new byte[CHUNK_SIZE];
+                output = new byte[CHUNK_SIZE];
+            } else {
+                inflater = null;
+                input = null;
+                output = null;
+            }
+        }
+
+        /**
+         * Returns true if there are more values.
+         */
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        /**
+         * Returns the next value of the column.
+         *
+         * @throws IllegalStateException If the column has no more values or its data is corrupt.
+         */
+        public long next() {
+            if (remaining <= 0) {
+                throw new IllegalStateException("No more values");
+            }
+            long encoded = 0;
+            int shift = 0;
+            while (true) {
+                int b = readByte();
+                encoded |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+                shift += 7;
+            }
+            remaining--;
+            value += WorkoutTrace.zigzagDecode(encoded);
+            return value;
+        }
+
+        /**
+         * Releases the inflater of a compressed column.
+         */
+        @Override
+        public void close() {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+
+        private int readByte() {
+            if (inflater == null) {
+                return source.get();
+            }
+            if (outputPosition == outputLength) {
+                fill();
+            }
+            return output[outputPosition++];
+        }
+
+        /**
+         * Inflates the next chunk of a compressed column, feeding the inflater from the buffer.
+         */
+        private void fill() {
+            try {
+                outputPosition = 0;
+                outputLength = 0;
+                while (outputLength == 0) {
+                    if (inflater.needsInput()) {
+                        int n = Math.min(input.length, source.remaining());
+                        if (n == 0) {
+                            throw new IllegalStateException("Truncated trace column");
+                        }
+                        source.get(input, 0, n);
+                        inflater.setInput(input, 0, n);
+                    }
+                    outputLength = inflater.inflate(output);
+                    if (outputLength == 0 && inflater.finished()) {
+                        throw new IllegalStateException("Truncated trace column");
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt trace column", e);
+            }
+        }
+    }
+
+    /**
+     * open
+     * <p>
+     * Maps a trace file read-only and opens it. The mapping stays valid after the file is closed and
+     * is released by the garbage collector.
+     * </p>
+     *
+     * @param file The trace file.
+     * @return The reader.
+     * @throws IOException If the file cannot be mapped or is not a trace.
+     */
+    public static WorkoutTraceReader open(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r");
+             FileChannel channel = in.getChannel()) {
+            return new WorkoutTraceReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Opens a trace held in a buffer (from its current position).
+     *
+     * @throws IOException If the buffer does not hold a supported trace.
+     */
+    public WorkoutTraceReader(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.slice();
+        if (this.buffer.remaining() < WorkoutTrace.HEADER_SIZE || this.buffer.getInt(0) != WorkoutTrace.MAGIC) {
+            throw new IOException("Not a workout trace");
+        }
+        int version = this.buffer.get(4);
+        if (version != WorkoutTrace.VERSION) {
+            throw new IOException("Unsupported workout trace version " + version);
+        }
+        startWallMillis = this.buffer.getLong(5);
+        rowCount = this.buffer.getInt(13);
+        int columnCount = this.buffer.get(17) & 0xFF;
+        if (WorkoutTrace.HEADER_SIZE + columnCount * WorkoutTrace.DIRECTORY_ENTRY_SIZE > this.buffer.limit()) {
+            throw new IOException("Truncated workout trace");
+        }
+        Arrays.fill(offsets, -1);
+        int entry = WorkoutTrace.HEADER_SIZE;
+        for (int i = 0; i < columnCount; i++, entry += WorkoutTrace.DIRECTORY_ENTRY_SIZE) {
+            int id = this.buffer.get(entry) & 0xFF;
+            if (id >= WorkoutTrace.COLUMN_COUNT) {
+                // Column added by a newer writer
+                continue;
+            }
+            encodings[id] = this.buffer.get(entry + 1);
+            decodedLengths[id] = this.buffer.getInt(entry + 2);
+            storedLengths[id] = this.buffer.getInt(entry + 6);
+            offsets[id] = this.buffer.getInt(entry + 10);
+            if (offsets[id] < 0 || (long) offsets[id] + storedLengths[id] > this.buffer.limit()) {
+                throw new IOException("Truncated workout trace");
+            }
+        }
+    }
+
+    /**
+     * Returns the wall clock time of the first row, in milliseconds since the epoch.
+     */
+    public long getStartWallMillis() {
+        return startWallMillis;
+    }
+
+    /**
+     * Returns the number of rows.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns true if the trace contains the given column.
+     */
+    public boolean hasColumn(int column) {
+        return column >= 0 && column < WorkoutTrace.COLUMN_COUNT && offsets[column] >= 0;
+    }
+
+    /**
+     * Returns the number of bytes a column takes in the file.
+     */
+    public int getStoredLength(int column) {
+        return hasColumn(column) ? storedLengths[column] : 0;
+    }
+
+    /**
+     * Returns the number of bytes of a column once decompressed.
+     */
+    public int getDecodedLength(int column) {
+        return hasColumn(column) ? decodedLengths[column] : 0;
+    }
+
+    /**
+     * column
+     * <p>
+     * Returns a cursor over one column, decoding from the underlying buffer without copying it.
+     * </p>
+     *
+     * @param column One of the WorkoutTrace.COLUMN_* ids.
+     * @return A cursor positioned before the first value.
+     * @throws IllegalArgumentException If the trace does not contain the column.
+     */
+    public ColumnCursor column(int column) {
+        if (!hasColumn(column)) {
+            throw new IllegalArgumentException("Column " + column + " not in trace");
+        }
+        ByteBuffer source = buffer.duplicate();
+        source.position(offsets[column]).limit(offsets[column] + storedLengths[column]);
+        return new ColumnCursor(source.slice(), encodings[column] == WorkoutTrace.ENCODING_DEFLATE, rowCount);
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.mypoject1;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * WorkoutTraceWriter
+ * <p>
+ * Collects the rows of a {@link WorkoutTrace} while a workout is recorded and writes the trace file
+ * when it ends. Each column is encoded as delta zigzag varints into its own fixed block of
+ * {@link #BLOCK_SIZE} bytes, so adding a row only appends a few bytes (a 50 Hz accelerometer row
+ * typically costs 5-7 bytes) and never allocates an object. A full block is appended to the column's
+ * spill file in the spill directory, the same way {@link AccelerometerRingBuffer} spills segments, so
+ * memory stays bounded however long the workout is.
+ * </p>
+ *
+ * <p>
+ * On write, each column is deflate-compressed on its own, streaming from its spill file, and the
+ * compressed form is kept only if it is smaller. Writing compresses the whole trace: do it on an I/O
+ * thread, not the sensor thread. {@link #close()} deletes the spill directory.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe; rows must be added from a single thread, and a writer handed to
+ * another thread for writing must no longer be used by the first.
+ * </p>
+ */
+public class WorkoutTraceWriter implements Closeable {
+
+    // Bytes of each column held in memory
+    static final int BLOCK_SIZE = 16 * 1024;
+    // Longest varint of a 64-bit value
+    private static final int MAX_VARINT_BYTES = 10;
+    // Chunk size when reading spill files back
+    private static final int COPY_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * One column: its block of varint bytes, the bytes already spilled and the previous value, the
+     * base for the next delta.
+     */
+    private static class Column {
+        final File spillFile;
+        final byte[] block = new byte[BLOCK_SIZE];
+        int blockLength = 0;
+        long spilledLength = 0;
+        long previous = 0;
+        // Opened on the first spill
+        OutputStream spill;
+
+        Column(File spillFile) {
+            this.spillFile = spillFile;
+        }
+
+        void add(long value) throws IOException {
+            if (blockLength + MAX_VARINT_BYTES > block.length) {
+                spill();
+            }
+            long encoded = WorkoutTrace.zigzagEncode(value - previous);
+            previous = value;
+            while ((encoded & ~0x7FL) != 0) {
+                block[blockLength++] = (byte) ((encoded & 0x7F) | 0x80);
+                encoded >>>= 7;
+            }
+            block[blockLength++] = (byte) encoded;
+        }
+
+        void spill() throws IOException {
+            if (spill == null) {
+                File directory = spillFile.getParentFile();
+                if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+                    throw new IOException("Unable to create " + directory);
+                }
+                spill = new FileOutputStream(spillFile);
+            }
+            spill.write(block, 0, blockLength);
+            spilledLength += blockLength;
+            blockLength = 0;
+        }
+
+        long length() {
+            return spilledLength + blockLength;
+        }
+
+        /**
+         * Copies the column's bytes, spilled and in memory, to a stream.
+         */
+        void copyTo(OutputStream out, byte[] buffer) throws IOException {
+            if (spill != null) {
+                spill.flush();
+                try (InputStream in = new FileInputStream(spillFile)) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                    }
+                }
+            }
+            out.write(block, 0, blockLength);
+        }
+
+        void close() {
+            if (spill != null) {
+                try {
+                    spill.close();
+                } catch (IOException ignored) {
+                    // Deleted next
+                }
+                spill = null;
+            }
+        }
+    }
+
+    private final long startWallMillis;
+    private final File spillDirectory;
+    private final Column[] columns = new Column[WorkoutTrace.COLUMN_COUNT];
+    private int rowCount = 0;
+
+    /**
+     * Creates an empty trace.
+     *
+     * @param startWallMillis Wall clock time of the first row, in milliseconds since the epoch.
+     * @param spillDirectory  Directory for the column spill files, created on the first spill; see
+     *                        {@link WorkoutTrace#getSpillDirectory(File, String)}.
+     */
+    public WorkoutTraceWriter(long startWallMillis, File spillDirectory) {
+        this.startWallMillis = startWallMillis;
+        this.spillDirectory = spillDirectory;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new Column(new File(spillDirectory, i + ".col"));
+        }
+    }
+
+    /**
+     * addRow
+     * <p>
+     * Appends one row. About once per {@link #BLOCK_SIZE} bytes of a column, the column's block is
+     * appended to its spill file.
+     * </p>
+     *
+     * @param timeMillis        Milliseconds since the start of the trace.
+     * @param latE7             Latitude in degrees * 10^7, or {@link WorkoutTrace#NO_POSITION}.
+     * @param lngE7             Longitude in degrees * 10^7, or {@link WorkoutTrace#NO_POSITION}.
+     * @param steps             Steps since the start of the workout.
+     * @param cadenceTenths     Cadence in steps per minute * 10.
+     * @param accelerationMilli Acceleration magnitude in mm/s^2.
+     * @throws IOException If a block cannot be spilled; the writer must not be used afterwards.
+     */
+    public void addRow(long timeMillis, int latE7, int lngE7, int steps, int cadenceTenths, int accelerationMilli)
+            throws IOException {
+        columns[WorkoutTrace.COLUMN_TIME].add(timeMillis);
+        columns[WorkoutTrace.COLUMN_LATITUDE].add(latE7);
+        columns[WorkoutTrace.COLUMN_LONGITUDE].add(lngE7);
+        columns[WorkoutTrace.COLUMN_STEPS].add(steps);
+        columns[WorkoutTrace.COLUMN_CADENCE].add(cadenceTenths);
+        columns[WorkoutTrace.COLUMN_ACCELERATION].add(accelerationMilli);
+        rowCount++;
+    }
+
+    /**
+     * Returns the number of rows added so far.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Writes the trace to a file, creating its directory if needed.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeTo(File file) throws IOException {
+        File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            writeTo(out);
+        }
+    }
+
+    /**
+     * writeTo
+     * <p>
+     * Writes the trace in the {@link WorkoutTrace} format. Every column is first deflated, streaming,
+     * into a file in the spill directory, because the directory needs the stored lengths; the column
+     * data is then copied from there or, if deflating did not make it smaller, from the column itself.
+     * The stream is not closed.
+     * </p>
+     *
+     * @param stream Destination.
+     * @throws IOException If writing fails.
+     */
+    public void writeTo(OutputStream stream) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        File[] compressed = new File[columns.length];
+        long[] storedLengths = new long[columns.length];
+        int[] encodings = new int[columns.length];
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            for (int i = 0; i < columns.length; i++) {
+                Column column = columns[i];
+                if (column.length() > Integer.MAX_VALUE) {
+                    throw new IOException("Trace column too long: " + column.length());
+                }
+                File file = deflate(column, i, deflater, buffer);
+                if (file != null && file.length() < column.length()) {
+                    compressed[i] = file;
+                    storedLengths[i] = file.length();
+                    encodings[i] = WorkoutTrace.ENCODING_DEFLATE;
+                } else {
+                    storedLengths[i] = column.length();
+                    encodings[i] = WorkoutTrace.ENCODING_VARINT;
+                }
+            }
+
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeInt(WorkoutTrace.MAGIC);
+            out.writeByte(WorkoutTrace.VERSION);
+            out.writeLong(startWallMillis);
+            out.writeInt(rowCount);
+            out.writeByte(columns.length);
+            long offset = WorkoutTrace.HEADER_SIZE + columns.length * WorkoutTrace.DIRECTORY_ENTRY_SIZE;
+            for (int i = 0; i < columns.length; i++) {
+                if (offset > Integer.MAX_VALUE) {
+                    throw new IOException("Trace too long");
+                }
+                out.writeByte(i);
+                out.writeByte(encodings[i]);
+                out.writeInt((int) columns[i].length());
+                out.writeInt((int) storedLengths[i]);
+                out.writeInt((int) offset);
+                offset += storedLengths[i];
+            }
+            for (int i = 0; i < columns.length; i++) {
+                if (compressed[i] != null) {
+                    try (InputStream in = new FileInputStream(compressed[i])) {
+                        int read;
+                        while ((read = in.read(buffer)) != -1) {
+                            out.write(buffer, 0, read);
+                        }
+                    }
+                } else {
+                    columns[i].copyTo(out, buffer);
+                }
+            }
+            out.flush();
+        } finally {
+            deflater.end();
+            for (File file : compressed) {
+                if (file != null) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Deflates a column into a file in the spill directory and returns it, or null if an empty column.
+     */
+    private File deflate(Column column, int id, Deflater deflater, byte[] buffer) throws IOException {
+        if (column.length() == 0) {
+            return null;
+        }
+        if (!spillDirectory.isDirectory() && !spillDirectory.mkdirs()) {
+            throw new IOException("Unable to create " + spillDirectory);
+        }
+        File file = new File(spillDirectory, id + ".deflate");
+        deflater.reset();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)), deflater, COPY_BUFFER_SIZE)) {
+            column.copyTo(out, buffer);
+        }
+        return file;
+    }
+
+    /**
+     * Closes the spill files and deletes the spill directory. The trace cannot be written afterwards.
+     */
+    @Override
+    public void close() {
+        for (Column column : columns) {
+            column.close();
+        }
+        WorkoutTrace.deleteDirectory(spillDirectory);
+    }
+}
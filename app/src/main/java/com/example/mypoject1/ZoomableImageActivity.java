@@ -102,6 +102,8 @@ public class ZoomableImageActivity extends AppCompatActivity {
             intent = new Intent(this, ForgotPasswordActivity.class);
         } else if(item.getItemId() == R.id.menu_ChatBot){
             intent = new Intent(this, ChatbotActivity.class);
+        } else if (item.getItemId() == R.id.menu_history) {
+            intent = new Intent(this, WorkoutHistoryActivity.class);
         }
         // If an Intent was created, start the corresponding activity.
         if (intent != null) {
@@ -0,0 +1,113 @@
+package com.example.mypoject1;
+
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link AccelerometerRingBuffer}.
+ */
+public class AccelerometerRingBufferTest {
+
+    private static File spill(String name) throws IOException {
+        File file = File.createTempFile(name, ".bin");
+        file.deleteOnExit();
+        file.delete();
+        return file;
+    }
+
+    /**
+     * Adds samples {@code from} to {@code to - 1}; sample n has timestamp n and x = n / 10.
+     */
+    private static void addSamples(AccelerometerRingBuffer buffer, int from, int to) {
+        for (int n = from; n < to; n++) {
+            buffer.add(n / 10f, 1f, 9.81f, n);
+        }
+    }
+
+    /**
+     * Reads the timestamps of every sample in a spill file, in file order, checking the other fields.
+     */
+    private static List<Long> readTimestamps(File file) throws IOException {
+        List<Long> timestamps = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int count;
+                try {
+                    count = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                assertTrue("empty block", count > 0);
+                for (int i = 0; i < count; i++) {
+                    long t = in.readLong();
+                    assertEquals(t / 10f, in.readFloat(), 0);
+                    assertEquals(1f, in.readFloat(), 0);
+                    assertEquals(9.81f, in.readFloat(), 0);
+                    timestamps.add(t);
+                }
+            }
+        }
+        return timestamps;
+    }
+
+    @Test
+    public void spillFileHoldsEverySampleOnceAcrossFlushesAndWraps() throws IOException {
+        File file = spill("ring");
+        AccelerometerRingBuffer buffer = new AccelerometerRingBuffer(file, 4, 3);
+        // One full segment, then half of the next one flushed
+        addSamples(buffer, 0, 6);
+        buffer.flush();
+        // A second flush without new samples writes nothing
+        buffer.flush();
+        // Completing the flushed segment writes only its remaining half
+        addSamples(buffer, 6, 8);
+        // Past the end of the ring (12 samples) and around again, with a flush inside a segment
+        addSamples(buffer, 8, 15);
+        buffer.flush();
+        addSamples(buffer, 15, 30);
+        buffer.flush();
+        buffer.close();
+
+        List<Long> timestamps = readTimestamps(file);
+        assertEquals(30, timestamps.size());
+        for (int n = 0; n < 30; n++) {
+            assertEquals(n, (long) timestamps.get(n));
+        }
+        assertEquals(30, buffer.getTotalSamples());
+        assertEquals(30, buffer.getSpilledSamples());
+        assertEquals(0, buffer.getFailedSegments());
+    }
+
+    @Test
+    public void gettersReturnSamplesOldestFirstAfterWrapping() {
+        AccelerometerRingBuffer buffer = new AccelerometerRingBuffer(null, 4, 3);
+        addSamples(buffer, 0, 5);
+        assertEquals(5, buffer.size());
+        assertEquals(0, buffer.getTimestamp(0));
+        assertEquals(4, buffer.getTimestamp(4));
+
+        // 23 samples in a ring of 12: the oldest kept is sample 11
+        addSamples(buffer, 5, 23);
+        assertEquals(12, buffer.size());
+        for (int i = 0; i < 12; i++) {
+            assertEquals(11 + i, buffer.getTimestamp(i));
+            assertEquals((11 + i) / 10f, buffer.getX(i), 0);
+        }
+        try {
+            buffer.getTimestamp(12);
+            fail("Index past the newest sample accepted");
+        } catch (IndexOutOfBoundsException expected) {
+            // Expected
+        }
+    }
+}
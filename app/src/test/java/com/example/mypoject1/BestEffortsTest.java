@@ -0,0 +1,128 @@
+package com.example.mypoject1;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link BestEfforts}.
+ */
+public class BestEffortsTest {
+
+    @Test
+    public void constantPaceGivesProportionalTimes() {
+        // 3 m/s for one hour, one point per second: 10.8 km
+        int n = 3601;
+        double[] distance = new double[n];
+        long[] time = new long[n];
+        for (int i = 0; i < n; i++) {
+            distance[i] = i * 3.0;
+            time[i] = i * 1000L;
+        }
+        long[] best = BestEfforts.find(distance, time, n);
+        assertEquals(333_333, best[BestEfforts.indexOf("1k")], 1);
+        assertEquals(536_448, best[BestEfforts.indexOf("1mi")], 1);
+        assertEquals(1_666_667, best[BestEfforts.indexOf("5k")], 1);
+        assertEquals(3_333_333, best[BestEfforts.indexOf("10k")], 1);
+        assertEquals(BestEfforts.NONE, best[BestEfforts.indexOf("half")]);
+        assertEquals(BestEfforts.NONE, best[BestEfforts.indexOf("marathon")]);
+    }
+
+    @Test
+    public void findsFastestSegmentInTheMiddle() {
+        // 2 km at 2.5 m/s, 1 km at 5 m/s, 2 km at 2.5 m/s; sparse points (every 100 m)
+        int n = 51;
+        double[] distance = new double[n];
+        long[] time = new long[n];
+        for (int i = 1; i < n; i++) {
+            distance[i] = i * 100.0;
+            boolean fast = i > 20 && i <= 30;
+            time[i] = time[i - 1] + (fast ? 20_000 : 40_000);
+        }
+        long[] best = BestEfforts.find(distance, time, n);
+        assertEquals(200_000, best[BestEfforts.indexOf("1k")]);
+        assertEquals(BestEfforts.NONE, best[BestEfforts.indexOf("10k")]);
+    }
+
+    @Test
+    public void interpolatesSegmentStartBetweenPoints() {
+        // Points 400 m apart at a steady 4 m/s: 1 km never starts on a point
+        double[] distance = {0, 400, 800, 1200, 1600};
+        long[] time = {0, 100_000, 200_000, 300_000, 400_000};
+        long[] best = BestEfforts.find(distance, time, distance.length);
+        assertEquals(250_000, best[BestEfforts.indexOf("1k")]);
+    }
+
+    @Test
+    public void matchesBruteForceOnRandomSeries() {
+        Random random = new Random(42);
+        int n = 4000;
+        double[] distance = new double[n];
+        long[] time = new long[n];
+        for (int i = 1; i < n; i++) {
+            distance[i] = distance[i - 1] + random.nextDouble() * 8;
+            time[i] = time[i - 1] + 1000 + random.nextInt(2000);
+        }
+        long[] best = BestEfforts.find(distance, time, n);
+        for (int k = 0; k < BestEfforts.DISTANCES_M.length; k++) {
+            assertEquals(bruteForce(distance, time, n, BestEfforts.DISTANCES_M[k]), best[k]);
+        }
+    }
+
+    @Test
+    public void fromRouteMeasuresGreatCircleDistance() {
+        // Due north along a meridian, 0.001 degrees (about 111 m) every 30 s, 30 points: about 3.2 km
+        RouteStore route = new RouteStore();
+        for (int i = 0; i < 30; i++) {
+            route.add(32.0 + i * 0.001, 34.8, 1_700_000_000_000L + i * 30_000L);
+        }
+        long[] best = BestEfforts.fromRoute(route);
+        // 1 km at 111.2 m per 30 s
+        assertEquals(269_800, best[BestEfforts.indexOf("1k")], 500);
+        assertEquals(BestEfforts.NONE, best[BestEfforts.indexOf("5k")]);
+        assertArrayEquals(BestEfforts.empty(), BestEfforts.fromRoute(new RouteStore()));
+    }
+
+    @Test
+    public void fromRouteSkipsGpsJumps() {
+        // Same steady run, but one fix jumps 0.02 degrees (about 2.2 km) east and the next comes back;
+        // the last fix is also delivered twice with the same time
+        RouteStore route = new RouteStore();
+        for (int i = 0; i < 30; i++) {
+            double lng = i == 10 ? 34.82 : 34.8;
+            route.add(32.0 + i * 0.001, lng, 1_700_000_000_000L + i * 30_000L);
+        }
+        route.add(32.029, 34.8, 1_700_000_000_000L + 29 * 30_000L);
+        long[] best = BestEfforts.fromRoute(route);
+        // Without rejection the jump would add 4.4 km in a minute and make a 5k record
+        assertEquals(269_800, best[BestEfforts.indexOf("1k")], 500);
+        assertEquals(BestEfforts.NONE, best[BestEfforts.indexOf("5k")]);
+    }
+
+    /**
+     * Reference implementation: tries every start point, with the same interpolation.
+     */
+    private static long bruteForce(double[] distance, long[] time, int n, double target) {
+        long best = BestEfforts.NONE;
+        for (int j = 1; j < n; j++) {
+            double startDistance = distance[j] - target;
+            if (startDistance < distance[0]) {
+                continue;
+            }
+            for (int i = 0; i < j; i++) {
+                if (distance[i] <= startDistance && distance[i + 1] > startDistance) {
+                    double span = distance[i + 1] - distance[i];
+                    double fraction = (startDistance - distance[i]) / span;
+                    long millis = time[j] - time[i] - Math.round(fraction * (time[i + 1] - time[i]));
+                    if (best == BestEfforts.NONE || millis < best) {
+                        best = millis;
+                    }
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+}
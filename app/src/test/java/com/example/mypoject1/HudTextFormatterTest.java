@@ -0,0 +1,115 @@
+package com.example.mypoject1;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Local unit tests and an allocation benchmark for {@link HudTextFormatter}.
+ */
+public class HudTextFormatterTest {
+
+    @Test
+    public void matchesStringFormatOutput() {
+        HudTextFormatter f = new HudTextFormatter(32, '.');
+        long[] times = {0, 9, 10, 999, 61_010, 3_599_999, 3_600_000, 86_399_990, 360_000_000};
+        for (long t : times) {
+            f.reset().appendStopwatch(t);
+            String expected = String.format(Locale.US, "%02d:%02d:%02d.%02d",
+                    t / 3600000, (t / 60000) % 60, (t / 1000) % 60, (t % 1000) / 10);
+            assertEquals(expected, f.toString());
+
+            f.reset().appendCountdown(t % 3_600_000);
+            long c = t % 3_600_000;
+            assertEquals(String.format(Locale.US, "%02d:%02d:%02d", (c / 1000) / 60, (c / 1000) % 60, (c % 1000) / 10),
+                    f.toString());
+        }
+        double[] distances = {0, 0.004, 0.005, 1.5, 12.345, 42195.999, 1234567.891};
+        for (double d : distances) {
+            f.reset().append("Distance: ").appendFixed(d, 2).append(" m");
+            assertEquals("Distance: " + String.format(Locale.US, "%.2f", d) + " m", f.toString());
+        }
+        f.reset().append("Steps: ").appendLong(1234567);
+        assertEquals("Steps: 1234567", f.toString());
+        f.reset().appendLong(-42);
+        assertEquals("-42", f.toString());
+    }
+
+    @Test
+    public void usesSuppliedDecimalSeparator() {
+        HudTextFormatter f = new HudTextFormatter(8, ',');
+        f.reset().appendFixed(3.14159, 2);
+        assertEquals("3,14", f.toString());
+    }
+
+    @Test
+    public void commitReportsOnlyVisibleChanges() {
+        HudTextFormatter f = new HudTextFormatter(4, '.');
+        assertTrue(f.reset().append("Steps: ").appendLong(10).commit());
+        assertFalse(f.reset().append("Steps: ").appendLong(10).commit());
+        assertTrue(f.reset().append("Steps: ").appendLong(11).commit());
+        assertTrue(f.reset().append("Steps: ").appendLong(1).commit());
+        f.invalidate();
+        assertTrue(f.reset().append("Steps: ").appendLong(1).commit());
+    }
+
+    /**
+     * One million HUD updates (stopwatch, countdown, steps, distance, pace) must not allocate. Measured
+     * with the per-thread allocation counter of HotSpot's ThreadMXBean, looked up reflectively; the
+     * test is skipped on VMs without it.
+     */
+    @Test
+    public void updatesDoNotAllocate() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Method allocatedBytes = null;
+        try {
+            Class<?> hotSpotThreads = Class.forName("com.sun.management.ThreadMXBean");
+            if (hotSpotThreads.isInstance(threads)) {
+                allocatedBytes = hotSpotThreads.getMethod("getThreadAllocatedBytes", long.class);
+            }
+        } catch (ClassNotFoundException e) {
+            // Not a HotSpot VM
+        }
+        assumeTrue("per-thread allocation counter not available", allocatedBytes != null);
+        long threadId = Thread.currentThread().getId();
+        HudTextFormatter stopwatch = new HudTextFormatter(16, '.');
+        HudTextFormatter countdown = new HudTextFormatter(16, '.');
+        HudTextFormatter steps = new HudTextFormatter(24, '.');
+        HudTextFormatter distance = new HudTextFormatter(32, '.');
+        HudTextFormatter pace = new HudTextFormatter(24, '.');
+        int updates = 1_000_000;
+
+        // Warm up so class loading and JIT compilation are not counted
+        runUpdates(stopwatch, countdown, steps, distance, pace, 100_000);
+
+        long before = (Long) allocatedBytes.invoke(threads, threadId);
+        int changes = runUpdates(stopwatch, countdown, steps, distance, pace, updates);
+        long allocated = (Long) allocatedBytes.invoke(threads, threadId) - before;
+
+        assertTrue(changes > updates);
+        // Allow a few hundred bytes for the reflective calls, far below one object per update
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    private static int runUpdates(HudTextFormatter stopwatch, HudTextFormatter countdown, HudTextFormatter steps,
+                                  HudTextFormatter distance, HudTextFormatter pace, int updates) {
+        int changes = 0;
+        for (int i = 0; i < updates; i++) {
+            long millis = i * 16L;
+            if (stopwatch.reset().appendStopwatch(millis).commit()) changes++;
+            if (countdown.reset().appendCountdown(3_600_000 - millis % 3_600_000).commit()) changes++;
+            if (steps.reset().append("Steps: ").appendLong(i / 20).commit()) changes++;
+            if (distance.reset().append("Distance: ").appendFixed(i * 0.04, 2).append(" m").commit()) changes++;
+            long secondsPerKm = 300 + i % 60;
+            if (pace.reset().append("Pace: ").appendLong(secondsPerKm / 60).append(':')
+                    .appendPadded(secondsPerKm % 60, 2).append(" /km").commit()) changes++;
+        }
+        return changes;
+    }
+}
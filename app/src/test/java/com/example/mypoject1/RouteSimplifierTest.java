@@ -0,0 +1,101 @@
+package com.example.mypoject1;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link RouteSimplifier}.
+ */
+public class RouteSimplifierTest {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    /**
+     * Adds a 1 Hz run around a square block with 500 m sides and slight GPS jitter.
+     */
+    private static void addBlockLoops(RouteSimplifier simplifier, int loops) {
+        Random random = new Random(7);
+        double lat = 32.08;
+        double lng = 34.78;
+        double step = 3.0 / METERS_PER_DEGREE; // 3 m per fix
+        double[][] directions = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}};
+        for (int loop = 0; loop < loops; loop++) {
+            for (double[] d : directions) {
+                for (int i = 0; i < 167; i++) {
+                    lat += d[0] * step + random.nextGaussian() * 0.5 / METERS_PER_DEGREE;
+                    lng += d[1] * step + random.nextGaussian() * 0.5 / METERS_PER_DEGREE;
+                    simplifier.add(lat, lng);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void coarserLevelsKeepFewerPoints() {
+        RouteSimplifier simplifier = new RouteSimplifier();
+        addBlockLoops(simplifier, 20);
+        int previous = Integer.MAX_VALUE;
+        for (int level = 0; level < simplifier.getLevelCount(); level++) {
+            int count = simplifier.getPointCount(level);
+            assertTrue("level " + level + " has " + count + " points", count <= previous);
+            previous = count;
+        }
+        // 13,360 raw points around a square collapse to a handful of corners at 32 m tolerance
+        assertTrue(simplifier.getPointCount(2) < 13_360 / 20);
+    }
+
+    @Test
+    public void coarsestLevelDoesNotGrowWithRouteLength() {
+        RouteSimplifier simplifier = new RouteSimplifier();
+        addBlockLoops(simplifier, 100);
+        int coarsest = simplifier.getLevelCount() - 1;
+        // 66,800 points on one 500 m block: the 512 m level needs a few corners, not one point per window
+        assertTrue("coarsest level has " + simplifier.getPointCount(coarsest) + " points",
+                simplifier.getPointCount(coarsest) < 50);
+        assertTrue(simplifier.getPointCount(2) < 100 * 4 * 4);
+    }
+
+    @Test
+    public void outputEndsAtNewestPoint() {
+        RouteSimplifier simplifier = new RouteSimplifier();
+        addBlockLoops(simplifier, 1);
+        simplifier.add(32.1, 34.9);
+        for (int level = 0; level < simplifier.getLevelCount(); level++) {
+            final double[] last = new double[2];
+            simplifier.forEachPoint(level, (lat, lng) -> {
+                last[0] = lat;
+                last[1] = lng;
+            });
+            assertEquals(32.1, last[0], 0);
+            assertEquals(34.9, last[1], 0);
+        }
+    }
+
+    @Test
+    public void levelFollowsZoomAndVertexBudget() {
+        RouteSimplifier simplifier = new RouteSimplifier();
+        addBlockLoops(simplifier, 5);
+        int streetLevel = simplifier.levelFor(18f, 32.08, 10_000);
+        int cityLevel = simplifier.levelFor(12f, 32.08, 10_000);
+        assertEquals(0, streetLevel);
+        assertTrue(cityLevel > streetLevel);
+        // A tiny budget forces a coarser level even at street zoom
+        int budgetLevel = simplifier.levelFor(18f, 32.08, 8);
+        assertTrue(simplifier.getPointCount(budgetLevel) <= 8 || budgetLevel == simplifier.getLevelCount() - 1);
+    }
+
+    @Test
+    public void clearResetsAllLevels() {
+        RouteSimplifier simplifier = new RouteSimplifier();
+        addBlockLoops(simplifier, 1);
+        int version = simplifier.getVersion();
+        simplifier.clear();
+        assertNotEquals(version, simplifier.getVersion());
+        for (int level = 0; level < simplifier.getLevelCount(); level++) {
+            assertEquals(0, simplifier.getPointCount(level));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.mypoject1;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link RouteStore}.
+ */
+public class RouteStoreTest {
+
+    /**
+     * Appends a synthetic 1 Hz run heading north-east from the given origin.
+     */
+    private static void addRun(RouteStore store, int points) {
+        for (int i = 0; i < points; i++) {
+            store.add(32.0853 + i * 0.00002, 34.7818 + i * 0.00001, 1_700_000_000_000L + i * 1000L);
+        }
+    }
+
+    @Test
+    public void cursorReturnsPointsInOrder() {
+        RouteStore store = new RouteStore();
+        // Enough points to span several blocks
+        addRun(store, 5000);
+        assertEquals(5000, store.size());
+
+        RouteStore.Cursor cursor = store.cursor();
+        int i = 0;
+        while (cursor.next()) {
+            assertEquals(32.0853 + i * 0.00002, cursor.getLatitude(), 1e-7);
+            assertEquals(34.7818 + i * 0.00001, cursor.getLongitude(), 1e-7);
+            assertEquals(1_700_000_000_000L + i * 1000L, cursor.getTimeMillis());
+            i++;
+        }
+        assertEquals(5000, i);
+    }
+
+    @Test
+    public void handlesNegativeAndAntimeridianDeltas() {
+        RouteStore store = new RouteStore();
+        store.add(-33.8688, 179.9999999, 0);
+        store.add(-33.8689, -179.9999999, 1000);
+        store.add(89.9, -0.5, 2000);
+
+        RouteStore.Cursor cursor = store.cursor();
+        assertTrue(cursor.next());
+        assertEquals(1_799_999_999, cursor.getLngE7());
+        assertTrue(cursor.next());
+        assertEquals(-1_799_999_999, cursor.getLngE7());
+        assertEquals(-33.8689, cursor.getLatitude(), 1e-7);
+        assertTrue(cursor.next());
+        assertEquals(89.9, cursor.getLatitude(), 1e-7);
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void serializationRoundTripsAndIsCompact() {
+        RouteStore store = new RouteStore();
+        addRun(store, 3600);
+        byte[] bytes = store.toByteArray();
+        // Deltas of a steady 1 Hz run fit in a few bytes per point
+        assertTrue("bytes per point: " + bytes.length / 3600.0, bytes.length < 3600 * 8);
+
+        RouteStore copy = RouteStore.fromByteArray(bytes);
+        assertEquals(store.size(), copy.size());
+        RouteStore.Cursor a = store.cursor();
+        RouteStore.Cursor b = copy.cursor();
+        while (a.next()) {
+            assertTrue(b.next());
+            assertEquals(a.getLatE7(), b.getLatE7());
+            assertEquals(a.getLngE7(), b.getLngE7());
+            assertEquals(a.getTimeMillis(), b.getTimeMillis());
+        }
+        assertFalse(b.next());
+
+        // Appending to the copy continues from the restored delta base
+        copy.add(33.0, 35.0, 1_800_000_000_000L);
+        RouteStore.Cursor c = copy.cursor();
+        double lastLat = 0;
+        while (c.next()) {
+            lastLat = c.getLatitude();
+        }
+        assertEquals(33.0, lastLat, 1e-7);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsForeignData() {
+        RouteStore.fromByteArray(new byte[]{1, 2, 3, 4});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLastPointCutOffInsideBlock() {
+        RouteStore store = new RouteStore();
+        addRun(store, 10);
+        byte[] bytes = store.toByteArray();
+        // Drop the last byte of the final varint but keep its continuation byte, so the point count
+        // still matches and the reader runs past the end into the block's unused bytes
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        truncated[truncated.length - 1] |= (byte) 0x80;
+        RouteStore.fromByteArray(truncated);
+    }
+
+    @Test
+    public void clearKeepsOpenCursorsValid() {
+        RouteStore store = new RouteStore();
+        addRun(store, 10);
+        RouteStore.Cursor cursor = store.cursor();
+        store.clear();
+        addRun(store, 3);
+        int count = 0;
+        while (cursor.next()) {
+            count++;
+        }
+        assertEquals(10, count);
+        assertEquals(3, store.size());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.mypoject1;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SseParser}.
+ */
+public class SseParserTest {
+
+    private final List<String> events = new ArrayList<>();
+    private final SseParser parser = new SseParser(events::add);
+
+    private void feed(String... lines) {
+        for (String line : lines) {
+            parser.feedLine(line);
+        }
+    }
+
+    @Test
+    public void deliversEachEventAtBlankLine() {
+        feed("data: {\"a\":1}", "");
+        assertEquals(1, events.size());
+        feed("data: {\"a\":2}");
+        // Not complete yet
+        assertEquals(1, events.size());
+        feed("");
+        assertEquals("{\"a\":1}", events.get(0));
+        assertEquals("{\"a\":2}", events.get(1));
+    }
+
+    @Test
+    public void joinsMultiLineData() {
+        feed("data: first", "data:second", "", "data:  indented", "");
+        assertEquals("first\nsecond", events.get(0));
+        // Only one space is stripped
+        assertEquals(" indented", events.get(1));
+    }
+
+    @Test
+    public void ignoresCommentsOtherFieldsAndEmptyEvents() {
+        feed(": keep-alive", "", "event: message", "id: 7", "retry: 1000", "", "data: [DONE]", "");
+        assertEquals(1, events.size());
+        assertEquals("[DONE]", events.get(0));
+    }
+
+    @Test
+    public void finishDeliversUnterminatedEvent() {
+        feed("data: tail");
+        parser.finish();
+        parser.finish();
+        assertEquals(1, events.size());
+        assertEquals("tail", events.get(0));
+    }
+
+    @Test
+    public void emptyDataLineIsAnEmptyEvent() {
+        feed("data", "");
+        assertEquals("", events.get(0));
+    }
+}
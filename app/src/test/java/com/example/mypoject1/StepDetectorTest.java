@@ -0,0 +1,119 @@
+package com.example.mypoject1;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests and a JVM benchmark for {@link StepDetector}.
+ * <p>
+ * The input is a synthetic 200 Hz accelerometer stream of a runner: gravity on the z axis plus a
+ * periodic vertical bounce at the step frequency and random noise.
+ * </p>
+ */
+public class StepDetectorTest {
+
+    private static final int SAMPLE_RATE_HZ = 200;
+    private static final long SAMPLE_INTERVAL_NS = 1_000_000_000L / SAMPLE_RATE_HZ;
+
+    /**
+     * Feeds {@code seconds} of synthetic running data at the given cadence into the detector.
+     */
+    private static void feedRun(StepDetector detector, double cadenceSpm, int seconds, long startNs, long seed) {
+        Random random = new Random(seed);
+        double stepHz = cadenceSpm / 60.0;
+        int samples = seconds * SAMPLE_RATE_HZ;
+        for (int i = 0; i < samples; i++) {
+            double t = i / (double) SAMPLE_RATE_HZ;
+            float bounce = (float) (4.0 * Math.sin(2 * Math.PI * stepHz * t));
+            float x = (float) (random.nextGaussian() * 0.3);
+            float y = (float) (random.nextGaussian() * 0.3);
+            float z = 9.81f + bounce + (float) (random.nextGaussian() * 0.3);
+            detector.addSample(x, y, z, startNs + i * SAMPLE_INTERVAL_NS);
+        }
+    }
+
+    @Test
+    public void countsStepsAndCadenceForSteadyRun() {
+        StepDetector detector = new StepDetector();
+        // 60 seconds at 170 steps per minute
+        feedRun(detector, 170, 60, 0, 42);
+        assertEquals(170, detector.getStepCount(), 5);
+        assertEquals(170, detector.getCadence(), 5);
+    }
+
+    @Test
+    public void ignoresStationaryNoise() {
+        StepDetector detector = new StepDetector();
+        Random random = new Random(7);
+        for (int i = 0; i < 30 * SAMPLE_RATE_HZ; i++) {
+            detector.addSample((float) (random.nextGaussian() * 0.1), (float) (random.nextGaussian() * 0.1),
+                    9.81f + (float) (random.nextGaussian() * 0.1), i * SAMPLE_INTERVAL_NS);
+        }
+        assertEquals(0, detector.getStepCount());
+        assertEquals(0, detector.getCadence(), 0);
+    }
+
+    @Test
+    public void resetClearsState() {
+        StepDetector detector = new StepDetector();
+        feedRun(detector, 160, 10, 0, 1);
+        assertTrue(detector.getStepCount() > 0);
+        detector.reset();
+        assertEquals(0, detector.getStepCount());
+        assertEquals(0, detector.getCadence(), 0);
+    }
+
+    @Test
+    public void countsStepsOverAnHour() {
+        float[] zs = hourOfRunning();
+        StepDetector detector = new StepDetector();
+        for (int i = 0; i < zs.length; i++) {
+            detector.addSample(0f, 0f, zs[i], i * SAMPLE_INTERVAL_NS);
+        }
+        assertEquals(2.9 * 3600, detector.getStepCount(), 2.9 * 3600 * 0.02);
+    }
+
+    /**
+     * Benchmark: one hour of 200 Hz input, measured after a warm-up pass. The cost per sample is
+     * printed for comparison; the assertion only checks that the detector keeps up with real time
+     * (a 5 ms budget per sample), which holds even on a loaded CI machine.
+     */
+    @Test
+    public void keepsUpWith200HzInput() {
+        float[] zs = hourOfRunning();
+
+        // Warm up the JIT before measuring
+        StepDetector warmup = new StepDetector();
+        for (int i = 0; i < zs.length; i++) {
+            warmup.addSample(0f, 0f, zs[i], i * SAMPLE_INTERVAL_NS);
+        }
+
+        StepDetector detector = new StepDetector();
+        long start = System.nanoTime();
+        for (int i = 0; i < zs.length; i++) {
+            detector.addSample(0f, 0f, zs[i], i * SAMPLE_INTERVAL_NS);
+        }
+        long elapsedNs = System.nanoTime() - start;
+
+        double nsPerSample = elapsedNs / (double) zs.length;
+        System.out.println("StepDetector: " + Math.round(nsPerSample) + " ns/sample");
+        assertTrue("slower than real time: " + nsPerSample + " ns/sample", nsPerSample < SAMPLE_INTERVAL_NS);
+    }
+
+    /**
+     * One hour of vertical acceleration at 2.9 steps per second with noise.
+     */
+    private static float[] hourOfRunning() {
+        int samples = 3600 * SAMPLE_RATE_HZ;
+        float[] zs = new float[samples];
+        Random random = new Random(3);
+        for (int i = 0; i < samples; i++) {
+            zs[i] = 9.81f + (float) (4.0 * Math.sin(2 * Math.PI * 2.9 * i / SAMPLE_RATE_HZ)
+                    + random.nextGaussian() * 0.3);
+        }
+        return zs;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.mypoject1;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link WorkoutAnalytics}.
+ */
+public class WorkoutAnalyticsTest {
+
+    /**
+     * Feeds one sample per second at a constant speed, starting at the given time and distance.
+     */
+    private static void run(WorkoutAnalytics analytics, long startMillis, double startMeters,
+                            int seconds, double metersPerSecond, double cadence) {
+        for (int i = 1; i <= seconds; i++) {
+            analytics.addSample(startMillis + i * 1000L, startMeters + i * metersPerSecond, cadence);
+        }
+    }
+
+    @Test
+    public void constantSpeedGivesEqualKmSplits() {
+        WorkoutAnalytics analytics = new WorkoutAnalytics();
+        analytics.addSample(0, 0, 0);
+        // 2.5 m/s for 1000 s: 2.5 km, two full kilometers of 400 s each
+        run(analytics, 0, 0, 1000, 2.5, 160);
+        WorkoutAnalytics.Summary summary = analytics.summarize();
+        assertArrayEquals(new long[]{400_000, 400_000}, summary.getKmSplitMillis());
+        assertEquals(1, summary.getMileSplitMillis().length);
+        assertEquals(Math.round(1609.344 / 2.5 * 1000), summary.getMileSplitMillis()[0]);
+        assertEquals(2500, summary.getDistanceMeters(), 1e-9);
+        assertEquals(1_000_000, summary.getElapsedMillis());
+        assertEquals(2.5, summary.getMaxSpeed(), 1e-9);
+    }
+
+    @Test
+    public void stopsCountAsElapsedButNotMoving() {
+        WorkoutAnalytics analytics = new WorkoutAnalytics();
+        analytics.addSample(0, 0, 0);
+        run(analytics, 0, 0, 100, 3, 170);
+        // Two minutes standing still, then another 100 s
+        analytics.addSample(220_000, 300, 0);
+        run(analytics, 220_000, 300, 100, 3, 170);
+        WorkoutAnalytics.Summary summary = analytics.summarize();
+        assertEquals(320_000, summary.getElapsedMillis());
+        assertEquals(200_000, summary.getMovingMillis());
+        assertEquals(3.0, summary.getAverageMovingSpeed(), 1e-9);
+    }
+
+    @Test
+    public void driftWhileStoppedIsNotAverageSpeed() {
+        WorkoutAnalytics analytics = new WorkoutAnalytics();
+        analytics.addSample(0, 0, 0);
+        run(analytics, 0, 0, 100, 3, 170);
+        // Two minutes at a crossing, drifting 0.2 m/s: not moving, but still distance
+        run(analytics, 100_000, 300, 120, 0.2, 0);
+        WorkoutAnalytics.Summary summary = analytics.summarize();
+        assertEquals(100_000, summary.getMovingMillis());
+        assertEquals(324, summary.getDistanceMeters(), 1e-6);
+        assertEquals(300, summary.getMovingDistanceMeters(), 1e-6);
+        assertEquals(3.0, summary.getAverageMovingSpeed(), 1e-9);
+    }
+
+    @Test
+    public void distanceBeforeFirstSampleIsNotCounted() {
+        WorkoutAnalytics analytics = new WorkoutAnalytics();
+        analytics.addSample(5_000, 120, 0);
+        run(analytics, 5_000, 120, 10, 2, 150);
+        assertEquals(20, analytics.summarize().getDistanceMeters(), 1e-9);
+    }
+
+    @Test
+    public void rollingPaceFollowsRecentSpeed() {
+        WorkoutAnalytics analytics = new WorkoutAnalytics();
+        analytics.addSample(0, 0, 0);
+        // 2 m/s (500 s/km), then 4 m/s (250 s/km) for longer than the window
+        run(analytics, 0, 0, 120, 2, 150);
+        run(analytics, 120_000, 240, 60, 4, 180);
+        assertEquals(250, analytics.getRollingPaceSecondsPerKm(180_000));
+        // No samples for longer than the window: pace unknown
+        assertEquals(0, analytics.getRollingPaceSecondsPerKm(180_000 + WorkoutAnalytics.ROLLING_WINDOW_MS + 1));
+    }
+
+    @Test
+    public void maxSpeedIgnoresShortBursts() {
+        WorkoutAnalytics analytics = new WorkoutAnalytics();
+        analytics.addSample(0, 0, 0);
+        run(analytics, 0, 0, 60, 2, 150);
+        // A batch of steps delivered at once: 20 m in one second
+        analytics.addSample(61_000, 140, 150);
+        run(analytics, 61_000, 140, 60, 2, 150);
+        double maxSpeed = analytics.summarize().getMaxSpeed();
+        assertTrue(maxSpeed < 4.0);
+        assertTrue(maxSpeed > 2.0);
+    }
+
+    @Test
+    public void cadenceDistributionCountsMovingTime() {
+        WorkoutAnalytics analytics = new WorkoutAnalytics();
+        analytics.addSample(0, 0, 0);
+        run(analytics, 0, 0, 30, 2.5, 165);
+        run(analytics, 30_000, 75, 10, 2.5, 400);
+        // Standing still does not count
+        analytics.addSample(100_000, 100, 0);
+        long[] cadence = analytics.summarize().getCadenceMillis();
+        assertEquals(WorkoutAnalytics.CADENCE_BUCKETS, cadence.length);
+        assertEquals(30_000, cadence[16]);
+        assertEquals(10_000, cadence[WorkoutAnalytics.CADENCE_BUCKETS - 1]);
+        assertEquals(0, cadence[0]);
+    }
+
+    @Test
+    public void outOfOrderSamplesAreIgnored() {
+        WorkoutAnalytics analytics = new WorkoutAnalytics();
+        analytics.addSample(0, 0, 0);
+        analytics.addSample(10_000, 30, 160);
+        analytics.addSample(5_000, 10, 160);
+        WorkoutAnalytics.Summary summary = analytics.summarize();
+        assertEquals(10_000, summary.getElapsedMillis());
+        assertEquals(30, summary.getDistanceMeters(), 1e-9);
+    }
+
+    @Test
+    public void samplesAfterFinishAreIgnored() {
+        WorkoutAnalytics analytics = new WorkoutAnalytics();
+        analytics.addSample(0, 0, 0);
+        analytics.finish(60_000, 150, 160);
+        analytics.addSample(70_000, 180, 160);
+        WorkoutAnalytics.Summary summary = analytics.summarize();
+        assertEquals(60_000, summary.getElapsedMillis());
+        assertEquals(150, summary.getDistanceMeters(), 1e-9);
+    }
+}
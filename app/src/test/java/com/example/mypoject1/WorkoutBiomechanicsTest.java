@@ -0,0 +1,132 @@
+package com.example.mypoject1;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link WorkoutBiomechanics}.
+ */
+public class WorkoutBiomechanicsTest {
+
+    private static final long SECOND_NS = 1_000_000_000L;
+    private static final int RATE_HZ = 50;
+
+    /**
+     * Records {@code seconds} of samples: gravity on z plus, while running, a sinusoid of the given
+     * amplitude at the step frequency.
+     */
+    private static long record(AccelerometerRingBuffer buffer, long startNs, int seconds, double stepHz, double amplitude) {
+        return record(buffer, startNs, seconds, stepHz, amplitude, RATE_HZ);
+    }
+
+    private static long record(AccelerometerRingBuffer buffer, long startNs, int seconds, double stepHz, double amplitude,
+                               int rateHz) {
+        long periodNs = SECOND_NS / rateHz;
+        int count = seconds * rateHz;
+        for (int i = 0; i < count; i++) {
+            long t = startNs + i * periodNs;
+            double dynamic = amplitude * Math.sin(2 * Math.PI * stepHz * t / 1e9);
+            buffer.add(0.3f, 0.2f, (float) (WorkoutBiomechanics.GRAVITY + dynamic), t);
+        }
+        return startNs + count * periodNs;
+    }
+
+    private static File spill(String name) throws IOException {
+        File file = File.createTempFile(name, ".bin");
+        file.deleteOnExit();
+        file.delete();
+        return file;
+    }
+
+    @Test
+    public void steadyRunGivesCadenceOscillationAndImpacts() throws IOException {
+        File file = spill("steady");
+        AccelerometerRingBuffer buffer = new AccelerometerRingBuffer(file, 256, 4);
+        // 10 minutes at 2.7 steps/s (162 spm), 6 m/s^2 dynamic amplitude
+        long end = record(buffer, 0, 600, 2.7, 6);
+        buffer.flush();
+        buffer.close();
+
+        WorkoutBiomechanics.Result result = WorkoutBiomechanics.analyze(file, 0, end, new ForkJoinPool(4));
+        assertEquals(60, result.getActiveWindows());
+        assertEquals(162, result.getCadenceMean(), 2);
+        assertTrue(result.getStepIntervalCv() < 10);
+        // 2 * 6 / (2 pi 2.7)^2 = 4.2 cm
+        assertEquals(4.2, result.getVerticalOscillationCm(), 0.4);
+        double peakG = (WorkoutBiomechanics.GRAVITY + 6) / WorkoutBiomechanics.GRAVITY;
+        assertEquals(peakG, result.getImpactMeanG(), 0.05);
+        assertTrue(result.getImpactMaxG() <= peakG + 0.01);
+        assertTrue(result.getImpactP95G() <= result.getImpactMaxG());
+    }
+
+    @Test
+    public void standingStillIsNotCounted() throws IOException {
+        File file = spill("stops");
+        AccelerometerRingBuffer buffer = new AccelerometerRingBuffer(file, 100, 2);
+        long t = record(buffer, 0, 60, 0, 0);
+        t = record(buffer, t, 120, 2.5, 6);
+        long end = record(buffer, t, 60, 0, 0);
+        buffer.flush();
+        buffer.close();
+
+        WorkoutBiomechanics.Result result = WorkoutBiomechanics.analyze(file, 0, end, new ForkJoinPool(2));
+        assertEquals(12, result.getActiveWindows(), 1);
+        assertEquals(150, result.getCadenceMean(), 2);
+    }
+
+    @Test
+    public void onlySamplesInTheWorkoutRangeAreAnalyzed() throws IOException {
+        File file = spill("range");
+        AccelerometerRingBuffer buffer = new AccelerometerRingBuffer(file, 128, 2);
+        long end = record(buffer, 0, 300, 2.7, 6);
+        buffer.flush();
+        buffer.close();
+
+        WorkoutBiomechanics.Result result = WorkoutBiomechanics.analyze(file, 100 * SECOND_NS, 200 * SECOND_NS, new ForkJoinPool(2));
+        assertEquals(10, result.getActiveWindows());
+        assertEquals(0, WorkoutBiomechanics.analyze(file, end, end + 60 * SECOND_NS, new ForkJoinPool(2)).getActiveWindows());
+    }
+
+    @Test
+    public void parallelismDoesNotChangeTheResult() throws IOException {
+        File file = spill("parallel");
+        AccelerometerRingBuffer buffer = new AccelerometerRingBuffer(file, 333, 3);
+        long t = record(buffer, 0, 200, 2.6, 5);
+        long end = record(buffer, t, 200, 2.9, 8);
+        buffer.flush();
+        buffer.close();
+
+        WorkoutBiomechanics.Result single = WorkoutBiomechanics.analyze(file, 0, end, new ForkJoinPool(1));
+        WorkoutBiomechanics.Result parallel = WorkoutBiomechanics.analyze(file, 0, end, new ForkJoinPool(8));
+        assertEquals(single.getActiveWindows(), parallel.getActiveWindows());
+        assertEquals(single.getSteps(), parallel.getSteps());
+        assertEquals(single.getCadenceMean(), parallel.getCadenceMean(), 1e-9);
+        assertEquals(single.getCadenceStd(), parallel.getCadenceStd(), 1e-9);
+        assertEquals(single.getImpactP95G(), parallel.getImpactP95G(), 1e-9);
+        // Two paces: the cadence varies between windows
+        assertTrue(parallel.getCadenceStd() > 5);
+    }
+
+    @Test
+    public void slowSamplingGivesNoResult() throws IOException {
+        File file = spill("slow");
+        AccelerometerRingBuffer buffer = new AccelerometerRingBuffer(file, 64, 2);
+        // The default sensor rate (about 5 Hz) cannot resolve footstrikes 370 ms apart
+        long end = record(buffer, 0, 300, 2.7, 6, 5);
+        buffer.flush();
+        buffer.close();
+        assertNull(WorkoutBiomechanics.analyze(file, 0, end, new ForkJoinPool(2)));
+    }
+
+    @Test
+    public void emptyFileGivesNoResult() throws IOException {
+        File file = spill("empty");
+        assertTrue(file.createNewFile());
+        assertEquals(0, WorkoutBiomechanics.analyze(file, 0, SECOND_NS, new ForkJoinPool(1)).getActiveWindows());
+    }
+}
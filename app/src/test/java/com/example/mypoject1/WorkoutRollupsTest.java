@@ -0,0 +1,56 @@
+package com.example.mypoject1;
+
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link WorkoutRollups}.
+ */
+public class WorkoutRollupsTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Jerusalem");
+
+    private static long millis(int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZONE).toInstant().toEpochMilli();
+    }
+
+    @Test
+    public void weekRunsFromMondayToMonday() {
+        // Sunday evening belongs to the week that started on the previous Monday
+        WorkoutRollups.Period week = WorkoutRollups.week(millis(2026, 10, 18, 21, 30), ZONE);
+        assertEquals("week-2026-W42", week.id);
+        assertEquals(WorkoutRollups.TYPE_WEEK, week.type);
+        assertEquals(millis(2026, 10, 12, 0, 0), week.startMillis);
+        assertEquals(millis(2026, 10, 19, 0, 0), week.endMillis);
+    }
+
+    @Test
+    public void weekUsesIsoWeekBasedYear() {
+        // January 1st 2027 is a Friday, so it falls in the last ISO week of 2026
+        assertEquals("week-2026-W53", WorkoutRollups.week(millis(2027, 1, 1, 8, 0), ZONE).id);
+        // December 29th 2025 is a Monday in week 1 of 2026
+        assertEquals("week-2026-W01", WorkoutRollups.week(millis(2025, 12, 29, 8, 0), ZONE).id);
+    }
+
+    @Test
+    public void monthCoversCalendarMonth() {
+        WorkoutRollups.Period month = WorkoutRollups.month(millis(2026, 2, 28, 23, 59), ZONE);
+        assertEquals("month-2026-02", month.id);
+        assertEquals(millis(2026, 2, 1, 0, 0), month.startMillis);
+        assertEquals(millis(2026, 3, 1, 0, 0), month.endMillis);
+    }
+
+    @Test
+    public void periodsOfIncludesTotal() {
+        WorkoutRollups.Period[] periods = WorkoutRollups.periodsOf(millis(2026, 10, 17, 7, 0), ZONE);
+        assertEquals(3, periods.length);
+        assertEquals("week-2026-W42", periods[0].id);
+        assertEquals("month-2026-10", periods[1].id);
+        assertEquals(WorkoutRollups.TOTAL_ID, periods[2].id);
+        assertTrue(periods[2].startMillis <= millis(2026, 10, 17, 7, 0));
+    }
+}
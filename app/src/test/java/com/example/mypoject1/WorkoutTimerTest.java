@@ -0,0 +1,80 @@
+package com.example.mypoject1;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link WorkoutTimer}.
+ */
+public class WorkoutTimerTest {
+
+    // Fake monotonic clock, in milliseconds
+    private long now = 1_000_000;
+
+    private WorkoutTimer timer() {
+        return new WorkoutTimer(() -> now);
+    }
+
+    @Test
+    public void stopwatchCountsOnlyWhileRunning() {
+        WorkoutTimer timer = timer();
+        timer.start();
+        now += 1_500;
+        timer.pause();
+        now += 60_000;
+        assertEquals(1_500, timer.getElapsedMillis());
+        timer.start();
+        now += 500;
+        assertEquals(2_000, timer.getElapsedMillis());
+        // Starting twice does not restart the running segment
+        timer.start();
+        now += 500;
+        assertEquals(2_500, timer.getElapsedMillis());
+    }
+
+    @Test
+    public void countdownRemainingSurvivesPauseAndResume() {
+        WorkoutTimer timer = timer();
+        timer.setDuration(10_000);
+        assertEquals(10_000, timer.getRemainingMillis());
+        timer.start();
+        now += 3_000;
+        assertEquals(7_000, timer.getRemainingMillis());
+        timer.pause();
+        now += 120_000;
+        assertEquals(7_000, timer.getRemainingMillis());
+        timer.start();
+        now += 6_999;
+        assertEquals(1, timer.getRemainingMillis());
+        now += 1;
+        assertEquals(0, timer.getRemainingMillis());
+    }
+
+    @Test
+    public void remainingIsNeverNegative() {
+        WorkoutTimer timer = timer();
+        timer.setDuration(5_000);
+        timer.start();
+        // A late alarm or a long sleep overshoots the deadline
+        now += 90_000;
+        assertEquals(0, timer.getRemainingMillis());
+        assertEquals(90_000, timer.getElapsedMillis());
+    }
+
+    @Test
+    public void durationIsIgnoredWhileRunningAndClearedByReset() {
+        WorkoutTimer timer = timer();
+        timer.setDuration(10_000);
+        timer.start();
+        now += 2_000;
+        timer.setDuration(60_000);
+        assertEquals(8_000, timer.getRemainingMillis());
+        timer.reset();
+        assertFalse(timer.isRunning());
+        assertEquals(0, timer.getElapsedMillis());
+        assertEquals(0, timer.getRemainingMillis());
+        timer.setDuration(-1);
+        assertEquals(0, timer.getRemainingMillis());
+    }
+}
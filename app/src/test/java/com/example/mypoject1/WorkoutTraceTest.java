@@ -0,0 +1,180 @@
+package com.example.mypoject1;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link WorkoutTraceWriter}, {@link WorkoutTraceReader} and
+ * {@link WorkoutTraceExporter}.
+ */
+public class WorkoutTraceTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    /**
+     * Builds a synthetic 50 Hz trace with a new GPS fix every second, starting without a fix.
+     */
+    private static WorkoutTraceReader buildTrace(int rows) throws IOException {
+        File spillDirectory = new File(Files.createTempDirectory("trace").toFile(), "workout.parts");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (WorkoutTraceWriter writer = new WorkoutTraceWriter(START, spillDirectory)) {
+            for (int i = 0; i < rows; i++) {
+                int fix = i / 50;
+                int lat = fix == 0 ? WorkoutTrace.NO_POSITION : 320_853_000 + fix * 200;
+                int lng = fix == 0 ? WorkoutTrace.NO_POSITION : -1_181_234_000 + fix * 100;
+                writer.addRow(i * 20L, lat, lng, i / 30, 1600 + (i % 7), 9810 + (i % 400) - 200);
+            }
+            writer.writeTo(out);
+        }
+        assertFalse(spillDirectory.exists());
+        return new WorkoutTraceReader(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    @Test
+    public void columnsRoundTrip() throws IOException {
+        WorkoutTraceReader trace = buildTrace(10_000);
+        assertEquals(START, trace.getStartWallMillis());
+        assertEquals(10_000, trace.getRowCount());
+
+        try (WorkoutTraceReader.ColumnCursor time = trace.column(WorkoutTrace.COLUMN_TIME);
+             WorkoutTraceReader.ColumnCursor lat = trace.column(WorkoutTrace.COLUMN_LATITUDE);
+             WorkoutTraceReader.ColumnCursor steps = trace.column(WorkoutTrace.COLUMN_STEPS);
+             WorkoutTraceReader.ColumnCursor acceleration = trace.column(WorkoutTrace.COLUMN_ACCELERATION)) {
+            for (int i = 0; i < 10_000; i++) {
+                assertTrue(time.hasNext());
+                assertEquals(i * 20L, time.next());
+                assertEquals(i < 50 ? WorkoutTrace.NO_POSITION : 320_853_000 + (i / 50) * 200, lat.next());
+                assertEquals(i / 30, steps.next());
+                assertEquals(9810 + (i % 400) - 200, acceleration.next());
+            }
+            assertFalse(time.hasNext());
+        }
+    }
+
+    @Test
+    public void longTracesSpillBlocksToDisk() throws IOException {
+        File spillDirectory = new File(Files.createTempDirectory("trace").toFile(), "long.parts");
+        int rows = 200_000;
+        try (WorkoutTraceWriter writer = new WorkoutTraceWriter(START, spillDirectory)) {
+            for (int i = 0; i < rows; i++) {
+                writer.addRow(i * 20L, 320_853_000 + i, -1_181_234_000 - i, i / 30, 1600, 9810 + (i * 37) % 4000);
+            }
+            // Every column has outgrown its in-memory block
+            File acceleration = new File(spillDirectory, WorkoutTrace.COLUMN_ACCELERATION + ".col");
+            assertTrue(acceleration.length() >= 4L * WorkoutTraceWriter.BLOCK_SIZE);
+
+            File file = new File(spillDirectory.getParentFile(), "long.trace");
+            writer.writeTo(file);
+            WorkoutTraceReader trace = WorkoutTraceReader.open(file);
+            assertEquals(rows, trace.getRowCount());
+            try (WorkoutTraceReader.ColumnCursor time = trace.column(WorkoutTrace.COLUMN_TIME);
+                 WorkoutTraceReader.ColumnCursor values = trace.column(WorkoutTrace.COLUMN_ACCELERATION)) {
+                for (int i = 0; i < rows; i++) {
+                    assertEquals(i * 20L, time.next());
+                    assertEquals(9810 + (i * 37) % 4000, values.next());
+                }
+            }
+        }
+        assertFalse(spillDirectory.exists());
+    }
+
+    @Test
+    public void oldTracesAndStaleSpillsAreDeleted() throws IOException {
+        File directory = Files.createTempDirectory("traces").toFile();
+        for (int i = 0; i < 5; i++) {
+            File trace = new File(directory, "w" + i + ".trace");
+            assertTrue(trace.createNewFile());
+            assertTrue(trace.setLastModified(START + i * 1000L));
+        }
+        File stale = new File(directory, "stale.parts");
+        File active = new File(directory, "active.parts");
+        assertTrue(stale.mkdir() && active.mkdir());
+        File staleColumn = new File(stale, "0.col");
+        assertTrue(staleColumn.createNewFile());
+        long now = START + WorkoutTrace.STALE_SPILL_MILLIS + 10_000;
+        assertTrue(staleColumn.setLastModified(START) && stale.setLastModified(START));
+        assertTrue(active.setLastModified(now - 1000));
+
+        assertEquals(3, WorkoutTrace.deleteOldTraces(directory, 3, now));
+        assertFalse(new File(directory, "w0.trace").exists());
+        assertFalse(new File(directory, "w1.trace").exists());
+        assertTrue(new File(directory, "w2.trace").exists());
+        assertTrue(new File(directory, "w4.trace").exists());
+        assertFalse(stale.exists());
+        assertTrue(active.exists());
+    }
+
+    @Test
+    public void repetitiveColumnsAreCompressed() throws IOException {
+        WorkoutTraceReader trace = buildTrace(10_000);
+        // Constant 20 ms steps: far below one byte per row once deflated
+        assertTrue(trace.getStoredLength(WorkoutTrace.COLUMN_TIME) < 200);
+        assertEquals(10_000, trace.getDecodedLength(WorkoutTrace.COLUMN_TIME));
+    }
+
+    @Test
+    public void emptyTraceRoundTrips() throws IOException {
+        WorkoutTraceReader trace = buildTrace(0);
+        assertEquals(0, trace.getRowCount());
+        assertFalse(trace.column(WorkoutTrace.COLUMN_CADENCE).hasNext());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherData() throws IOException {
+        new WorkoutTraceReader(ByteBuffer.wrap(new byte[64]));
+    }
+
+    @Test
+    public void gpxHasOnePointPerFix() throws IOException {
+        WorkoutTraceReader trace = buildTrace(500);
+        StringWriter out = new StringWriter();
+        WorkoutTraceExporter.writeGpx(trace, out);
+        String gpx = out.toString();
+        // 10 seconds of rows, the first without a fix
+        assertEquals(9, gpx.split("<trkpt ", -1).length - 1);
+        assertTrue(gpx.contains("<trkpt lat=\"32.0853200\" lon=\"-118.1233900\"><time>2023-11-14T22:13:21.000Z</time>"));
+        // 160 steps per minute = 80 strides per minute
+        assertTrue(gpx.contains("<gpxtpx:cad>80</gpxtpx:cad>"));
+        assertTrue(gpx.endsWith("</gpx>\n"));
+    }
+
+    @Test
+    public void fitSizeAndCrcAreConsistent() throws IOException {
+        WorkoutTraceReader trace = buildTrace(500);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WorkoutTraceExporter.writeFit(trace, out);
+        byte[] fit = out.toByteArray();
+
+        ByteBuffer header = ByteBuffer.wrap(fit).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(14, fit[0]);
+        assertEquals(".FIT", new String(fit, 8, 4, StandardCharsets.US_ASCII));
+        assertEquals(fit.length - 14 - 2, header.getInt(4));
+        // The CRC of a FIT file including its trailing CRC is zero
+        assertEquals(0, fitCrc(fit, 0, fit.length));
+        assertEquals(0, fitCrc(fit, 0, 14));
+    }
+
+    private static int fitCrc(byte[] data, int from, int to) {
+        int[] table = {0x0000, 0xCC01, 0xD801, 0x1400, 0xF001, 0x3C00, 0x2800, 0xE401,
+                0xA001, 0x6C00, 0x7800, 0xB401, 0x5000, 0x9C01, 0x8801, 0x4400};
+        int crc = 0;
+        for (int i = from; i < to; i++) {
+            int b = data[i] & 0xFF;
+            int tmp = table[crc & 0xF];
+            crc = ((crc >> 4) & 0x0FFF) ^ tmp ^ table[b & 0xF];
+            tmp = table[crc & 0xF];
+            crc = ((crc >> 4) & 0x0FFF) ^ tmp ^ table[(b >> 4) & 0xF];
+        }
+        return crc;
+    }
+}
@@ -0,0 +1,10 @@
+plugins {
+    java
+}
+
+// The coach index writer and its analysis, shared with the app (see the coachindex project)
+sourceSets {
+    main {
+        java.srcDir("../coachindex/src/main/java")
+    }
+}
@@ -0,0 +1,14 @@
+// Coach retrieval index: the format, its analysis and ranking, and the writer. Plain Java, so the
+// same sources are also compiled into buildSrc, where the app's compileCoachIndex task uses them.
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
@@ -0,0 +1,291 @@
+package com.example.mypoject1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * CoachIndex
+ * <p>
+ * Read-only view of the coach retrieval index that {@link CoachIndexWriter} builds; the
+ * {@code compileCoachIndex} Gradle task runs it over the JSON files in {@code app/src/main/coachData}
+ * and packages the result as the {@link #ASSET} asset. The index is queried in place: terms are found
+ * by binary search over the raw term bytes, postings and document offsets are read as ints at
+ * computed positions, and only the snippets of the documents a query returns are decoded. Opening it
+ * costs the same whatever the size of the corpus. Ranking is done by {@link CoachSearcher}.
+ * </p>
+ *
+ * <p>
+ * Terms are produced by {@link #tokenize(String)}, for the documents at build time and for queries
+ * here: lowercase words of {@link #MIN_TERM_LENGTH} letters or more, stop words dropped, reduced by
+ * a light suffix-stripping stemmer ({@link #stem(String)}) so that e.g. "runs" and "running" both
+ * match "run".
+ * </p>
+ *
+ * <p>
+ * Layout (big-endian; written by {@link CoachIndexWriter}):
+ * <pre>
+ * header      int magic, version, documentCount, termCount, postingCount,
+ *                 termBytesLength, textBytesLength, totalTokens
+ * int[termCount + 1]      termOffsets      offsets of each term in termBytes
+ * int[termCount + 1]      postingStarts    first posting of each term
+ * int[postingCount * 2]   postings         (document, frequency), by document within a term
+ * int[documentCount + 1]  documentOffsets  offsets of each snippet in textBytes
+ * int[documentCount]      documentLengths  indexed terms of each document
+ * byte[termBytesLength]   termBytes        terms in ascending order, UTF-8
+ * byte[textBytesLength]   textBytes        snippet of each document (its first words), UTF-8
+ * </pre>
+ * </p>
+ *
+ * <p>
+ * Only absolute reads are made on the buffer, so one index can be queried from several threads.
+ * </p>
+ */
+public final class CoachIndex {
+
+    /**
+     * Asset holding the index; stored uncompressed so it can be memory-mapped.
+     */
+    public static final String ASSET = "coach.idx";
+
+    static final int MAGIC = 0x52434958; // "RCIX"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 8 * Integer.BYTES;
+    // Words shorter than this are not indexed
+    static final int MIN_TERM_LENGTH = 3;
+    // Words not indexed
+    static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "about", "after", "again", "all", "also", "and", "any", "are", "because", "been", "before",
+            "being", "both", "but", "can", "could", "did", "does", "each", "few", "for", "from", "had",
+            "has", "have", "her", "him", "his", "how", "into", "its", "just", "may", "more", "most",
+            "not", "only", "other", "our", "out", "over", "should", "some", "such", "than", "that",
+            "the", "their", "them", "then", "there", "these", "they", "this", "those", "under", "very",
+            "was", "were", "what", "when", "where", "which", "while", "who", "why", "will", "with",
+            "would", "you", "your"));
+
+    private final ByteBuffer buffer;
+    private final int documentCount;
+    private final int termCount;
+    private final int totalTokens;
+    // Byte positions of the sections
+    private final int termOffsetsAt;
+    private final int postingStartsAt;
+    private final int postingsAt;
+    private final int documentOffsetsAt;
+    private final int documentLengthsAt;
+    private final int termBytesAt;
+    private final int textBytesAt;
+
+    /**
+     * Wraps an index; the buffer is not copied and its position is not used.
+     *
+     * @throws IOException If the buffer does not hold an index of this version.
+     */
+    public CoachIndex(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a coach index");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported coach index version " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        documentCount = buffer.getInt(8);
+        termCount = buffer.getInt(12);
+        int postingCount = buffer.getInt(16);
+        int termBytesLength = buffer.getInt(20);
+        int textBytesLength = buffer.getInt(24);
+        totalTokens = buffer.getInt(28);
+
+        termOffsetsAt = HEADER_BYTES;
+        postingStartsAt = termOffsetsAt + (termCount + 1) * Integer.BYTES;
+        postingsAt = postingStartsAt + (termCount + 1) * Integer.BYTES;
+        documentOffsetsAt = postingsAt + postingCount * 2 * Integer.BYTES;
+        documentLengthsAt = documentOffsetsAt + (documentCount + 1) * Integer.BYTES;
+        termBytesAt = documentLengthsAt + documentCount * Integer.BYTES;
+        textBytesAt = termBytesAt + termBytesLength;
+        if ((long) textBytesAt + textBytesLength != buffer.capacity()) {
+            throw new IOException("Truncated coach index");
+        }
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    public int getTermCount() {
+        return termCount;
+    }
+
+    /**
+     * Total indexed terms over all documents.
+     */
+    public int getTotalTokens() {
+        return totalTokens;
+    }
+
+    /**
+     * Splits text into index terms the way the documents were split at build time: lowercase, on
+     * non-word characters, dropping words shorter than {@link #MIN_TERM_LENGTH} and stop words, and
+     * stemming the rest.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("\\W+")) {
+            if (word.length() >= MIN_TERM_LENGTH && !STOP_WORDS.contains(word)) {
+                terms.add(stem(word));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * stem
+     * <p>
+     * Strips a plural ("-ies" becomes "-y", "-sses" "-ss", then a final "s" not part of "-ss", "-us"
+     * or "-is") and then an "-ing" or "-ed" ending (not "-eed") when what is left has a vowel and at
+     * least 3 letters, undoubling a final consonant ("running" becomes "run"). Deliberately light:
+     * it never needs a dictionary and rarely merges unrelated words.
+     * </p>
+     *
+     * @param word A lowercase word.
+     * @return The word's stem.
+     */
+    static String stem(String word) {
+        int length = word.length();
+        if (word.endsWith("ies") && length > 4) {
+            return word.substring(0, length - 3) + "y";
+        }
+        if (word.endsWith("sses")) {
+            length -= 2;
+        } else if (length > 3 && word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is")) {
+            length--;
+        }
+        if (word.startsWith("ing", length - 3)) {
+            length = stripSuffix(word, length, 3);
+        } else if (word.startsWith("ed", length - 2) && !word.startsWith("eed", length - 3)) {
+            length = stripSuffix(word, length, 2);
+        }
+        return word.substring(0, length);
+    }
+
+    private static int stripSuffix(String word, int length, int suffix) {
+        int stem = length - suffix;
+        if (stem < 3 || !hasVowel(word, stem)) {
+            return length;
+        }
+        char last = word.charAt(stem - 1);
+        if (last == word.charAt(stem - 2) && !isVowel(last) && last != 'l' && last != 's' && last != 'z') {
+            stem--;
+        }
+        return stem;
+    }
+
+    private static boolean hasVowel(String word, int length) {
+        for (int i = 0; i < length; i++) {
+            if (isVowel(word.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u' || c == 'y';
+    }
+
+    /**
+     * findTerm
+     * <p>
+     * Binary search of the term dictionary, comparing the term's UTF-8 bytes with the indexed bytes
+     * without decoding them.
+     * </p>
+     *
+     * @param term A term as returned by {@link #tokenize(String)}.
+     * @return The term's id, or -1 if it is not in the index.
+     */
+    public int findTerm(String term) {
+        byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareTerm(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int compareTerm(int term, byte[] key) {
+        int start = termBytesAt + intAt(termOffsetsAt, term);
+        int length = termBytesAt + intAt(termOffsetsAt, term + 1) - start;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = (buffer.get(start + i) & 0xFF) - (key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length;
+    }
+
+    /**
+     * Number of documents containing the term.
+     */
+    public int getDocumentFrequency(int term) {
+        return intAt(postingStartsAt, term + 1) - intAt(postingStartsAt, term);
+    }
+
+    /**
+     * First posting of the term; its postings are {@link #getPostingDocument} /
+     * {@link #getPostingFrequency} from here for {@link #getDocumentFrequency} entries.
+     */
+    public int getPostingStart(int term) {
+        return intAt(postingStartsAt, term);
+    }
+
+    public int getPostingDocument(int posting) {
+        return intAt(postingsAt, 2 * posting);
+    }
+
+    /**
+     * Occurrences of the posting's term in its document.
+     */
+    public int getPostingFrequency(int posting) {
+        return intAt(postingsAt, 2 * posting + 1);
+    }
+
+    /**
+     * Indexed terms of the document.
+     */
+    public int getDocumentLength(int document) {
+        return intAt(documentLengthsAt, document);
+    }
+
+    /**
+     * Decodes the snippet of one document: its first words, as compiled into the index.
+     */
+    public String getSnippet(int document) {
+        int start = intAt(documentOffsetsAt, document);
+        byte[] bytes = new byte[intAt(documentOffsetsAt, document + 1) - start];
+        ByteBuffer text = buffer.duplicate();
+        text.position(textBytesAt + start);
+        text.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int intAt(int section, int index) {
+        return buffer.getInt(section + index * Integer.BYTES);
+    }
+}
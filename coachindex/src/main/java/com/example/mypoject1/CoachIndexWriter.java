@@ -0,0 +1,108 @@
+package com.example.mypoject1;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * CoachIndexWriter
+ * <p>
+ * Builds a {@link CoachIndex} from document texts, with the same analysis
+ * ({@link CoachIndex#tokenize(String)}) that queries go through at runtime. The {@code compileCoachIndex}
+ * Gradle task runs it at build time (this source is compiled into buildSrc as well), and the tests
+ * build their indexes with it, so there is one writer for the one reader.
+ * </p>
+ */
+public final class CoachIndexWriter {
+
+    // Words of each document kept as its snippet
+    static final int SNIPPET_WORDS = 100;
+
+    private CoachIndexWriter() {
+    }
+
+    /**
+     * write
+     * <p>
+     * Indexes the documents and returns the index in the layout documented in {@link CoachIndex}.
+     * Documents are visited in order, so each term's postings are sorted by document.
+     * </p>
+     *
+     * @param documents Document texts; a document's id is its position in the list.
+     * @return The index bytes.
+     */
+    public static byte[] write(List<String> documents) {
+        Map<String, Map<Integer, Integer>> postings = new TreeMap<>();
+        int[] lengths = new int[documents.size()];
+        for (int document = 0; document < documents.size(); document++) {
+            for (String term : CoachIndex.tokenize(documents.get(document))) {
+                postings.computeIfAbsent(term, k -> new LinkedHashMap<>()).merge(document, 1, Integer::sum);
+                lengths[document]++;
+            }
+        }
+        // Terms are ASCII, so their string order is their byte order
+        List<byte[]> terms = new ArrayList<>(postings.size());
+        int postingCount = 0;
+        int termBytesLength = 0;
+        for (Map.Entry<String, Map<Integer, Integer>> entry : postings.entrySet()) {
+            byte[] term = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            terms.add(term);
+            termBytesLength += term.length;
+            postingCount += entry.getValue().size();
+        }
+        List<byte[]> snippets = new ArrayList<>(documents.size());
+        int textBytesLength = 0;
+        int totalTokens = 0;
+        for (int document = 0; document < documents.size(); document++) {
+            String[] words = documents.get(document).trim().split("\\s+");
+            String snippet = String.join(" ", Arrays.copyOf(words, Math.min(words.length, SNIPPET_WORDS)));
+            byte[] text = snippet.getBytes(StandardCharsets.UTF_8);
+            snippets.add(text);
+            textBytesLength += text.length;
+            totalTokens += lengths[document];
+        }
+
+        int intCount = 8 + 2 * (terms.size() + 1) + 2 * postingCount + (documents.size() + 1) + documents.size();
+        ByteBuffer buffer = ByteBuffer.allocate(intCount * Integer.BYTES + termBytesLength + textBytesLength);
+        buffer.putInt(CoachIndex.MAGIC).putInt(CoachIndex.VERSION).putInt(documents.size()).putInt(terms.size())
+                .putInt(postingCount).putInt(termBytesLength).putInt(textBytesLength).putInt(totalTokens);
+        int offset = 0;
+        for (byte[] term : terms) {
+            buffer.putInt(offset);
+            offset += term.length;
+        }
+        buffer.putInt(offset);
+        int start = 0;
+        for (Map<Integer, Integer> list : postings.values()) {
+            buffer.putInt(start);
+            start += list.size();
+        }
+        buffer.putInt(start);
+        for (Map<Integer, Integer> list : postings.values()) {
+            for (Map.Entry<Integer, Integer> posting : list.entrySet()) {
+                buffer.putInt(posting.getKey()).putInt(posting.getValue());
+            }
+        }
+        offset = 0;
+        for (byte[] text : snippets) {
+            buffer.putInt(offset);
+            offset += text.length;
+        }
+        buffer.putInt(offset);
+        for (int length : lengths) {
+            buffer.putInt(length);
+        }
+        for (byte[] term : terms) {
+            buffer.put(term);
+        }
+        for (byte[] text : snippets) {
+            buffer.put(text);
+        }
+        return buffer.array();
+    }
+}
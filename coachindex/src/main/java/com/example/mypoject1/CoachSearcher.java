@@ -0,0 +1,148 @@
+package com.example.mypoject1;
+
+/**
+ * CoachSearcher
+ * <p>
+ * Okapi BM25 ranking over a {@link CoachIndex}. Each query term found in the index adds, for every
+ * document in its postings, idf * tf * (k1 + 1) / (tf + k1 * (1 - b + b * length / averageLength)):
+ * rare terms count more than common ones, repeated terms with diminishing returns, and long
+ * documents are not favoured just for being long.
+ * </p>
+ *
+ * <p>
+ * Scores accumulate in a dense float array indexed by document. Only the documents a query touched
+ * are visited afterwards, through a bounded min-heap that keeps the best k, and reset for the next
+ * query. A query therefore costs time in the postings of its terms and log k, not the size of the
+ * corpus, and allocates little beyond its terms and the result; the arrays are reused.
+ * </p>
+ *
+ * <p>
+ * Not thread-safe; use one searcher per thread. The index itself can be shared.
+ * </p>
+ */
+public class CoachSearcher {
+
+    // Term frequency saturation and length normalization
+    static final float K1 = 1.2f;
+    static final float B = 0.75f;
+
+    private final CoachIndex index;
+    private final float averageLength;
+    // Score of each document in the current query; 0 until touched, since BM25 terms are positive
+    private final float[] scores;
+    private final int[] touched;
+    // Min-heap of the best documents so far, the worst at the root
+    private int[] heapDocuments = new int[0];
+    private float[] heapScores = new float[0];
+
+    public CoachSearcher(CoachIndex index) {
+        this.index = index;
+        int documentCount = index.getDocumentCount();
+        averageLength = documentCount > 0 ? (float) index.getTotalTokens() / documentCount : 0;
+        scores = new float[documentCount];
+        touched = new int[documentCount];
+    }
+
+    public CoachIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * search
+     * <p>
+     * Ranks the documents matching any of the query's terms by BM25.
+     * </p>
+     *
+     * @param query Free text; analyzed like the documents ({@link CoachIndex#tokenize(String)}).
+     * @param k     Maximum number of documents returned.
+     * @return The ids of the best documents, highest score first and by document order on ties;
+     * empty if nothing matched.
+     */
+    public int[] search(String query, int k) {
+        if (k <= 0) {
+            return new int[0];
+        }
+        int touchedCount = 0;
+        int documentCount = index.getDocumentCount();
+        for (String word : CoachIndex.tokenize(query)) {
+            int term = index.findTerm(word);
+            if (term < 0) continue;
+            int documentFrequency = index.getDocumentFrequency(term);
+            float idf = (float) Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            int start = index.getPostingStart(term);
+            int end = start + documentFrequency;
+            for (int posting = start; posting < end; posting++) {
+                int document = index.getPostingDocument(posting);
+                float frequency = index.getPostingFrequency(posting);
+                float norm = K1 * (1 - B + B * index.getDocumentLength(document) / averageLength);
+                if (scores[document] == 0) {
+                    touched[touchedCount++] = document;
+                }
+                scores[document] += idf * frequency * (K1 + 1) / (frequency + norm);
+            }
+        }
+
+        if (heapDocuments.length < k) {
+            heapDocuments = new int[k];
+            heapScores = new float[k];
+        }
+        int size = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int document = touched[i];
+            float score = scores[document];
+            scores[document] = 0;
+            if (size < k) {
+                siftUp(size++, document, score);
+            } else if (isWorse(heapScores[0], heapDocuments[0], score, document)) {
+                siftDown(size, document, score);
+            }
+        }
+        // Popping the root repeatedly yields the documents worst first
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = heapDocuments[0];
+            size--;
+            siftDown(size, heapDocuments[size], heapScores[size]);
+        }
+        return result;
+    }
+
+    /**
+     * Whether document a with score a ranks below document b with score b.
+     */
+    private static boolean isWorse(float scoreA, int documentA, float scoreB, int documentB) {
+        return scoreA < scoreB || (scoreA == scoreB && documentA > documentB);
+    }
+
+    private void siftUp(int slot, int document, float score) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (!isWorse(score, document, heapScores[parent], heapDocuments[parent])) break;
+            heapDocuments[slot] = heapDocuments[parent];
+            heapScores[slot] = heapScores[parent];
+            slot = parent;
+        }
+        heapDocuments[slot] = document;
+        heapScores[slot] = score;
+    }
+
+    /**
+     * Puts a document at the root of a heap of the given size and moves it down into place.
+     */
+    private void siftDown(int size, int document, float score) {
+        int slot = 0;
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= size) break;
+            if (child + 1 < size && isWorse(heapScores[child + 1], heapDocuments[child + 1], heapScores[child], heapDocuments[child])) {
+                child++;
+            }
+            if (!isWorse(heapScores[child], heapDocuments[child], score, document)) break;
+            heapDocuments[slot] = heapDocuments[child];
+            heapScores[slot] = heapScores[child];
+            slot = child;
+        }
+        heapDocuments[slot] = document;
+        heapScores[slot] = score;
+    }
+}
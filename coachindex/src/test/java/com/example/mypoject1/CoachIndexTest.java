@@ -0,0 +1,110 @@
+package com.example.mypoject1;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CoachIndex}.
+ */
+public class CoachIndexTest {
+
+    /**
+     * Builds an index with the writer the compileCoachIndex Gradle task uses.
+     */
+    static ByteBuffer build(String... documents) {
+        return ByteBuffer.wrap(CoachIndexWriter.write(Arrays.asList(documents)));
+    }
+
+    private static final String[] DOCUMENTS = {
+            "name: Muesli (Almond)\nprotein: 12.3",
+            "type: Run\ndistance: 10879.7\nname: Morning running",
+            "name: Protein powder\nprotein: 81.65\ntags: protein, supplement",
+            "kind: rest\npulse: 85\ndiet: low fat \u2013 caf\u00e9, with the studies"
+    };
+
+    @Test
+    public void findsTermsByBinarySearch() throws IOException {
+        CoachIndex index = new CoachIndex(build(DOCUMENTS));
+        assertEquals(4, index.getDocumentCount());
+        for (String term : new String[]{"almond", "run", "muesli", "supplement", "caf", "name", "10879", "study"}) {
+            assertTrue(term, index.findTerm(term) >= 0);
+        }
+        assertEquals(-1, index.findTerm("aaa"));
+        assertEquals(-1, index.findTerm("zzz"));
+        assertEquals(-1, index.findTerm("running"));
+        assertEquals(-1, index.findTerm("the"));
+        assertEquals(3, index.getDocumentFrequency(index.findTerm("name")));
+    }
+
+    @Test
+    public void postingsHoldTermFrequencies() throws IOException {
+        CoachIndex index = new CoachIndex(build(DOCUMENTS));
+        int term = index.findTerm("protein");
+        int start = index.getPostingStart(term);
+        assertEquals(2, index.getDocumentFrequency(term));
+        assertEquals(0, index.getPostingDocument(start));
+        assertEquals(1, index.getPostingFrequency(start));
+        assertEquals(2, index.getPostingDocument(start + 1));
+        assertEquals(3, index.getPostingFrequency(start + 1));
+        assertEquals(index.getTotalTokens(), index.getDocumentLength(0) + index.getDocumentLength(1)
+                + index.getDocumentLength(2) + index.getDocumentLength(3));
+    }
+
+    @Test
+    public void tokenizeDropsStopWordsAndStems() {
+        assertEquals(Arrays.asList("run", "mile", "study", "pace", "train", "hill"),
+                CoachIndex.tokenize("Should I be running the miles of these studies at PACE, training on hills?"));
+    }
+
+    @Test
+    public void stemStripsLightSuffixes() {
+        String[][] cases = {
+                {"runs", "run"}, {"running", "run"}, {"stopped", "stop"}, {"trained", "train"},
+                {"classes", "class"}, {"calories", "calory"}, {"stretching", "stretch"}, {"falling", "fall"},
+                // Kept whole
+                {"bus", "bus"}, {"stress", "stress"}, {"speed", "speed"}, {"string", "string"},
+                {"bed", "bed"}, {"ties", "tie"}, {"gas", "gas"}
+        };
+        for (String[] c : cases) {
+            assertEquals(c[0], c[1], CoachIndex.stem(c[0]));
+        }
+    }
+
+    @Test
+    public void decodesSnippets() throws IOException {
+        StringBuilder longDocument = new StringBuilder("name: Long\n");
+        for (int i = 0; i < 150; i++) {
+            longDocument.append("word").append(i).append(' ');
+        }
+        CoachIndex index = new CoachIndex(build("name: Muesli (Almond)\nprotein: 12.3", "kind: rest \u2013 caf\u00e9", longDocument.toString()));
+        assertEquals("name: Muesli (Almond) protein: 12.3", index.getSnippet(0));
+        assertEquals("kind: rest \u2013 caf\u00e9", index.getSnippet(1));
+        String[] words = index.getSnippet(2).split(" ");
+        assertEquals(100, words.length);
+        assertEquals("word97", words[99]);
+        // Postings cover the whole document, not only the snippet
+        assertTrue(index.findTerm("word149") >= 0);
+    }
+
+    @Test
+    public void rejectsOtherData() {
+        ByteBuffer valid = build(DOCUMENTS);
+        ByteBuffer truncated = ByteBuffer.allocate(valid.capacity() - 1);
+        truncated.put(valid.array(), 0, truncated.capacity());
+        ByteBuffer wrongVersion = ByteBuffer.wrap(valid.array().clone());
+        wrongVersion.putInt(4, CoachIndex.VERSION + 1);
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(4), ByteBuffer.allocate(64), truncated, wrongVersion}) {
+            try {
+                new CoachIndex(buffer);
+                fail();
+            } catch (IOException expected) {
+                // Not an index of this version
+            }
+        }
+    }
+}
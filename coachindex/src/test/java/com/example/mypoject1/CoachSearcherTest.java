@@ -0,0 +1,122 @@
+package com.example.mypoject1;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CoachSearcher}.
+ */
+public class CoachSearcherTest {
+
+    private static CoachSearcher searcher(String... documents) throws IOException {
+        return new CoachSearcher(new CoachIndex(ByteBuffer.wrap(CoachIndexWriter.write(Arrays.asList(documents)))));
+    }
+
+    @Test
+    public void searchesTheWrittenIndexFileMemoryMapped() throws IOException {
+        // As compileCoachIndex writes the asset and CoachKnowledgeBase maps it
+        File file = File.createTempFile("coach", ".idx");
+        try {
+            Files.write(file.toPath(), CoachIndexWriter.write(Arrays.asList(
+                    "name: Oatmeal\ncalories: 150\ntags: breakfast, carbs",
+                    "type: Run\nname: Hill repeats\nnotes: strength for hills and climbing",
+                    "kind: rest\nnotes: sleep and recovery after long runs")));
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            CoachSearcher searcher = new CoachSearcher(new CoachIndex(buffer));
+            int[] result = searcher.search("How should I recover after a long run?", 3);
+            assertEquals(2, result[0]);
+            assertEquals("kind: rest notes: sleep and recovery after long runs", searcher.getIndex().getSnippet(result[0]));
+            assertArrayEquals(new int[]{1}, searcher.search("climbing hills", 3));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void rareTermsOutweighCommonOnes() throws IOException {
+        CoachSearcher searcher = searcher(
+                "easy run, recovery pace",
+                "tempo run, threshold pace",
+                "long run, marathon pace",
+                "interval run on the track");
+        // "run" is everywhere, "threshold" only in one document
+        assertArrayEquals(new int[]{1}, searcher.search("threshold", 3));
+        assertEquals(1, searcher.search("run at threshold", 3)[0]);
+        assertEquals(3, searcher.search("Running intervals", 1)[0]);
+    }
+
+    @Test
+    public void shorterDocumentsWinForTheSameMatches() throws IOException {
+        CoachSearcher searcher = searcher(
+                "protein oats banana honey yoghurt almonds seeds berries",
+                "protein shake",
+                "protein bar with dates and oats");
+        assertArrayEquals(new int[]{1, 2, 0}, searcher.search("protein", 3));
+    }
+
+    @Test
+    public void termFrequencySaturates() throws IOException {
+        CoachSearcher searcher = searcher(
+                "hill hill hill hill hill hill hill hill repeats",
+                "hill sprint drills with strides",
+                "strides");
+        int[] result = searcher.search("hill strides", 3);
+        // Matching both terms beats repeating one
+        assertEquals(1, result[0]);
+        assertEquals(3, result.length);
+    }
+
+    @Test
+    public void tiesKeepDocumentOrderAndKLimitsTheResult() throws IOException {
+        CoachSearcher searcher = searcher("rest day", "rest day", "rest day", "rest day", "rest day");
+        assertArrayEquals(new int[]{0, 1}, searcher.search("rest", 2));
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, searcher.search("rest", 10));
+        assertEquals(0, searcher.search("rest", 0).length);
+        assertEquals(0, searcher.search("the of zzz", 3).length);
+    }
+
+    @Test
+    public void repeatedSearchesDoNotLeakScores() throws IOException {
+        CoachSearcher searcher = searcher("fartlek session", "tempo session", "tempo fartlek");
+        int[] first = searcher.search("tempo", 3);
+        searcher.search("fartlek session", 3);
+        assertArrayEquals(first, searcher.search("tempo", 3));
+        assertArrayEquals(new int[]{1, 2}, searcher.search("tempo", 3));
+    }
+
+    @Test
+    public void heapMatchesAFullSort() throws IOException {
+        Random random = new Random(7);
+        String[] vocabulary = {"pace", "cadence", "stride", "tempo", "hill", "recovery", "protein", "carb", "sleep", "hydration"};
+        String[] documents = new String[500];
+        for (int i = 0; i < documents.length; i++) {
+            StringBuilder text = new StringBuilder();
+            int words = 1 + random.nextInt(20);
+            for (int w = 0; w < words; w++) {
+                text.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+            }
+            documents[i] = text.toString();
+        }
+        CoachSearcher searcher = searcher(documents);
+        int[] all = searcher.search("tempo hill sleep", documents.length);
+        int[] top = searcher.search("tempo hill sleep", 10);
+        assertEquals(10, top.length);
+        for (int i = 0; i < top.length; i++) {
+            assertEquals(all[i], top[i]);
+        }
+    }
+}
@@ -22,4 +22,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "My Poject1"
 include(":app")
+include(":coachindex")
  
\ No newline at end of file